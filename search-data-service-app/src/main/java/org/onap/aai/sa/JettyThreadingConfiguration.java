@@ -0,0 +1,51 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa;
+
+import org.onap.aai.cl.api.Logger;
+import org.onap.aai.cl.eelf.LoggerFactory;
+import org.onap.aai.sa.searchdbabstraction.logging.SearchDbMsgs;
+import org.onap.aai.sa.searchdbabstraction.util.VirtualThreads;
+import org.springframework.boot.web.embedded.jetty.JettyServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects the thread pool used by the embedded Jetty server. When virtual threads are enabled (see
+ * {@link VirtualThreads}) requests are handled on virtual threads instead of Jetty's bounded platform thread pool.
+ */
+@Configuration
+public class JettyThreadingConfiguration {
+
+    private static final Logger logger =
+            LoggerFactory.getInstance().getLogger(JettyThreadingConfiguration.class.getName());
+
+    @Bean
+    public WebServerFactoryCustomizer<JettyServletWebServerFactory> jettyThreadPoolCustomizer() {
+        return factory -> {
+            if (VirtualThreads.isEnabled()) {
+                logger.info(SearchDbMsgs.VIRTUAL_THREADS_ENABLED, "jetty");
+                factory.setThreadPool(new VirtualThreadPool("jetty"));
+            }
+        };
+    }
+}
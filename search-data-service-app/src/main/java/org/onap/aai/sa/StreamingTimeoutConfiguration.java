@@ -0,0 +1,58 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa;
+
+import java.util.concurrent.Callable;
+import org.onap.aai.sa.searchdbabstraction.util.SearchDbConstants;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Lets streamed responses (the newline delimited bulk operations and streamed query results) run for longer than the
+ * {@code spring.mvc.async.request-timeout} which bounds the other requests. Spring MVC writes a streamed response body
+ * from a {@link Callable}, and since none of our handlers return a Callable of their own, every Callable is given the
+ * timeout set with the {@value SearchDbConstants#SDB_STREAMING_TIMEOUT_PROPERTY} system property instead.
+ */
+@Configuration
+public class StreamingTimeoutConfiguration implements WebMvcConfigurer {
+
+    private static final long TIMEOUT_MS_DEFAULT = 3600000;
+
+    private final long timeoutMs =
+            Math.max(1L, Long.getLong(SearchDbConstants.SDB_STREAMING_TIMEOUT_PROPERTY, TIMEOUT_MS_DEFAULT));
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                // Called before the request is put into asynchronous mode, while its timeout may still be changed.
+                if (request instanceof AsyncWebRequest) {
+                    ((AsyncWebRequest) request).setTimeout(timeoutMs);
+                }
+            }
+        });
+    }
+}
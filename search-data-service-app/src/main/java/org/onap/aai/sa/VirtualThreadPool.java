@@ -0,0 +1,103 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.onap.aai.sa.searchdbabstraction.util.VirtualThreads;
+
+/**
+ * A Jetty thread pool which runs every task, including request handling, on its own virtual thread. There is no upper
+ * bound on the number of threads, so a request which blocks on I/O only parks its virtual thread rather than holding
+ * one of a fixed number of platform threads.
+ */
+public class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool {
+
+    private final String name;
+    private final AtomicInteger activeThreads = new AtomicInteger();
+    private volatile ExecutorService executor;
+
+    public VirtualThreadPool(String name) {
+        this.name = name;
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        executor = VirtualThreads.newThreadPerTaskExecutor(name + "-");
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        executor.shutdown();
+        super.doStop();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        running().execute(() -> {
+            activeThreads.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                activeThreads.decrementAndGet();
+            }
+        });
+    }
+
+    @Override
+    public void join() throws InterruptedException {
+        ExecutorService current = running();
+        while (!current.awaitTermination(1, TimeUnit.MINUTES)) {
+            // Keep waiting until the pool has been stopped and all tasks have finished.
+        }
+    }
+
+    /**
+     * @return - The executor which runs the tasks.
+     * @throws IllegalStateException if the pool has not been started.
+     */
+    private ExecutorService running() {
+        ExecutorService current = executor;
+        if (current == null) {
+            throw new IllegalStateException("Thread pool " + name + " has not been started");
+        }
+        return current;
+    }
+
+    @Override
+    public int getThreads() {
+        return activeThreads.get();
+    }
+
+    @Override
+    public int getIdleThreads() {
+        return 0;
+    }
+
+    @Override
+    public boolean isLowOnThreads() {
+        return false;
+    }
+}
@@ -32,6 +32,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Timer;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 import org.onap.aai.cl.api.Logger;
@@ -51,30 +53,48 @@ public class SearchDbServiceAuthCore {
         DELETE
     }
 
-    private static boolean usersInitialized = false;
-    private static HashMap<String, SearchDbAuthUser> users;
+    // Reloads replace the whole user map, which is published through the volatile field so that readers never need to
+    // take the lock.
+    private static final Lock reloadLock = new ReentrantLock();
+    private static volatile boolean usersInitialized = false;
+    private static volatile HashMap<String, SearchDbAuthUser> users;
     private static Timer timer = null;
 
     // Don't instantiate
     private SearchDbServiceAuthCore() {}
 
-    public static synchronized void init() {
-        if (SearchDbServiceAuthCore.authFileName == null) {
-            SearchDbServiceAuthCore.authFileName = "/home/aaiadmin/etc/aaipolicy.json";
+    public static void init() {
+        reloadLock.lock();
+        try {
+            if (SearchDbServiceAuthCore.authFileName == null) {
+                SearchDbServiceAuthCore.authFileName = "/home/aaiadmin/etc/aaipolicy.json";
+            }
+            SearchDbServiceAuthCore.reloadUsers();
+        } finally {
+            reloadLock.unlock();
         }
-        SearchDbServiceAuthCore.reloadUsers();
     }
 
     public static void cleanup() {
         timer.cancel();
     }
 
-    public static synchronized void reloadUsers() {
-        users = new HashMap<>();
+    public static void reloadUsers() {
+        reloadLock.lock();
+        try {
+            users = loadUsers();
+            usersInitialized = true;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private static HashMap<String, SearchDbAuthUser> loadUsers() {
+        HashMap<String, SearchDbAuthUser> loadedUsers = new HashMap<>();
         ObjectMapper mapper = new ObjectMapper(); // can reuse, share globally
         JSONParser parser = new JSONParser();
-        try {
-            parser.parse(new FileReader(authFileName));
+        try (FileReader reader = new FileReader(authFileName)) {
+            parser.parse(reader);
             JsonNode rootNode = mapper.readTree(new File(authFileName));
             JsonNode rolesNode = rootNode.path("roles");
 
@@ -108,15 +128,15 @@ public class SearchDbServiceAuthCore {
                 for (JsonNode userNode : usersNode) {
                     String username = userNode.path("username").asText().toLowerCase();
                     SearchDbAuthUser authUser = null;
-                    if (users.containsKey(username)) {
-                        authUser = users.get(username);
+                    if (loadedUsers.containsKey(username)) {
+                        authUser = loadedUsers.get(username);
                     } else {
                         authUser = new SearchDbAuthUser();
                     }
 
                     authUser.setUser(username);
                     authUser.addRole(roleName, authRole);
-                    users.put(username, authUser);
+                    loadedUsers.put(username, authUser);
                 }
             }
         } catch (FileNotFoundException fnfe) {
@@ -132,7 +152,7 @@ public class SearchDbServiceAuthCore {
             logger.debug("IO Exception while parsing policy file: " + e.getMessage());
         }
 
-        usersInitialized = true;
+        return loadedUsers;
     }
 
     public static class SearchDbAuthUser {
@@ -203,8 +223,9 @@ public class SearchDbServiceAuthCore {
         if (!usersInitialized || (users == null)) {
             init();
         }
-        if (users.containsKey(username)) {
-            return users.get(username).checkAllowed(authFunction);
+        SearchDbAuthUser user = users.get(username);
+        if (user != null) {
+            return user.checkAllowed(authFunction);
         } else {
             return false;
         }
@@ -21,10 +21,13 @@
 package org.onap.aai.sa.rest;
 
 import com.google.common.base.Strings;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.Response.Status.Family;
 import org.onap.aai.cl.mdc.MdcContext;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.exception.DocumentStoreUnavailableException;
 import org.onap.aai.sa.searchdbabstraction.util.SearchDbConstants;
 import org.slf4j.MDC;
 import org.springframework.http.HttpHeaders;
@@ -76,6 +79,45 @@ public class ApiUtils {
         MDC.clear();
     }
 
+    /**
+     * Determines the HTTP status with which to report a failed document store operation.
+     *
+     * @param error - The cause of the failure.
+     * @return - 503 if the document store is not currently accepting the request, or 500 for any other failure.
+     */
+    public static HttpStatus getErrorStatus(Throwable error) {
+        return error instanceof DocumentStoreUnavailableException ? HttpStatus.SERVICE_UNAVAILABLE
+                : HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+
+    /**
+     * Wraps the supplied function so that it runs with the MDC context of the calling thread. This is used for the
+     * stages of an asynchronous request, which may complete on a thread other than the one which received it.
+     *
+     * @param function - The function to wrap.
+     * @return - A function which applies the captured MDC context for the duration of the call.
+     */
+    public static <T, R> Function<T, R> withMdcContext(Function<T, R> function) {
+        final Map<String, String> context = MDC.getCopyOfContextMap();
+        return value -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            setMdcContext(context);
+            try {
+                return function.apply(value);
+            } finally {
+                setMdcContext(previous);
+            }
+        };
+    }
+
+    private static void setMdcContext(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+
     public static String buildIndexUri(String index) {
         return (URL_PREFIX + "/indexes/") + index;
     }
@@ -84,16 +126,36 @@ public class ApiUtils {
         return buildIndexUri(index) + "/documents/" + documentId;
     }
 
+    public static String buildSearchTemplateUri(String index, String templateId) {
+        return buildIndexUri(index) + "/templates/" + templateId;
+    }
+
+    public static String buildBulkJobUri(String jobId) {
+        return URL_PREFIX + "/bulk/jobs/" + jobId;
+    }
+
     public static boolean validateIndexUri(String uri) {
-        uri = uri.startsWith("/") ? uri.substring(1) : uri;
-        String[] tokens = uri.split("/");
+        String[] tokens = splitUri(uri);
         return (tokens.length == 6) && (tokens[4].equals(URI_SEGMENT_INDEXES));
     }
 
     public static boolean validateDocumentUri(String uri, boolean requireId) {
+        return validateDocumentUri(splitUri(uri), requireId);
+    }
+
+    /**
+     * Splits a resource URI into its path segments, so that the segments can be validated and extracted without
+     * splitting the URI again each time.
+     *
+     * @param uri - The URI, with or without a leading slash.
+     * @return - The path segments of the URI.
+     */
+    public static String[] splitUri(String uri) {
         uri = uri.startsWith("/") ? uri.substring(1) : uri;
-        String[] tokens = uri.split("/");
+        return uri.split("/");
+    }
 
+    public static boolean validateDocumentUri(String[] tokens, boolean requireId) {
         if (requireId) {
             return (tokens.length == 8)
                     && (tokens[4].equals(URI_SEGMENT_INDEXES) && (tokens[6].equals(URI_SEGMENT_DOCUMENTS)));
@@ -104,32 +166,26 @@ public class ApiUtils {
     }
 
     public static String extractIndexFromUri(String uri) {
-        uri = uri.startsWith("/") ? uri.substring(1) : uri;
-
-        String[] tokens = uri.split("/");
-
-        int i = 0;
-        for (String token : tokens) {
-            if (token.equals(URI_SEGMENT_INDEXES) && i + 1 < tokens.length) {
-                return tokens[i + 1];
-            }
-            i++;
-        }
+        return extractIndexFromUri(splitUri(uri));
+    }
 
-        return null;
+    public static String extractIndexFromUri(String[] tokens) {
+        return extractSegmentValue(tokens, URI_SEGMENT_INDEXES);
     }
 
     public static String extractIdFromUri(String uri) {
-        uri = uri.startsWith("/") ? uri.substring(1) : uri;
+        return extractIdFromUri(splitUri(uri));
+    }
 
-        String[] tokens = uri.split("/");
+    public static String extractIdFromUri(String[] tokens) {
+        return extractSegmentValue(tokens, URI_SEGMENT_DOCUMENTS);
+    }
 
-        int i = 0;
-        for (String token : tokens) {
-            if (token.equals(URI_SEGMENT_DOCUMENTS) && i + 1 < tokens.length) {
+    private static String extractSegmentValue(String[] tokens, String segment) {
+        for (int i = 0; i + 1 < tokens.length; i++) {
+            if (tokens[i].equals(segment)) {
                 return tokens[i + 1];
             }
-            i++;
         }
 
         return null;
@@ -20,11 +20,17 @@
  */
 package org.onap.aai.sa.rest;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.github.fge.jsonschema.main.JsonSchema;
 import com.github.fge.jsonschema.main.JsonSchemaFactory;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import javax.servlet.http.HttpServletRequest;
 import org.onap.aai.cl.api.LogFields;
 import org.onap.aai.cl.api.LogLine;
@@ -38,6 +44,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * This class encapsulates the REST end points associated with performing bulk operations against the document store.
@@ -68,6 +75,24 @@ public class BulkApi {
 
     private static final String MSG_STACK_TRACE = "Stack Trace:\n";
 
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Media type of requests which hold one bulk operation per line.
+     */
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+
+    /**
+     * The number of operations of a streamed bulk request which are passed to the document store at once.
+     */
+    private static final int STREAM_WINDOW_SIZE = 1000;
+
+    /**
+     * The number of windows of a streamed bulk request which may be waiting for the document store at once.
+     */
+    private static final int STREAM_MAX_WINDOWS_IN_FLIGHT = 2;
+
     /**
      * Create a new instance of the BulkApi end point.
      */
@@ -101,31 +126,16 @@ public class BulkApi {
             return buildResponse(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Missing payload", request);
         }
 
-        try {
-            // Validate that the request is correctly authenticated before going any further.
-            if (!searchService.validateRequest(headers, request, ApiUtils.Action.POST,
-                    ApiUtils.SEARCH_AUTH_POLICY_NAME)) {
-                logger.warn(SearchDbMsgs.BULK_OPERATION_FAILURE, "Authentication failure.");
-
-                return buildResponse(HttpStatus.FORBIDDEN.value(), "Authentication failure.", request);
-            }
-        } catch (Exception e) {
-            // This is a catch all for any unexpected failure trying to perform the authentication.
-            logger.warn(SearchDbMsgs.BULK_OPERATION_FAILURE,
-                    "Unexpected authentication failure - cause: " + e.getMessage());
-            if (logger.isDebugEnabled()) {
-                logger.debug(MSG_STACK_TRACE + e.getStackTrace());
-            }
-
-            return buildResponse(HttpStatus.FORBIDDEN.value(), "Authentication failure - cause " + e.getMessage(),
-                    request);
+        // Validate that the request is correctly authenticated before going any further.
+        ResponseEntity<String> authFailure = authenticate(request, headers, ApiUtils.Action.POST);
+        if (authFailure != null) {
+            return authFailure;
         }
 
         // Marshal the supplied json string into a Java object.
-        ObjectMapper mapper = new ObjectMapper();
         BulkRequest[] requests = null;
         try {
-            requests = mapper.readValue(operations, BulkRequest[].class);
+            requests = BulkRequestParser.parseOperations(operations);
         } catch (IOException e) {
             logger.warn(SearchDbMsgs.BULK_OPERATION_FAILURE, "Failed to marshal operations list: " + e.getMessage());
             if (logger.isDebugEnabled()) {
@@ -162,7 +172,7 @@ public class BulkApi {
                 logger.debug(MSG_STACK_TRACE + e.getStackTrace());
             }
 
-            resultCode = HttpStatus.INTERNAL_SERVER_ERROR.value();
+            resultCode = ApiUtils.getErrorStatus(e).value();
             resultString = "Unexpected failure processing bulk operations: " + e.getMessage();
         }
 
@@ -178,6 +188,188 @@ public class BulkApi {
         return buildResponse(resultCode, resultString, request);
     }
 
+    /**
+     * Processes client requests containing a newline delimited stream of operations to be performed in bulk. The
+     * operations are performed as they are read, a window at a time, and the result of each operation is streamed
+     * back to the client as soon as it is known, so that requests of any size can be handled in bounded memory.
+     *
+     * <p>
+     * Method: POST
+     *
+     * @param request - Raw HTTP request, whose body holds one operation per line.
+     * @param headers - HTTP headers.
+     * @return - A response whose body holds the result of each operation on a line of its own, followed by a summary.
+     */
+    public ResponseEntity<StreamingResponseBody> processStreamingPost(HttpServletRequest request,
+            HttpHeaders headers, DocumentStoreInterface documentStore) {
+        ApiUtils.initMdcContext(request, headers);
+
+        ResponseEntity<String> authFailure = authenticate(request, headers, ApiUtils.Action.POST);
+        if (authFailure != null) {
+            return DocumentApi.streamed(authFailure);
+        }
+
+        InputStream operations;
+        try {
+            operations = request.getInputStream();
+        } catch (IOException e) {
+            logger.warn(SearchDbMsgs.BULK_OPERATION_FAILURE, "Failed to read operations: " + e.getMessage());
+            return DocumentApi.streamed(buildResponse(HttpStatus.BAD_REQUEST.value(),
+                    "Unable to read operations: " + e.getMessage(), request));
+        }
+
+        // The operations are performed, and the outcome logged, on other threads, so carry our MDC context across.
+        Function<BulkRequest[], OperationResult> performer = createPerformer(documentStore);
+        Function<BulkStreamProcessor, Void> outcomeLogger = ApiUtils.withMdcContext(finished -> {
+            if (finished.getTotalFails() == 0) {
+                logger.info(SearchDbMsgs.PROCESSED_BULK_OPERATIONS);
+            } else {
+                logger.warn(SearchDbMsgs.BULK_OPERATION_FAILURE, finished.getTotalFails() + " operations failed");
+            }
+            return null;
+        });
+
+        BulkStreamProcessor processor =
+                new BulkStreamProcessor(performer, STREAM_WINDOW_SIZE, STREAM_MAX_WINDOWS_IN_FLIGHT);
+        logAudit(HttpStatus.OK.value(), request);
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(out -> {
+            processor.process(operations, out);
+            outcomeLogger.apply(processor);
+        });
+    }
+
+    /**
+     * Accepts a set of operations to be performed in bulk in the background, and answers straight away with the id of
+     * the job which will perform them.
+     *
+     * <p>
+     * Method: POST
+     *
+     * @param operations - JSON structure enumerating the operations to be performed.
+     * @param request - Raw HTTP request.
+     * @param headers - HTTP headers.
+     * @return - A response holding the id and status of the job, with the URL at which its progress can be followed.
+     */
+    public ResponseEntity<String> processJobPost(String operations, HttpServletRequest request, HttpHeaders headers,
+            DocumentStoreInterface documentStore) {
+        ApiUtils.initMdcContext(request, headers);
+
+        if (operations == null) {
+            logger.warn(SearchDbMsgs.BULK_OPERATION_FAILURE, "Missing operations list payload");
+            return buildResponse(HttpStatus.BAD_REQUEST.value(), "Missing payload", request);
+        }
+
+        ResponseEntity<String> authFailure = authenticate(request, headers, ApiUtils.Action.POST);
+        if (authFailure != null) {
+            return authFailure;
+        }
+
+        BulkRequest[] requests;
+        try {
+            requests = BulkRequestParser.parseOperations(operations);
+        } catch (IOException e) {
+            logger.warn(SearchDbMsgs.BULK_OPERATION_FAILURE, "Failed to marshal operations list: " + e.getMessage());
+            return buildResponse(HttpStatus.BAD_REQUEST.value(), "Unable to marshal operations: " + e.getMessage(),
+                    request);
+        }
+        if (requests.length == 0) {
+            logger.warn(SearchDbMsgs.BULK_OPERATION_FAILURE, "Empty operations list in bulk request");
+            return buildResponse(HttpStatus.BAD_REQUEST.value(), "Empty operations list in bulk request", request);
+        }
+
+        BulkJob job = BulkJobManager.getInstance().submit(requests, createPerformer(documentStore));
+        if (job == null) {
+            logger.warn(SearchDbMsgs.BULK_OPERATION_FAILURE, "Too many bulk jobs are waiting to run");
+            return buildResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many bulk jobs are waiting to run",
+                    request);
+        }
+
+        String jobUrl = ApiUtils.buildBulkJobUri(job.getId());
+        String body = "{\"job_id\": \"" + job.getId() + "\", \"status\": \""
+                + job.getStatus().name().toLowerCase(Locale.ROOT) + "\", \"url\": \"" + jobUrl + "\"}";
+        logAudit(HttpStatus.ACCEPTED.value(), request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).header(HttpHeaders.LOCATION, "/" + jobUrl)
+                .contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Reports the progress of a bulk job, and once it has completed, the result of each of its operations.
+     *
+     * <p>
+     * Method: GET
+     *
+     * @param jobId - The id of the job.
+     * @param request - Raw HTTP request.
+     * @param headers - HTTP headers.
+     * @return - A response holding the status of the job.
+     */
+    public ResponseEntity<String> processJobGet(String jobId, HttpServletRequest request, HttpHeaders headers) {
+        ApiUtils.initMdcContext(request, headers);
+
+        ResponseEntity<String> authFailure = authenticate(request, headers, ApiUtils.Action.GET);
+        if (authFailure != null) {
+            return authFailure;
+        }
+
+        BulkJob job = BulkJobManager.getInstance().get(jobId);
+        if (job == null) {
+            return buildResponse(HttpStatus.NOT_FOUND.value(), "Unknown or expired bulk job: " + jobId, request);
+        }
+
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(writer)) {
+            job.writeStatus(gen);
+        } catch (IOException e) {
+            logger.warn(SearchDbMsgs.BULK_OPERATION_FAILURE, "Failed to write bulk job status: " + e.getMessage());
+            return buildResponse(HttpStatus.INTERNAL_SERVER_ERROR.value(),
+                    "Unable to write bulk job status: " + e.getMessage(), request);
+        }
+        return buildResponse(HttpStatus.OK.value(), writer.toString(), request);
+    }
+
+    /**
+     * Creates a function which passes a set of operations to the document store on behalf of this request, from
+     * whichever thread it is called on.
+     */
+    private static Function<BulkRequest[], OperationResult> createPerformer(DocumentStoreInterface documentStore) {
+        return ApiUtils.withMdcContext(window -> {
+            try {
+                return documentStore.performBulkOperations(window);
+            } catch (DocumentStoreOperationException e) {
+                logger.warn(SearchDbMsgs.BULK_OPERATION_FAILURE,
+                        "Unexpected failure communicating with document store: " + e.getMessage());
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Checks that the request is correctly authenticated.
+     *
+     * @return - null if the request is authenticated, otherwise the response to send to the client.
+     */
+    private ResponseEntity<String> authenticate(HttpServletRequest request, HttpHeaders headers,
+            ApiUtils.Action action) {
+        try {
+            if (!searchService.validateRequest(headers, request, action, ApiUtils.SEARCH_AUTH_POLICY_NAME)) {
+                logger.warn(SearchDbMsgs.BULK_OPERATION_FAILURE, "Authentication failure.");
+
+                return buildResponse(HttpStatus.FORBIDDEN.value(), "Authentication failure.", request);
+            }
+        } catch (Exception e) {
+            // This is a catch all for any unexpected failure trying to perform the authentication.
+            logger.warn(SearchDbMsgs.BULK_OPERATION_FAILURE,
+                    "Unexpected authentication failure - cause: " + e.getMessage());
+            if (logger.isDebugEnabled()) {
+                logger.debug(MSG_STACK_TRACE + e.getStackTrace());
+            }
+
+            return buildResponse(HttpStatus.FORBIDDEN.value(), "Authentication failure - cause " + e.getMessage(),
+                    request);
+        }
+        return null;
+    }
+
     /**
      * This method generates an audit log and returns an HTTP response object.
      *
@@ -190,6 +382,17 @@ public class BulkApi {
         ResponseEntity<String> response =
                 ResponseEntity.status(resultCode).contentType(MediaType.APPLICATION_JSON).body(resultString);
 
+        logAudit(resultCode, request);
+        return response;
+    }
+
+    /**
+     * This method generates an audit log and clears the MDC context.
+     *
+     * @param resultCode - The result code to report.
+     * @param request - The HTTP request to extract data from for the audit log.
+     */
+    private void logAudit(int resultCode, HttpServletRequest request) {
         // Generate our audit log.
         String unknownLogField = "Unknown";
         auditLogger.info(SearchDbMsgs.PROCESS_REST_REQUEST,
@@ -197,13 +400,10 @@ public class BulkApi {
                         .setField(LogLine.DefinedFields.RESPONSE_DESCRIPTION, ApiUtils.getHttpStatusString(resultCode)),
                 (request != null) ? request.getMethod() : unknownLogField,
                 (request != null) ? request.getRequestURL().toString() : unknownLogField,
-                (request != null) ? request.getRemoteHost() : unknownLogField,
-                Integer.toString(response.getStatusCodeValue()));
+                (request != null) ? request.getRemoteHost() : unknownLogField, Integer.toString(resultCode));
 
         // Clear the MDC context so that no other transaction inadvertently
         // uses our transaction id.
         ApiUtils.clearMdcContext();
-
-        return response;
     }
 }
@@ -0,0 +1,165 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.rest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.dao.DocumentStoreFutures;
+import org.onap.aai.sa.searchdbabstraction.entity.OperationResult;
+
+/**
+ * A bulk request which is performed in the background, so that the client does not need to wait for it.
+ *
+ * <p>
+ * The operations are passed to the document store a window at a time, and the number of operations which have
+ * succeeded and failed so far is kept up to date as each window completes. Once every window has completed, the result
+ * of each operation is available in the form of the bulk response's results list.
+ */
+final class BulkJob {
+
+    enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String id;
+    private final int totalOperations;
+    private BulkRequest[] requests;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile BulkResultWriter progress;
+    private volatile String results;
+    private volatile String failureCause;
+    private volatile long finishedAtNanos;
+
+    BulkJob(String id, BulkRequest[] requests) {
+        this.id = id;
+        this.requests = requests;
+        this.totalOperations = requests.length;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return - true if the job has finished, and was finished for longer than the supplied time.
+     */
+    boolean isExpired(long retentionNanos) {
+        return (status == Status.COMPLETED || status == Status.FAILED)
+                && System.nanoTime() - finishedAtNanos > retentionNanos;
+    }
+
+    long getTotalSuccess() {
+        BulkResultWriter counts = progress;
+        return (counts == null) ? 0 : counts.getTotalSuccess();
+    }
+
+    long getTotalFails() {
+        BulkResultWriter counts = progress;
+        return (counts == null) ? 0 : counts.getTotalFails();
+    }
+
+    String getFailureCause() {
+        return failureCause;
+    }
+
+    /**
+     * Performs the operations, then releases them. A failure to perform the job is recorded rather than thrown.
+     *
+     * @param documentStore - Performs a window of operations, failing with a {@link CompletionException} if the
+     *        document store could not be reached.
+     * @param windowSize - The number of operations passed to the document store at once.
+     */
+    void run(Function<BulkRequest[], OperationResult> documentStore, int windowSize) {
+        status = Status.RUNNING;
+        try {
+            StringWriter writer = new StringWriter();
+            try (JsonGenerator gen = JSON_FACTORY.createGenerator(writer)) {
+                BulkResultWriter resultWriter = new BulkResultWriter(gen, false);
+                progress = resultWriter;
+
+                gen.writeStartArray();
+                for (int from = 0; from < requests.length; from += windowSize) {
+                    BulkRequest[] window =
+                            Arrays.copyOfRange(requests, from, Math.min(requests.length, from + windowSize));
+                    try {
+                        resultWriter.writeResults(documentStore.apply(window));
+                    } catch (CompletionException e) {
+                        resultWriter.writeFailures(Arrays.asList(window), DocumentStoreFutures.unwrap(e));
+                    }
+                }
+                gen.writeEndArray();
+            }
+            results = writer.toString();
+            finish(Status.COMPLETED);
+        } catch (IOException | RuntimeException e) {
+            failureCause = e.getMessage();
+            finish(Status.FAILED);
+        } finally {
+            requests = null;
+        }
+    }
+
+    /**
+     * Records when the job finished before publishing its final status, so that a job is never seen as finished
+     * without the time at which it finished, which would make it appear to have expired at once.
+     */
+    private void finish(Status finalStatus) {
+        finishedAtNanos = System.nanoTime();
+        status = finalStatus;
+    }
+
+    /**
+     * Writes the state of the job, including the result of each operation once the job has completed.
+     */
+    void writeStatus(JsonGenerator gen) throws IOException {
+        // Read the status once, as it may change while we write.
+        Status current = status;
+        gen.writeStartObject();
+        gen.writeStringField("job_id", id);
+        gen.writeStringField("status", current.name().toLowerCase(Locale.ROOT));
+        gen.writeNumberField("total_operations", totalOperations);
+        gen.writeNumberField("total_success", getTotalSuccess());
+        gen.writeNumberField("total_fails", getTotalFails());
+        if (current == Status.COMPLETED) {
+            gen.writeFieldName("results");
+            gen.writeRawValue(results);
+        } else if (current == Status.FAILED) {
+            gen.writeStringField("status-message", "Unexpected failure processing bulk operations: " + failureCause);
+        }
+        gen.writeEndObject();
+    }
+}
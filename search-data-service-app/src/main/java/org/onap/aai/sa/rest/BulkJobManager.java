@@ -0,0 +1,166 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.rest;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.onap.aai.cl.api.Logger;
+import org.onap.aai.cl.eelf.LoggerFactory;
+import org.onap.aai.sa.searchdbabstraction.entity.OperationResult;
+import org.onap.aai.sa.searchdbabstraction.logging.SearchDbMsgs;
+import org.onap.aai.sa.searchdbabstraction.util.SearchDbConstants;
+
+/**
+ * Runs bulk jobs on a bounded pool of worker threads, and keeps each job for a while after it has finished so that its
+ * results can be collected.
+ *
+ * <p>
+ * The number of workers, the number of jobs which may wait for a worker, and the time for which a finished job is kept
+ * are set with the {@value SearchDbConstants#SDB_BULK_JOB_WORKERS_PROPERTY},
+ * {@value SearchDbConstants#SDB_BULK_JOB_QUEUE_SIZE_PROPERTY} and
+ * {@value SearchDbConstants#SDB_BULK_JOB_RETENTION_PROPERTY} system properties.
+ */
+final class BulkJobManager {
+
+    private static final Logger logger = LoggerFactory.getInstance().getLogger(BulkJobManager.class.getName());
+
+    private static final int WORKERS_DEFAULT = 2;
+    private static final int QUEUE_SIZE_DEFAULT = 100;
+    private static final long RETENTION_MS_DEFAULT = 3_600_000L;
+
+    /**
+     * The bounds of the interval between sweeps for expired jobs. A job which has expired but not yet been swept is
+     * never returned.
+     */
+    private static final long MIN_SWEEP_INTERVAL_MS = 1_000L;
+    private static final long MAX_SWEEP_INTERVAL_MS = 60_000L;
+
+    /**
+     * The number of operations of a job which are passed to the document store at once.
+     */
+    private static final int WINDOW_SIZE = 1000;
+
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService sweeper;
+    private final long retentionNanos;
+    private final Map<String, BulkJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * @param workers - The number of jobs which may run at once.
+     * @param queueSize - The number of jobs which may wait for a worker.
+     * @param retentionMs - The time for which a finished job is kept.
+     */
+    BulkJobManager(int workers, int queueSize, long retentionMs) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "bulk-job-" + threadCount.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.retentionNanos = TimeUnit.MILLISECONDS.toNanos(retentionMs);
+
+        long sweepIntervalMs = Math.max(MIN_SWEEP_INTERVAL_MS, Math.min(retentionMs, MAX_SWEEP_INTERVAL_MS));
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bulk-job-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::removeExpiredJobs, sweepIntervalMs, sweepIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return - The manager shared by the bulk job end points.
+     */
+    static BulkJobManager getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Queues a job to perform a set of operations.
+     *
+     * @param requests - The operations.
+     * @param documentStore - Performs a window of operations, failing with a
+     *        {@link java.util.concurrent.CompletionException} if the document store could not be reached.
+     * @return - The job, or null if too many jobs are already waiting.
+     */
+    BulkJob submit(BulkRequest[] requests, Function<BulkRequest[], OperationResult> documentStore) {
+        BulkJob job = new BulkJob(UUID.randomUUID().toString(), requests);
+        jobs.put(job.getId(), job);
+        try {
+            workers.execute(() -> run(job, documentStore));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            return null;
+        }
+        return job;
+    }
+
+    /**
+     * @param id - The id of a job.
+     * @return - The job, or null if there is no such job or it has expired.
+     */
+    BulkJob get(String id) {
+        BulkJob job = jobs.get(id);
+        if (job != null && job.isExpired(retentionNanos)) {
+            jobs.remove(id);
+            return null;
+        }
+        return job;
+    }
+
+    void shutdown() {
+        sweeper.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private void run(BulkJob job, Function<BulkRequest[], OperationResult> documentStore) {
+        job.run(documentStore, WINDOW_SIZE);
+        if (job.getStatus() == BulkJob.Status.COMPLETED) {
+            logger.info(SearchDbMsgs.BULK_JOB_COMPLETED, job.getId(), Long.toString(job.getTotalSuccess()),
+                    Long.toString(job.getTotalFails()));
+        } else {
+            logger.warn(SearchDbMsgs.BULK_JOB_FAILURE, job.getId(), job.getFailureCause());
+        }
+    }
+
+    private void removeExpiredJobs() {
+        jobs.values().removeIf(job -> job.isExpired(retentionNanos));
+    }
+
+    private static final class InstanceHolder {
+        private static final BulkJobManager INSTANCE = new BulkJobManager(
+                Math.max(1, Integer.getInteger(SearchDbConstants.SDB_BULK_JOB_WORKERS_PROPERTY, WORKERS_DEFAULT)),
+                Math.max(1, Integer.getInteger(SearchDbConstants.SDB_BULK_JOB_QUEUE_SIZE_PROPERTY,
+                        QUEUE_SIZE_DEFAULT)),
+                Math.max(0L, Long.getLong(SearchDbConstants.SDB_BULK_JOB_RETENTION_PROPERTY, RETENTION_MS_DEFAULT)));
+    }
+}
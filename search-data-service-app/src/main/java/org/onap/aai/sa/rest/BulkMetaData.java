@@ -20,11 +20,18 @@
  */
 package org.onap.aai.sa.rest;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class BulkMetaData {
 
     private String url;
     private String etag;
 
+    /**
+     * The path segments of the URL, split once when the URL is set rather than each time the index or id is needed.
+     */
+    private String[] urlTokens;
+
 
     public String getUrl() {
         return url;
@@ -32,6 +39,31 @@ public class BulkMetaData {
 
     public void setUrl(String url) {
         this.url = url;
+        this.urlTokens = (url == null) ? null : ApiUtils.splitUri(url);
+    }
+
+    /**
+     * @return - The index named in the URL, or null if the URL does not name one.
+     */
+    @JsonIgnore
+    public String getIndex() {
+        return (urlTokens == null) ? null : ApiUtils.extractIndexFromUri(urlTokens);
+    }
+
+    /**
+     * @return - The document id named in the URL, or null if the URL does not name one.
+     */
+    @JsonIgnore
+    public String getId() {
+        return (urlTokens == null) ? null : ApiUtils.extractIdFromUri(urlTokens);
+    }
+
+    /**
+     * @param requireId - Whether the URL must name a document id.
+     * @return - true if the URL is a well formed document URL.
+     */
+    public boolean isValidDocumentUrl(boolean requireId) {
+        return (urlTokens != null) && ApiUtils.validateDocumentUri(urlTokens, requireId);
     }
 
     public String getEtag() {
@@ -87,11 +87,11 @@ public class BulkRequest {
     }
 
     public String getIndex() {
-        return ApiUtils.extractIndexFromUri(getOperation().getMetaData().getUrl());
+        return getOperation().getMetaData().getIndex();
     }
 
     public String getId() {
-        return ApiUtils.extractIdFromUri(getOperation().getMetaData().getUrl());
+        return getOperation().getMetaData().getId();
     }
 
     @Override
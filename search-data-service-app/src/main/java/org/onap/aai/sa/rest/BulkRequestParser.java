@@ -0,0 +1,216 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.rest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads bulk requests with a single pass of a streaming parser.
+ *
+ * <p>
+ * The metadata of each operation is read into a {@link BulkMetaData}, but the document of each operation is not
+ * parsed into fields. Instead it is kept as the range of the request content which holds it, so that it can be copied
+ * straight into the request to the document store.
+ */
+final class BulkRequestParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String ATTR_CREATE = "create";
+    private static final String ATTR_UPDATE = "update";
+    private static final String ATTR_DELETE = "delete";
+    private static final String ATTR_META_DATA = "metaData";
+    private static final String ATTR_DOCUMENT = "document";
+    private static final String ATTR_URL = "url";
+    private static final String ATTR_ETAG = "etag";
+
+    private BulkRequestParser() { // Do not instantiate
+    }
+
+    /**
+     * Parses the operations list of a bulk request.
+     *
+     * @param content - A JSON array of operations.
+     * @return - The operations.
+     * @throws IOException if the content is not a well formed operations list.
+     */
+    static BulkRequest[] parseOperations(String content) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(content)) {
+            expect(parser, parser.nextToken(), JsonToken.START_ARRAY, "an array of operations");
+
+            List<BulkRequest> requests = new ArrayList<>();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                requests.add(readRequest(parser, content));
+            }
+            return requests.toArray(new BulkRequest[requests.size()]);
+        }
+    }
+
+    /**
+     * Parses a single operation of a bulk request.
+     *
+     * @param content - A JSON operation.
+     * @return - The operation.
+     * @throws IOException if the content is not a well formed operation.
+     */
+    static BulkRequest parseOperation(String content) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(content)) {
+            parser.nextToken();
+            return readRequest(parser, content);
+        }
+    }
+
+    private static BulkRequest readRequest(JsonParser parser, String content) throws IOException {
+        expect(parser, parser.getCurrentToken(), JsonToken.START_OBJECT, "an operation");
+
+        BulkRequest request = new BulkRequest();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            switch (name) {
+                case ATTR_CREATE:
+                    request.setCreate(readOperation(parser, content));
+                    break;
+                case ATTR_UPDATE:
+                    request.setUpdate(readOperation(parser, content));
+                    break;
+                case ATTR_DELETE:
+                    request.setDelete(readOperation(parser, content));
+                    break;
+                default:
+                    throw unrecognizedField(parser, name);
+            }
+        }
+        return request;
+    }
+
+    private static BulkOperation readOperation(JsonParser parser, String content) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, parser.getCurrentToken(), JsonToken.START_OBJECT, "an operation body");
+
+        BulkOperation operation = new BulkOperation();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            switch (name) {
+                case ATTR_META_DATA:
+                    operation.setMetaData(readMetaData(parser));
+                    break;
+                case ATTR_DOCUMENT:
+                    operation.setDocument(readDocument(parser, content));
+                    break;
+                default:
+                    throw unrecognizedField(parser, name);
+            }
+        }
+        return operation;
+    }
+
+    private static BulkMetaData readMetaData(JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, parser.getCurrentToken(), JsonToken.START_OBJECT, "the operation metadata");
+
+        BulkMetaData metaData = new BulkMetaData();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            switch (name) {
+                case ATTR_URL:
+                    metaData.setUrl(readText(parser));
+                    break;
+                case ATTR_ETAG:
+                    metaData.setEtag(readText(parser));
+                    break;
+                default:
+                    throw unrecognizedField(parser, name);
+            }
+        }
+        return metaData;
+    }
+
+    private static String readText(JsonParser parser) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isScalarValue()) {
+            throw new JsonParseException(parser, "Expected a text value but found " + token);
+        }
+        return parser.getText();
+    }
+
+    private static Document readDocument(JsonParser parser, String content) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, parser.getCurrentToken(), JsonToken.START_OBJECT, "a document");
+
+        int start = (int) parser.getTokenLocation().getCharOffset();
+        parser.skipChildren();
+        int end = (int) parser.getCurrentLocation().getCharOffset();
+
+        // The document store expects each document on a single line, so a document which was laid out over several
+        // lines is rewritten without the line breaks. JSON strings cannot hold raw line breaks, so any line break in
+        // the range lies between tokens.
+        for (int i = start; i < end; i++) {
+            char c = content.charAt(i);
+            if (c == '\n' || c == '\r') {
+                String compact = compact(content.substring(start, end));
+                return new Document(compact, 0, compact.length());
+            }
+        }
+        return new Document(content, start, end);
+    }
+
+    private static String compact(String json) throws IOException {
+        StringWriter writer = new StringWriter(json.length());
+        try (JsonParser parser = JSON_FACTORY.createParser(json);
+                JsonGenerator gen = JSON_FACTORY.createGenerator(writer)) {
+            parser.nextToken();
+            gen.copyCurrentStructure(parser);
+        }
+        return writer.toString();
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected, String description)
+            throws JsonParseException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + description + " but found "
+                    + ((actual == null) ? "end of input" : actual.toString()));
+        }
+    }
+
+    private static JsonParseException unrecognizedField(JsonParser parser, String name) {
+        return new JsonParseException(parser, "Unrecognized field \"" + name + "\"");
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.rest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.util.List;
+import org.onap.aai.sa.searchdbabstraction.entity.OperationResult;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Writes the results of bulk operations one at a time as they become known, keeping count of how many of them
+ * succeeded and failed.
+ *
+ * <p>
+ * Each result has the form of an element of the bulk response's results list. The results are written either as lines
+ * of newline delimited JSON, or as the elements of a JSON array which the caller has started.
+ */
+final class BulkResultWriter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String ATTR_RESULTS = "results";
+    private static final String ATTR_STATUS_CODE = "status-code";
+    private static final String ATTR_STATUS_MESSAGE = "status-message";
+
+    private final JsonGenerator gen;
+    private final boolean lineDelimited;
+
+    // Only the writing thread updates the totals, but they may be read from other threads while results are written.
+    private volatile long totalOperations;
+    private volatile long totalSuccess;
+    private volatile long totalFails;
+
+    /**
+     * @param gen - The generator to write the results with.
+     * @param lineDelimited - true to end each result with a line break, false to leave the generator to separate them.
+     */
+    BulkResultWriter(JsonGenerator gen, boolean lineDelimited) {
+        this.gen = gen;
+        this.lineDelimited = lineDelimited;
+    }
+
+    /**
+     * Writes whatever belongs before the result of an operation.
+     */
+    interface BeforeResult {
+
+        /**
+         * @param position - The position of the operation among those whose results are written, counting from zero.
+         * @throws IOException if the response could not be written.
+         */
+        void write(int position) throws IOException;
+    }
+
+    /**
+     * Copies each element of the results list of a bulk response.
+     */
+    void writeResults(OperationResult result) throws IOException {
+        writeResults(result, position -> {
+        });
+    }
+
+    /**
+     * Copies each element of the results list of a bulk response.
+     *
+     * @param result - The bulk response.
+     * @param before - Called before each element is copied.
+     */
+    void writeResults(OperationResult result, BeforeResult before) throws IOException {
+        if (result.getResult() == null) {
+            return;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(result.getResult())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                if (parser.nextToken() != JsonToken.START_ARRAY || !ATTR_RESULTS.equals(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                int position = 0;
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    before.write(position++);
+                    writeResult(parser);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports each of a set of operations as failed, because the document store could not perform them.
+     *
+     * @param requests - The operations.
+     * @param cause - Why the document store could not perform them.
+     */
+    void writeFailures(List<BulkRequest> requests, Throwable cause) throws IOException {
+        writeFailures(requests, cause, position -> {
+        });
+    }
+
+    /**
+     * Reports each of a set of operations as failed, because the document store could not perform them.
+     *
+     * @param requests - The operations.
+     * @param cause - Why the document store could not perform them.
+     * @param before - Called before each operation is reported.
+     */
+    void writeFailures(List<BulkRequest> requests, Throwable cause, BeforeResult before) throws IOException {
+        int status = ApiUtils.getErrorStatus(cause).value();
+        String reason = "Unexpected failure processing bulk operations: " + cause.getMessage();
+        int position = 0;
+        for (BulkRequest request : requests) {
+            before.write(position++);
+            gen.writeStartObject();
+            gen.writeStringField("operation", String.valueOf(request.getOperationType()).toLowerCase());
+            if (request.getOperation() != null && request.getOperation().getMetaData() != null) {
+                gen.writeStringField("url", request.getOperation().getMetaData().getUrl());
+            }
+            gen.writeStringField(ATTR_STATUS_CODE, Integer.toString(status));
+            gen.writeStringField(ATTR_STATUS_MESSAGE, reason);
+            endResult(status);
+        }
+    }
+
+    /**
+     * Reports a line of a request as rejected, because it does not hold a well formed operation.
+     *
+     * @param lineNumber - The number of the line, counting from one.
+     * @param reason - Why the line was rejected.
+     */
+    void writeRejection(long lineNumber, String reason) throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("line", lineNumber);
+        gen.writeStringField(ATTR_STATUS_CODE, Integer.toString(HttpStatus.BAD_REQUEST.value()));
+        gen.writeStringField(ATTR_STATUS_MESSAGE, reason);
+        endResult(HttpStatus.BAD_REQUEST.value());
+    }
+
+    /**
+     * Writes the totals so far as fields of the object being written.
+     */
+    void writeTotals() throws IOException {
+        gen.writeNumberField("total_operations", totalOperations);
+        gen.writeNumberField("total_success", totalSuccess);
+        gen.writeNumberField("total_fails", totalFails);
+    }
+
+    long getTotalOperations() {
+        return totalOperations;
+    }
+
+    long getTotalSuccess() {
+        return totalSuccess;
+    }
+
+    long getTotalFails() {
+        return totalFails;
+    }
+
+    private void writeResult(JsonParser parser) throws IOException {
+        int status = 0;
+        gen.writeStartObject();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (ATTR_STATUS_CODE.equals(field)) {
+                status = parseStatus(parser.getValueAsString());
+            }
+            gen.writeFieldName(field);
+            gen.copyCurrentStructure(parser);
+        }
+        endResult(status);
+    }
+
+    private void endResult(int status) throws IOException {
+        gen.writeEndObject();
+        if (lineDelimited) {
+            gen.writeRaw('\n');
+        }
+
+        totalOperations++;
+        if (ApiUtils.isSuccessStatusCode(status)) {
+            totalSuccess++;
+        } else {
+            totalFails++;
+        }
+    }
+
+    private static int parseStatus(String status) {
+        try {
+            return Integer.parseInt(status);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.rest;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.dao.DocumentStoreFutures;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.exception.DocumentStoreOperationException;
+import org.onap.aai.sa.searchdbabstraction.entity.OperationResult;
+import org.onap.aai.sa.searchdbabstraction.util.VirtualThreads;
+
+/**
+ * Performs the operations of a newline delimited JSON bulk request as they are read from the client, and writes the
+ * result of each operation back as soon as it is known.
+ *
+ * <p>
+ * Each line of the request holds one operation, in the form of an element of the JSON bulk request's operations list.
+ * The operations are collected into windows which are passed to the document store one at a time, with a bounded
+ * number of windows in flight, so that the memory used does not depend on the size of the request. Each line of the
+ * response holds the result of one operation, in the form of an element of the bulk response's results list, in the
+ * order of the operations. The last line summarises the request as a whole.
+ */
+final class BulkStreamProcessor {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final ExecutorService EXECUTOR = VirtualThreads.newBlockingTaskExecutor("bulk-stream");
+
+    private final Function<BulkRequest[], OperationResult> documentStore;
+    private final int windowSize;
+    private final int maxWindowsInFlight;
+
+    private JsonGenerator gen;
+    private BulkResultWriter results;
+
+    /**
+     * @param documentStore - Performs a window of operations, failing with a {@link CompletionException} wrapping a
+     *        {@link DocumentStoreOperationException} if the document store could not be reached.
+     * @param windowSize - The number of operations passed to the document store at once.
+     * @param maxWindowsInFlight - The number of windows which may be waiting for the document store at once.
+     */
+    BulkStreamProcessor(Function<BulkRequest[], OperationResult> documentStore, int windowSize,
+            int maxWindowsInFlight) {
+        this.documentStore = documentStore;
+        this.windowSize = windowSize;
+        this.maxWindowsInFlight = maxWindowsInFlight;
+    }
+
+    /**
+     * Reads the operations from the client, performs them and writes their results.
+     *
+     * @param in - The request body.
+     * @param out - The response body, which is left open.
+     * @throws IOException if the request could not be read or the response could not be written.
+     */
+    void process(InputStream in, OutputStream out) throws IOException {
+        Deque<Window> inFlight = new ArrayDeque<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            gen = generator;
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Each line ends with its own line break, so nothing else is needed between them.
+            gen.setRootValueSeparator(null);
+            results = new BulkResultWriter(gen, true);
+
+            Window window = new Window();
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+
+                try {
+                    window.requests.add(BulkRequestParser.parseOperation(line));
+                } catch (IOException e) {
+                    window.rejections.add(new Rejection(window.requests.size(), lineNumber,
+                            "Unable to marshal operation: " + e.getMessage()));
+                }
+
+                if (window.size() >= windowSize) {
+                    submit(window, inFlight);
+                    window = new Window();
+                }
+            }
+            if (window.size() > 0) {
+                submit(window, inFlight);
+            }
+            while (!inFlight.isEmpty()) {
+                write(inFlight.removeFirst());
+            }
+
+            gen.writeStartObject();
+            results.writeTotals();
+            gen.writeEndObject();
+            gen.writeRaw('\n');
+        }
+    }
+
+    long getTotalFails() {
+        return results.getTotalFails();
+    }
+
+    /**
+     * Starts performing a window of operations, first writing the results of the oldest window in flight if there are
+     * already too many.
+     */
+    private void submit(Window window, Deque<Window> inFlight) throws IOException {
+        if (inFlight.size() >= maxWindowsInFlight) {
+            write(inFlight.removeFirst());
+        }
+        if (!window.requests.isEmpty()) {
+            window.result = CompletableFuture.completedFuture(window.requests.toArray(new BulkRequest[0]))
+                    .thenApplyAsync(documentStore, EXECUTOR);
+        }
+        inFlight.addLast(window);
+    }
+
+    /**
+     * Waits for a window of operations to be performed, then writes the result of each of its operations, with each
+     * rejected line in its place among them.
+     */
+    private void write(Window window) throws IOException {
+        if (window.result != null) {
+            try {
+                results.writeResults(window.result.join(), position -> writeRejections(window, position));
+            } catch (CompletionException e) {
+                results.writeFailures(window.requests, DocumentStoreFutures.unwrap(e),
+                        position -> writeRejections(window, position));
+            }
+        }
+
+        writeRejections(window, Integer.MAX_VALUE);
+        gen.flush();
+    }
+
+    /**
+     * Writes the rejections of a window which come before the operation at a position, and have not been written yet.
+     */
+    private void writeRejections(Window window, int position) throws IOException {
+        while (window.rejectionsWritten < window.rejections.size()
+                && window.rejections.get(window.rejectionsWritten).position <= position) {
+            Rejection rejection = window.rejections.get(window.rejectionsWritten++);
+            results.writeRejection(rejection.lineNumber, rejection.reason);
+        }
+    }
+
+    private static final class Window {
+        private final List<BulkRequest> requests = new ArrayList<>();
+        private final List<Rejection> rejections = new ArrayList<>();
+        private int rejectionsWritten;
+        private CompletableFuture<OperationResult> result;
+
+        private int size() {
+            return requests.size() + rejections.size();
+        }
+    }
+
+    private static final class Rejection {
+        // The number of the window's operations which come before the rejected line.
+        private final int position;
+        private final long lineNumber;
+        private final String reason;
+
+        private Rejection(int position, long lineNumber, String reason) {
+            this.position = position;
+            this.lineNumber = lineNumber;
+            this.reason = reason;
+        }
+    }
+}
@@ -23,32 +23,92 @@ package org.onap.aai.sa.rest;
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
 public class Document {
-    private Map<String, Object> fields = new HashMap<>();
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<HashMap<String, Object>> FIELDS_TYPE =
+            new TypeReference<HashMap<String, Object>>() {};
+
+    private Map<String, Object> fields;
+
+    /**
+     * When the document was read from a bulk request, the range of the request content holding its JSON. The JSON is
+     * only parsed into fields if they are asked for; otherwise it is copied as it stands into the request to the
+     * document store.
+     */
+    private String source;
+    private int start;
+    private int end;
+
+    public Document() {
+        fields = new HashMap<>();
+    }
+
+    /**
+     * Creates a document from the JSON object found between the supplied offsets of some larger content.
+     *
+     * @param source - The content holding the document.
+     * @param start - The offset of the opening brace of the document.
+     * @param end - The offset just past the closing brace of the document.
+     */
+    Document(String source, int start, int end) {
+        this.source = source;
+        this.start = start;
+        this.end = end;
+    }
 
     @JsonAnyGetter
     public Map<String, Object> getFields() {
+        if (fields == null) {
+            try {
+                fields = MAPPER.readValue(source.substring(start, end), FIELDS_TYPE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            source = null;
+        }
         return fields;
     }
 
     @JsonAnySetter
     public void setField(String name, Object value) {
-        fields.put(name, value);
+        getFields().put(name, value);
     }
 
     public String toJson() throws JsonProcessingException {
-        return new ObjectMapper().writeValueAsString(this);
+        if (fields == null) {
+            return source.substring(start, end);
+        }
+        return MAPPER.writeValueAsString(this);
+    }
+
+    /**
+     * Appends the JSON representation of this document to the supplied builder, without an intermediate copy when the
+     * document was read from a bulk request.
+     *
+     * @param sb - The builder to append to.
+     * @throws JsonProcessingException if the document could not be serialized.
+     */
+    public void appendJson(StringBuilder sb) throws JsonProcessingException {
+        if (fields == null) {
+            sb.append(source, start, end);
+        } else {
+            sb.append(toJson());
+        }
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("Document: [");
-        for (Entry<String, Object> entry : fields.entrySet()) {
+        for (Entry<String, Object> entry : getFields().entrySet()) {
             sb.append(entry.getKey()).append(": ").append(entry.getValue());
         }
         sb.append("]");
@@ -23,24 +23,36 @@ package org.onap.aai.sa.rest;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.onap.aai.cl.api.LogFields;
 import org.onap.aai.cl.api.LogLine;
 import org.onap.aai.cl.api.Logger;
 import org.onap.aai.cl.eelf.LoggerFactory;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.dao.AsyncDocumentStoreInterface;
 import org.onap.aai.sa.searchdbabstraction.elasticsearch.dao.DocumentStoreDataEntityImpl;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.dao.DocumentStoreFutures;
 import org.onap.aai.sa.searchdbabstraction.elasticsearch.dao.DocumentStoreInterface;
 import org.onap.aai.sa.searchdbabstraction.entity.AggregationResults;
 import org.onap.aai.sa.searchdbabstraction.entity.DocumentOperationResult;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchHit;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchHits;
 import org.onap.aai.sa.searchdbabstraction.entity.SearchOperationResult;
 import org.onap.aai.sa.searchdbabstraction.logging.SearchDbMsgs;
+import org.onap.aai.sa.searchdbabstraction.searchapi.SearchCursor;
 import org.onap.aai.sa.searchdbabstraction.searchapi.SearchStatement;
+import org.onap.aai.sa.searchdbabstraction.searchapi.SearchTemplate;
 import org.onap.aai.sa.searchdbabstraction.searchapi.SuggestionStatement;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 public class DocumentApi {
     private static final String MSG_REQUEST_BODY = "Request Body: ";
@@ -111,7 +123,7 @@ public class DocumentApi {
 
             return response;
         } catch (Exception e) {
-            return handleError(request, e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            return handleError(request, e.getMessage(), ApiUtils.getErrorStatus(e));
         }
     }
 
@@ -176,7 +188,7 @@ public class DocumentApi {
 
             return response;
         } catch (Exception e) {
-            return handleError(request, e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            return handleError(request, e.getMessage(), ApiUtils.getErrorStatus(e));
         }
     }
 
@@ -238,12 +250,23 @@ public class DocumentApi {
 
             return response;
         } catch (Exception e) {
-            return handleError(request, e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            return handleError(request, e.getMessage(), ApiUtils.getErrorStatus(e));
         }
     }
 
     public ResponseEntity<String> processGet(String content, HttpServletRequest request, HttpHeaders headers,
             HttpServletResponse httpResponse, String index, String id, DocumentStoreInterface documentStore) {
+        return processGetAsync(content, request, headers, httpResponse, index, id, documentStore).join();
+    }
+
+    /**
+     * Retrieves a document without blocking the calling thread while the document store is consulted.
+     *
+     * @return - A future holding the HTTP response.
+     */
+    public CompletableFuture<ResponseEntity<String>> processGetAsync(String content, HttpServletRequest request,
+            HttpHeaders headers, HttpServletResponse httpResponse, String index, String id,
+            DocumentStoreInterface documentStore) {
 
         // Initialize the MDC Context for logging purposes.
         ApiUtils.initMdcContext(request, headers);
@@ -257,11 +280,11 @@ public class DocumentApi {
                         ApiUtils.SEARCH_AUTH_POLICY_NAME);
             } catch (Exception e) {
                 logger.info(SearchDbMsgs.EXCEPTION_DURING_METHOD_CALL, "DocumentApi.processGet", e.getMessage());
-                return handleError(request, content, HttpStatus.FORBIDDEN);
+                return completed(handleError(request, content, HttpStatus.FORBIDDEN));
             }
 
             if (!isValid) {
-                return handleError(request, content, HttpStatus.FORBIDDEN);
+                return completed(handleError(request, content, HttpStatus.FORBIDDEN));
             }
 
             String resourceVersion = headers.getFirst(REQUEST_HEADER_RESOURCE_VERSION);
@@ -270,34 +293,43 @@ public class DocumentApi {
             document.setId(id);
             document.setVersion(resourceVersion);
 
-            DocumentOperationResult result = documentStore.getDocument(index, document);
-            String output = null;
-            if (ApiUtils.isSuccessStatusCode(result.getResultCode())) {
-                output = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(result.getDocument());
-            } else {
-                output = result.getError() != null
-                        ? mapper.writerWithDefaultPrettyPrinter().writeValueAsString(result.getError())
-                        : result.getFailureCause();
-            }
-            if (httpResponse != null) {
-                httpResponse.setHeader(RESPONSE_HEADER_RESOURCE_VERSION, result.getResultVersion());
-            }
-            ResponseEntity<String> response =
-                    ResponseEntity.status(result.getResultCode()).contentType(MediaType.APPLICATION_JSON).body(output);
-            logResult(request, HttpStatus.valueOf(response.getStatusCodeValue()));
-
-            // Clear the MDC context so that no other transaction inadvertently
-            // uses our transaction id.
-            ApiUtils.clearMdcContext();
-
-            return response;
+            return complete(request,
+                    AsyncDocumentStoreInterface.of(documentStore).getDocumentAsync(index, document), result -> {
+                        String output = null;
+                        if (ApiUtils.isSuccessStatusCode(result.getResultCode())) {
+                            output = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(result.getDocument());
+                        } else {
+                            output = result.getError() != null
+                                    ? mapper.writerWithDefaultPrettyPrinter().writeValueAsString(result.getError())
+                                    : result.getFailureCause();
+                        }
+                        if (httpResponse != null) {
+                            httpResponse.setHeader(RESPONSE_HEADER_RESOURCE_VERSION, result.getResultVersion());
+                        }
+                        ResponseEntity<String> response = ResponseEntity.status(result.getResultCode())
+                                .contentType(MediaType.APPLICATION_JSON).body(output);
+                        logResult(request, HttpStatus.valueOf(response.getStatusCodeValue()));
+
+                        return response;
+                    });
         } catch (Exception e) {
-            return handleError(request, e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            return completed(handleError(request, e.getMessage(), ApiUtils.getErrorStatus(e)));
         }
     }
 
     public ResponseEntity<String> processSearchWithGet(String content, HttpServletRequest request, HttpHeaders headers,
             String index, String queryText, DocumentStoreInterface documentStore) {
+        return processSearchWithGetAsync(content, request, headers, index, queryText, documentStore).join();
+    }
+
+    /**
+     * Runs a simple query string search without blocking the calling thread while the document store is consulted.
+     *
+     * @return - A future holding the HTTP response.
+     */
+    public CompletableFuture<ResponseEntity<String>> processSearchWithGetAsync(String content,
+            HttpServletRequest request, HttpHeaders headers, String index, String queryText,
+            DocumentStoreInterface documentStore) {
 
         // Initialize the MDC Context for logging purposes.
         ApiUtils.initMdcContext(request, headers);
@@ -312,37 +344,39 @@ public class DocumentApi {
                         ApiUtils.SEARCH_AUTH_POLICY_NAME);
             } catch (Exception e) {
                 logger.info(SearchDbMsgs.EXCEPTION_DURING_METHOD_CALL, "processSearchWithGet", e.getMessage());
-                return handleError(request, content, HttpStatus.FORBIDDEN);
+                return completed(handleError(request, content, HttpStatus.FORBIDDEN));
             }
 
             if (!isValid) {
-                return handleError(request, content, HttpStatus.FORBIDDEN);
-            }
-
-            SearchOperationResult result = documentStore.search(index, queryText);
-            String output = null;
-            if (ApiUtils.isSuccessStatusCode(result.getResultCode())) {
-                output = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(result.getSearchResult());
-            } else {
-                output = result.getError() != null
-                        ? mapper.writerWithDefaultPrettyPrinter().writeValueAsString(result.getError())
-                        : result.getFailureCause();
-            }
-            ResponseEntity<String> response =
-                    ResponseEntity.status(result.getResultCode()).contentType(MediaType.APPLICATION_JSON).body(output);
-
-            // Clear the MDC context so that no other transaction inadvertently
-            // uses our transaction id.
-            ApiUtils.clearMdcContext();
-
-            return response;
+                return completed(handleError(request, content, HttpStatus.FORBIDDEN));
+            }
+
+            return complete(request, AsyncDocumentStoreInterface.of(documentStore).searchAsync(index, queryText),
+                    result -> {
+                        String output = null;
+                        if (ApiUtils.isSuccessStatusCode(result.getResultCode())) {
+                            output = mapper.writerWithDefaultPrettyPrinter()
+                                    .writeValueAsString(result.getSearchResult());
+                        } else {
+                            output = result.getError() != null
+                                    ? mapper.writerWithDefaultPrettyPrinter().writeValueAsString(result.getError())
+                                    : result.getFailureCause();
+                        }
+                        return ResponseEntity.status(result.getResultCode()).contentType(MediaType.APPLICATION_JSON)
+                                .body(output);
+                    });
         } catch (Exception e) {
-            return handleError(request, e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            return completed(handleError(request, e.getMessage(), ApiUtils.getErrorStatus(e)));
         }
     }
 
     public ResponseEntity<String> queryWithGetWithPayload(String content, HttpServletRequest request,
             HttpHeaders headers, String index, DocumentStoreInterface documentStore) {
+        return queryWithGetWithPayloadAsync(content, request, headers, index, documentStore).join();
+    }
+
+    public CompletableFuture<ResponseEntity<String>> queryWithGetWithPayloadAsync(String content,
+            HttpServletRequest request, HttpHeaders headers, String index, DocumentStoreInterface documentStore) {
 
         // Initialize the MDC Context for logging purposes.
         ApiUtils.initMdcContext(request, headers);
@@ -357,6 +391,11 @@ public class DocumentApi {
 
     public ResponseEntity<String> processSearchWithPost(String content, HttpServletRequest request, HttpHeaders headers,
             String index, DocumentStoreInterface documentStore) {
+        return processSearchWithPostAsync(content, request, headers, index, documentStore).join();
+    }
+
+    public CompletableFuture<ResponseEntity<String>> processSearchWithPostAsync(String content,
+            HttpServletRequest request, HttpHeaders headers, String index, DocumentStoreInterface documentStore) {
 
         // Initialize the MDC Context for logging purposes.
         ApiUtils.initMdcContext(request, headers);
@@ -370,9 +409,38 @@ public class DocumentApi {
         return processQuery(index, content, request, headers, documentStore);
     }
 
+    /**
+     * Runs a query, writing the hits to the client as they are serialized rather than building the whole response
+     * first. This serves both the GET with payload and POST with payload variants of the query endpoint.
+     *
+     * @param pretty - true to indent the response.
+     * @return - A future holding the HTTP response, whose body is written when the response is sent.
+     */
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> processStreamingQueryAsync(String content,
+            HttpServletRequest request, HttpHeaders headers, String index, boolean pretty,
+            DocumentStoreInterface documentStore) {
+
+        // Initialize the MDC Context for logging purposes.
+        ApiUtils.initMdcContext(request, headers);
+
+        logger.info(SearchDbMsgs.PROCESS_PAYLOAD_QUERY, (request != null) ? request.getMethod() : "",
+                (request != null) ? request.getRequestURL().toString() : "");
+        if (logger.isDebugEnabled()) {
+            logger.debug(MSG_REQUEST_BODY + content);
+        }
+
+        return processQuery(index, content, request, headers, documentStore,
+                (mapper, result) -> prepareStreamingOutput(mapper, result, pretty), DocumentApi::streamed);
+    }
+
 
     public ResponseEntity<String> processSuggestQueryWithPost(String content, HttpServletRequest request,
             HttpHeaders headers, String index, DocumentStoreInterface documentStore) {
+        return processSuggestQueryWithPostAsync(content, request, headers, index, documentStore).join();
+    }
+
+    public CompletableFuture<ResponseEntity<String>> processSuggestQueryWithPostAsync(String content,
+            HttpServletRequest request, HttpHeaders headers, String index, DocumentStoreInterface documentStore) {
 
         // Initialize the MDC Context for logging purposes.
         ApiUtils.initMdcContext(request, headers);
@@ -386,6 +454,62 @@ public class DocumentApi {
         return processSuggestQuery(index, content, request, headers, documentStore);
     }
 
+    /**
+     * Runs a search template registered for the index with the supplied parameter values. The statement of the
+     * template was translated into ElasticSearch syntax when the template was registered, so only the values need to
+     * be written in.
+     *
+     * @param content - JSON object holding the value of each parameter of the template.
+     * @param index - The index to be queried against.
+     * @param templateId - The id of the template.
+     * @return - A future holding the standard HTTP response.
+     */
+    public CompletableFuture<ResponseEntity<String>> processTemplateQueryAsync(String content,
+            HttpServletRequest request, HttpHeaders headers, String index, String templateId,
+            DocumentStoreInterface documentStore) {
+
+        // Initialize the MDC Context for logging purposes.
+        ApiUtils.initMdcContext(request, headers);
+
+        logger.info(SearchDbMsgs.PROCESS_PAYLOAD_QUERY, "POST",
+                (request != null) ? request.getRequestURL().toString() : "");
+        if (logger.isDebugEnabled()) {
+            logger.debug(MSG_REQUEST_BODY + content);
+        }
+
+        try {
+            // Validate that the request has the appropriate authorization.
+            ResponseEntity<String> authFailure = authorizeQuery(request, headers, content);
+            if (authFailure != null) {
+                return completed(authFailure);
+            }
+
+            SearchTemplate template = SearchTemplateRegistry.getInstance().get(index, templateId);
+            if (template == null) {
+                return completed(
+                        handleError(request, "Unknown search template: " + templateId, HttpStatus.NOT_FOUND));
+            }
+
+            ObjectMapper mapper = new ObjectMapper();
+            mapper.setSerializationInclusion(Include.NON_EMPTY);
+
+            String query;
+            try {
+                // Write the parameter values into the translated statement.
+                query = template.bind(
+                        (content == null || content.trim().isEmpty()) ? null : mapper.readTree(content));
+            } catch (IOException | IllegalArgumentException e) {
+                return completed(handleError(request, e.getMessage(), HttpStatus.BAD_REQUEST));
+            }
+
+            return complete(request, AsyncDocumentStoreInterface.of(documentStore).searchWithPayloadAsync(index, query),
+                    result -> buildQueryResponse(mapper, result));
+
+        } catch (Exception e) {
+            return completed(handleError(request, e.getMessage(), ApiUtils.getErrorStatus(e)));
+        }
+    }
+
     /**
      * Common handler for query requests. This is called by both the GET with payload and POST with payload variants of
      * the query endpoint.
@@ -394,10 +518,25 @@ public class DocumentApi {
      * @param content - The payload containing the query structure.
      * @param request - The HTTP request.
      * @param headers - The HTTP headers.
-     * @return - A standard HTTP response.
+     * @return - A future holding the standard HTTP response.
      */
-    private ResponseEntity<String> processQuery(String index, String content, HttpServletRequest request,
-            HttpHeaders headers, DocumentStoreInterface documentStore) {
+    private CompletableFuture<ResponseEntity<String>> processQuery(String index, String content,
+            HttpServletRequest request, HttpHeaders headers, DocumentStoreInterface documentStore) {
+        return processQuery(index, content, request, headers, documentStore, this::buildQueryResponse,
+                Function.identity());
+    }
+
+    /**
+     * Validates and submits a query, building the response with the supplied builder.
+     *
+     * @param responseBuilder - Builds the response to a query which reached the document store.
+     * @param errorResponse - Converts the response to a query which could not be run into the type of the response.
+     * @return - A future holding the HTTP response.
+     */
+    private <B> CompletableFuture<ResponseEntity<B>> processQuery(String index, String content,
+            HttpServletRequest request, HttpHeaders headers, DocumentStoreInterface documentStore,
+            QueryResponseBuilder<B> responseBuilder,
+            Function<ResponseEntity<String>, ResponseEntity<B>> errorResponse) {
 
         try {
             ObjectMapper mapper = new ObjectMapper();
@@ -405,22 +544,13 @@ public class DocumentApi {
 
             // Make sure that we were supplied a payload before proceeding.
             if (content == null) {
-                return handleError(request, content, HttpStatus.BAD_REQUEST);
+                return completed(errorResponse.apply(handleError(request, content, HttpStatus.BAD_REQUEST)));
             }
 
             // Validate that the request has the appropriate authorization.
-            boolean isValid;
-            try {
-                isValid = searchService.validateRequest(headers, request, ApiUtils.Action.POST,
-                        ApiUtils.SEARCH_AUTH_POLICY_NAME);
-
-            } catch (Exception e) {
-                logger.info(SearchDbMsgs.EXCEPTION_DURING_METHOD_CALL, "processQuery", e.getMessage());
-                return handleError(request, content, HttpStatus.FORBIDDEN);
-            }
-
-            if (!isValid) {
-                return handleError(request, content, HttpStatus.FORBIDDEN);
+            ResponseEntity<String> authFailure = authorizeQuery(request, headers, content);
+            if (authFailure != null) {
+                return completed(errorResponse.apply(authFailure));
             }
 
             SearchStatement searchStatement;
@@ -429,33 +559,22 @@ public class DocumentApi {
                 // Marshall the supplied request payload into a search statement
                 // object.
                 searchStatement = mapper.readValue(content, SearchStatement.class);
+                searchStatement.validateCursor();
 
             } catch (Exception e) {
-                return handleError(request, e.getMessage(), HttpStatus.BAD_REQUEST);
+                return completed(errorResponse.apply(handleError(request, e.getMessage(), HttpStatus.BAD_REQUEST)));
             }
 
             // Now, submit the search statement, translated into
             // ElasticSearch syntax, to the document store DAO.
-            SearchOperationResult result = documentStore.searchWithPayload(index, searchStatement.toElasticSearch());
-            String output = null;
-            if (ApiUtils.isSuccessStatusCode(result.getResultCode())) {
-                output = prepareOutput(mapper, result);
-            } else {
-                output = result.getError() != null
-                        ? mapper.writerWithDefaultPrettyPrinter().writeValueAsString(result.getError())
-                        : result.getFailureCause();
-            }
-            ResponseEntity<String> response =
-                    ResponseEntity.status(result.getResultCode()).contentType(MediaType.APPLICATION_JSON).body(output);
-
-            // Clear the MDC context so that no other transaction inadvertently
-            // uses our transaction id.
-            ApiUtils.clearMdcContext();
-
-            return response;
+            boolean pagedByCursor = searchStatement.isPagedByCursor();
+            return complete(request, AsyncDocumentStoreInterface.of(documentStore).searchWithPayloadAsync(index,
+                    searchStatement.toElasticSearch()),
+                    result -> responseBuilder.build(mapper, pagedByCursor ? withCursor(result) : result),
+                    errorResponse);
 
         } catch (Exception e) {
-            return handleError(request, e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            return completed(errorResponse.apply(handleError(request, e.getMessage(), ApiUtils.getErrorStatus(e))));
         }
     }
 
@@ -468,10 +587,10 @@ public class DocumentApi {
      * @param content - The payload containing the query structure.
      * @param request - The HTTP request.
      * @param headers - The HTTP headers.
-     * @return - A standard HTTP response.
+     * @return - A future holding the standard HTTP response.
      */
-    private ResponseEntity<String> processSuggestQuery(String index, String content, HttpServletRequest request,
-            HttpHeaders headers, DocumentStoreInterface documentStore) {
+    private CompletableFuture<ResponseEntity<String>> processSuggestQuery(String index, String content,
+            HttpServletRequest request, HttpHeaders headers, DocumentStoreInterface documentStore) {
 
         try {
             ObjectMapper mapper = new ObjectMapper();
@@ -479,7 +598,7 @@ public class DocumentApi {
 
             // Make sure that we were supplied a payload before proceeding.
             if (content == null) {
-                return handleError(request, content, HttpStatus.BAD_REQUEST);
+                return completed(handleError(request, content, HttpStatus.BAD_REQUEST));
             }
 
             // Validate that the request has the appropriate authorization.
@@ -490,11 +609,11 @@ public class DocumentApi {
 
             } catch (Exception e) {
                 logger.info(SearchDbMsgs.EXCEPTION_DURING_METHOD_CALL, "processQuery", e.getMessage());
-                return handleError(request, content, HttpStatus.FORBIDDEN);
+                return completed(handleError(request, content, HttpStatus.FORBIDDEN));
             }
 
             if (!isValid) {
-                return handleError(request, content, HttpStatus.FORBIDDEN);
+                return completed(handleError(request, content, HttpStatus.FORBIDDEN));
             }
 
             SuggestionStatement suggestionStatement;
@@ -505,32 +624,145 @@ public class DocumentApi {
                 suggestionStatement = mapper.readValue(content, SuggestionStatement.class);
 
             } catch (Exception e) {
-                return handleError(request, e.getMessage(), HttpStatus.BAD_REQUEST);
+                return completed(handleError(request, e.getMessage(), HttpStatus.BAD_REQUEST));
             }
 
             // Now, submit the search statement, translated into
             // ElasticSearch syntax, to the document store DAO.
-            SearchOperationResult result =
-                    documentStore.suggestionQueryWithPayload(index, suggestionStatement.toElasticSearch());
-            String output = null;
-            if (ApiUtils.isSuccessStatusCode(result.getResultCode())) {
-                output = prepareSuggestOutput(mapper, result);
-            } else {
-                output = result.getError() != null
-                        ? mapper.writerWithDefaultPrettyPrinter().writeValueAsString(result.getError())
-                        : result.getFailureCause();
-            }
-            ResponseEntity<String> response = ResponseEntity.status(result.getResultCode()).body(output);
+            return complete(request, AsyncDocumentStoreInterface.of(documentStore)
+                    .suggestionQueryWithPayloadAsync(index, suggestionStatement.toElasticSearch()), result -> {
+                        String output = null;
+                        if (ApiUtils.isSuccessStatusCode(result.getResultCode())) {
+                            output = prepareSuggestOutput(mapper, result);
+                        } else {
+                            output = result.getError() != null
+                                    ? mapper.writerWithDefaultPrettyPrinter().writeValueAsString(result.getError())
+                                    : result.getFailureCause();
+                        }
+                        return ResponseEntity.status(result.getResultCode()).body(output);
+                    });
 
-            // Clear the MDC context so that no other transaction inadvertently
-            // uses our transaction id.
-            ApiUtils.clearMdcContext();
+        } catch (Exception e) {
+            return completed(handleError(request, e.getMessage(), ApiUtils.getErrorStatus(e)));
+        }
+    }
 
-            return response;
+    /**
+     * Converts the outcome of an asynchronous document store operation into an HTTP response. The response builder
+     * runs with the MDC context of the original request on whichever thread completes the operation. Any failure is
+     * reported as an internal server error, or as service unavailable if the document store turned the request away.
+     * The MDC context is cleared from the calling thread on return so that no other transaction inadvertently uses our
+     * transaction id.
+     *
+     * @param request - The HTTP request.
+     * @param operation - The pending document store operation.
+     * @param responseBuilder - Builds the HTTP response from the operation result.
+     * @return - A future holding the HTTP response.
+     */
+    private <T> CompletableFuture<ResponseEntity<String>> complete(HttpServletRequest request,
+            CompletableFuture<T> operation, ResponseBuilder<T, String> responseBuilder) {
+        return complete(request, operation, responseBuilder, Function.identity());
+    }
+
+    /**
+     * As {@link #complete(HttpServletRequest, CompletableFuture, ResponseBuilder)}, for a response whose body is not a
+     * string.
+     *
+     * @param errorResponse - Converts the error response into the type of the response.
+     */
+    private <T, B> CompletableFuture<ResponseEntity<B>> complete(HttpServletRequest request,
+            CompletableFuture<T> operation, ResponseBuilder<T, B> responseBuilder,
+            Function<ResponseEntity<String>, ResponseEntity<B>> errorResponse) {
+        CompletableFuture<ResponseEntity<B>> response = operation //
+                .thenApply(ApiUtils.withMdcContext(result -> {
+                    try {
+                        return responseBuilder.build(result);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                })) //
+                .exceptionally(ApiUtils.withMdcContext(e -> {
+                    Throwable cause = DocumentStoreFutures.unwrap(e);
+                    return errorResponse.apply(
+                            handleError(request, cause.getMessage(), ApiUtils.getErrorStatus(cause)));
+                }));
+
+        ApiUtils.clearMdcContext();
+        return response;
+    }
+
+    /**
+     * Checks that a query request has the appropriate authorization.
+     *
+     * @return - null if the request is authorized, otherwise the response to send to the client.
+     */
+    private ResponseEntity<String> authorizeQuery(HttpServletRequest request, HttpHeaders headers, String content) {
+        boolean isValid;
+        try {
+            isValid = searchService.validateRequest(headers, request, ApiUtils.Action.POST,
+                    ApiUtils.SEARCH_AUTH_POLICY_NAME);
 
         } catch (Exception e) {
-            return handleError(request, e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            logger.info(SearchDbMsgs.EXCEPTION_DURING_METHOD_CALL, "processQuery", e.getMessage());
+            return handleError(request, content, HttpStatus.FORBIDDEN);
+        }
+        return isValid ? null : handleError(request, content, HttpStatus.FORBIDDEN);
+    }
+
+    private ResponseEntity<String> buildQueryResponse(ObjectMapper mapper, SearchOperationResult result)
+            throws JsonProcessingException {
+        String output = null;
+        if (ApiUtils.isSuccessStatusCode(result.getResultCode())) {
+            output = prepareOutput(mapper, result);
+        } else {
+            output = prepareErrorOutput(mapper, result);
         }
+        return ResponseEntity.status(result.getResultCode()).contentType(MediaType.APPLICATION_JSON).body(output);
+    }
+
+    /**
+     * Adds the cursor for the next page to the hits of a search which is paged by cursor. The result may be shared with
+     * other searches, so the result is copied rather than changed.
+     *
+     * @param result - The result of the search.
+     * @return - The result with the cursor following its last hit, or the result itself if it has no hits.
+     */
+    private static SearchOperationResult withCursor(SearchOperationResult result) {
+        SearchHits hits = result.getSearchResult();
+        if (!ApiUtils.isSuccessStatusCode(result.getResultCode()) || hits == null || hits.getHits() == null
+                || hits.getHits().length == 0) {
+            return result;
+        }
+        SearchHit last = hits.getHits()[hits.getHits().length - 1];
+        if (last.getSortValues() == null) {
+            return result;
+        }
+
+        SearchHits page = new SearchHits();
+        page.setTotalHits(hits.getTotalHits());
+        page.setHits(hits.getHits());
+        page.setCursor(SearchCursor.encode(last.getSortValues()));
+
+        SearchOperationResult paged = new SearchOperationResult();
+        paged.setResultCode(result.getResultCode());
+        paged.setResultVersion(result.getResultVersion());
+        paged.setSearchResult(page);
+        paged.setAggregationResult(result.getAggregationResult());
+        return paged;
+    }
+
+    private static <B> CompletableFuture<ResponseEntity<B>> completed(ResponseEntity<B> response) {
+        return CompletableFuture.completedFuture(response);
+    }
+
+    @FunctionalInterface
+    private interface ResponseBuilder<T, B> {
+        ResponseEntity<B> build(T result) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface QueryResponseBuilder<B> {
+        ResponseEntity<B> build(ObjectMapper mapper, SearchOperationResult result) throws Exception;
     }
 
     /**
@@ -560,6 +792,32 @@ public class DocumentApi {
         return output.toString();
     }
 
+    private ResponseEntity<StreamingResponseBody> prepareStreamingOutput(ObjectMapper mapper,
+            SearchOperationResult result, boolean pretty) throws JsonProcessingException {
+        if (!ApiUtils.isSuccessStatusCode(result.getResultCode())) {
+            return streamed(ResponseEntity.status(result.getResultCode()).contentType(MediaType.APPLICATION_JSON)
+                    .body(prepareErrorOutput(mapper, result)));
+        }
+        return ResponseEntity.status(result.getResultCode()).contentType(MediaType.APPLICATION_JSON)
+                .body(out -> SearchResponseWriter.write(result, pretty, out));
+    }
+
+    private String prepareErrorOutput(ObjectMapper mapper, SearchOperationResult result)
+            throws JsonProcessingException {
+        return result.getError() != null
+                ? mapper.writerWithDefaultPrettyPrinter().writeValueAsString(result.getError())
+                : result.getFailureCause();
+    }
+
+    /**
+     * Turns a response with a string body into one which writes that string when the response is sent.
+     */
+    static ResponseEntity<StreamingResponseBody> streamed(ResponseEntity<String> response) {
+        byte[] body = (response.getBody() != null) ? response.getBody().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        return ResponseEntity.status(response.getStatusCode()).headers(response.getHeaders())
+                .body(out -> out.write(body));
+    }
+
     private String prepareSuggestOutput(ObjectMapper mapper, SearchOperationResult result)
             throws JsonProcessingException {
         StringBuffer output = new StringBuffer();
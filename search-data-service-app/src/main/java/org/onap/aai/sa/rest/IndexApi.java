@@ -247,11 +247,12 @@ public class IndexApi {
             // Send the request to the document store.
             response = responseFromOperationResult(documentStore.deleteIndex(index));
         } catch (DocumentStoreOperationException e) {
-            response = ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).contentType(MediaType.APPLICATION_JSON)
+            response = ResponseEntity.status(ApiUtils.getErrorStatus(e)).contentType(MediaType.APPLICATION_JSON)
                     .body(e.getMessage());
         }
 
         if (ApiUtils.isSuccessStatusCode(response.getStatusCodeValue())) {
+            SearchTemplateRegistry.getInstance().removeIndex(index);
             logger.info(SearchDbMsgs.DELETED_INDEX, index);
         } else {
             logger.warn(SearchDbMsgs.INDEX_DELETE_FAILURE, index, response.getBody());
@@ -0,0 +1,102 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.rest;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.onap.aai.sa.searchdbabstraction.entity.AggregationResults;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchHit;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchHits;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchOperationResult;
+
+/**
+ * Writes the result of a search directly to the client, one hit at a time, rather than first building the whole
+ * response as a string. The response has the same structure as the buffered query response, but is compact unless
+ * pretty printing is asked for.
+ */
+final class SearchResponseWriter {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().setSerializationInclusion(Include.NON_EMPTY);
+
+    private static final ObjectWriter HIT_WRITER =
+            MAPPER.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    private static final ObjectWriter AGGREGATIONS_WRITER = new ObjectMapper()
+            .setSerializationInclusion(Include.NON_NULL).writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private SearchResponseWriter() { // Do not instantiate
+    }
+
+    /**
+     * Writes the search hits and any aggregations of a successful search.
+     *
+     * @param result - The search result.
+     * @param pretty - true to indent the output.
+     * @param out - The stream to write to, which is left open.
+     * @throws IOException if the response could not be written.
+     */
+    static void write(SearchOperationResult result, boolean pretty, OutputStream out) throws IOException {
+        try (JsonGenerator gen = MAPPER.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (pretty) {
+                gen.useDefaultPrettyPrinter();
+            }
+
+            gen.writeStartObject();
+            gen.writeFieldName("searchResult");
+            writeHits(gen, result.getSearchResult());
+
+            AggregationResults aggs = result.getAggregationResult();
+            if (aggs != null) {
+                gen.writeFieldName("aggregationResult");
+                AGGREGATIONS_WRITER.writeValue(gen, aggs);
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    private static void writeHits(JsonGenerator gen, SearchHits hits) throws IOException {
+        if (hits == null) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartObject();
+        if (hits.getTotalHits() != null && !hits.getTotalHits().isEmpty()) {
+            gen.writeStringField("totalHits", hits.getTotalHits());
+        }
+        if (hits.getHits() != null && hits.getHits().length > 0) {
+            gen.writeArrayFieldStart("hits");
+            for (SearchHit hit : hits.getHits()) {
+                HIT_WRITER.writeValue(gen, hit);
+            }
+            gen.writeEndArray();
+        }
+        if (hits.getCursor() != null) {
+            gen.writeStringField("cursor", hits.getCursor());
+        }
+        gen.writeEndObject();
+    }
+}
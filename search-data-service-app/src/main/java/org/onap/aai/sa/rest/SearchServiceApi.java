@@ -21,6 +21,7 @@
 package org.onap.aai.sa.rest;
 
 import java.security.cert.X509Certificate;
+import java.util.concurrent.CompletableFuture;
 import javax.security.auth.x500.X500Principal;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -37,7 +38,9 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Component
 @EnableWebSecurity
@@ -110,12 +113,13 @@ public class SearchServiceApi {
     }
 
     @RequestMapping(value = "/indexes/{index}/documents/{id}", method = RequestMethod.GET)
-    public ResponseEntity<String> processGetDocument(HttpServletRequest request, HttpServletResponse httpResponse,
-            @RequestHeader HttpHeaders headers, @PathVariable("index") String index, @PathVariable("id") String id) {
+    public CompletableFuture<ResponseEntity<String>> processGetDocument(HttpServletRequest request,
+            HttpServletResponse httpResponse, @RequestHeader HttpHeaders headers, @PathVariable("index") String index,
+            @PathVariable("id") String id) {
 
         // Forward the request to our document API to retrieve the document.
         DocumentApi documentApi = new DocumentApi(this);
-        return documentApi.processGet("", request, headers, httpResponse, index, id, documentStore);
+        return documentApi.processGetAsync("", request, headers, httpResponse, index, id, documentStore);
     }
 
     @RequestMapping(value = "/indexes/{index}/documents/{id}", method = RequestMethod.DELETE,
@@ -129,39 +133,97 @@ public class SearchServiceApi {
     }
 
     @RequestMapping(value = "/indexes/{index}/query/{queryText}", method = RequestMethod.GET)
-    public ResponseEntity<String> processInlineQuery(HttpServletRequest request, @RequestHeader HttpHeaders headers,
-            @PathVariable("index") String index, @PathVariable("queryText") String queryText) {
+    public CompletableFuture<ResponseEntity<String>> processInlineQuery(HttpServletRequest request,
+            @RequestHeader HttpHeaders headers, @PathVariable("index") String index,
+            @PathVariable("queryText") String queryText) {
 
         // Forward the request to our document API to delete the document.
         DocumentApi documentApi = new DocumentApi(this);
-        return documentApi.processSearchWithGet("", request, headers, index, queryText, documentStore);
+        return documentApi.processSearchWithGetAsync("", request, headers, index, queryText, documentStore);
     }
 
     @RequestMapping(value = "/indexes/{index}/query", method = RequestMethod.GET, consumes = {"application/json"})
-    public ResponseEntity<String> processQueryWithGet(@RequestBody String requestBody, HttpServletRequest request,
-            @RequestHeader HttpHeaders headers, @PathVariable("index") String index) {
+    public CompletableFuture<ResponseEntity<String>> processQueryWithGet(@RequestBody String requestBody,
+            HttpServletRequest request, @RequestHeader HttpHeaders headers, @PathVariable("index") String index) {
 
         // Forward the request to our document API to delete the document.
         DocumentApi documentApi = new DocumentApi(this);
-        return documentApi.queryWithGetWithPayload(requestBody, request, headers, index, documentStore);
+        return documentApi.queryWithGetWithPayloadAsync(requestBody, request, headers, index, documentStore);
     }
 
     @RequestMapping(value = "/indexes/{index}/query", method = RequestMethod.POST, consumes = {"application/json"})
-    public ResponseEntity<String> processQuery(@RequestBody String requestBody, HttpServletRequest request,
-            @RequestHeader HttpHeaders headers, @PathVariable("index") String index) {
+    public CompletableFuture<ResponseEntity<String>> processQuery(@RequestBody String requestBody,
+            HttpServletRequest request, @RequestHeader HttpHeaders headers, @PathVariable("index") String index) {
 
         // Forward the request to our document API to delete the document.
         DocumentApi documentApi = new DocumentApi(this);
-        return documentApi.processSearchWithPost(requestBody, request, headers, index, documentStore);
+        return documentApi.processSearchWithPostAsync(requestBody, request, headers, index, documentStore);
+    }
+
+    @RequestMapping(value = "/indexes/{index}/query", method = {RequestMethod.GET, RequestMethod.POST},
+            consumes = {"application/json"}, params = "stream=true")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> processStreamingQuery(
+            @RequestBody String requestBody, HttpServletRequest request, @RequestHeader HttpHeaders headers,
+            @PathVariable("index") String index,
+            @RequestParam(value = "pretty", defaultValue = "false") boolean pretty) {
+
+        // Forward the request to our document API to stream the query results.
+        DocumentApi documentApi = new DocumentApi(this);
+        return documentApi.processStreamingQueryAsync(requestBody, request, headers, index, pretty, documentStore);
     }
 
     @RequestMapping(value = "/indexes/{index}/suggest", method = RequestMethod.POST, consumes = {"application/json"})
-    public ResponseEntity<String> processSuggestQuery(@RequestBody String requestBody, HttpServletRequest request,
-            @RequestHeader HttpHeaders headers, @PathVariable("index") String index) {
+    public CompletableFuture<ResponseEntity<String>> processSuggestQuery(@RequestBody String requestBody,
+            HttpServletRequest request, @RequestHeader HttpHeaders headers, @PathVariable("index") String index) {
         // Forward the request to our document API to query suggestions in the
         // document.
         DocumentApi documentApi = new DocumentApi(this);
-        return documentApi.processSuggestQueryWithPost(requestBody, request, headers, index, documentStore);
+        return documentApi.processSuggestQueryWithPostAsync(requestBody, request, headers, index, documentStore);
+    }
+
+    @RequestMapping(value = "/indexes/{index}/templates/{templateId}", method = RequestMethod.PUT,
+            consumes = {"application/json"}, produces = {"application/json"})
+    public ResponseEntity<String> processPutSearchTemplate(@RequestBody String requestBody, HttpServletRequest request,
+            @RequestHeader HttpHeaders headers, @PathVariable("index") String index,
+            @PathVariable("templateId") String templateId) {
+
+        // Forward the request to our search template API to register the template.
+        SearchTemplateApi searchTemplateApi = new SearchTemplateApi(this);
+        return searchTemplateApi.processPut(requestBody, request, headers, index, templateId);
+    }
+
+    @RequestMapping(value = "/indexes/{index}/templates/{templateId}", method = RequestMethod.GET,
+            produces = {"application/json"})
+    public ResponseEntity<String> processGetSearchTemplate(HttpServletRequest request,
+            @RequestHeader HttpHeaders headers, @PathVariable("index") String index,
+            @PathVariable("templateId") String templateId) {
+
+        // Forward the request to our search template API to return the template.
+        SearchTemplateApi searchTemplateApi = new SearchTemplateApi(this);
+        return searchTemplateApi.processGet(request, headers, index, templateId);
+    }
+
+    @RequestMapping(value = "/indexes/{index}/templates/{templateId}", method = RequestMethod.DELETE,
+            produces = {"application/json"})
+    public ResponseEntity<String> processDeleteSearchTemplate(HttpServletRequest request,
+            @RequestHeader HttpHeaders headers, @PathVariable("index") String index,
+            @PathVariable("templateId") String templateId) {
+
+        // Forward the request to our search template API to remove the template.
+        SearchTemplateApi searchTemplateApi = new SearchTemplateApi(this);
+        return searchTemplateApi.processDelete(request, headers, index, templateId);
+    }
+
+    @RequestMapping(value = "/indexes/{index}/templates/{templateId}/query", method = RequestMethod.POST)
+    public CompletableFuture<ResponseEntity<String>> processTemplateQuery(
+            @RequestBody(required = false) String requestBody, HttpServletRequest request,
+            @RequestHeader HttpHeaders headers, @PathVariable("index") String index,
+            @PathVariable("templateId") String templateId) {
+
+        // Forward the request to our document API to run the template.
+        DocumentApi documentApi = new DocumentApi(this);
+        return documentApi.processTemplateQueryAsync(requestBody, request, headers, index, templateId,
+                documentStore);
     }
 
     @RequestMapping(value = "/indexes/dynamic/{index}", method = RequestMethod.PUT, consumes = {"application/json"})
@@ -183,6 +245,34 @@ public class SearchServiceApi {
         return bulkApi.processPost(requestBody, request, headers, documentStore);
     }
 
+    @RequestMapping(value = "/bulk", method = RequestMethod.POST, consumes = {BulkApi.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> processStreamingBulkRequest(HttpServletRequest request,
+            @RequestHeader HttpHeaders headers) {
+
+        // Forward the request to our bulk API to stream the operations through to the document store.
+        BulkApi bulkApi = new BulkApi(this);
+        return bulkApi.processStreamingPost(request, headers, documentStore);
+    }
+
+    @RequestMapping(value = "/bulk/jobs", method = RequestMethod.POST, consumes = {"application/json"},
+            produces = {"application/json"})
+    public ResponseEntity<String> processBulkJobRequest(@RequestBody String requestBody, HttpServletRequest request,
+            @RequestHeader HttpHeaders headers) {
+
+        // Forward the request to our bulk API to run the operations in the background.
+        BulkApi bulkApi = new BulkApi(this);
+        return bulkApi.processJobPost(requestBody, request, headers, documentStore);
+    }
+
+    @RequestMapping(value = "/bulk/jobs/{jobId}", method = RequestMethod.GET, produces = {"application/json"})
+    public ResponseEntity<String> processGetBulkJob(HttpServletRequest request, @RequestHeader HttpHeaders headers,
+            @PathVariable("jobId") String jobId) {
+
+        // Forward the request to our bulk API to report on the job.
+        BulkApi bulkApi = new BulkApi(this);
+        return bulkApi.processJobGet(jobId, request, headers);
+    }
+
     protected boolean validateRequest(HttpHeaders headers, HttpServletRequest req, Action action,
             String authPolicyFunctionName) {
 
@@ -0,0 +1,236 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.regex.Pattern;
+import javax.servlet.http.HttpServletRequest;
+import org.onap.aai.cl.api.LogFields;
+import org.onap.aai.cl.api.LogLine;
+import org.onap.aai.cl.api.Logger;
+import org.onap.aai.cl.eelf.LoggerFactory;
+import org.onap.aai.sa.searchdbabstraction.logging.SearchDbMsgs;
+import org.onap.aai.sa.searchdbabstraction.searchapi.SearchTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * This class encapsulates the REST end points associated with registering search templates, which are run by
+ * {@link DocumentApi#processTemplateQueryAsync}.
+ */
+public class SearchTemplateApi {
+
+    private static final Pattern TEMPLATE_ID = Pattern.compile("[A-Za-z0-9_.-]+");
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    protected SearchServiceApi searchService = null;
+
+    // Instantiate the loggers.
+    private static Logger logger = LoggerFactory.getInstance().getLogger(SearchTemplateApi.class.getName());
+    private static Logger auditLogger = LoggerFactory.getInstance().getAuditLogger(SearchTemplateApi.class.getName());
+
+    /**
+     * Create a new instance of the SearchTemplateApi end point.
+     */
+    public SearchTemplateApi(SearchServiceApi searchService) {
+        this.searchService = searchService;
+    }
+
+    /**
+     * Validates a search template and registers it for an index, replacing any template already registered with the
+     * same id.
+     *
+     * <p>
+     * Method: PUT
+     *
+     * @param content - JSON structure describing the template - see {@link SearchTemplate}.
+     * @param request - Raw HTTP request.
+     * @param headers - HTTP headers.
+     * @param index - The index which the template searches.
+     * @param templateId - The id of the template.
+     * @return - A response holding the URL of the template, and a scope of "instance" since the template is held only
+     *         by this instance of the service.
+     */
+    public ResponseEntity<String> processPut(String content, HttpServletRequest request, HttpHeaders headers,
+            String index, String templateId) {
+        ApiUtils.initMdcContext(request, headers);
+
+        if (content == null) {
+            logger.warn(SearchDbMsgs.SEARCH_TEMPLATE_FAILURE, templateId, "Missing payload");
+            return buildResponse(HttpStatus.BAD_REQUEST.value(), "Missing payload", request);
+        }
+
+        ResponseEntity<String> authFailure = authenticate(request, headers, ApiUtils.Action.PUT, templateId);
+        if (authFailure != null) {
+            return authFailure;
+        }
+
+        if (!TEMPLATE_ID.matcher(templateId).matches()) {
+            logger.warn(SearchDbMsgs.SEARCH_TEMPLATE_FAILURE, templateId, "Invalid template id");
+            return buildResponse(HttpStatus.BAD_REQUEST.value(),
+                    "Invalid template id: " + templateId + ". Only letters, digits, '_', '.' and '-' are allowed",
+                    request);
+        }
+
+        SearchTemplate template;
+        try {
+            template = SearchTemplate.compile(mapper.readTree(content));
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn(SearchDbMsgs.SEARCH_TEMPLATE_FAILURE, templateId, e.getMessage());
+            return buildResponse(HttpStatus.BAD_REQUEST.value(), "Invalid search template: " + e.getMessage(),
+                    request);
+        }
+
+        SearchTemplateRegistry registry = SearchTemplateRegistry.getInstance();
+        boolean replaced = registry.get(index, templateId) != null;
+        if (!registry.put(index, templateId, template)) {
+            logger.warn(SearchDbMsgs.SEARCH_TEMPLATE_FAILURE, templateId, "Too many search templates are registered");
+            return buildResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many search templates are registered",
+                    request);
+        }
+        logger.info(SearchDbMsgs.SEARCH_TEMPLATE_REGISTERED, templateId, index);
+
+        int resultCode = replaced ? HttpStatus.OK.value() : HttpStatus.CREATED.value();
+        String templateUrl = ApiUtils.buildSearchTemplateUri(index, templateId);
+        logAudit(resultCode, request);
+        return ResponseEntity.status(resultCode).header(HttpHeaders.LOCATION, "/" + templateUrl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{\"template_id\": \"" + templateId + "\", \"url\": \"" + templateUrl
+                        + "\", \"scope\": \"instance\"}");
+    }
+
+    /**
+     * Returns a search template as it was registered.
+     *
+     * <p>
+     * Method: GET
+     *
+     * @param request - Raw HTTP request.
+     * @param headers - HTTP headers.
+     * @param index - The index which the template searches.
+     * @param templateId - The id of the template.
+     * @return - A response holding the template.
+     */
+    public ResponseEntity<String> processGet(HttpServletRequest request, HttpHeaders headers, String index,
+            String templateId) {
+        ApiUtils.initMdcContext(request, headers);
+
+        ResponseEntity<String> authFailure = authenticate(request, headers, ApiUtils.Action.GET, templateId);
+        if (authFailure != null) {
+            return authFailure;
+        }
+
+        SearchTemplate template = SearchTemplateRegistry.getInstance().get(index, templateId);
+        if (template == null) {
+            return buildResponse(HttpStatus.NOT_FOUND.value(), "Unknown search template: " + templateId, request);
+        }
+        return buildResponse(HttpStatus.OK.value(), template.getDefinition().toString(), request);
+    }
+
+    /**
+     * Removes a search template.
+     *
+     * <p>
+     * Method: DELETE
+     *
+     * @param request - Raw HTTP request.
+     * @param headers - HTTP headers.
+     * @param index - The index which the template searches.
+     * @param templateId - The id of the template.
+     * @return - A standard REST response structure.
+     */
+    public ResponseEntity<String> processDelete(HttpServletRequest request, HttpHeaders headers, String index,
+            String templateId) {
+        ApiUtils.initMdcContext(request, headers);
+
+        ResponseEntity<String> authFailure = authenticate(request, headers, ApiUtils.Action.DELETE, templateId);
+        if (authFailure != null) {
+            return authFailure;
+        }
+
+        if (SearchTemplateRegistry.getInstance().remove(index, templateId) == null) {
+            return buildResponse(HttpStatus.NOT_FOUND.value(), "Unknown search template: " + templateId, request);
+        }
+        return buildResponse(HttpStatus.OK.value(), "{\"template_id\": \"" + templateId + "\"}", request);
+    }
+
+    /**
+     * Checks that the request is correctly authenticated.
+     *
+     * @return - null if the request is authenticated, otherwise the response to send to the client.
+     */
+    private ResponseEntity<String> authenticate(HttpServletRequest request, HttpHeaders headers,
+            ApiUtils.Action action, String templateId) {
+        try {
+            if (!searchService.validateRequest(headers, request, action, ApiUtils.SEARCH_AUTH_POLICY_NAME)) {
+                logger.warn(SearchDbMsgs.SEARCH_TEMPLATE_FAILURE, templateId, "Authentication failure.");
+                return buildResponse(HttpStatus.FORBIDDEN.value(), "Authentication failure.", request);
+            }
+        } catch (Exception e) {
+            // This is a catch all for any unexpected failure trying to perform the authentication.
+            logger.warn(SearchDbMsgs.SEARCH_TEMPLATE_FAILURE, templateId,
+                    "Unexpected authentication failure - cause: " + e.getMessage());
+            return buildResponse(HttpStatus.FORBIDDEN.value(), "Authentication failure - cause " + e.getMessage(),
+                    request);
+        }
+        return null;
+    }
+
+    /**
+     * This method generates an audit log and returns an HTTP response object.
+     *
+     * @param resultCode - The result code to report.
+     * @param resultString - The result string to report.
+     * @param request - The HTTP request to extract data from for the audit log.
+     * @return - An HTTP response object.
+     */
+    private ResponseEntity<String> buildResponse(int resultCode, String resultString, HttpServletRequest request) {
+        ResponseEntity<String> response =
+                ResponseEntity.status(resultCode).contentType(MediaType.APPLICATION_JSON).body(resultString);
+
+        logAudit(resultCode, request);
+        return response;
+    }
+
+    /**
+     * This method generates an audit log and clears the MDC context.
+     *
+     * @param resultCode - The result code to report.
+     * @param request - The HTTP request to extract data from for the audit log.
+     */
+    private void logAudit(int resultCode, HttpServletRequest request) {
+        String unknownLogField = "Unknown";
+        auditLogger.info(SearchDbMsgs.PROCESS_REST_REQUEST,
+                new LogFields().setField(LogLine.DefinedFields.RESPONSE_CODE, resultCode)
+                        .setField(LogLine.DefinedFields.RESPONSE_DESCRIPTION, ApiUtils.getHttpStatusString(resultCode)),
+                (request != null) ? request.getMethod() : unknownLogField,
+                (request != null) ? request.getRequestURL().toString() : unknownLogField,
+                (request != null) ? request.getRemoteHost() : unknownLogField, Integer.toString(resultCode));
+
+        // Clear the MDC context so that no other transaction inadvertently uses our transaction id.
+        ApiUtils.clearMdcContext();
+    }
+}
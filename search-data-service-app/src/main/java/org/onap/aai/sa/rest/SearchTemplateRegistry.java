@@ -0,0 +1,107 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.rest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.onap.aai.sa.searchdbabstraction.searchapi.SearchTemplate;
+import org.onap.aai.sa.searchdbabstraction.util.SearchDbConstants;
+
+/**
+ * Holds the search templates registered for each index. Templates are held in memory by each instance of the service,
+ * and are dropped when their index is deleted or the instance restarts. They are neither persisted nor shared with the
+ * other instances, so clients must register a template with every instance which may run it.
+ *
+ * <p>
+ * The number of templates which may be held is set with the
+ * {@value SearchDbConstants#SDB_SEARCH_TEMPLATE_MAX_PROPERTY} system property.
+ */
+final class SearchTemplateRegistry {
+
+    private static final int MAX_TEMPLATES_DEFAULT = 1000;
+
+    private final int maxTemplates;
+    private final Map<String, SearchTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxTemplates - The most templates to hold across all indexes.
+     */
+    SearchTemplateRegistry(int maxTemplates) {
+        this.maxTemplates = maxTemplates;
+    }
+
+    /**
+     * @return - The registry shared by the search template end points.
+     */
+    static SearchTemplateRegistry getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Registers a template, replacing any already registered with the same id for the index.
+     *
+     * @return - true if the template was registered, or false if too many templates are already held.
+     */
+    boolean put(String index, String id, SearchTemplate template) {
+        String key = key(index, id);
+        if (!templates.containsKey(key) && templates.size() >= maxTemplates) {
+            return false;
+        }
+        templates.put(key, template);
+        return true;
+    }
+
+    /**
+     * @return - The template, or null if there is no such template.
+     */
+    SearchTemplate get(String index, String id) {
+        return templates.get(key(index, id));
+    }
+
+    /**
+     * @return - The template which was removed, or null if there was no such template.
+     */
+    SearchTemplate remove(String index, String id) {
+        return templates.remove(key(index, id));
+    }
+
+    /**
+     * Removes all of the templates registered for an index.
+     */
+    void removeIndex(String index) {
+        String prefix = key(index, "");
+        templates.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    int size() {
+        return templates.size();
+    }
+
+    private static String key(String index, String id) {
+        // Index names cannot contain a slash, so the key is unambiguous.
+        return index + '/' + id;
+    }
+
+    private static final class InstanceHolder {
+        private static final SearchTemplateRegistry INSTANCE = new SearchTemplateRegistry(Math.max(0,
+                Integer.getInteger(SearchDbConstants.SDB_SEARCH_TEMPLATE_MAX_PROPERTY, MAX_TEMPLATES_DEFAULT)));
+    }
+}
@@ -20,8 +20,15 @@
  */
 package org.onap.aai.sa.searchdbabstraction.elasticsearch.config;
 
+import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 
@@ -43,6 +50,44 @@ public class ElasticSearchConfig {
     private String javaApiPort;
     private String clusterName;
     private String authorizationEnabled;
+    private boolean connectionPoolEnabled;
+    private int maxConnectionsPerHost;
+    private int connectionIdleTimeoutMs;
+    private int connectTimeoutMs;
+    private int readTimeoutMs;
+    private List<InetSocketAddress> nodes;
+    private LoadBalancingPolicy loadBalancingPolicy;
+    private int healthCheckIntervalMs;
+    private int nodeEjectionMs;
+    private boolean sniffEnabled;
+    private boolean circuitBreakerEnabled;
+    private int circuitBreakerFailureThreshold;
+    private int circuitBreakerOpenMs;
+    private int circuitBreakerHalfOpenRequests;
+    private int maxRetries;
+    private int retryInitialBackoffMs;
+    private int retryMaxBackoffMs;
+    private boolean sourcePassThroughEnabled;
+    private int indexCacheTtlMs;
+    private int indexCacheRefreshIntervalMs;
+    private int bulkMaxBytes;
+    private int bulkMaxOperations;
+    private int bulkParallelism;
+    private int bulkTargetLatencyMs;
+    private int bulkMaxRetries;
+    private int bulkRetryBackoffMs;
+    private boolean writeCoalescingEnabled;
+    private int writeCoalescingMaxDelayMs;
+    private int writeCoalescingMaxOperations;
+    private boolean noopDetectionEnabled;
+    private int noopDetectionMaxEntries;
+    private boolean searchCacheEnabled;
+    private int searchCacheMaxBytes;
+    private int searchCacheTtlMs;
+    private Map<String, Integer> searchCacheTtlMsByIndex = Collections.emptyMap();
+    private int searchCacheMaxStaleMs;
+    private int searchCacheRefreshIntervalMs;
+    private boolean searchCoalescingEnabled;
 
     public static final String ES_CLUSTER_NAME = "es.cluster-name";
     public static final String ES_IP_ADDRESS = "es.ip-address";
@@ -55,9 +100,73 @@ public class ElasticSearchConfig {
     public static final String ES_AUTH_USER = "es.auth-user";
     public static final String ES_AUTH_ENC = "es.auth-password";
     public static final String ES_AUTH_ENABLED = "es.auth.authorization.enabled";
+    public static final String ES_CONNECTION_POOL_ENABLED = "es.connection-pool.enabled";
+    public static final String ES_MAX_CONNECTIONS_PER_HOST = "es.connection-pool.max-connections-per-host";
+    public static final String ES_CONNECTION_IDLE_TIMEOUT = "es.connection-pool.idle-timeout-ms";
+    public static final String ES_CONNECT_TIMEOUT = "es.connect-timeout-ms";
+    public static final String ES_READ_TIMEOUT = "es.read-timeout-ms";
+    public static final String ES_NODES = "es.nodes";
+    public static final String ES_LOAD_BALANCING = "es.load-balancing";
+    public static final String ES_HEALTH_CHECK_INTERVAL = "es.health-check.interval-ms";
+    public static final String ES_NODE_EJECTION = "es.node.ejection-ms";
+    public static final String ES_SNIFF_ENABLED = "es.sniff.enabled";
+    public static final String ES_CIRCUIT_BREAKER_ENABLED = "es.circuit-breaker.enabled";
+    public static final String ES_CIRCUIT_BREAKER_FAILURE_THRESHOLD = "es.circuit-breaker.failure-threshold";
+    public static final String ES_CIRCUIT_BREAKER_OPEN = "es.circuit-breaker.open-ms";
+    public static final String ES_CIRCUIT_BREAKER_HALF_OPEN_REQUESTS = "es.circuit-breaker.half-open-requests";
+    public static final String ES_RETRY_MAX_RETRIES = "es.retry.max-retries";
+    public static final String ES_RETRY_INITIAL_BACKOFF = "es.retry.initial-backoff-ms";
+    public static final String ES_RETRY_MAX_BACKOFF = "es.retry.max-backoff-ms";
+    public static final String ES_SOURCE_PASSTHROUGH_ENABLED = "es.search.source-passthrough.enabled";
+    public static final String ES_INDEX_CACHE_TTL = "es.index-cache.ttl-ms";
+    public static final String ES_INDEX_CACHE_REFRESH_INTERVAL = "es.index-cache.refresh-interval-ms";
+    public static final String ES_BULK_MAX_BYTES = "es.bulk.max-bytes";
+    public static final String ES_BULK_MAX_OPERATIONS = "es.bulk.max-operations";
+    public static final String ES_BULK_PARALLELISM = "es.bulk.parallelism";
+    public static final String ES_BULK_TARGET_LATENCY = "es.bulk.target-latency-ms";
+    public static final String ES_BULK_MAX_RETRIES = "es.bulk.retry.max-retries";
+    public static final String ES_BULK_RETRY_BACKOFF = "es.bulk.retry.backoff-ms";
+    public static final String ES_WRITE_COALESCING_ENABLED = "es.write-coalescing.enabled";
+    public static final String ES_WRITE_COALESCING_MAX_DELAY = "es.write-coalescing.max-delay-ms";
+    public static final String ES_WRITE_COALESCING_MAX_OPERATIONS = "es.write-coalescing.max-operations";
+    public static final String ES_NOOP_DETECTION_ENABLED = "es.noop-detection.enabled";
+    public static final String ES_NOOP_DETECTION_MAX_ENTRIES = "es.noop-detection.max-entries";
+    public static final String ES_SEARCH_CACHE_ENABLED = "es.search-cache.enabled";
+    public static final String ES_SEARCH_CACHE_MAX_BYTES = "es.search-cache.max-bytes";
+    public static final String ES_SEARCH_CACHE_TTL = "es.search-cache.ttl-ms";
+    public static final String ES_SEARCH_CACHE_MAX_STALE = "es.search-cache.max-stale-ms";
+    public static final String ES_SEARCH_CACHE_REFRESH_INTERVAL = "es.search-cache.refresh-interval-ms";
+    public static final String ES_SEARCH_COALESCING_ENABLED = "es.search-coalescing.enabled";
 
     private static final String DEFAULT_URI_SCHEME = "http";
     private static final String JAVA_API_PORT_DEFAULT = "9300";
+    private static final int MAX_CONNECTIONS_PER_HOST_DEFAULT = 64;
+    private static final int CONNECTION_IDLE_TIMEOUT_MS_DEFAULT = 60000;
+    private static final int CONNECT_TIMEOUT_MS_DEFAULT = 5000;
+    private static final int READ_TIMEOUT_MS_DEFAULT = 60000;
+    private static final int HEALTH_CHECK_INTERVAL_MS_DEFAULT = 10000;
+    private static final int NODE_EJECTION_MS_DEFAULT = 30000;
+    private static final int HTTP_PORT_DEFAULT = 9200;
+    private static final int CIRCUIT_BREAKER_FAILURE_THRESHOLD_DEFAULT = 5;
+    private static final int CIRCUIT_BREAKER_OPEN_MS_DEFAULT = 10000;
+    private static final int CIRCUIT_BREAKER_HALF_OPEN_REQUESTS_DEFAULT = 1;
+    private static final int MAX_RETRIES_DEFAULT = 2;
+    private static final int RETRY_INITIAL_BACKOFF_MS_DEFAULT = 50;
+    private static final int RETRY_MAX_BACKOFF_MS_DEFAULT = 1000;
+    private static final int INDEX_CACHE_TTL_MS_DEFAULT = 60000;
+    private static final int INDEX_CACHE_REFRESH_INTERVAL_MS_DEFAULT = 30000;
+    private static final int BULK_MAX_BYTES_DEFAULT = 5 * 1024 * 1024;
+    private static final int BULK_MAX_OPERATIONS_DEFAULT = 1000;
+    private static final int BULK_PARALLELISM_DEFAULT = 4;
+    private static final int BULK_TARGET_LATENCY_MS_DEFAULT = 1000;
+    private static final int BULK_MAX_RETRIES_DEFAULT = 3;
+    private static final int BULK_RETRY_BACKOFF_MS_DEFAULT = 100;
+    private static final int WRITE_COALESCING_MAX_DELAY_MS_DEFAULT = 5;
+    private static final int WRITE_COALESCING_MAX_OPERATIONS_DEFAULT = 100;
+    private static final int NOOP_DETECTION_MAX_ENTRIES_DEFAULT = 100000;
+    private static final int SEARCH_CACHE_MAX_BYTES_DEFAULT = 64 * 1024 * 1024;
+    private static final int SEARCH_CACHE_TTL_MS_DEFAULT = 5000;
+    private static final int SEARCH_CACHE_REFRESH_INTERVAL_MS_DEFAULT = 1000;
     private String authValue;
 
     public ElasticSearchConfig(Properties props) {
@@ -71,6 +180,11 @@ public class ElasticSearchConfig {
         setJavaApiPort(JAVA_API_PORT_DEFAULT);
         initializeAuthValues(props);
         setAuthorizationEnabled(props.getProperty(ES_AUTH_ENABLED));
+        initializeConnectionProperties(props);
+        initializeNodeProperties(props);
+        initializeResilienceProperties(props);
+        initializeSearchProperties(props);
+        initializeBulkProperties(props);
     }
 
 
@@ -178,12 +292,570 @@ public class ElasticSearchConfig {
         return getAuthorizationEnabled()== null? true : Boolean.parseBoolean(getAuthorizationEnabled());
     }
 
+    /**
+     * @return true if requests should be sent over a bounded pool of persistent (keep-alive) connections, false to open
+     *         a new connection for every request.
+     */
+    public boolean useConnectionPool() {
+        return connectionPoolEnabled;
+    }
+
+    public void setConnectionPoolEnabled(boolean connectionPoolEnabled) {
+        this.connectionPoolEnabled = connectionPoolEnabled;
+    }
+
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    public int getConnectionIdleTimeoutMs() {
+        return connectionIdleTimeoutMs;
+    }
+
+    public void setConnectionIdleTimeoutMs(int connectionIdleTimeoutMs) {
+        this.connectionIdleTimeoutMs = connectionIdleTimeoutMs;
+    }
+
+    public int getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public void setConnectTimeoutMs(int connectTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+
+    public int getReadTimeoutMs() {
+        return readTimeoutMs;
+    }
+
+    public void setReadTimeoutMs(int readTimeoutMs) {
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    /**
+     * @return the HTTP addresses of the Elasticsearch nodes to which requests may be sent. This is the list configured
+     *         by {@value #ES_NODES}, or else the single node given by {@value #ES_IP_ADDRESS} and
+     *         {@value #ES_HTTP_PORT}.
+     */
+    public List<InetSocketAddress> getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(List<InetSocketAddress> nodes) {
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+    }
+
+    public LoadBalancingPolicy getLoadBalancingPolicy() {
+        return loadBalancingPolicy;
+    }
+
+    public void setLoadBalancingPolicy(LoadBalancingPolicy loadBalancingPolicy) {
+        this.loadBalancingPolicy = loadBalancingPolicy;
+    }
+
+    /**
+     * @return the interval between background health checks of each node, or zero if health checking is disabled.
+     */
+    public int getHealthCheckIntervalMs() {
+        return healthCheckIntervalMs;
+    }
+
+    public void setHealthCheckIntervalMs(int healthCheckIntervalMs) {
+        this.healthCheckIntervalMs = healthCheckIntervalMs;
+    }
+
+    /**
+     * @return the time for which a node that failed a request or a health check is taken out of service.
+     */
+    public int getNodeEjectionMs() {
+        return nodeEjectionMs;
+    }
+
+    public void setNodeEjectionMs(int nodeEjectionMs) {
+        this.nodeEjectionMs = nodeEjectionMs;
+    }
+
+    /**
+     * @return true if the HTTP addresses of the cluster nodes should be discovered from the _nodes/http API.
+     */
+    public boolean isSniffEnabled() {
+        return sniffEnabled;
+    }
+
+    public void setSniffEnabled(boolean sniffEnabled) {
+        this.sniffEnabled = sniffEnabled;
+    }
+
+    /**
+     * @return true if requests to a node should be rejected for a while once that node has failed too many requests of
+     *         the same kind in a row.
+     */
+    public boolean useCircuitBreaker() {
+        return circuitBreakerEnabled;
+    }
+
+    public void setCircuitBreakerEnabled(boolean circuitBreakerEnabled) {
+        this.circuitBreakerEnabled = circuitBreakerEnabled;
+    }
+
+    /**
+     * @return the number of consecutive failed requests after which a circuit is opened.
+     */
+    public int getCircuitBreakerFailureThreshold() {
+        return circuitBreakerFailureThreshold;
+    }
+
+    public void setCircuitBreakerFailureThreshold(int circuitBreakerFailureThreshold) {
+        this.circuitBreakerFailureThreshold = circuitBreakerFailureThreshold;
+    }
+
+    /**
+     * @return the time for which an open circuit rejects requests before letting trial requests through.
+     */
+    public int getCircuitBreakerOpenMs() {
+        return circuitBreakerOpenMs;
+    }
+
+    public void setCircuitBreakerOpenMs(int circuitBreakerOpenMs) {
+        this.circuitBreakerOpenMs = circuitBreakerOpenMs;
+    }
+
+    /**
+     * @return the number of trial requests which may be in progress while a circuit is half open.
+     */
+    public int getCircuitBreakerHalfOpenRequests() {
+        return circuitBreakerHalfOpenRequests;
+    }
+
+    public void setCircuitBreakerHalfOpenRequests(int circuitBreakerHalfOpenRequests) {
+        this.circuitBreakerHalfOpenRequests = circuitBreakerHalfOpenRequests;
+    }
+
+    /**
+     * @return the number of times a failed read is retried.
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public int getRetryInitialBackoffMs() {
+        return retryInitialBackoffMs;
+    }
+
+    public void setRetryInitialBackoffMs(int retryInitialBackoffMs) {
+        this.retryInitialBackoffMs = retryInitialBackoffMs;
+    }
+
+    public int getRetryMaxBackoffMs() {
+        return retryMaxBackoffMs;
+    }
+
+    public void setRetryMaxBackoffMs(int retryMaxBackoffMs) {
+        this.retryMaxBackoffMs = retryMaxBackoffMs;
+    }
+
+    /**
+     * @return true if the source of each search hit should be copied to the client as the raw JSON received from
+     *         Elasticsearch rather than being decoded and encoded again.
+     */
+    public boolean isSourcePassThroughEnabled() {
+        return sourcePassThroughEnabled;
+    }
+
+    public void setSourcePassThroughEnabled(boolean sourcePassThroughEnabled) {
+        this.sourcePassThroughEnabled = sourcePassThroughEnabled;
+    }
+
+    /**
+     * @return the time for which the existence of an index is remembered, or zero if it is checked on every use.
+     */
+    public int getIndexCacheTtlMs() {
+        return indexCacheTtlMs;
+    }
+
+    public void setIndexCacheTtlMs(int indexCacheTtlMs) {
+        this.indexCacheTtlMs = indexCacheTtlMs;
+    }
+
+    /**
+     * @return the interval between background refreshes of the list of indexes, or zero if it is not refreshed.
+     */
+    public int getIndexCacheRefreshIntervalMs() {
+        return indexCacheRefreshIntervalMs;
+    }
+
+    public void setIndexCacheRefreshIntervalMs(int indexCacheRefreshIntervalMs) {
+        this.indexCacheRefreshIntervalMs = indexCacheRefreshIntervalMs;
+    }
+
+    /**
+     * @return the size in bytes above which the operations of a bulk request are split across several Elasticsearch
+     *         bulk requests.
+     */
+    public int getBulkMaxBytes() {
+        return bulkMaxBytes;
+    }
+
+    public void setBulkMaxBytes(int bulkMaxBytes) {
+        this.bulkMaxBytes = bulkMaxBytes;
+    }
+
+    /**
+     * @return the maximum number of operations sent to Elasticsearch in a single bulk request.
+     */
+    public int getBulkMaxOperations() {
+        return bulkMaxOperations;
+    }
+
+    public void setBulkMaxOperations(int bulkMaxOperations) {
+        this.bulkMaxOperations = bulkMaxOperations;
+    }
+
+    /**
+     * @return the maximum number of parts of a split bulk request which are sent to Elasticsearch at the same time.
+     */
+    public int getBulkParallelism() {
+        return bulkParallelism;
+    }
+
+    public void setBulkParallelism(int bulkParallelism) {
+        this.bulkParallelism = bulkParallelism;
+    }
+
+    /**
+     * @return the latency above which bulk requests are made smaller and fewer are sent at once, or zero if bulk
+     *         requests are always sent at their maximum size and parallelism.
+     */
+    public int getBulkTargetLatencyMs() {
+        return bulkTargetLatencyMs;
+    }
+
+    public void setBulkTargetLatencyMs(int bulkTargetLatencyMs) {
+        this.bulkTargetLatencyMs = bulkTargetLatencyMs;
+    }
+
+    /**
+     * @return the number of times bulk operations rejected by Elasticsearch as too busy are sent again.
+     */
+    public int getBulkMaxRetries() {
+        return bulkMaxRetries;
+    }
+
+    public void setBulkMaxRetries(int bulkMaxRetries) {
+        this.bulkMaxRetries = bulkMaxRetries;
+    }
+
+    /**
+     * @return the wait before rejected bulk operations are first sent again, which doubles for each later attempt.
+     */
+    public int getBulkRetryBackoffMs() {
+        return bulkRetryBackoffMs;
+    }
+
+    public void setBulkRetryBackoffMs(int bulkRetryBackoffMs) {
+        this.bulkRetryBackoffMs = bulkRetryBackoffMs;
+    }
+
+    /**
+     * @return true if single-document creates, updates and deletes made at about the same time should be sent to
+     *         Elasticsearch together as one bulk request.
+     */
+    public boolean useWriteCoalescing() {
+        return writeCoalescingEnabled;
+    }
+
+    public void setWriteCoalescingEnabled(boolean writeCoalescingEnabled) {
+        this.writeCoalescingEnabled = writeCoalescingEnabled;
+    }
+
+    /**
+     * @return the longest time for which a single-document write waits for others to be sent with it.
+     */
+    public int getWriteCoalescingMaxDelayMs() {
+        return writeCoalescingMaxDelayMs;
+    }
+
+    public void setWriteCoalescingMaxDelayMs(int writeCoalescingMaxDelayMs) {
+        this.writeCoalescingMaxDelayMs = writeCoalescingMaxDelayMs;
+    }
+
+    /**
+     * @return the number of single-document writes at which they are sent without waiting any longer.
+     */
+    public int getWriteCoalescingMaxOperations() {
+        return writeCoalescingMaxOperations;
+    }
+
+    public void setWriteCoalescingMaxOperations(int writeCoalescingMaxOperations) {
+        this.writeCoalescingMaxOperations = writeCoalescingMaxOperations;
+    }
+
+    /**
+     * @return true if updates which would not change the content of a document should be answered without sending
+     *         them to Elasticsearch.
+     */
+    public boolean useNoopDetection() {
+        return noopDetectionEnabled;
+    }
+
+    public void setNoopDetectionEnabled(boolean noopDetectionEnabled) {
+        this.noopDetectionEnabled = noopDetectionEnabled;
+    }
+
+    /**
+     * @return the number of documents whose content hash is remembered to detect unchanged updates.
+     */
+    public int getNoopDetectionMaxEntries() {
+        return noopDetectionMaxEntries;
+    }
+
+    public void setNoopDetectionMaxEntries(int noopDetectionMaxEntries) {
+        this.noopDetectionMaxEntries = noopDetectionMaxEntries;
+    }
+
+    /**
+     * @return true if the responses to searches should be cached.
+     */
+    public boolean useSearchCache() {
+        return searchCacheEnabled;
+    }
+
+    public void setSearchCacheEnabled(boolean searchCacheEnabled) {
+        this.searchCacheEnabled = searchCacheEnabled;
+    }
+
+    /**
+     * @return the most memory, in bytes, to be taken by cached search responses.
+     */
+    public int getSearchCacheMaxBytes() {
+        return searchCacheMaxBytes;
+    }
+
+    public void setSearchCacheMaxBytes(int searchCacheMaxBytes) {
+        this.searchCacheMaxBytes = searchCacheMaxBytes;
+    }
+
+    /**
+     * @return the time for which a cached search response is used, for an index without a setting of its own.
+     */
+    public int getSearchCacheTtlMs() {
+        return searchCacheTtlMs;
+    }
+
+    public void setSearchCacheTtlMs(int searchCacheTtlMs) {
+        this.searchCacheTtlMs = searchCacheTtlMs;
+    }
+
+    /**
+     * @return the time for which a cached search response is used, for each index with a setting of its own.
+     */
+    public Map<String, Integer> getSearchCacheTtlMsByIndex() {
+        return searchCacheTtlMsByIndex;
+    }
+
+    public void setSearchCacheTtlMsByIndex(Map<String, Integer> searchCacheTtlMsByIndex) {
+        this.searchCacheTtlMsByIndex = searchCacheTtlMsByIndex;
+    }
+
+    /**
+     * @return the time after its time to live for which a cached search response is still used while it is refreshed.
+     */
+    public int getSearchCacheMaxStaleMs() {
+        return searchCacheMaxStaleMs;
+    }
+
+    public void setSearchCacheMaxStaleMs(int searchCacheMaxStaleMs) {
+        this.searchCacheMaxStaleMs = searchCacheMaxStaleMs;
+    }
+
+    /**
+     * @return the time after a write to an index for which the responses to searches of it are not cached.
+     */
+    public int getSearchCacheRefreshIntervalMs() {
+        return searchCacheRefreshIntervalMs;
+    }
+
+    public void setSearchCacheRefreshIntervalMs(int searchCacheRefreshIntervalMs) {
+        this.searchCacheRefreshIntervalMs = searchCacheRefreshIntervalMs;
+    }
+
+    /**
+     * @return true if identical searches in progress at the same time should share a single search.
+     */
+    public boolean useSearchCoalescing() {
+        return searchCoalescingEnabled;
+    }
+
+    public void setSearchCoalescingEnabled(boolean searchCoalescingEnabled) {
+        this.searchCoalescingEnabled = searchCoalescingEnabled;
+    }
+
     @Override
     public String toString() {
         return String.format(
-                "%s://%s:%s (cluster=%s) (API port=%s)%nauth=%s%ntrustStore=%s (passwd %s)%nkeyStore=%s (passwd %s)%nauthorizationUser=%s",
+                "%s://%s:%s (cluster=%s) (API port=%s)%nauth=%s%ntrustStore=%s (passwd %s)%nkeyStore=%s (passwd %s)%nauthorizationUser=%s"
+                        + "%nconnectionPool=%s (max per host %d, idle timeout %dms)"
+                        + "%nconnectTimeout=%dms readTimeout=%dms"
+                        + "%nnodes=%s (%s, health check %dms, ejection %dms, sniff %s)"
+                        + "%ncircuitBreaker=%s (threshold %d, open %dms, half open requests %d)"
+                        + "%nretries=%d (backoff %dms to %dms)"
+                        + "%nsourcePassThrough=%s indexCache=%dms (refresh %dms)"
+                        + "%nbulk=%d bytes or %d operations (parallelism %d, target latency %dms)"
+                        + "%nbulkRetries=%d (backoff %dms)"
+                        + "%nwriteCoalescing=%s (delay %dms, %d operations)"
+                        + "%nnoopDetection=%s (%d entries)"
+                        + "%nsearchCache=%s (%d bytes, ttl %dms, index ttls %s, max stale %dms, refresh %dms)"
+                        + "%nsearchCoalescing=%s",
                 uriScheme, ipAddress, httpPort, clusterName, javaApiPort, useAuth(), trustStore,
-                trustStorePassword != null, keyStore, keyStorePassword != null, useAuthorizationUser());
+                trustStorePassword != null, keyStore, keyStorePassword != null, useAuthorizationUser(),
+                connectionPoolEnabled, maxConnectionsPerHost, connectionIdleTimeoutMs, connectTimeoutMs,
+                readTimeoutMs, nodes, loadBalancingPolicy, healthCheckIntervalMs, nodeEjectionMs, sniffEnabled,
+                circuitBreakerEnabled, circuitBreakerFailureThreshold, circuitBreakerOpenMs,
+                circuitBreakerHalfOpenRequests, maxRetries, retryInitialBackoffMs, retryMaxBackoffMs,
+                sourcePassThroughEnabled, indexCacheTtlMs, indexCacheRefreshIntervalMs, bulkMaxBytes, bulkMaxOperations,
+                bulkParallelism, bulkTargetLatencyMs, bulkMaxRetries, bulkRetryBackoffMs, writeCoalescingEnabled,
+                writeCoalescingMaxDelayMs, writeCoalescingMaxOperations, noopDetectionEnabled, noopDetectionMaxEntries,
+                searchCacheEnabled, searchCacheMaxBytes, searchCacheTtlMs, searchCacheTtlMsByIndex,
+                searchCacheMaxStaleMs, searchCacheRefreshIntervalMs, searchCoalescingEnabled);
+    }
+
+    private void initializeConnectionProperties(Properties props) {
+        setConnectionPoolEnabled(
+                Boolean.parseBoolean(props.getProperty(ES_CONNECTION_POOL_ENABLED, Boolean.TRUE.toString())));
+        setMaxConnectionsPerHost(getIntProperty(props, ES_MAX_CONNECTIONS_PER_HOST, MAX_CONNECTIONS_PER_HOST_DEFAULT));
+        setConnectionIdleTimeoutMs(
+                getIntProperty(props, ES_CONNECTION_IDLE_TIMEOUT, CONNECTION_IDLE_TIMEOUT_MS_DEFAULT));
+        setConnectTimeoutMs(getIntProperty(props, ES_CONNECT_TIMEOUT, CONNECT_TIMEOUT_MS_DEFAULT));
+        setReadTimeoutMs(getIntProperty(props, ES_READ_TIMEOUT, READ_TIMEOUT_MS_DEFAULT));
+    }
+
+    private void initializeNodeProperties(Properties props) {
+        List<InetSocketAddress> configuredNodes = new ArrayList<>();
+        String nodeList = props.getProperty(ES_NODES);
+        if (StringUtils.isNotBlank(nodeList)) {
+            for (String node : nodeList.split(",")) {
+                if (StringUtils.isNotBlank(node)) {
+                    try {
+                        configuredNodes.add(parseNodeAddress(node.trim()));
+                    } catch (IllegalArgumentException e) {
+                        // Ignore a malformed entry rather than fail to start.
+                    }
+                }
+            }
+        }
+
+        if (configuredNodes.isEmpty()) {
+            int port = getIntProperty(props, ES_HTTP_PORT, HTTP_PORT_DEFAULT);
+            configuredNodes.add(InetSocketAddress.createUnresolved(String.valueOf(getIpAddress()), port));
+        } else if (getIpAddress() == null) {
+            // The first node stands in for the single address used by older configurations.
+            setIpAddress(configuredNodes.get(0).getHostString());
+            setHttpPort(String.valueOf(configuredNodes.get(0).getPort()));
+        }
+        setNodes(configuredNodes);
+
+        setLoadBalancingPolicy(LoadBalancingPolicy.fromProperty(props.getProperty(ES_LOAD_BALANCING)));
+        setHealthCheckIntervalMs(getIntProperty(props, ES_HEALTH_CHECK_INTERVAL, HEALTH_CHECK_INTERVAL_MS_DEFAULT));
+        setNodeEjectionMs(getIntProperty(props, ES_NODE_EJECTION, NODE_EJECTION_MS_DEFAULT));
+        setSniffEnabled(Boolean.parseBoolean(props.getProperty(ES_SNIFF_ENABLED, Boolean.FALSE.toString())));
+    }
+
+    private void initializeResilienceProperties(Properties props) {
+        setCircuitBreakerEnabled(
+                Boolean.parseBoolean(props.getProperty(ES_CIRCUIT_BREAKER_ENABLED, Boolean.TRUE.toString())));
+        setCircuitBreakerFailureThreshold(getIntProperty(props, ES_CIRCUIT_BREAKER_FAILURE_THRESHOLD,
+                CIRCUIT_BREAKER_FAILURE_THRESHOLD_DEFAULT));
+        setCircuitBreakerOpenMs(getIntProperty(props, ES_CIRCUIT_BREAKER_OPEN, CIRCUIT_BREAKER_OPEN_MS_DEFAULT));
+        setCircuitBreakerHalfOpenRequests(getIntProperty(props, ES_CIRCUIT_BREAKER_HALF_OPEN_REQUESTS,
+                CIRCUIT_BREAKER_HALF_OPEN_REQUESTS_DEFAULT));
+        setMaxRetries(getIntProperty(props, ES_RETRY_MAX_RETRIES, MAX_RETRIES_DEFAULT));
+        setRetryInitialBackoffMs(getIntProperty(props, ES_RETRY_INITIAL_BACKOFF, RETRY_INITIAL_BACKOFF_MS_DEFAULT));
+        setRetryMaxBackoffMs(getIntProperty(props, ES_RETRY_MAX_BACKOFF, RETRY_MAX_BACKOFF_MS_DEFAULT));
+    }
+
+    private void initializeSearchProperties(Properties props) {
+        setSourcePassThroughEnabled(
+                Boolean.parseBoolean(props.getProperty(ES_SOURCE_PASSTHROUGH_ENABLED, Boolean.FALSE.toString())));
+        setIndexCacheTtlMs(getIntProperty(props, ES_INDEX_CACHE_TTL, INDEX_CACHE_TTL_MS_DEFAULT));
+        setIndexCacheRefreshIntervalMs(
+                getIntProperty(props, ES_INDEX_CACHE_REFRESH_INTERVAL, INDEX_CACHE_REFRESH_INTERVAL_MS_DEFAULT));
+        setSearchCacheEnabled(
+                Boolean.parseBoolean(props.getProperty(ES_SEARCH_CACHE_ENABLED, Boolean.FALSE.toString())));
+        setSearchCacheMaxBytes(
+                Math.max(0, getIntProperty(props, ES_SEARCH_CACHE_MAX_BYTES, SEARCH_CACHE_MAX_BYTES_DEFAULT)));
+        setSearchCacheTtlMs(Math.max(0, getIntProperty(props, ES_SEARCH_CACHE_TTL, SEARCH_CACHE_TTL_MS_DEFAULT)));
+        setSearchCacheMaxStaleMs(Math.max(0, getIntProperty(props, ES_SEARCH_CACHE_MAX_STALE, 0)));
+        setSearchCacheRefreshIntervalMs(Math.max(0, getIntProperty(props, ES_SEARCH_CACHE_REFRESH_INTERVAL,
+                SEARCH_CACHE_REFRESH_INTERVAL_MS_DEFAULT)));
+
+        // The time to live for an index is set with the name of the index appended to the general setting.
+        String indexTtlPrefix = ES_SEARCH_CACHE_TTL + ".";
+        Map<String, Integer> ttlByIndex = new HashMap<>();
+        for (String key : props.stringPropertyNames()) {
+            if (key.startsWith(indexTtlPrefix) && key.length() > indexTtlPrefix.length()) {
+                ttlByIndex.put(key.substring(indexTtlPrefix.length()),
+                        Math.max(0, getIntProperty(props, key, getSearchCacheTtlMs())));
+            }
+        }
+        setSearchCacheTtlMsByIndex(ttlByIndex);
+        setSearchCoalescingEnabled(
+                Boolean.parseBoolean(props.getProperty(ES_SEARCH_COALESCING_ENABLED, Boolean.FALSE.toString())));
+    }
+
+    private void initializeBulkProperties(Properties props) {
+        setBulkMaxBytes(Math.max(1, getIntProperty(props, ES_BULK_MAX_BYTES, BULK_MAX_BYTES_DEFAULT)));
+        setBulkMaxOperations(Math.max(1, getIntProperty(props, ES_BULK_MAX_OPERATIONS, BULK_MAX_OPERATIONS_DEFAULT)));
+        setBulkParallelism(Math.max(1, getIntProperty(props, ES_BULK_PARALLELISM, BULK_PARALLELISM_DEFAULT)));
+        setBulkTargetLatencyMs(
+                Math.max(0, getIntProperty(props, ES_BULK_TARGET_LATENCY, BULK_TARGET_LATENCY_MS_DEFAULT)));
+        setBulkMaxRetries(Math.max(0, getIntProperty(props, ES_BULK_MAX_RETRIES, BULK_MAX_RETRIES_DEFAULT)));
+        setBulkRetryBackoffMs(Math.max(0, getIntProperty(props, ES_BULK_RETRY_BACKOFF, BULK_RETRY_BACKOFF_MS_DEFAULT)));
+        setWriteCoalescingEnabled(
+                Boolean.parseBoolean(props.getProperty(ES_WRITE_COALESCING_ENABLED, Boolean.FALSE.toString())));
+        setWriteCoalescingMaxDelayMs(Math.max(1,
+                getIntProperty(props, ES_WRITE_COALESCING_MAX_DELAY, WRITE_COALESCING_MAX_DELAY_MS_DEFAULT)));
+        setWriteCoalescingMaxOperations(Math.max(1, getIntProperty(props, ES_WRITE_COALESCING_MAX_OPERATIONS,
+                WRITE_COALESCING_MAX_OPERATIONS_DEFAULT)));
+        setNoopDetectionEnabled(
+                Boolean.parseBoolean(props.getProperty(ES_NOOP_DETECTION_ENABLED, Boolean.FALSE.toString())));
+        setNoopDetectionMaxEntries(Math.max(1,
+                getIntProperty(props, ES_NOOP_DETECTION_MAX_ENTRIES, NOOP_DETECTION_MAX_ENTRIES_DEFAULT)));
+    }
+
+    /**
+     * Parses a node address of the form host[:port], where an IPv6 host is enclosed in square brackets.
+     *
+     * @param address - The node address.
+     * @return - An unresolved socket address for the node.
+     * @throws IllegalArgumentException if the port is not a valid port number.
+     */
+    public static InetSocketAddress parseNodeAddress(String address) {
+        int portSeparator = address.lastIndexOf(':');
+        if (portSeparator < 0 || portSeparator < address.lastIndexOf(']')) {
+            return InetSocketAddress.createUnresolved(StringUtils.strip(address, "[]"), HTTP_PORT_DEFAULT);
+        }
+        String host = StringUtils.strip(address.substring(0, portSeparator), "[]");
+        return InetSocketAddress.createUnresolved(host, Integer.parseInt(address.substring(portSeparator + 1)));
+    }
+
+    private static int getIntProperty(Properties props, String key, int defaultValue) {
+        String value = props.getProperty(key);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
     }
 
     private void initializeAuthValues(Properties props) {
@@ -237,4 +909,25 @@ public class ElasticSearchConfig {
     private void setUriScheme(String uriScheme) {
         this.uriScheme = Optional.ofNullable(uriScheme).orElse(DEFAULT_URI_SCHEME);
     }
+
+    /**
+     * The way in which a request is assigned to one of the available nodes.
+     */
+    public enum LoadBalancingPolicy {
+        /** Each node is used in turn. */
+        ROUND_ROBIN,
+        /** The node with the fewest requests in progress is used. */
+        LEAST_OUTSTANDING;
+
+        static LoadBalancingPolicy fromProperty(String value) {
+            if (StringUtils.isBlank(value)) {
+                return ROUND_ROBIN;
+            }
+            try {
+                return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return ROUND_ROBIN;
+            }
+        }
+    }
 }
@@ -0,0 +1,68 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import java.util.concurrent.CompletableFuture;
+import org.onap.aai.sa.searchdbabstraction.entity.DocumentOperationResult;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchOperationResult;
+
+/**
+ * Non-blocking variant of the document and search operations defined in {@link DocumentStoreInterface}.
+ *
+ * <p>
+ * The returned futures complete once the document store has replied, without holding a thread for the duration of
+ * the round trip. A failed operation completes the future exceptionally, normally with a
+ * {@link org.onap.aai.sa.searchdbabstraction.elasticsearch.exception.DocumentStoreOperationException}.
+ */
+public interface AsyncDocumentStoreInterface {
+
+    public CompletableFuture<DocumentOperationResult> createDocumentAsync(String indexName,
+            DocumentStoreDataEntity document, boolean allowImplicitIndexCreation);
+
+    public CompletableFuture<DocumentOperationResult> updateDocumentAsync(String indexName,
+            DocumentStoreDataEntity document, boolean allowImplicitIndexCreation);
+
+    public CompletableFuture<SearchOperationResult> suggestionQueryWithPayloadAsync(String indexName, String query);
+
+    public CompletableFuture<DocumentOperationResult> deleteDocumentAsync(String indexName,
+            DocumentStoreDataEntity document);
+
+    public CompletableFuture<DocumentOperationResult> getDocumentAsync(String indexName,
+            DocumentStoreDataEntity document);
+
+    public CompletableFuture<SearchOperationResult> searchAsync(String indexName, String queryText);
+
+    public CompletableFuture<SearchOperationResult> searchWithPayloadAsync(String indexName, String query);
+
+    /**
+     * Returns an asynchronous view of the supplied document store. Stores which only implement the synchronous
+     * interface are adapted so that each operation runs on the calling thread and returns a completed future.
+     *
+     * @param documentStore - The document store.
+     * @return - The asynchronous view of the document store.
+     */
+    public static AsyncDocumentStoreInterface of(DocumentStoreInterface documentStore) {
+        if (documentStore instanceof AsyncDocumentStoreInterface) {
+            return (AsyncDocumentStoreInterface) documentStore;
+        }
+        return new BlockingDocumentStoreAdapter(documentStore);
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import java.util.concurrent.CompletableFuture;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.exception.DocumentStoreOperationException;
+import org.onap.aai.sa.searchdbabstraction.entity.DocumentOperationResult;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchOperationResult;
+
+/**
+ * Presents a synchronous {@link DocumentStoreInterface} as an {@link AsyncDocumentStoreInterface}. Each operation is
+ * performed on the calling thread and the outcome is returned as an already completed future.
+ */
+class BlockingDocumentStoreAdapter implements AsyncDocumentStoreInterface {
+
+    @FunctionalInterface
+    private interface Operation<T> {
+        T perform() throws DocumentStoreOperationException;
+    }
+
+    private final DocumentStoreInterface documentStore;
+
+    BlockingDocumentStoreAdapter(DocumentStoreInterface documentStore) {
+        this.documentStore = documentStore;
+    }
+
+    @Override
+    public CompletableFuture<DocumentOperationResult> createDocumentAsync(String indexName,
+            DocumentStoreDataEntity document, boolean allowImplicitIndexCreation) {
+        return complete(() -> documentStore.createDocument(indexName, document, allowImplicitIndexCreation));
+    }
+
+    @Override
+    public CompletableFuture<DocumentOperationResult> updateDocumentAsync(String indexName,
+            DocumentStoreDataEntity document, boolean allowImplicitIndexCreation) {
+        return complete(() -> documentStore.updateDocument(indexName, document, allowImplicitIndexCreation));
+    }
+
+    @Override
+    public CompletableFuture<SearchOperationResult> suggestionQueryWithPayloadAsync(String indexName, String query) {
+        return complete(() -> documentStore.suggestionQueryWithPayload(indexName, query));
+    }
+
+    @Override
+    public CompletableFuture<DocumentOperationResult> deleteDocumentAsync(String indexName,
+            DocumentStoreDataEntity document) {
+        return complete(() -> documentStore.deleteDocument(indexName, document));
+    }
+
+    @Override
+    public CompletableFuture<DocumentOperationResult> getDocumentAsync(String indexName,
+            DocumentStoreDataEntity document) {
+        return complete(() -> documentStore.getDocument(indexName, document));
+    }
+
+    @Override
+    public CompletableFuture<SearchOperationResult> searchAsync(String indexName, String queryText) {
+        return complete(() -> documentStore.search(indexName, queryText));
+    }
+
+    @Override
+    public CompletableFuture<SearchOperationResult> searchWithPayloadAsync(String indexName, String query) {
+        return complete(() -> documentStore.searchWithPayload(indexName, query));
+    }
+
+    private static <T> CompletableFuture<T> complete(Operation<T> operation) {
+        try {
+            return CompletableFuture.completedFuture(operation.perform());
+        } catch (DocumentStoreOperationException | RuntimeException e) {
+            return DocumentStoreFutures.failed(e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.jetty.http.HttpStatus;
+import org.onap.aai.sa.rest.BulkRequest;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.exception.DocumentStoreOperationException;
+
+/**
+ * A part of a client's bulk request which is sent to the document store as a single Elasticsearch bulk request, along
+ * with the outcome of sending it.
+ */
+class BulkBatch {
+
+    private final StringBuilder operations = new StringBuilder(128);
+    private final List<BulkRequest> requests = new ArrayList<>();
+    private final List<Integer> offsets = new ArrayList<>();
+    private ElasticSearchBulkOperationResult result;
+    private DocumentStoreOperationException failure;
+
+    /**
+     * @param length - The length of the next operation.
+     * @param maxLength - The maximum length of the operations in a batch. Lengths are counted in characters, which
+     *        is the size in bytes of operations written in ASCII.
+     * @param maxOperations - The maximum number of operations in a batch.
+     * @return - true if the operation can be added without making the batch too large. An empty batch accepts any
+     *         operation, however long.
+     */
+    boolean fits(int length, int maxLength, int maxOperations) {
+        return requests.isEmpty()
+                || (requests.size() < maxOperations && operations.length() + (long) length <= maxLength);
+    }
+
+    /**
+     * @param request - The client's operation.
+     * @param operation - The operation in the syntax of an Elasticsearch bulk request.
+     */
+    void add(BulkRequest request, CharSequence operation) {
+        requests.add(request);
+        offsets.add(operations.length());
+        operations.append(operation);
+    }
+
+    /**
+     * @return - The positions of the operations which Elasticsearch rejected as too busy (429), or an empty list if
+     *         there are none or the batch has no result with an item for each operation.
+     */
+    List<Integer> getRejectedPositions() {
+        List<Integer> positions = new ArrayList<>();
+        if (!hasItemPerRequest()) {
+            return positions;
+        }
+        ElasticSearchResultItem[] items = result.getItems();
+        for (int i = 0; i < items.length; i++) {
+            ElasticSearchOperationStatus status = items[i].operationStatus();
+            if (status != null && status.getStatus() != null
+                    && status.getStatus() == HttpStatus.TOO_MANY_REQUESTS_429) {
+                positions.add(i);
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * @param positions - The positions of some of the operations in this batch.
+     * @return - A new batch holding just those operations.
+     */
+    BulkBatch subBatch(List<Integer> positions) {
+        BulkBatch batch = new BulkBatch();
+        for (int position : positions) {
+            int end = (position + 1 < offsets.size()) ? offsets.get(position + 1) : operations.length();
+            batch.add(requests.get(position), operations.subSequence(offsets.get(position), end));
+        }
+        return batch;
+    }
+
+    /**
+     * Replaces the results of some of the operations in this batch with the results of sending them again.
+     *
+     * @param positions - The positions of the operations which were sent again.
+     * @param retry - The batch in which they were sent, which must have a result with an item for each operation.
+     */
+    void replaceResults(List<Integer> positions, BulkBatch retry) {
+        ElasticSearchResultItem[] items = result.getItems();
+        ElasticSearchResultItem[] retried = retry.getResult().getItems();
+        for (int i = 0; i < positions.size(); i++) {
+            items[positions.get(i)] = retried[i];
+        }
+    }
+
+    /**
+     * @return - true if the batch has a result with an item for each of its operations.
+     */
+    boolean hasItemPerRequest() {
+        return result != null && result.getItems() != null && result.getItems().length == requests.size();
+    }
+
+    boolean isEmpty() {
+        return requests.isEmpty();
+    }
+
+    String getOperations() {
+        return operations.toString();
+    }
+
+    List<BulkRequest> getRequests() {
+        return requests;
+    }
+
+    ElasticSearchBulkOperationResult getResult() {
+        return result;
+    }
+
+    void setResult(ElasticSearchBulkOperationResult result) {
+        this.result = result;
+    }
+
+    DocumentStoreOperationException getFailure() {
+        return failure;
+    }
+
+    void setFailure(DocumentStoreOperationException failure) {
+        this.failure = failure;
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.Backoff;
+
+/**
+ * Tunes the size and concurrency of the Elasticsearch bulk requests into which a client's bulk request is split, and
+ * paces the resubmission of operations which Elasticsearch rejected as too busy.
+ *
+ * <p>
+ * The number of operations per request and the number of requests sent at once start at their configured maximums.
+ * Both are cut back whenever a bulk request has operations rejected (429) or takes longer than the target latency: the
+ * number of operations is halved and one fewer request is sent at once. Each request which is answered in time with no
+ * rejections lets the number of operations grow again by a tenth of the maximum, and once that is back at the maximum,
+ * one more request may be sent at once.
+ */
+class BulkThrottle {
+
+    static final String METRIC_OPERATIONS = "elasticsearch.bulk.operations";
+    static final String METRIC_PARALLELISM = "elasticsearch.bulk.parallelism";
+    static final String METRIC_REJECTIONS = "elasticsearch.bulk.rejections";
+    static final String METRIC_RETRIES = "elasticsearch.bulk.retries";
+    static final String METRIC_RETRY_FAILURES = "elasticsearch.bulk.retry-failures";
+
+    private final int maxOperations;
+    private final int maxParallelism;
+    private final long targetLatencyNanos;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+    private final AtomicInteger operations;
+    private final AtomicInteger parallelism;
+    private final Counter rejections;
+    private final Counter retries;
+    private final Counter retryFailures;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param config - The Elasticsearch configuration holding the bulk settings.
+     * @param registry - The registry in which the current settings and rejections are recorded.
+     */
+    BulkThrottle(ElasticSearchConfig config, MeterRegistry registry) {
+        maxOperations = config.getBulkMaxOperations();
+        maxParallelism = config.getBulkParallelism();
+        targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(config.getBulkTargetLatencyMs());
+        maxRetries = config.getBulkMaxRetries();
+        retryBackoffMs = config.getBulkRetryBackoffMs();
+        operations = new AtomicInteger(maxOperations);
+        parallelism = new AtomicInteger(maxParallelism);
+
+        Gauge.builder(METRIC_OPERATIONS, operations, AtomicInteger::get)
+                .description("Current maximum number of operations in an Elasticsearch bulk request")
+                .register(registry);
+        Gauge.builder(METRIC_PARALLELISM, parallelism, AtomicInteger::get)
+                .description("Current maximum number of Elasticsearch bulk requests sent at once for a client request")
+                .register(registry);
+        rejections = Counter.builder(METRIC_REJECTIONS)
+                .description("Bulk operations which Elasticsearch rejected as too busy").register(registry);
+        retries = Counter.builder(METRIC_RETRIES)
+                .description("Bulk operations sent again after being rejected as too busy").register(registry);
+        retryFailures = Counter.builder(METRIC_RETRY_FAILURES)
+                .description("Rejected bulk operations which could not be sent again").register(registry);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "es-bulk-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the current maximum number of operations in a bulk request.
+     */
+    int getOperations() {
+        return operations.get();
+    }
+
+    /**
+     * @return the current maximum number of bulk requests sent at once for a client's bulk request.
+     */
+    int getParallelism() {
+        return parallelism.get();
+    }
+
+    /**
+     * Adjusts the settings from the outcome of a bulk request.
+     *
+     * @param latencyNanos - The time taken to answer the request.
+     * @param rejected - The number of operations in the request which were rejected as too busy.
+     */
+    void record(long latencyNanos, int rejected) {
+        if (rejected > 0) {
+            rejections.increment(rejected);
+        }
+        if (targetLatencyNanos <= 0) {
+            return;
+        }
+
+        if (rejected > 0 || latencyNanos > targetLatencyNanos) {
+            operations.updateAndGet(current -> Math.max(1, current / 2));
+            parallelism.updateAndGet(current -> Math.max(1, current - 1));
+        } else if (operations.get() < maxOperations) {
+            operations.updateAndGet(current -> Math.min(maxOperations, current + Math.max(1, maxOperations / 10)));
+        } else {
+            parallelism.updateAndGet(current -> Math.min(maxParallelism, current + 1));
+        }
+    }
+
+    /**
+     * @param attempt - The number of times the operations have already been sent again.
+     * @return true if operations rejected after that many attempts may be sent again.
+     */
+    boolean shouldRetry(int attempt) {
+        return attempt < maxRetries;
+    }
+
+    /**
+     * Waits before rejected operations are sent again, for a random interval of between a half and the whole of the
+     * retry backoff doubled for each previous attempt.
+     *
+     * @param attempt - The number of times the operations have already been sent again.
+     * @param count - The number of operations to be sent again.
+     * @return - A future which completes once the wait is over.
+     */
+    CompletableFuture<Void> delayRetry(int attempt, int count) {
+        retries.increment(count);
+        long delay = Backoff.equalJitterMs(Backoff.ceilingMs(retryBackoffMs, Long.MAX_VALUE, attempt));
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        scheduler.schedule(() -> future.complete(null), delay, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    /**
+     * Records that rejected operations could not be sent again, so keep their rejections.
+     *
+     * @param count - The number of operations.
+     */
+    void recordRetryFailure(int count) {
+        retryFailures.increment(count);
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
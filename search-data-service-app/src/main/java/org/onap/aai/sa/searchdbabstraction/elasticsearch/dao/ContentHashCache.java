@@ -0,0 +1,199 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Remembers a hash of the content most recently written for each document, so that a write which would not change a
+ * document can be answered without Elasticsearch reindexing it.
+ *
+ * <p>
+ * The entries are held in fixed size arrays of primitives, keyed by a hash of the index and document id, so that the
+ * cache takes a bounded amount of memory and no objects per document. A new entry replaces any entry in its slot. An
+ * entry only says that the content of a given version of a document is known: the caller must still confirm that the
+ * version is the current one, as the document may have been changed by another writer.
+ */
+class ContentHashCache {
+
+    static final String METRIC_SUPPRESSED = "elasticsearch.writes.suppressed";
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long EMPTY = 0;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final long[] keys;
+    private final long[] versions;
+    private final long[] hashes;
+    private final int mask;
+    private final Lock lock = new ReentrantLock();
+    private final Counter suppressed;
+
+    /**
+     * @param maxEntries - The number of documents whose content hash is remembered, rounded up to a power of two.
+     * @param registry - The registry in which the suppressed writes are counted.
+     */
+    ContentHashCache(int maxEntries, MeterRegistry registry) {
+        int capacity = Integer.highestOneBit(Math.min(Math.max(1, maxEntries - 1), MAX_CAPACITY - 1)) << 1;
+        keys = new long[capacity];
+        versions = new long[capacity];
+        hashes = new long[capacity];
+        mask = capacity - 1;
+        suppressed = Counter.builder(METRIC_SUPPRESSED)
+                .description("Document writes answered without sending them as the content was unchanged")
+                .register(registry);
+    }
+
+    /**
+     * @param content - The content of a document.
+     * @return - A 64 bit hash of the content.
+     */
+    static long hash(CharSequence content) {
+        return hash(content, 0, content.length());
+    }
+
+    /**
+     * @param content - Text holding the content of a document.
+     * @param start - The position of the first character of the content.
+     * @param end - The position after the last character of the content.
+     * @return - A 64 bit hash of the content.
+     */
+    static long hash(CharSequence content, int start, int end) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ content.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * @param index - The index holding the document.
+     * @param id - The id of the document.
+     * @param version - The version of the document which the write replaces.
+     * @param contentHash - The hash of the content to be written.
+     * @return - True if the content of that version of the document is known to be the same as the content to be
+     *         written.
+     */
+    boolean isUnchanged(String index, String id, String version, long contentHash) {
+        long parsedVersion = parseVersion(version);
+        if (index == null || id == null || parsedVersion < 0) {
+            return false;
+        }
+
+        long key = key(index, id);
+        int slot = slot(key);
+        lock.lock();
+        try {
+            return keys[slot] == key && versions[slot] == parsedVersion && hashes[slot] == contentHash;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remembers the content of a document which has been written.
+     *
+     * @param index - The index holding the document.
+     * @param id - The id of the document.
+     * @param version - The version of the document created by the write.
+     * @param contentHash - The hash of the content written.
+     */
+    void record(String index, String id, String version, long contentHash) {
+        long parsedVersion = parseVersion(version);
+        if (index == null || id == null || parsedVersion < 0) {
+            return;
+        }
+
+        long key = key(index, id);
+        int slot = slot(key);
+        lock.lock();
+        try {
+            keys[slot] = key;
+            versions[slot] = parsedVersion;
+            hashes[slot] = contentHash;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forgets the content of a document, for example because it has been deleted.
+     *
+     * @param index - The index holding the document.
+     * @param id - The id of the document.
+     */
+    void forget(String index, String id) {
+        if (index == null || id == null) {
+            return;
+        }
+
+        long key = key(index, id);
+        int slot = slot(key);
+        lock.lock();
+        try {
+            if (keys[slot] == key) {
+                keys[slot] = EMPTY;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Counts a write which was answered without sending it to Elasticsearch.
+     */
+    void recordSuppressed() {
+        suppressed.increment();
+    }
+
+    private int slot(long key) {
+        long mixed = key ^ (key >>> 32);
+        return (int) (mixed ^ (mixed >>> 16)) & mask;
+    }
+
+    private static long key(String index, String id) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = (hash ^ index.length()) * FNV_PRIME;
+        for (int i = 0; i < index.length(); i++) {
+            hash = (hash ^ index.charAt(i)) * FNV_PRIME;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            hash = (hash ^ id.charAt(i)) * FNV_PRIME;
+        }
+        // Zero marks an empty slot.
+        return hash == EMPTY ? 1 : hash;
+    }
+
+    private static long parseVersion(String version) {
+        if (version == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(version);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
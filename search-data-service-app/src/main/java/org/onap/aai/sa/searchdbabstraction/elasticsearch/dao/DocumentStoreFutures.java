@@ -0,0 +1,89 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.exception.DocumentStoreOperationException;
+
+/**
+ * Helpers for moving between the synchronous and asynchronous document store APIs.
+ */
+public final class DocumentStoreFutures {
+
+    private DocumentStoreFutures() {
+        // Utility class
+    }
+
+    /**
+     * Returns a future which has already completed exceptionally with the supplied cause.
+     *
+     * @param cause - The failure.
+     * @return - The failed future.
+     */
+    public static <T> CompletableFuture<T> failed(Throwable cause) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(cause);
+        return future;
+    }
+
+    /**
+     * Strips the {@link CompletionException} and {@link ExecutionException} wrappers which the futures framework
+     * places around the original failure.
+     *
+     * @param throwable - The failure reported by a future.
+     * @return - The underlying cause.
+     */
+    public static Throwable unwrap(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * Waits for the supplied future to complete, rethrowing a failure in the form used by the synchronous API.
+     *
+     * @param future - The future to wait for.
+     * @return - The result of the future.
+     * @throws DocumentStoreOperationException if the operation failed.
+     */
+    public static <T> T await(CompletableFuture<T> future) throws DocumentStoreOperationException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof DocumentStoreOperationException) {
+                throw (DocumentStoreOperationException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new DocumentStoreOperationException(cause.getMessage(), (Exception) cause);
+        }
+    }
+}
@@ -21,45 +21,49 @@
 
 package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
 
-import static javax.ws.rs.core.HttpHeaders.CONTENT_TYPE;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Throwables;
-import java.io.BufferedReader;
+import io.micrometer.core.instrument.Metrics;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-import java.io.StringWriter;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
-import java.net.ProtocolException;
 import java.net.URL;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.net.ssl.SSLContext;
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriBuilder;
+import org.apache.commons.io.IOUtils;
 import org.eclipse.jetty.http.HttpStatus;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 import org.onap.aai.cl.api.LogFields;
 import org.onap.aai.cl.api.LogLine;
 import org.onap.aai.cl.api.Logger;
@@ -74,22 +78,19 @@ import org.onap.aai.sa.rest.DocumentSchema;
 import org.onap.aai.sa.rest.SettingConfiguration;
 import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
 import org.onap.aai.sa.searchdbabstraction.elasticsearch.exception.DocumentStoreOperationException;
-import org.onap.aai.sa.searchdbabstraction.elasticsearch.exception.DocumentStoreOperationException.ErrorMessage;
-import org.onap.aai.sa.searchdbabstraction.entity.AggregationResult;
-import org.onap.aai.sa.searchdbabstraction.entity.AggregationResults;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.exception.DocumentStoreUnavailableException;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.CircuitBreakerOpenException;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.HttpTransport;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.HttpTransportResponse;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.LoadBalancingTransport;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.UrlConnectionTransport;
 import org.onap.aai.sa.searchdbabstraction.entity.Document;
 import org.onap.aai.sa.searchdbabstraction.entity.DocumentOperationResult;
-import org.onap.aai.sa.searchdbabstraction.entity.ErrorResult;
 import org.onap.aai.sa.searchdbabstraction.entity.OperationResult;
 import org.onap.aai.sa.searchdbabstraction.entity.OperationResultBuilder;
 import org.onap.aai.sa.searchdbabstraction.entity.OperationResultBuilder.Type;
-import org.onap.aai.sa.searchdbabstraction.entity.SearchHit;
-import org.onap.aai.sa.searchdbabstraction.entity.SearchHits;
 import org.onap.aai.sa.searchdbabstraction.entity.SearchOperationResult;
-import org.onap.aai.sa.searchdbabstraction.entity.SuggestHit;
-import org.onap.aai.sa.searchdbabstraction.entity.SuggestHits;
 import org.onap.aai.sa.searchdbabstraction.logging.SearchDbMsgs;
-import org.onap.aai.sa.searchdbabstraction.util.AggregationParsingUtil;
 import org.onap.aai.sa.searchdbabstraction.util.DocumentSchemaUtil;
 import org.onap.aai.sa.searchdbabstraction.util.ElasticSearchPayloadTranslator;
 import org.onap.aai.sa.searchdbabstraction.util.SearchDbConstants;
@@ -97,9 +98,10 @@ import org.onap.aai.sa.searchdbabstraction.util.SearchDbConstants;
 /**
  * This class has the Elasticsearch implementation of the DB operations defined in DocumentStoreInterface.
  */
-public class ElasticSearchHttpController implements DocumentStoreInterface {
+public class ElasticSearchHttpController implements DocumentStoreInterface, AsyncDocumentStoreInterface {
 
-    private static ElasticSearchHttpController instance = null;
+    private static final Lock INSTANCE_LOCK = new ReentrantLock();
+    private static volatile ElasticSearchHttpController instance = null;
 
     private static final Logger logger =
             LoggerFactory.getInstance().getLogger(ElasticSearchHttpController.class.getName());
@@ -107,44 +109,59 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
             LoggerFactory.getInstance().getMetricsLogger(ElasticSearchHttpController.class.getName());
 
     private static final String URL_QUERY_VERSION = "version=";
-
-    private static final String JSON_ATTR_VERSION = "_version";
-    private static final String JSON_ATTR_ERROR = "error";
-    private static final String JSON_ATTR_REASON = "reason";
+    private static final String URL_QUERY_CREATE = "op_type=create";
 
     private static final String DEFAULT_TYPE = "default";
+    private static final String CAT_INDICES_PATH = "_cat/indices";
+    private static final String CAT_INDICES_QUERY = "h=index&format=json";
+    private static final String MGET_PATH = "_mget";
+    private static final String MGET_QUERY = "_source=false";
+    private static final String GET_VERSION_QUERY = "_source=false";
 
     private static final String MSG_RESOURCE_MISSING = "Specified resource does not exist: ";
     private static final String MSG_RESPONSE_CODE = "Response Code : ";
     private static final String MSG_INVALID_DOCUMENT_URL = "Invalid document URL: ";
+    static final String MSG_DOCUMENT_EXISTS = "A document with the same id already exists.";
 
     private static final String FAILED_TO_PARSE_ELASTIC_SEARCH_RESPONSE = "Failed to parse Elastic Search response.";
 
-    private static final String BULK_CREATE_WITHOUT_INDEX_TEMPLATE =
-            "{\"create\":{\"_index\" : \"%s\", \"_type\" : \"%s\"} }\n";
-    private static final String BULK_CREATE_WITH_INDEX_TEMPLATE =
-            "{\"create\":{\"_index\" : \"%s\", \"_type\" : \"%s\", \"_id\" : \"%s\" } }\n";
-    private static final String BULK_IMPORT_INDEX_TEMPLATE =
-            "{\"index\":{\"_index\":\"%s\",\"_type\":\"%s\",\"_id\":\"%s\", \"_version\":\"%s\"}}\n";
-    private static final String BULK_DELETE_TEMPLATE =
-            "{ \"delete\": { \"_index\": \"%s\", \"_type\": \"%s\", \"_id\": \"%s\", \"_version\":\"%s\"}}\n";
+    static final String BULK_ACTION_CREATE = "create";
+    static final String BULK_ACTION_INDEX = "index";
+    static final String BULK_ACTION_DELETE = "delete";
+    private static final String MGET_DOC_TEMPLATE = "{\"_index\":\"%s\",\"_type\":\"%s\",\"_id\":\"%s\"}";
     public final static String APPLICATION_XND_JSON_TYPE = new MediaType("application", "x-ndjson").toString();
 
     private final ElasticSearchConfig config;
+    private final HttpTransport transport;
+    private final IndexCache indexCache;
+    private final WriteCoalescer writeCoalescer;
+    private final BulkThrottle bulkThrottle;
+    private final ContentHashCache contentHashes;
+    private final SearchResultCache searchResultCache;
+    private final SearchCoalescer searchCoalescer;
+    private final ElasticSearchPayloadTranslator payloadTranslator;
 
     protected AnalysisConfiguration analysisConfig;
     protected SettingConfiguration settingConfig;
 
     public ElasticSearchHttpController(ElasticSearchConfig config) {
+        this(config, createTransport(config));
+    }
+
+    /**
+     * Creates a controller which exchanges requests with Elasticsearch over the supplied transport.
+     *
+     * @param config - The Elasticsearch configuration.
+     * @param transport - The HTTP transport to use.
+     */
+    public ElasticSearchHttpController(ElasticSearchConfig config, HttpTransport transport) {
         this.config = config;
+        this.transport = transport;
         analysisConfig = new AnalysisConfiguration();
         settingConfig = new SettingConfiguration();
 
         String rootUrl = null;
         try {
-            if ("https".equals(config.getUriScheme())) {
-                new ElasticSearchHttpsController(config);
-            }
             rootUrl = buildUrl(createUriBuilder("")).toString();
             logger.info(SearchDbMsgs.ELASTIC_SEARCH_CONNECTION_ATTEMPT, rootUrl);
             checkConnection();
@@ -152,15 +169,40 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
         } catch (Exception e) {
             logger.error(SearchDbMsgs.ELASTIC_SEARCH_CONNECTION_FAILURE, null, e, rootUrl, e.getMessage());
         }
+
+        indexCache = new IndexCache(this::checkIndexExistenceAsync, this::listIndicesAsync,
+                config.getIndexCacheTtlMs(), config.getIndexCacheRefreshIntervalMs());
+        writeCoalescer = config.useWriteCoalescing()
+                ? new WriteCoalescer(this::sendBulkAsync, config.getWriteCoalescingMaxDelayMs(),
+                        config.getWriteCoalescingMaxOperations(), config.getBulkMaxBytes())
+                : null;
+        bulkThrottle = new BulkThrottle(config, Metrics.globalRegistry);
+        contentHashes = config.useNoopDetection()
+                ? new ContentHashCache(config.getNoopDetectionMaxEntries(), Metrics.globalRegistry)
+                : null;
+        searchResultCache = config.useSearchCache()
+                ? new SearchResultCache(config.getSearchCacheMaxBytes(), config.getSearchCacheTtlMs(),
+                        config.getSearchCacheTtlMsByIndex(), config.getSearchCacheMaxStaleMs(),
+                        config.getSearchCacheRefreshIntervalMs())
+                : null;
+        searchCoalescer = config.useSearchCoalescing() ? new SearchCoalescer(Metrics.globalRegistry) : null;
+        payloadTranslator = ElasticSearchPayloadTranslator.getInstance();
     }
 
     public static ElasticSearchHttpController getInstance() {
-        synchronized (ElasticSearchHttpController.class) {
+        ElasticSearchHttpController controller = instance;
+        if (controller != null) {
+            return controller;
+        }
+
+        // Creating the controller reads the configuration and checks the connection to Elasticsearch.
+        INSTANCE_LOCK.lock();
+        try {
             if (instance == null) {
                 Properties properties = new Properties();
                 File file = new File(SearchDbConstants.ES_CONFIG_FILE);
-                try {
-                    properties.load(new FileInputStream(file));
+                try (FileInputStream in = new FileInputStream(file)) {
+                    properties.load(in);
                 } catch (Exception e) {
                     logger.error(SearchDbMsgs.EXCEPTION_DURING_METHOD_CALL, "ElasticSearchHTTPController.getInstance",
                             e.getLocalizedMessage());
@@ -169,9 +211,24 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
                 ElasticSearchConfig config = new ElasticSearchConfig(properties);
                 instance = new ElasticSearchHttpController(config);
             }
+            return instance;
+        } finally {
+            INSTANCE_LOCK.unlock();
         }
+    }
 
-        return instance;
+    private static HttpTransport createTransport(ElasticSearchConfig config) {
+        SSLContext sslContext = null;
+        try {
+            if ("https".equals(config.getUriScheme())) {
+                sslContext = new ElasticSearchHttpsController(config).getSslContext();
+            }
+            return HttpTransport.create(config, sslContext);
+        } catch (Exception e) {
+            logger.error(SearchDbMsgs.ELASTIC_SEARCH_CONNECTION_FAILURE, null, e, config.getIpAddress(),
+                    e.getMessage());
+            return HttpTransport.forNodes(config, new UrlConnectionTransport(config));
+        }
     }
 
     public AnalysisConfiguration getAnalysisConfig() {
@@ -229,10 +286,9 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
     public OperationResult deleteIndex(String indexName) throws DocumentStoreOperationException {
         MdcOverride override = getStartTime(new MdcOverride());
 
-        HttpURLConnection conn = createConnection(buildUrl(createUriBuilder(indexName)), HttpMethod.DELETE);
-        OperationResult opResult = handleResponse(conn);
+        OperationResult opResult = handleResponse(sendRequest(buildUrl(createUriBuilder(indexName)), HttpMethod.DELETE));
         logMetricsInfo(override, SearchDbMsgs.DELETE_INDEX_TIME, opResult, indexName);
-        shutdownConnection(conn);
+        recordIndexChange(indexName, opResult, false);
 
         return opResult;
     }
@@ -250,8 +306,6 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
 
         MdcOverride override = getStartTime(new MdcOverride());
 
-        HttpURLConnection conn = createConnection(buildUrl(createUriBuilder(indexName)), HttpMethod.PUT);
-        
         StringBuilder sb = new StringBuilder(128);
         sb.append("{ \"settings\" : ");
         sb.append(sc.getSettingsWithAnalysis(ac));
@@ -262,8 +316,9 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
         sb.append(indexMappings);
         sb.append("}}");
 
+        String payload;
         try {
-            attachContent(conn, ElasticSearchPayloadTranslator.translateESPayload(sb.toString()));
+            payload = payloadTranslator.translate(sb.toString());
         } catch (IOException e) {
             logger.error(SearchDbMsgs.INDEX_CREATE_FAILURE, e);
             throw new DocumentStoreOperationException(e.getMessage(), e);
@@ -271,9 +326,10 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
 
         logger.debug("Request content: " + sb);
 
-        OperationResult opResult = handleResponse(conn);
-        shutdownConnection(conn);
+        OperationResult opResult =
+                handleResponse(sendRequest(buildUrl(createUriBuilder(indexName)), HttpMethod.PUT, payload));
         logMetricsInfo(override, SearchDbMsgs.CREATE_INDEX_TIME, opResult, indexName);
+        recordIndexChange(indexName, opResult, true);
 
         return opResult;
     }
@@ -291,16 +347,18 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
             throws DocumentStoreOperationException {
         MdcOverride override = getStartTime(new MdcOverride());
 
-        HttpURLConnection conn = createConnection(buildUrl(createUriBuilder(indexName)), HttpMethod.PUT);
+        String payload;
         try {
-            attachContent(conn, ElasticSearchPayloadTranslator.translateESPayload(settingsAndMappings));
+            payload = payloadTranslator.translate(settingsAndMappings);
         } catch (IOException e) {
             logger.error(SearchDbMsgs.INDEX_CREATE_FAILURE, e);
             throw new DocumentStoreOperationException(e.getMessage());
         }
 
-        OperationResult result = handleResponse(conn);
+        OperationResult result =
+                handleResponse(sendRequest(buildUrl(createUriBuilder(indexName)), HttpMethod.PUT, payload));
         logMetricsInfo(override, SearchDbMsgs.CREATE_INDEX_TIME, result, indexName);
+        recordIndexChange(indexName, result, true);
 
         return result;
     }
@@ -308,170 +366,376 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
     @Override
     public DocumentOperationResult createDocument(String indexName, DocumentStoreDataEntity document,
             boolean allowImplicitIndexCreation) throws DocumentStoreOperationException {
+        return DocumentStoreFutures.await(createDocumentAsync(indexName, document, allowImplicitIndexCreation));
+    }
 
-        if (!allowImplicitIndexCreation) {
-            // Before we do anything, make sure that the specified index actually exists in the
-            // document store - we don't want to rely on ElasticSearch to fail the document
-            // create because it could be configured to implicitly create a non-existent index,
-            // which can lead to hard-to-debug behaviour with queries down the road.
-            OperationResult indexExistsResult = checkIndexExistence(indexName);
-            if (!isSuccess(indexExistsResult)) {
+    @Override
+    public CompletableFuture<DocumentOperationResult> createDocumentAsync(String indexName,
+            DocumentStoreDataEntity document, boolean allowImplicitIndexCreation) {
+        // Before we do anything, make sure that the specified index actually exists in the
+        // document store - we don't want to rely on ElasticSearch to fail the document
+        // create because it could be configured to implicitly create a non-existent index,
+        // which can lead to hard-to-debug behaviour with queries down the road.
+        CompletableFuture<Boolean> indexExists = allowImplicitIndexCreation ? CompletableFuture.completedFuture(true)
+                : indexCache.exists(indexName);
+
+        return invalidateSearchesAfter(indexName, indexExists.thenCompose(ApiUtils.withMdcContext(exists -> {
+            if (!exists) {
                 String resultMsg = "Document Index '" + indexName + "' does not exist.";
-                return (DocumentOperationResult) new OperationResultBuilder(Type.DOCUMENT).status(Status.NOT_FOUND)
-                        .result(resultMsg).failureCause(resultMsg).build();
+                return CompletableFuture.completedFuture((DocumentOperationResult) new OperationResultBuilder(
+                        Type.DOCUMENT).status(Status.NOT_FOUND).result(resultMsg).failureCause(resultMsg).build());
             }
-        }
 
-        if (document.getId() == null || document.getId().isEmpty()) {
-            return createDocumentWithoutId(indexName, document);
-        } else {
-            return createDocumentWithId(indexName, document);
-        }
+            if (writeCoalescer != null) {
+                MdcOverride override = getStartTime(new MdcOverride());
+                return writeCoalescer.create(indexName, document).thenApply(ApiUtils.withMdcContext(opResult -> {
+                    logMetricsInfo(override, SearchDbMsgs.CREATE_DOCUMENT_TIME, opResult, indexName);
+                    return recordContent(indexName, document, opResult);
+                }));
+            }
+
+            if (document.getId() == null || document.getId().isEmpty()) {
+                return createDocumentWithoutIdAsync(indexName, document);
+            } else {
+                return createDocumentWithIdAsync(indexName, document)
+                        .thenApply(opResult -> recordContent(indexName, document, opResult));
+            }
+        })));
     }
 
     @Override
     public DocumentOperationResult updateDocument(String indexName, DocumentStoreDataEntity document,
             boolean allowImplicitIndexCreation) throws DocumentStoreOperationException {
-        if (!allowImplicitIndexCreation) {
-            // Before we do anything, make sure that the specified index actually exists in the
-            // document store - we don't want to rely on ElasticSearch to fail the document
-            // create because it could be configured to implicitly create a non-existent index,
-            // which can lead to hard-to-debug behaviour with queries down the road.
-            OperationResult indexExistsResult = checkIndexExistence(indexName);
-            if (!isSuccess(indexExistsResult)) {
+        return DocumentStoreFutures.await(updateDocumentAsync(indexName, document, allowImplicitIndexCreation));
+    }
+
+    @Override
+    public CompletableFuture<DocumentOperationResult> updateDocumentAsync(String indexName,
+            DocumentStoreDataEntity document, boolean allowImplicitIndexCreation) {
+        // Before we do anything, make sure that the specified index actually exists in the
+        // document store - we don't want to rely on ElasticSearch to fail the document
+        // create because it could be configured to implicitly create a non-existent index,
+        // which can lead to hard-to-debug behaviour with queries down the road.
+        CompletableFuture<Boolean> indexExists = allowImplicitIndexCreation ? CompletableFuture.completedFuture(true)
+                : indexCache.exists(indexName);
+
+        return invalidateSearchesAfter(indexName, indexExists.thenCompose(ApiUtils.withMdcContext(exists -> {
+            if (!exists) {
                 DocumentOperationResult opResult = new DocumentOperationResult();
                 opResult.setResultCode(Status.NOT_FOUND.getStatusCode());
                 String resultMsg = "Document Index '" + indexName + "' does not exist.";
                 opResult.setResult(resultMsg);
                 opResult.setFailureCause(resultMsg);
-                return opResult;
+                return CompletableFuture.completedFuture(opResult);
             }
+
+            MdcOverride override = getStartTime(new MdcOverride());
+
+            if (contentHashes == null || !contentHashes.isUnchanged(indexName, document.getId(),
+                    document.getVersion(), ContentHashCache.hash(document.getContentInJson()))) {
+                return sendUpdateAsync(indexName, document, override);
+            }
+
+            // The content is the same as that of the version being replaced, if that is still the current version.
+            return getDocumentVersionAsync(indexName, document.getId())
+                    .thenCompose(ApiUtils.withMdcContext(version -> {
+                        if (!document.getVersion().equals(version)) {
+                            return sendUpdateAsync(indexName, document, override);
+                        }
+
+                        contentHashes.recordSuppressed();
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("ESController: Update of unchanged document " + indexName + "/"
+                                    + document.getId() + " suppressed");
+                        }
+                        DocumentOperationResult opResult = buildUnchangedResult(indexName, document);
+                        logMetricsInfo(override, SearchDbMsgs.UPDATE_DOCUMENT_TIME, opResult, indexName,
+                                document.getId());
+                        return CompletableFuture.completedFuture(opResult);
+                    }));
+        })));
+    }
+
+    /**
+     * Sends a document update to Elasticsearch, remembering the content written when no-op detection is enabled.
+     */
+    private CompletableFuture<DocumentOperationResult> sendUpdateAsync(String indexName,
+            DocumentStoreDataEntity document, MdcOverride override) {
+        if (writeCoalescer != null) {
+            return writeCoalescer.update(indexName, document).thenApply(ApiUtils.withMdcContext(opResult -> {
+                logMetricsInfo(override, SearchDbMsgs.UPDATE_DOCUMENT_TIME, opResult, indexName, document.getId());
+                return recordContent(indexName, document, opResult);
+            }));
         }
 
-        MdcOverride override = getStartTime(new MdcOverride());
+        UriBuilder uriBuilder = createUriBuilder(indexName, DEFAULT_TYPE, document.getId())
+                .replaceQuery(URL_QUERY_VERSION + document.getVersion());
 
-        final URL url = buildUrl(createUriBuilder(indexName, DEFAULT_TYPE, document.getId())
-                .replaceQuery(URL_QUERY_VERSION + document.getVersion()));
+        return sendRequestAsync(uriBuilder, HttpMethod.PUT, document.getContentInJson())
+                .thenApply(onCompletion(response -> {
+                    DocumentOperationResult opResult = getDocumentResult(response, indexName);
 
-        HttpURLConnection conn = createConnection(url, HttpMethod.PUT);
-        attachDocument(conn, document);
+                    logMetricsInfo(override, SearchDbMsgs.UPDATE_DOCUMENT_TIME, opResult, indexName,
+                            document.getId());
 
-        DocumentOperationResult opResult = getOperationResult(conn);
-        buildDocumentResult(opResult, indexName);
+                    return recordContent(indexName, document, opResult);
+                }));
+    }
+
+    /**
+     * Looks up the current version of a document, without its content.
+     *
+     * @return - A future holding the version, or null if the document could not be found or looked up.
+     */
+    private CompletableFuture<String> getDocumentVersionAsync(String indexName, String id) {
+        UriBuilder uriBuilder = createUriBuilder(indexName, DEFAULT_TYPE, id).replaceQuery(GET_VERSION_QUERY);
 
-        logMetricsInfo(override, SearchDbMsgs.UPDATE_DOCUMENT_TIME, opResult, indexName, document.getId());
+        return sendRequestAsync(uriBuilder, HttpMethod.GET, null).thenApply(onCompletion(response -> {
+            DocumentOperationResult opResult = getDocumentResult(response, indexName);
+            return isSuccess(opResult) ? opResult.getResultVersion() : null;
+        })).exceptionally(error -> null);
+    }
 
-        shutdownConnection(conn);
+    /**
+     * Builds the result of an update which was not sent as it would not have changed the document, in the form
+     * returned by Elasticsearch for an update.
+     */
+    private DocumentOperationResult buildUnchangedResult(String indexName, DocumentStoreDataEntity document) {
+        Document doc = new Document();
+        doc.setEtag(document.getVersion());
+        doc.setUrl(ApiUtils.buildDocumentUri(indexName, document.getId()));
 
+        DocumentOperationResult opResult = (DocumentOperationResult) new OperationResultBuilder(Type.DOCUMENT)
+                .status(Status.OK).result("").resultVersion(document.getVersion()).build();
+        opResult.setDocument(doc);
+        return opResult;
+    }
+
+    /**
+     * Remembers the content of a document after it has been successfully written, so that a later update which would
+     * not change it can be suppressed.
+     *
+     * @return - The result of the write, unchanged.
+     */
+    private DocumentOperationResult recordContent(String indexName, DocumentStoreDataEntity document,
+            DocumentOperationResult opResult) {
+        if (contentHashes != null && isSuccess(opResult) && document.getId() != null) {
+            contentHashes.record(indexName, document.getId(), opResult.getResultVersion(),
+                    ContentHashCache.hash(document.getContentInJson()));
+        }
         return opResult;
     }
 
     @Override
     public DocumentOperationResult deleteDocument(String indexName, DocumentStoreDataEntity document)
             throws DocumentStoreOperationException {
-        final URL url = buildUrl(createUriBuilder(indexName, DEFAULT_TYPE, document.getId())
-                .replaceQuery(URL_QUERY_VERSION + document.getVersion()));
+        return DocumentStoreFutures.await(deleteDocumentAsync(indexName, document));
+    }
 
+    @Override
+    public CompletableFuture<DocumentOperationResult> deleteDocumentAsync(String indexName,
+            DocumentStoreDataEntity document) {
         MdcOverride override = getStartTime(new MdcOverride());
 
-        HttpURLConnection conn = createConnection(url, HttpMethod.DELETE);
-
-        DocumentOperationResult opResult = getOperationResult(conn);
-        buildDocumentResult(opResult, indexName);
-        // supress the etag and url in response for delete as they are not required
-        if (opResult.getDocument() != null) {
-            opResult.getDocument().setEtag(null);
-            opResult.getDocument().setUrl(null);
+        if (contentHashes != null) {
+            contentHashes.forget(indexName, document.getId());
         }
 
-        logMetricsInfo(override, SearchDbMsgs.DELETE_DOCUMENT_TIME, opResult, indexName, document.getId());
+        CompletableFuture<DocumentOperationResult> deleted;
+        if (writeCoalescer != null) {
+            deleted = writeCoalescer.delete(indexName, document).thenApply(ApiUtils.withMdcContext(opResult -> {
+                logMetricsInfo(override, SearchDbMsgs.DELETE_DOCUMENT_TIME, opResult, indexName, document.getId());
+                return opResult;
+            }));
+        } else {
+            UriBuilder uriBuilder = createUriBuilder(indexName, DEFAULT_TYPE, document.getId())
+                    .replaceQuery(URL_QUERY_VERSION + document.getVersion());
+
+            deleted = sendRequestAsync(uriBuilder, HttpMethod.DELETE, null).thenApply(onCompletion(response -> {
+                DocumentOperationResult opResult = getDocumentResult(response, indexName);
+                // supress the etag and url in response for delete as they are not required
+                if (opResult.getDocument() != null) {
+                    opResult.getDocument().setEtag(null);
+                    opResult.getDocument().setUrl(null);
+                }
 
-        shutdownConnection(conn);
+                logMetricsInfo(override, SearchDbMsgs.DELETE_DOCUMENT_TIME, opResult, indexName, document.getId());
 
-        return opResult;
+                return opResult;
+            }));
+        }
+
+        return invalidateSearchesAfter(indexName, deleted);
     }
 
     @Override
     public DocumentOperationResult getDocument(String indexName, DocumentStoreDataEntity document)
             throws DocumentStoreOperationException {
+        return DocumentStoreFutures.await(getDocumentAsync(indexName, document));
+    }
+
+    @Override
+    public CompletableFuture<DocumentOperationResult> getDocumentAsync(String indexName,
+            DocumentStoreDataEntity document) {
         final UriBuilder uriBuilder = createUriBuilder(indexName, DEFAULT_TYPE, document.getId());
         if (document.getVersion() != null) {
             uriBuilder.replaceQuery(URL_QUERY_VERSION + document.getVersion());
         }
 
         MdcOverride override = getStartTime(new MdcOverride());
-        HttpURLConnection conn = createConnection(buildUrl(uriBuilder), "GET");
-
-        DocumentOperationResult opResult = getOperationResult(conn);
-        buildDocumentResult(opResult, indexName);
 
-        logMetricsInfo(override, SearchDbMsgs.GET_DOCUMENT_TIME, opResult, indexName, document.getId());
+        return sendRequestAsync(uriBuilder, HttpMethod.GET, null).thenApply(onCompletion(response -> {
+            DocumentOperationResult opResult = getDocumentResult(response, indexName);
 
-        shutdownConnection(conn);
+            logMetricsInfo(override, SearchDbMsgs.GET_DOCUMENT_TIME, opResult, indexName, document.getId());
 
-        return opResult;
+            return opResult;
+        }));
     }
 
     @Override
     public SearchOperationResult search(String indexName, String queryString) throws DocumentStoreOperationException {
-        final URL url = buildUrl(createUriBuilder(indexName, "_search").replaceQuery(queryString));
+        return DocumentStoreFutures.await(searchAsync(indexName, queryString));
+    }
+
+    @Override
+    public CompletableFuture<SearchOperationResult> searchAsync(String indexName, String queryString) {
+        UriBuilder uriBuilder = createUriBuilder(indexName, "_search").replaceQuery(queryString);
 
         MdcOverride override = getStartTime(new MdcOverride());
 
-        HttpURLConnection conn = createConnection(url, "GET");
-        SearchOperationResult opResult = getSearchOperationResult(conn);
-        buildSearchResult(opResult, indexName);
+        String searchKey = "_search?" + queryString;
+        return coalesceSearch(indexName, searchKey, () -> sendSearchAsync(indexName, searchKey,
+                () -> sendRequestAsync(uriBuilder, HttpMethod.GET, null)).thenApply(onCompletion(response -> {
+                    SearchOperationResult opResult = getSearchResult(response, indexName);
 
-        logMetricsInfo(override, SearchDbMsgs.QUERY_DOCUMENT_TIME, opResult, indexName, queryString);
+                    logMetricsInfo(override, SearchDbMsgs.QUERY_DOCUMENT_TIME, opResult, indexName, queryString);
 
-        return opResult;
+                    return opResult;
+                })));
     }
 
     @Override
     public SearchOperationResult searchWithPayload(String indexName, String query)
             throws DocumentStoreOperationException {
+        return DocumentStoreFutures.await(searchWithPayloadAsync(indexName, query));
+    }
+
+    @Override
+    public CompletableFuture<SearchOperationResult> searchWithPayloadAsync(String indexName, String query) {
         if (logger.isDebugEnabled()) {
             logger.debug("Querying index: " + indexName + " with query string: " + query);
         }
-        final URL url = buildUrl(createUriBuilder(indexName, "_search"));
 
         MdcOverride override = getStartTime(new MdcOverride());
 
-        HttpURLConnection conn = createConnection(url, HttpMethod.POST);
-        attachContent(conn, query);
         logger.debug("Request body =  Elasticsearch query = " + query);
 
-        SearchOperationResult opResult = getSearchOperationResult(conn);
-        buildSearchResult(opResult, indexName);
+        // Queries which differ only in the layout of their JSON are the same search.
+        String searchKey = SearchResultCache.normalize(query);
+        return coalesceSearch(indexName, searchKey, () -> sendSearchAsync(indexName, searchKey,
+                () -> sendRequestAsync(createUriBuilder(indexName, "_search"), HttpMethod.POST, query))
+                .thenApply(onCompletion(response -> {
+                    SearchOperationResult opResult = getSearchResult(response, indexName);
 
-        logMetricsInfo(override, SearchDbMsgs.QUERY_DOCUMENT_TIME, opResult, indexName, query);
+                    logMetricsInfo(override, SearchDbMsgs.QUERY_DOCUMENT_TIME, opResult, indexName, query);
 
-        shutdownConnection(conn);
+                    return opResult;
+                })));
+    }
 
-        return opResult;
+    /**
+     * Makes a search, or shares the result of an identical search already in progress when coalescing is enabled.
+     *
+     * @param indexName - The index searched.
+     * @param searchKey - The query, and anything else which changes the result.
+     * @param search - Makes the search and parses its result.
+     * @return - A future holding the result of the search.
+     */
+    private CompletableFuture<SearchOperationResult> coalesceSearch(String indexName, String searchKey,
+            Supplier<CompletableFuture<SearchOperationResult>> search) {
+        if (searchCoalescer == null) {
+            return search.get();
+        }
+        return searchCoalescer.search(indexName, searchKey, search);
+    }
+
+    /**
+     * Sends a search to Elasticsearch, or answers it from the search result cache when that is enabled.
+     *
+     * @param indexName - The index searched.
+     * @param cacheKey - The query, and anything else which changes the response.
+     * @param search - Sends the search.
+     * @return - A future holding the response.
+     */
+    private CompletableFuture<HttpTransportResponse> sendSearchAsync(String indexName, String cacheKey,
+            Supplier<CompletableFuture<HttpTransportResponse>> search) {
+        if (searchResultCache == null) {
+            return search.get();
+        }
+        return searchResultCache
+                .get(indexName, cacheKey, () -> search.get().thenApply(onCompletion(this::bufferResponse)))
+                .thenApply(SearchResultCache.CachedResponse::toResponse);
+    }
+
+    private SearchResultCache.CachedResponse bufferResponse(HttpTransportResponse response)
+            throws DocumentStoreOperationException {
+        try (HttpTransportResponse closeable = response) {
+            return new SearchResultCache.CachedResponse(closeable.getStatusCode(),
+                    IOUtils.toByteArray(closeable.getBody()));
+        } catch (IOException e) {
+            throw new DocumentStoreOperationException(FAILED_TO_PARSE_ELASTIC_SEARCH_RESPONSE + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Drops the cached responses to searches of an index once a write to it has completed, whatever its outcome.
+     *
+     * @return - A future which completes with the outcome of the write, once the responses have been dropped.
+     */
+    private <T> CompletableFuture<T> invalidateSearchesAfter(String indexName, CompletableFuture<T> write) {
+        if (searchResultCache == null && searchCoalescer == null) {
+            return write;
+        }
+        return write.whenComplete((result, error) -> invalidateSearches(indexName));
+    }
+
+    /**
+     * Drops the cached responses to searches of an index which has been written to, and stops later searches from
+     * joining the searches of it in progress.
+     */
+    private void invalidateSearches(String indexName) {
+        if (searchResultCache != null) {
+            searchResultCache.invalidate(indexName);
+        }
+        if (searchCoalescer != null) {
+            searchCoalescer.invalidate(indexName);
+        }
     }
 
     @Override
     public SearchOperationResult suggestionQueryWithPayload(String indexName, String query)
             throws DocumentStoreOperationException {
+        return DocumentStoreFutures.await(suggestionQueryWithPayloadAsync(indexName, query));
+    }
+
+    @Override
+    public CompletableFuture<SearchOperationResult> suggestionQueryWithPayloadAsync(String indexName, String query) {
         if (logger.isDebugEnabled()) {
             logger.debug("Querying Suggestion index: " + indexName + " with query string: " + query);
         }
 
         MdcOverride override = getStartTime(new MdcOverride());
-        HttpURLConnection conn = createConnection(buildUrl(createUriBuilder(indexName, "_suggest")), HttpMethod.POST);
-        attachContent(conn, query);
-
         logger.debug("Request body =  Elasticsearch query = " + query);
 
-        SearchOperationResult opResult = getSearchOperationResult(conn);
-        buildSuggestResult(opResult, indexName);
+        return sendRequestAsync(createUriBuilder(indexName, "_suggest"), HttpMethod.POST, query)
+                .thenApply(onCompletion(response -> {
+                    SearchOperationResult opResult = getSuggestResult(response, indexName);
 
-        logMetricsInfo(override, SearchDbMsgs.QUERY_DOCUMENT_TIME, opResult, indexName, query);
+                    logMetricsInfo(override, SearchDbMsgs.QUERY_DOCUMENT_TIME, opResult, indexName, query);
 
-        shutdownConnection(conn);
-
-        return opResult;
+                    return opResult;
+                }));
     }
 
     @Override
@@ -490,98 +754,55 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
 
         // Parse the supplied set of operations.
         // Iterate over the list of operations which we were provided and
-        // translate them into a format that ElasticSearh understands.
-        int opCount = 0;
-        StringBuilder esOperationSet = new StringBuilder(128);
+        // translate them into a format that ElasticSearh understands,
+        // splitting them into batches which are each sent to ElasticSearch
+        // as a separate bulk request.
+        List<BulkBatch> batches = new ArrayList<>();
+        BulkBatch batch = new BulkBatch();
+        StringBuilder esOperation = new StringBuilder(128);
         List<ElasticSearchResultItem> rejected = new ArrayList<>();
+        Map<BulkRequest, String> existingDocuments = findExistingDocuments(requests);
+        Map<BulkRequest, Long> contentHashesByRequest = new IdentityHashMap<>();
+        int maxOperations = bulkThrottle.getOperations();
         for (BulkRequest request : requests) {
 
             // Convert the request to the syntax ElasticSearch likes.
-            if (buildEsOperation(request, esOperationSet, rejected)) {
-                opCount++;
-            }
-        }
-
-        ElasticSearchBulkOperationResult opResult = null;
-        if (opCount > 0) {
-            HttpURLConnection conn;
-            try {
-                conn = (HttpURLConnection) buildUrl(createUriBuilder("_bulk")).openConnection();
-                conn.setRequestMethod(HttpMethod.PUT);
-                conn.setDoOutput(true);
-                conn.setRequestProperty(CONTENT_TYPE, APPLICATION_XND_JSON_TYPE);
-                if(config.useAuth()){
-                	conn.setRequestProperty("Authorization", config.getAuthValue());
-                }
-                conn.setRequestProperty("Connection", "Close");
-
-            } catch (IOException e) {
-
-                logger.warn(SearchDbMsgs.BULK_OPERATION_FAILURE, e.getMessage());
-                if (logger.isDebugEnabled()) {
-                    logger.debug(Throwables.getStackTraceAsString(e));
-                }
-
-                throw new DocumentStoreOperationException(
-                        "Failed to open connection to document store.  Cause: " + e.getMessage(), e);
-            }
-
-            StringBuilder bulkResult = new StringBuilder(128);
-            try {
-                // Create an output stream to write our request to.
-                OutputStreamWriter out = new OutputStreamWriter(conn.getOutputStream());
-
-                if (logger.isDebugEnabled()) {
-                    logger.debug("ESController: Sending 'BULK' request to " + conn.getURL());
-                    logger.debug("ESController: operations: " + esOperationSet.toString().replaceAll("\n", "\\n"));
+            esOperation.setLength(0);
+            if (buildEsOperation(request, existingDocuments, esOperation, rejected)) {
+                if (contentHashes != null && request.getOperationType() != OperationType.DELETE) {
+                    // The document content is the second line of the operation.
+                    long contentHash = ContentHashCache.hash(esOperation, esOperation.indexOf("\n") + 1,
+                            esOperation.length() - 1);
+                    if (isUnchanged(request, existingDocuments.get(request), contentHash)) {
+                        contentHashes.recordSuppressed();
+                        rejected.add(generateUnchangedEntry(request));
+                        continue;
+                    }
+                    contentHashesByRequest.put(request, contentHash);
                 }
-
-                // Write the resulting request string to our output stream. (this sends the request to ES?)
-                out.write(esOperationSet.toString());
-                out.close();
-
-                // Open an input stream on our connection in order to read back the results.
-                InputStream is = conn.getInputStream();
-                InputStreamReader inputstreamreader = new InputStreamReader(is);
-                BufferedReader bufferedreader = new BufferedReader(inputstreamreader);
-
-                // Read the contents of the input stream into our result string...
-                String esResponseString = null;
-
-                while ((esResponseString = bufferedreader.readLine()) != null) {
-                    bulkResult.append(esResponseString).append("\n");
+                if (!batch.fits(esOperation.length(), config.getBulkMaxBytes(), maxOperations)) {
+                    batches.add(batch);
+                    batch = new BulkBatch();
                 }
-
-            } catch (IOException e) {
-
-                logger.warn(SearchDbMsgs.BULK_OPERATION_FAILURE, e.getMessage());
-                if (logger.isDebugEnabled()) {
-                    StringWriter sw = new StringWriter();
-                    e.printStackTrace(new PrintWriter(sw));
-                    logger.debug(sw.toString());
-                }
-
-                throw new DocumentStoreOperationException(
-                        "Failure interacting with document store.  Cause: " + e.getMessage(), e);
-            }
-
-            if (logger.isDebugEnabled()) {
-                logger.debug("ESController: Received result string from ElasticSearch: = " + bulkResult.toString());
+                batch.add(request, esOperation);
             }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
 
-            // ...and marshal the resulting string into a Java object.
+        ElasticSearchBulkOperationResult opResult = null;
+        if (!batches.isEmpty()) {
             try {
-                opResult = marshallEsBulkResult(bulkResult.toString());
-
-            } catch (IOException e) {
-                logger.warn(SearchDbMsgs.BULK_OPERATION_FAILURE, e.getMessage());
-                if (logger.isDebugEnabled()) {
-                    logger.debug(Throwables.getStackTraceAsString(e));
+                opResult = sendBulkBatches(batches);
+            } finally {
+                Set<String> indexes = new HashSet<>();
+                for (BulkRequest request : requests) {
+                    indexes.add(request.getIndex());
                 }
-
-                throw new DocumentStoreOperationException("Failed to marshal response body.  Cause: " + e.getMessage(),
-                        e);
+                indexes.forEach(this::invalidateSearches);
             }
+            recordBulkContent(batches, contentHashesByRequest);
         }
 
         OperationResult result = new OperationResultBuilder() //
@@ -608,193 +829,355 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
 
 
     /**
-     * This method queryies ElasticSearch to determine if the supplied index is present in the document store.
-     *
-     * @param indexName - The index to look for.
-     * @return - An operation result indicating the success or failure of the check.
-     * @throws DocumentStoreOperationException
+     * @param request - A bulk update which has passed validation.
+     * @param currentVersion - The current version of the target document.
+     * @param contentHash - The hash of the content of the update.
+     * @return - True if the update would not change the current version of the document.
      */
-    private OperationResult checkIndexExistence(String indexName) throws DocumentStoreOperationException {
-        MdcOverride override = getStartTime(new MdcOverride());
+    private boolean isUnchanged(BulkRequest request, String currentVersion, long contentHash) {
+        String version = request.getOperation().getMetaData().getEtag();
+        return request.getOperationType() == OperationType.UPDATE && version.equals(currentVersion)
+                && contentHashes.isUnchanged(request.getIndex(), request.getId(), version, contentHash);
+    }
 
-        HttpURLConnection conn = createConnection(buildUrl(createUriBuilder(indexName)), HttpMethod.HEAD);
-        int resultCode;
-        try {
-            resultCode = conn.getResponseCode();
-        } catch (IOException ex) {
-            shutdownConnection(conn);
-            throw new DocumentStoreOperationException(ErrorMessage.NO_RESPONSE_CODE, ex);
+    /**
+     * Remembers the content of the documents successfully created or updated, and forgets that of the documents
+     * deleted, by the operations sent in a bulk request.
+     */
+    private void recordBulkContent(List<BulkBatch> batches, Map<BulkRequest, Long> contentHashesByRequest) {
+        if (contentHashes == null) {
+            return;
         }
-        logger.debug(MSG_RESPONSE_CODE + resultCode);
-
-        OperationResult opResult = new OperationResultBuilder().useDefaults().resultCode(resultCode).build();
-        logMetricsInfo(override, SearchDbMsgs.CHECK_INDEX_TIME, opResult, indexName);
-        shutdownConnection(conn);
 
-        return opResult;
+        for (BulkBatch batch : batches) {
+            if (batch.getResult() == null || !batch.hasItemPerRequest()) {
+                continue;
+            }
+            ElasticSearchResultItem[] items = batch.getResult().getItems();
+            for (int i = 0; i < items.length; i++) {
+                BulkRequest request = batch.getRequests().get(i);
+                ElasticSearchOperationStatus status = items[i].operationStatus();
+                Long contentHash = contentHashesByRequest.get(request);
+                if (request.getOperationType() == OperationType.DELETE) {
+                    contentHashes.forget(request.getIndex(), request.getId());
+                } else if (contentHash != null && status != null && status.getStatus() != null
+                        && ApiUtils.isSuccessStatusCode(status.getStatus())) {
+                    contentHashes.record(request.getIndex(), status.getId(), status.getVersion(), contentHash);
+                }
+            }
+        }
     }
 
-    private DocumentOperationResult createDocumentWithId(String indexName, DocumentStoreDataEntity document)
+    /**
+     * Sends each batch of a bulk request to ElasticSearch, with up to the configured number of batches in flight at
+     * once, and combines the results in the order of the operations.
+     *
+     * @param batches - The batches of operations.
+     * @return - The combined result of the batches. The operations in a batch which could not be sent are reported as
+     *         failed, unless every batch failed.
+     * @throws DocumentStoreOperationException if no batch could be sent.
+     */
+    private ElasticSearchBulkOperationResult sendBulkBatches(List<BulkBatch> batches)
             throws DocumentStoreOperationException {
-        // check if the document already exists
-        DocumentOperationResult opResult = checkDocumentExistence(indexName, document.getId());
-
-        if (opResult.getResultCode() != Status.NOT_FOUND.getStatusCode()) {
-            if (opResult.getResultCode() == Status.CONFLICT.getStatusCode()) {
-                opResult.setFailureCause("A document with the same id already exists.");
-            } else {
-                opResult.setFailureCause("Failed to verify a document with the specified id does not already exist.");
+        int parallelism = Math.min(bulkThrottle.getParallelism(), batches.size());
+        CompletableFuture<?>[] lanes = new CompletableFuture<?>[parallelism];
+        for (int lane = 0; lane < parallelism; lane++) {
+            CompletableFuture<Void> sent = CompletableFuture.completedFuture(null);
+            for (int i = lane; i < batches.size(); i += parallelism) {
+                BulkBatch batch = batches.get(i);
+                sent = sent.thenCompose(ignored -> sendBulkBatchAsync(batch));
+            }
+            lanes[lane] = sent;
+        }
+        DocumentStoreFutures.await(CompletableFuture.allOf(lanes));
+
+        List<ElasticSearchResultItem> items = new ArrayList<>();
+        DocumentStoreOperationException failure = null;
+        int took = 0;
+        boolean errors = false;
+        int failedBatches = 0;
+        for (BulkBatch batch : batches) {
+            if (batch.getFailure() != null) {
+                failure = batch.getFailure();
+                failedBatches++;
+                errors = true;
+                int status = (failure instanceof DocumentStoreUnavailableException) ? HttpStatus.SERVICE_UNAVAILABLE_503
+                        : HttpStatus.INTERNAL_SERVER_ERROR_500;
+                for (BulkRequest request : batch.getRequests()) {
+                    items.add(generateRejectionEntry(request.getOperationType(), failure.getMessage(),
+                            request.getIndex(), request.getId(), status,
+                            request.getOperation().getMetaData().getUrl()));
+                }
+            } else if (batch.getResult() != null) {
+                ElasticSearchBulkOperationResult result = batch.getResult();
+                took = Math.max(took, Optional.ofNullable(result.getTook()).orElse(0));
+                errors |= Boolean.TRUE.equals(result.getErrors());
+                if (result.getItems() != null) {
+                    items.addAll(Arrays.asList(result.getItems()));
+                }
             }
-            opResult.setResultCode(Status.CONFLICT.getStatusCode());
-            return opResult;
+        }
+        if (failedBatches == batches.size()) {
+            throw failure;
         }
 
-        final URL url = buildUrl(createUriBuilder(indexName, DEFAULT_TYPE, document.getId()));
-        MdcOverride override = getStartTime(new MdcOverride());
+        ElasticSearchBulkOperationResult combined = new ElasticSearchBulkOperationResult();
+        combined.setTook(took);
+        combined.setErrors(errors);
+        combined.setItems(items.toArray(new ElasticSearchResultItem[0]));
+        return combined;
+    }
 
-        HttpURLConnection conn = createConnection(url, HttpMethod.PUT);
-        attachDocument(conn, document);
+    /**
+     * Sends one batch of a bulk request to ElasticSearch, recording the result or failure in the batch. Operations
+     * which ElasticSearch rejects as too busy are sent again after a while.
+     *
+     * @param batch - The batch to send.
+     * @return - A future which completes, successfully, once the outcome has been recorded.
+     */
+    private CompletableFuture<Void> sendBulkBatchAsync(BulkBatch batch) {
+        long startTime = System.nanoTime();
+        return sendBulkAsync(batch.getOperations()).thenCompose(result -> {
+            batch.setResult(result);
+            List<Integer> rejected = batch.getRejectedPositions();
+            bulkThrottle.record(System.nanoTime() - startTime, rejected.size());
+            return retryRejectedAsync(batch, rejected, 0);
+        }).exceptionally(ApiUtils.withMdcContext(error -> {
+            batch.setFailure(toBulkFailure(DocumentStoreFutures.unwrap(error)));
+            return null;
+        }));
+    }
 
-        opResult = getOperationResult(conn);
-        buildDocumentResult(opResult, indexName);
+    /**
+     * Sends the operations of a batch which ElasticSearch rejected as too busy again, after a backoff, until they are
+     * accepted or the retries are used up. The operations keep their rejections if they cannot be sent again, and the
+     * reason is logged and counted.
+     *
+     * @param batch - The batch holding the operations.
+     * @param rejected - The positions of the rejected operations in the batch.
+     * @param attempt - The number of times the operations have already been sent again.
+     * @return - A future which completes, successfully, once the results of the batch are final.
+     */
+    private CompletableFuture<Void> retryRejectedAsync(BulkBatch batch, List<Integer> rejected, int attempt) {
+        if (rejected.isEmpty() || !bulkThrottle.shouldRetry(attempt)) {
+            return CompletableFuture.completedFuture(null);
+        }
 
-        logMetricsInfo(override, SearchDbMsgs.CREATE_DOCUMENT_TIME, opResult, indexName);
+        if (logger.isDebugEnabled()) {
+            logger.debug("ESController: Retrying " + rejected.size() + " rejected bulk operations, attempt "
+                    + (attempt + 1));
+        }
+        BulkBatch retry = batch.subBatch(rejected);
+        return bulkThrottle.delayRetry(attempt, rejected.size()).thenCompose(ignored -> {
+            long startTime = System.nanoTime();
+            return sendBulkAsync(retry.getOperations()).thenCompose(result -> {
+                retry.setResult(result);
+                if (!retry.hasItemPerRequest()) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                batch.replaceResults(rejected, retry);
+                bulkThrottle.record(System.nanoTime() - startTime, retry.getRejectedPositions().size());
+                return retryRejectedAsync(batch, batch.getRejectedPositions(), attempt + 1);
+            });
+        }).exceptionally(ApiUtils.withMdcContext(error -> {
+            Throwable cause = DocumentStoreFutures.unwrap(error);
+            logger.warn(SearchDbMsgs.BULK_OPERATION_FAILURE,
+                    "Failed to resend " + rejected.size() + " rejected operations: " + cause.getMessage());
+            if (logger.isDebugEnabled()) {
+                logger.debug(Throwables.getStackTraceAsString(cause));
+            }
+            bulkThrottle.recordRetryFailure(rejected.size());
+            return null;
+        }));
+    }
+
+    /**
+     * Sends an Elasticsearch bulk request.
+     *
+     * @param operations - The operations, in the syntax of an Elasticsearch bulk request.
+     * @return - A future holding the marshalled response, or failing with a {@link DocumentStoreOperationException}.
+     */
+    private CompletableFuture<ElasticSearchBulkOperationResult> sendBulkAsync(String operations) {
+        final URL url;
+        try {
+            url = buildUrl(createUriBuilder("_bulk"));
+        } catch (DocumentStoreOperationException e) {
+            return DocumentStoreFutures.failed(e);
+        }
 
-        shutdownConnection(conn);
+        if (logger.isDebugEnabled()) {
+            logger.debug("ESController: Sending 'BULK' request to " + url);
+            logger.debug("ESController: operations: " + operations.replaceAll("\n", "\\n"));
+        }
 
-        return opResult;
+        return transport.executeAsync(HttpMethod.PUT, url, APPLICATION_XND_JSON_TYPE, operations)
+                .thenApply(onCompletion(response -> readBulkResponse(response, url)))
+                .exceptionally(ApiUtils.withMdcContext(error -> {
+                    throw new CompletionException(toBulkFailure(DocumentStoreFutures.unwrap(error)));
+                }));
     }
 
-    private DocumentOperationResult createDocumentWithoutId(String indexName, DocumentStoreDataEntity document)
+    private ElasticSearchBulkOperationResult readBulkResponse(HttpTransportResponse response, URL url)
             throws DocumentStoreOperationException {
-        final URL url = buildUrl(createUriBuilder(indexName, DEFAULT_TYPE));
+        String bulkResult;
+        try (HttpTransportResponse closeable = response) {
+            if (!ApiUtils.isSuccessStatusCode(closeable.getStatusCode())) {
+                throw new IOException("Server returned HTTP response code: " + closeable.getStatusCode()
+                        + " for URL: " + url);
+            }
+            bulkResult = closeable.getBodyAsString();
+        } catch (IOException e) {
+            throw toBulkFailure(e);
+        }
 
-        MdcOverride override = getStartTime(new MdcOverride());
-        HttpURLConnection conn = createConnection(url, HttpMethod.POST);
-        attachDocument(conn, document);
+        if (logger.isDebugEnabled()) {
+            logger.debug("ESController: Received result string from ElasticSearch: = " + bulkResult);
+        }
 
-        DocumentOperationResult response = getOperationResult(conn);
-        buildDocumentResult(response, indexName);
+        // ...and marshal the resulting string into a Java object.
+        try {
+            return marshallEsBulkResult(bulkResult);
+        } catch (IOException e) {
+            logger.warn(SearchDbMsgs.BULK_OPERATION_FAILURE, e.getMessage());
+            if (logger.isDebugEnabled()) {
+                logger.debug(Throwables.getStackTraceAsString(e));
+            }
 
-        logMetricsInfo(override, SearchDbMsgs.CREATE_DOCUMENT_TIME, response, indexName);
+            throw new DocumentStoreOperationException("Failed to marshal response body.  Cause: " + e.getMessage(), e);
+        }
+    }
 
-        shutdownConnection(conn);
+    private DocumentStoreOperationException toBulkFailure(Throwable error) {
+        if (error instanceof DocumentStoreOperationException) {
+            return (DocumentStoreOperationException) error;
+        }
 
-        return response;
-    }
+        logger.warn(SearchDbMsgs.BULK_OPERATION_FAILURE, error.getMessage());
+        if (error instanceof CircuitBreakerOpenException) {
+            return new DocumentStoreUnavailableException(error.getMessage(), (Exception) error);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(Throwables.getStackTraceAsString(error));
+        }
 
-    private void attachDocument(HttpURLConnection conn, DocumentStoreDataEntity doc)
-            throws DocumentStoreOperationException {
-        conn.setRequestProperty("Connection", "Close");
-        attachContent(conn, doc.getContentInJson());
+        return new DocumentStoreOperationException("Failure interacting with document store.  Cause: "
+                + error.getMessage(), error instanceof Exception ? (Exception) error : new ExecutionException(error));
     }
 
-    private DocumentOperationResult checkDocumentExistence(String indexName, String docId)
-            throws DocumentStoreOperationException {
+    /**
+     * This method queryies ElasticSearch to determine if the supplied index is present in the document store.
+     *
+     * @param indexName - The index to look for.
+     * @return - A future holding an operation result indicating the success or failure of the check.
+     */
+    private CompletableFuture<OperationResult> checkIndexExistenceAsync(String indexName) {
         MdcOverride override = getStartTime(new MdcOverride());
-        HttpURLConnection conn =
-                createConnection(buildUrl(createUriBuilder(indexName, DEFAULT_TYPE, docId)), HttpMethod.HEAD);
-        int resultCode;
-        try {
-            resultCode = conn.getResponseCode();
-        } catch (IOException ex) {
-            shutdownConnection(conn);
-            throw new DocumentStoreOperationException(ErrorMessage.NO_RESPONSE_CODE, ex);
-        }
-
-        logger.debug(MSG_RESPONSE_CODE + resultCode);
 
-        DocumentOperationResult opResult = (DocumentOperationResult) new OperationResultBuilder(Type.DOCUMENT)
-                .useDefaults().resultCode(resultCode).build();
+        return sendRequestAsync(createUriBuilder(indexName), HttpMethod.HEAD, null)
+                .thenApply(onCompletion(response -> {
+                    int resultCode;
+                    try (HttpTransportResponse closeable = response) {
+                        resultCode = closeable.getStatusCode();
+                    }
+                    logger.debug(MSG_RESPONSE_CODE + resultCode);
 
-        logMetricsInfo(override, SearchDbMsgs.GET_DOCUMENT_TIME, opResult, indexName, docId);
-        shutdownConnection(conn);
+                    OperationResult opResult =
+                            new OperationResultBuilder().useDefaults().resultCode(resultCode).build();
+                    logMetricsInfo(override, SearchDbMsgs.CHECK_INDEX_TIME, opResult, indexName);
 
-        return opResult;
+                    return opResult;
+                }));
     }
 
-    private void attachContent(HttpURLConnection conn, String content) throws DocumentStoreOperationException {
-        OutputStream outputStream = null;
-        OutputStreamWriter out = null;
+    /**
+     * Lists the names of every index in the document store.
+     *
+     * @return - A future holding the index names.
+     */
+    private CompletableFuture<Set<String>> listIndicesAsync() {
+        return sendRequestAsync(createUriBuilder(CAT_INDICES_PATH).replaceQuery(CAT_INDICES_QUERY), HttpMethod.GET,
+                null).thenApply(onCompletion(response -> {
+                    try (HttpTransportResponse closeable = response;
+                            JsonParser parser = ElasticSearchResponseParser.createParser(closeable.getBody())) {
+                        if (!ApiUtils.isSuccessStatusCode(closeable.getStatusCode())) {
+                            throw new DocumentStoreOperationException(
+                                    "Failed to list the indexes. Response Code : " + closeable.getStatusCode());
+                        }
+                        return ElasticSearchResponseParser.parseIndexNames(parser);
+                    } catch (IOException e) {
+                        throw new DocumentStoreOperationException(FAILED_TO_PARSE_ELASTIC_SEARCH_RESPONSE, e);
+                    }
+                }));
+    }
 
-        try {
-            outputStream = conn.getOutputStream();
-        } catch (IOException e) {
-            shutdownConnection(conn);
-            throw new DocumentStoreOperationException("Failed to get connection output stream.", e);
+    /**
+     * Keeps the index cache in step with an index created or deleted by this service.
+     */
+    private void recordIndexChange(String indexName, OperationResult result, boolean created) {
+        invalidateSearches(indexName);
+        if (isSuccess(result)) {
+            indexCache.put(indexName, created);
+        } else {
+            indexCache.invalidate(indexName);
         }
+    }
 
-        out = new OutputStreamWriter(outputStream);
+    /**
+     * Creates a document with the supplied id in a single request, which Elasticsearch refuses with a 409 if a document
+     * with that id already exists.
+     */
+    private CompletableFuture<DocumentOperationResult> createDocumentWithIdAsync(String indexName,
+            DocumentStoreDataEntity document) {
+        MdcOverride override = getStartTime(new MdcOverride());
 
-        try {
-            out.write(content);
-            out.close();
-        } catch (IOException e) {
-            shutdownConnection(conn);
-            throw new DocumentStoreOperationException("Failed to write to the output stream.", e);
-        }
-    }
+        UriBuilder uriBuilder =
+                createUriBuilder(indexName, DEFAULT_TYPE, document.getId()).replaceQuery(URL_QUERY_CREATE);
 
-    private HttpURLConnection initializeConnection(URL url) throws DocumentStoreOperationException {
-        HttpURLConnection conn = null;
-        try {
-            conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestProperty(CONTENT_TYPE, APPLICATION_JSON);
-            conn.setDoOutput(true);
-            if (config.useAuth()) {
-                conn.setRequestProperty("Authorization", config.getAuthValue());
-            }
-        } catch (IOException e) {
-            shutdownConnection(conn);
-            throw new DocumentStoreOperationException("Failed to open connection to URL " + url, e);
-        }
+        return sendRequestAsync(uriBuilder, HttpMethod.PUT, document.getContentInJson())
+                .thenApply(onCompletion(response -> {
+                    boolean exists = response.getStatusCode() == Status.CONFLICT.getStatusCode();
+                    DocumentOperationResult createResult = getDocumentResult(response, indexName);
+                    if (exists) {
+                        createResult.setResultCode(Status.CONFLICT.getStatusCode());
+                        createResult.setFailureCause(MSG_DOCUMENT_EXISTS);
+                    }
 
-        return conn;
-    }
+                    logMetricsInfo(override, SearchDbMsgs.CREATE_DOCUMENT_TIME, createResult, indexName);
 
-    private OperationResult handleResponse(HttpURLConnection conn) throws DocumentStoreOperationException {
-        return handleResponse(conn, new OperationResultBuilder().useDefaults());
+                    return createResult;
+                }));
     }
 
-    private OperationResult handleResponse(HttpURLConnection conn, OperationResultBuilder rb)
-            throws DocumentStoreOperationException {
-        int resultCode;
-
-        try {
-            resultCode = conn.getResponseCode();
-        } catch (IOException ex) {
-            shutdownConnection(conn);
-            throw new DocumentStoreOperationException(ErrorMessage.NO_RESPONSE_CODE, ex);
-        }
+    private CompletableFuture<DocumentOperationResult> createDocumentWithoutIdAsync(String indexName,
+            DocumentStoreDataEntity document) {
+        MdcOverride override = getStartTime(new MdcOverride());
 
-        logger.debug(MSG_RESPONSE_CODE + resultCode);
+        return sendRequestAsync(createUriBuilder(indexName, DEFAULT_TYPE), HttpMethod.POST,
+                document.getContentInJson()).thenApply(onCompletion(response -> {
+                    DocumentOperationResult opResult = getDocumentResult(response, indexName);
 
-        InputStream inputStream = null;
+                    logMetricsInfo(override, SearchDbMsgs.CREATE_DOCUMENT_TIME, opResult, indexName);
 
-        if (!ApiUtils.isSuccessStatusCode(resultCode)) {
-            inputStream = conn.getErrorStream();
-        } else {
-            try {
-                inputStream = conn.getInputStream();
-            } catch (IOException e) {
-                shutdownConnection(conn);
-                throw new DocumentStoreOperationException("Failed to get the response input stream.", e);
-            }
-        }
+                    return opResult;
+                }));
+    }
 
-        InputStreamReader inputstreamreader = new InputStreamReader(inputStream);
-        BufferedReader bufferedreader = new BufferedReader(inputstreamreader);
+    private OperationResult handleResponse(HttpTransportResponse response) throws DocumentStoreOperationException {
+        return handleResponse(response, new OperationResultBuilder().useDefaults());
+    }
 
-        StringBuilder result = new StringBuilder(128);
-        String string = null;
+    private OperationResult handleResponse(HttpTransportResponse response, OperationResultBuilder rb)
+            throws DocumentStoreOperationException {
+        int resultCode = response.getStatusCode();
+        logger.debug(MSG_RESPONSE_CODE + resultCode);
 
+        String result;
         try {
-            while ((string = bufferedreader.readLine()) != null) {
-                result.append(string).append("\n");
-            }
+            result = response.getBodyAsString();
         } catch (IOException e) {
-            shutdownConnection(conn);
             throw new DocumentStoreOperationException("Failed getting the response body payload.", e);
+        } finally {
+            response.close();
         }
 
         if (resultCode == Status.CONFLICT.getStatusCode()) {
@@ -803,30 +1186,13 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
             rb.resultCode(resultCode);
         }
         if (logger.isDebugEnabled()) {
-            logger.debug("Raw result string from ElasticSearch = " + result.toString());
+            logger.debug("Raw result string from ElasticSearch = " + result);
         }
-        rb.result(result.toString());
-        rb.resultVersion(extractVersion(result.toString()));
+        rb.result(result);
+        rb.resultVersion(ElasticSearchResponseParser.parseVersion(result));
         return rb.build();
     }
 
-    private String extractVersion(String result) {
-        JSONParser parser = new JSONParser();
-        String version = null;
-        try {
-            JSONObject root = (JSONObject) parser.parse(result);
-            if (root.get(JSON_ATTR_VERSION) != null) {
-                version = root.get(JSON_ATTR_VERSION).toString();
-            }
-        } catch (ParseException e) {
-            // Not all responses from ElasticSearch include a version, so
-            // if we don't get one back, just return an empty string rather
-            // than trigger a false failure.
-            version = "";
-        }
-        return version;
-    }
-
     /**
      * This convenience method gets the current system time and stores it in an attribute in the supplied
      * {@link MdcOverride} object so that it can be used later by the metrics logger.
@@ -878,76 +1244,106 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
         }
     }
 
-    private HttpURLConnection createConnection(final URL url, final String method)
+    private HttpTransportResponse sendRequest(final URL url, final String method)
             throws DocumentStoreOperationException {
-        HttpURLConnection conn = initializeConnection(url);
-        try {
-            logger.debug("\nSending '" + method + "' request to URL : " + conn.getURL());
-            conn.setRequestMethod(method);
-        } catch (ProtocolException e) {
-            shutdownConnection(conn);
-            throw new DocumentStoreOperationException(ErrorMessage.SET_REQUEST_METHOD_FAILED, e, method);
-        }
-        return conn;
+        return sendRequest(url, method, null);
     }
 
-    private OperationResult checkConnection() throws IOException, DocumentStoreOperationException {
-        HttpURLConnection conn = createConnection(buildUrl(createUriBuilder("_cluster/health")), HttpMethod.GET);
-        int resultCode = conn.getResponseCode();
-        logger.debug("getClusterHealth() response Code : " + resultCode);
-        shutdownConnection(conn);
-        return new OperationResultBuilder().resultCode(resultCode).build();
+    /**
+     * Sends a request to the document store. The caller is responsible for closing the returned response.
+     *
+     * @param url - The target URL.
+     * @param method - The HTTP method.
+     * @param content - The JSON request payload, or null if the request has no body.
+     * @return - The response received from the document store.
+     * @throws DocumentStoreOperationException if no response was received.
+     */
+    private HttpTransportResponse sendRequest(final URL url, final String method, final String content)
+            throws DocumentStoreOperationException {
+        logger.debug("\nSending '" + method + "' request to URL : " + url);
+        try {
+            return transport.execute(method, url, APPLICATION_JSON, content);
+        } catch (CircuitBreakerOpenException e) {
+            throw new DocumentStoreUnavailableException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new DocumentStoreOperationException("Failed to send request to URL " + url, e);
+        }
     }
 
-    private void shutdownConnection(HttpURLConnection connection) {
-        if (connection == null) {
-            return;
+    /**
+     * Sends a request to the document store without blocking the calling thread. The caller is responsible for
+     * closing the response with which the returned future completes.
+     *
+     * @param uriBuilder - Builder for the target URL.
+     * @param method - The HTTP method.
+     * @param content - The JSON request payload, or null if the request has no body.
+     * @return - A future holding the response received from the document store.
+     */
+    private CompletableFuture<HttpTransportResponse> sendRequestAsync(final UriBuilder uriBuilder,
+            final String method, final String content) {
+        final URL url;
+        try {
+            url = buildUrl(uriBuilder);
+        } catch (DocumentStoreOperationException e) {
+            return DocumentStoreFutures.failed(e);
         }
 
-        final String methodName = "shutdownConnection";
-        InputStream inputstream = null;
-        OutputStream outputstream = null;
-
-        try {
-            inputstream = connection.getInputStream();
-        } catch (IOException e) {
-            logger.debug(SearchDbMsgs.EXCEPTION_DURING_METHOD_CALL, methodName, e.getLocalizedMessage());
-        } finally {
-            if (inputstream != null) {
-                try {
-                    inputstream.close();
-                } catch (IOException e) {
-                    logger.debug(SearchDbMsgs.EXCEPTION_DURING_METHOD_CALL, methodName, e.getLocalizedMessage());
+        logger.debug("\nSending '" + method + "' request to URL : " + url);
+        return transport.executeAsync(method, url, APPLICATION_JSON, content).handle((response, error) -> {
+            if (error != null) {
+                Throwable cause = DocumentStoreFutures.unwrap(error);
+                if (cause instanceof CircuitBreakerOpenException) {
+                    throw new CompletionException(
+                            new DocumentStoreUnavailableException(cause.getMessage(), (Exception) cause));
                 }
+                throw new CompletionException(
+                        new DocumentStoreOperationException("Failed to send request to URL " + url,
+                                cause instanceof Exception ? (Exception) cause : new ExecutionException(cause)));
             }
-        }
+            return response;
+        });
+    }
 
-        try {
-            outputstream = connection.getOutputStream();
-        } catch (IOException e) {
-            logger.debug(SearchDbMsgs.EXCEPTION_DURING_METHOD_CALL, methodName, e.getLocalizedMessage());
-        } finally {
-            if (outputstream != null) {
-                try {
-                    outputstream.close();
-                } catch (IOException e) {
-                    logger.debug(SearchDbMsgs.EXCEPTION_DURING_METHOD_CALL, methodName, e.getLocalizedMessage());
-                }
+    /**
+     * Adapts a response handler for use as a completion stage, carrying the caller's MDC context across to the thread
+     * which completes the request.
+     */
+    private static <T, R> Function<T, R> onCompletion(ResponseHandler<T, R> handler) {
+        return ApiUtils.withMdcContext(value -> {
+            try {
+                return handler.apply(value);
+            } catch (DocumentStoreOperationException e) {
+                throw new CompletionException(e);
             }
-        }
+        });
+    }
 
-        connection.disconnect();
+    @FunctionalInterface
+    private interface ResponseHandler<T, R> {
+        R apply(T value) throws DocumentStoreOperationException;
+    }
+
+    private OperationResult checkConnection() throws DocumentStoreOperationException {
+        int resultCode;
+        try (HttpTransportResponse response =
+                sendRequest(buildUrl(createUriBuilder(LoadBalancingTransport.HEALTH_CHECK_PATH)), HttpMethod.GET)) {
+            resultCode = response.getStatusCode();
+        }
+        logger.debug("getClusterHealth() response Code : " + resultCode);
+        return new OperationResultBuilder().resultCode(resultCode).build();
     }
 
     /**
      * This method converts a {@link BulkRequest} object into a json structure which can be understood by ElasticSearch.
      *
      * @param request - The request to be performed.
+     * @param existingDocuments - The current version of the target document of each update and delete request whose
+     *        target document is known to exist.
      * @param sb - The string builder to append the json data to
      * @throws DocumentStoreOperationException
      */
-    private boolean buildEsOperation(BulkRequest request, StringBuilder sb, List<ElasticSearchResultItem> fails)
-            throws DocumentStoreOperationException {
+    private boolean buildEsOperation(BulkRequest request, Map<BulkRequest, String> existingDocuments,
+            StringBuilder sb, List<ElasticSearchResultItem> fails) throws DocumentStoreOperationException {
 
         boolean retVal = true;
         // What kind of operation are we performing?
@@ -966,7 +1362,7 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
 
                 // Make sure that the supplied document URL is formatted
                 // correctly.
-                if (!ApiUtils.validateDocumentUri(request.getOperation().getMetaData().getUrl(), false)) {
+                if (!request.getOperation().getMetaData().isValidDocumentUrl(false)) {
                     fails.add(generateRejectionEntry(request.getOperationType(),
                             MSG_INVALID_DOCUMENT_URL + request.getOperation().getMetaData().getUrl(),
                             request.getIndex(), "", 400, request.getOperation().getMetaData().getUrl()));
@@ -975,7 +1371,7 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
 
                 // Validate that the specified index actually exists before we
                 // try to perform the create.
-                if (!indexExists(ApiUtils.extractIndexFromUri(request.getOperation().getMetaData().getUrl()))) {
+                if (!indexExists(request.getIndex())) {
 
                     fails.add(generateRejectionEntry(request.getOperationType(),
                             MSG_RESOURCE_MISSING + request.getOperation().getMetaData().getUrl(), request.getIndex(),
@@ -984,21 +1380,15 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
                 }
 
                 // If we were supplied an id for the new document, then
-                // include it in the bulk operation to Elastic Search
-                if (request.getId() == null) {
-
-                    sb.append(String.format(BULK_CREATE_WITHOUT_INDEX_TEMPLATE, request.getIndex(), DEFAULT_TYPE));
-
-                    // Otherwise, we just leave that parameter off and ElasticSearch
-                    // will generate one for us.
-                } else {
-                    sb.append(String.format(BULK_CREATE_WITH_INDEX_TEMPLATE, request.getIndex(), DEFAULT_TYPE,
-                            request.getId()));
-                }
+                // include it in the bulk operation to Elastic Search.
+                // Otherwise, we just leave that parameter off and ElasticSearch
+                // will generate one for us.
+                appendBulkAction(sb, BULK_ACTION_CREATE, request.getIndex(), request.getId(), null);
 
                 try {
                     // Append the document that we want to create.
-                    sb.append(request.getOperation().getDocument().toJson()).append("\n");
+                    request.getOperation().getDocument().appendJson(sb);
+                    sb.append('\n');
                 } catch (JsonProcessingException e) {
                     throw new DocumentStoreOperationException("Failure parsing document to json", e);
                 }
@@ -1018,7 +1408,7 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
 
                 // Make sure that the supplied document URL is formatted
                 // correctly.
-                if (!ApiUtils.validateDocumentUri(request.getOperation().getMetaData().getUrl(), true)) {
+                if (!request.getOperation().getMetaData().isValidDocumentUrl(true)) {
                     fails.add(generateRejectionEntry(request.getOperationType(),
                             MSG_INVALID_DOCUMENT_URL + request.getOperation().getMetaData().getUrl(),
                             request.getIndex(), "", 400, request.getOperation().getMetaData().getUrl()));
@@ -1037,7 +1427,7 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
 
                 // Validate that the document we are trying to update actually
                 // exists before we try to perform the update.
-                if (!documentExists(request.getIndex(), request.getId())) {
+                if (!existingDocuments.containsKey(request)) {
 
                     fails.add(generateRejectionEntry(request.getOperationType(),
                             MSG_RESOURCE_MISSING + request.getOperation().getMetaData().getUrl(), request.getIndex(),
@@ -1055,12 +1445,13 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
                 }
 
                 // Generate the update request...
-                sb.append(String.format(BULK_IMPORT_INDEX_TEMPLATE, request.getIndex(), DEFAULT_TYPE, request.getId(),
-                        request.getOperation().getMetaData().getEtag()));
+                appendBulkAction(sb, BULK_ACTION_INDEX, request.getIndex(), request.getId(),
+                        request.getOperation().getMetaData().getEtag());
 
                 // ...and append the document that we want to update.
                 try {
-                    sb.append(request.getOperation().getDocument().toJson()).append("\n");
+                    request.getOperation().getDocument().appendJson(sb);
+                    sb.append('\n');
                 } catch (JsonProcessingException e) {
                     throw new DocumentStoreOperationException("Failure parsing document to json", e);
                 }
@@ -1071,7 +1462,7 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
 
                 // Make sure that the supplied document URL is formatted
                 // correctly.
-                if (!ApiUtils.validateDocumentUri(request.getOperation().getMetaData().getUrl(), true)) {
+                if (!request.getOperation().getMetaData().isValidDocumentUrl(true)) {
                     fails.add(generateRejectionEntry(request.getOperationType(),
                             MSG_INVALID_DOCUMENT_URL + request.getOperation().getMetaData().getUrl(),
                             request.getIndex(), "", 400, request.getOperation().getMetaData().getUrl()));
@@ -1090,7 +1481,7 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
 
                 // Validate that the document we are trying to update actually
                 // exists before we try to perform the delete.
-                if (!documentExists(request.getIndex(), request.getId())) {
+                if (!existingDocuments.containsKey(request)) {
 
                     fails.add(generateRejectionEntry(request.getOperationType(),
                             MSG_RESOURCE_MISSING + request.getOperation().getMetaData().getUrl(), request.getIndex(),
@@ -1108,8 +1499,8 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
                 }
 
                 // Generate the delete request.
-                sb.append(String.format(BULK_DELETE_TEMPLATE, request.getIndex(), DEFAULT_TYPE, request.getId(),
-                        request.getOperation().getMetaData().getEtag()));
+                appendBulkAction(sb, BULK_ACTION_DELETE, request.getIndex(), request.getId(),
+                        request.getOperation().getMetaData().getEtag());
                 break;
             default:
         }
@@ -1117,12 +1508,92 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
         return retVal;
     }
 
+    /**
+     * Appends the action line of a bulk operation, in the form
+     * {@code {"<action>":{"_index":"<index>","_type":"<type>","_id":"<id>","_version":"<version>"}}}, omitting the id
+     * and version when they are not supplied.
+     */
+    static void appendBulkAction(StringBuilder sb, String action, String index, String id, String version) {
+        JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+        sb.append("{\"").append(action).append("\":{\"_index\":\"");
+        encoder.quoteAsString(index, sb);
+        sb.append("\",\"_type\":\"").append(DEFAULT_TYPE).append('"');
+        if (id != null) {
+            sb.append(",\"_id\":\"");
+            encoder.quoteAsString(id, sb);
+            sb.append('"');
+        }
+        if (version != null) {
+            sb.append(",\"_version\":\"");
+            encoder.quoteAsString(version, sb);
+            sb.append('"');
+        }
+        sb.append("}}\n");
+    }
+
     private boolean indexExists(String index) throws DocumentStoreOperationException {
-        return isSuccess(checkIndexExistence(index));
+        return DocumentStoreFutures.await(indexCache.exists(index));
     }
 
-    private boolean documentExists(String index, String id) throws DocumentStoreOperationException {
-        return isSuccess(checkDocumentExistence(index, id));
+    /**
+     * Looks up the target documents of all of the update and delete operations in a bulk request with a single
+     * {@code _mget}, rather than checking for each document separately.
+     *
+     * @param requests - The operations in the bulk request.
+     * @return - The current version of the target document of each update and delete operation whose target document
+     *         exists.
+     * @throws DocumentStoreOperationException if the document store could not be reached.
+     */
+    private Map<BulkRequest, String> findExistingDocuments(BulkRequest[] requests)
+            throws DocumentStoreOperationException {
+        Map<BulkRequest, String> existing = new IdentityHashMap<>();
+        List<BulkRequest> lookups = new ArrayList<>();
+        for (BulkRequest request : requests) {
+            OperationType type = request.getOperationType();
+            if ((type == OperationType.UPDATE || type == OperationType.DELETE)
+                    && request.getOperation().getMetaData().isValidDocumentUrl(true)
+                    && request.getIndex() != null && request.getId() != null) {
+                lookups.add(request);
+            }
+        }
+        if (lookups.isEmpty()) {
+            return existing;
+        }
+
+        List<String> versions = DocumentStoreFutures.await(findDocumentVersionsAsync(lookups));
+        for (int i = 0; i < lookups.size() && i < versions.size(); i++) {
+            if (versions.get(i) != null) {
+                existing.put(lookups.get(i), versions.get(i));
+            }
+        }
+        return existing;
+    }
+
+    private CompletableFuture<List<String>> findDocumentVersionsAsync(List<BulkRequest> requests) {
+        JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+        StringJoiner docs = new StringJoiner(",", "{\"docs\":[", "]}");
+        for (BulkRequest request : requests) {
+            docs.add(String.format(MGET_DOC_TEMPLATE, new String(encoder.quoteAsString(request.getIndex())),
+                    DEFAULT_TYPE, new String(encoder.quoteAsString(request.getId()))));
+        }
+
+        return sendRequestAsync(createUriBuilder(MGET_PATH).replaceQuery(MGET_QUERY), HttpMethod.POST,
+                docs.toString()).thenApply(onCompletion(response -> {
+                    try (HttpTransportResponse closeable = response) {
+                        logger.debug(MSG_RESPONSE_CODE + closeable.getStatusCode());
+
+                        // As when checking each document on its own, a document which could not be looked up is
+                        // treated as missing.
+                        if (!ApiUtils.isSuccessStatusCode(closeable.getStatusCode())) {
+                            return Collections.<String>emptyList();
+                        }
+                        try (JsonParser parser = ElasticSearchResponseParser.createParser(closeable.getBody())) {
+                            return ElasticSearchResponseParser.parseDocumentVersions(parser);
+                        }
+                    } catch (IOException e) {
+                        throw new DocumentStoreOperationException(FAILED_TO_PARSE_ELASTIC_SEARCH_RESPONSE, e);
+                    }
+                }));
     }
 
     /**
@@ -1165,6 +1636,26 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
         return rejectionResult;
     }
 
+    /**
+     * Constructs a successful status entry for a bulk update which was not sent to the document store as it would not
+     * have changed the document.
+     *
+     * @param request - The update.
+     * @return - A result set item.
+     */
+    private ElasticSearchResultItem generateUnchangedEntry(BulkRequest request) {
+        ElasticSearchOperationStatus op = new ElasticSearchOperationStatus();
+        op.setIndex(request.getIndex());
+        op.setId(request.getId());
+        op.setVersion(request.getOperation().getMetaData().getEtag());
+        op.setStatus(HttpStatus.OK_200);
+        op.setAdditionalProperties(ElasticSearchResultItem.REQUEST_URL, request.getOperation().getMetaData().getUrl());
+
+        ElasticSearchResultItem result = new ElasticSearchResultItem();
+        result.setIndex(op);
+        return result;
+    }
+
     /**
      * This method takes the json structure returned from ElasticSearch in response to a bulk operations request and
      * marshals it into a Java object.
@@ -1244,154 +1735,82 @@ public class ElasticSearchHttpController implements DocumentStoreInterface {
                 + "\"total_fails\": " + totalFails + ", " + "\"results\": [" + resultsBuilder.toString() + "]}";
     }
 
-    private DocumentOperationResult getOperationResult(HttpURLConnection conn) throws DocumentStoreOperationException {
-        return (DocumentOperationResult) handleResponse(conn, new OperationResultBuilder(Type.DOCUMENT).useDefaults());
-    }
-
-    private SearchOperationResult getSearchOperationResult(HttpURLConnection conn)
+    private DocumentOperationResult getDocumentResult(HttpTransportResponse response, String index)
             throws DocumentStoreOperationException {
-        return (SearchOperationResult) handleResponse(conn, new OperationResultBuilder(Type.SEARCH).useDefaults());
+        DocumentOperationResult result = new DocumentOperationResult();
+        readResponse(response, result, false,
+                (parser, body) -> ElasticSearchResponseParser.parseDocumentResult(parser, result, index));
+        return result;
     }
 
-    private void buildDocumentResult(DocumentOperationResult result, String index)
+    private SearchOperationResult getSearchResult(HttpTransportResponse response, String index)
             throws DocumentStoreOperationException {
-
-        JSONParser parser = new JSONParser();
-        JSONObject root;
-        try {
-            root = (JSONObject) parser.parse(result.getResult());
-            if (isSuccess(result)) {
-                // Success response object
-                Document doc = new Document();
-                doc.setEtag(result.getResultVersion());
-                doc.setUrl(buildDocumentResponseUrl(index, root.get("_id").toString()));
-
-                doc.setContent((JSONObject) root.get("_source"));
-                result.setDocument(doc);
-
-            } else {
-                // Error response object
-                JSONObject error = (JSONObject) root.get(JSON_ATTR_ERROR);
-                if (error != null) {
-                    result.setError(
-                            new ErrorResult(error.get("type").toString(), error.get(JSON_ATTR_REASON).toString()));
-                }
-
-            }
-        } catch (Exception e) {
-            throw new DocumentStoreOperationException(FAILED_TO_PARSE_ELASTIC_SEARCH_RESPONSE + result.getResult());
-        }
+        SearchOperationResult result = new SearchOperationResult();
+        readResponse(response, result, config.isSourcePassThroughEnabled(),
+                (parser, body) -> ElasticSearchResponseParser.parseSearchResult(parser, result, index, body));
+        return result;
     }
 
-    private String buildDocumentResponseUrl(String index, String id) {
-        return ApiUtils.buildDocumentUri(index, id);
+    private SearchOperationResult getSuggestResult(HttpTransportResponse response, String index)
+            throws DocumentStoreOperationException {
+        SearchOperationResult result = new SearchOperationResult();
+        readResponse(response, result, false,
+                (parser, body) -> ElasticSearchResponseParser.parseSuggestResult(parser, result, index));
+        return result;
     }
 
-    private void buildSearchResult(SearchOperationResult result, String index) throws DocumentStoreOperationException {
-        JSONParser parser = new JSONParser();
-        JSONObject root;
+    /**
+     * Sets the result code from the response and decodes the body into the supplied result. A successful response is
+     * decoded straight from the response stream, unless it is to be buffered so that parts of it can be passed through
+     * undecoded; the body of any other response is also kept as the raw result so that it can be reported.
+     */
+    private void readResponse(HttpTransportResponse response, OperationResult result, boolean buffered,
+            ResponseParser responseParser) throws DocumentStoreOperationException {
+        int resultCode = response.getStatusCode();
+        logger.debug(MSG_RESPONSE_CODE + resultCode);
 
-        try {
-            root = (JSONObject) parser.parse(result.getResult());
-            if (isSuccess(result)) {
-                JSONObject hits = (JSONObject) root.get("hits");
-                JSONArray hitArray = (JSONArray) hits.get("hits");
-                SearchHits searchHits = new SearchHits();
-                searchHits.setTotalHits(hits.get("total").toString());
-                ArrayList<SearchHit> searchHitArray = new ArrayList<>();
-
-                for (int i = 0; i < hitArray.size(); i++) {
-                    JSONObject hit = (JSONObject) hitArray.get(i);
-                    SearchHit searchHit = new SearchHit();
-                    searchHit.setScore((hit.get("_score") != null) ? hit.get("_score").toString() : "");
-                    Document doc = new Document();
-                    if (hit.get(JSON_ATTR_VERSION) != null) {
-                        doc.setEtag((hit.get(JSON_ATTR_VERSION) != null) ? hit.get(JSON_ATTR_VERSION).toString() : "");
-                    }
+        if (resultCode == Status.CONFLICT.getStatusCode()) {
+            result.setResultCode(Status.PRECONDITION_FAILED.getStatusCode());
+        } else {
+            result.setResultCode(resultCode);
+        }
 
-                    doc.setUrl(
-                            buildDocumentResponseUrl(index, (hit.get("_id") != null) ? hit.get("_id").toString() : ""));
-                    doc.setContent((JSONObject) hit.get("_source"));
-                    searchHit.setDocument(doc);
-                    searchHitArray.add(searchHit);
+        String body = null;
+        try (HttpTransportResponse closeable = response) {
+            if (isSuccess(result) && buffered) {
+                result.setResult("");
+                byte[] bytes = IOUtils.toByteArray(closeable.getBody());
+                try (JsonParser parser = ElasticSearchResponseParser.createParser(bytes)) {
+                    responseParser.parse(parser, bytes);
                 }
-                searchHits.setHits(searchHitArray.toArray(new SearchHit[searchHitArray.size()]));
-                result.setSearchResult(searchHits);
-
-                JSONObject aggregations = (JSONObject) root.get("aggregations");
-                if (aggregations != null) {
-                    AggregationResult[] aggResults = AggregationParsingUtil.parseAggregationResults(aggregations);
-                    AggregationResults aggs = new AggregationResults();
-                    aggs.setAggregations(aggResults);
-                    result.setAggregationResult(aggs);
+            } else if (isSuccess(result)) {
+                result.setResult("");
+                try (JsonParser parser = ElasticSearchResponseParser.createParser(closeable.getBody())) {
+                    responseParser.parse(parser, null);
                 }
-
-                // success
             } else {
-                JSONObject error = (JSONObject) root.get(JSON_ATTR_ERROR);
-                if (error != null) {
-                    result.setError(
-                            new ErrorResult(error.get("type").toString(), error.get(JSON_ATTR_REASON).toString()));
+                body = closeable.getBodyAsString();
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Raw result string from ElasticSearch = " + body);
+                }
+                result.setResult(body);
+                try (JsonParser parser = ElasticSearchResponseParser.createParser(body)) {
+                    responseParser.parse(parser, null);
                 }
             }
-        } catch (Exception e) {
-            throw new DocumentStoreOperationException(FAILED_TO_PARSE_ELASTIC_SEARCH_RESPONSE + result.getResult());
+        } catch (IOException e) {
+            throw new DocumentStoreOperationException(
+                    FAILED_TO_PARSE_ELASTIC_SEARCH_RESPONSE + (body != null ? body : e.getMessage()), e);
         }
     }
 
-    private void buildSuggestResult(SearchOperationResult result, String index) throws DocumentStoreOperationException {
-        JSONParser parser = new JSONParser();
-        JSONObject root;
-        try {
-            root = (JSONObject) parser.parse(result.getResult());
-            if (isSuccess(result)) {
-                JSONArray hitArray = (JSONArray) root.get("suggest-vnf");
-                JSONObject hitdata = (JSONObject) hitArray.get(0);
-                JSONArray optionsArray = (JSONArray) hitdata.get("options");
-                SuggestHits suggestHits = new SuggestHits();
-                suggestHits.setTotalHits(String.valueOf(optionsArray.size()));
-
-                ArrayList<SuggestHit> suggestHitArray = new ArrayList<>();
-
-                for (int i = 0; i < optionsArray.size(); i++) {
-                    JSONObject hit = (JSONObject) optionsArray.get(i);
-
-                    SuggestHit suggestHit = new SuggestHit();
-                    suggestHit.setScore((hit.get("score") != null) ? hit.get("score").toString() : "");
-                    suggestHit.setText((hit.get("text") != null) ? hit.get("text").toString() : "");
-                    Document doc = new Document();
-                    if (hit.get(JSON_ATTR_VERSION) != null) {
-                        doc.setEtag((hit.get(JSON_ATTR_VERSION) != null) ? hit.get(JSON_ATTR_VERSION).toString() : "");
-                    }
-                    doc.setUrl(
-                            buildDocumentResponseUrl(index, (hit.get("_id") != null) ? hit.get("_id").toString() : ""));
-
-                    doc.setContent((JSONObject) hit.get("payload"));
-                    suggestHit.setDocument(doc);
-                    suggestHitArray.add(suggestHit);
-                }
-                suggestHits.setHits(suggestHitArray.toArray(new SuggestHit[suggestHitArray.size()]));
-                result.setSuggestResult(suggestHits);
-
-                JSONObject aggregations = (JSONObject) root.get("aggregations");
-                if (aggregations != null) {
-                    AggregationResult[] aggResults = AggregationParsingUtil.parseAggregationResults(aggregations);
-                    AggregationResults aggs = new AggregationResults();
-                    aggs.setAggregations(aggResults);
-                    result.setAggregationResult(aggs);
-                }
-
-                // success
-            } else {
-                JSONObject error = (JSONObject) root.get(JSON_ATTR_ERROR);
-                if (error != null) {
-                    result.setError(
-                            new ErrorResult(error.get("type").toString(), error.get(JSON_ATTR_REASON).toString()));
-                }
-            }
-        } catch (Exception e) {
-            throw new DocumentStoreOperationException(FAILED_TO_PARSE_ELASTIC_SEARCH_RESPONSE + result.getResult());
-        }
+    @FunctionalInterface
+    private interface ResponseParser {
+        /**
+         * @param parser - A parser positioned before the start of the response.
+         * @param body - The buffered response which the parser reads, or null if the response is not buffered.
+         */
+        void parse(JsonParser parser, byte[] body) throws IOException;
     }
 
     /**
@@ -55,6 +55,8 @@ public class ElasticSearchHttpsController {
     private static final String KEYSTORE_ALGORITHM = "SunX509";
     private static final String KEYSTORE_TYPE = "PKCS12";
 
+    private final SSLContext sslContext;
+
     public ElasticSearchHttpsController(ElasticSearchConfig config) throws NoSuchAlgorithmException, KeyStoreException,
             CertificateException, IOException, KeyManagementException, UnrecoverableKeyException {
         logger.debug("Initialising HTTPS configuration");
@@ -88,6 +90,14 @@ public class ElasticSearchHttpsController {
 
         HttpsURLConnection.setDefaultSSLSocketFactory(ctx.getSocketFactory());
         HttpsURLConnection.setDefaultHostnameVerifier((host, session) -> host.equalsIgnoreCase(session.getPeerHost()));
+        sslContext = ctx;
+    }
+
+    /**
+     * @return the initialised SSL context, for HTTP clients that do not use the HttpsURLConnection defaults.
+     */
+    public SSLContext getSslContext() {
+        return sslContext;
     }
 
     private TrustManager[] getTrustManagers(ElasticSearchConfig config)
@@ -20,6 +20,7 @@
  */
 package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
 import java.util.HashMap;
@@ -65,6 +66,7 @@ public class ElasticSearchOperationStatus {
         return index;
     }
 
+    @JsonAlias("_index")
     public void setIndex(String index) {
         this.index = index;
     }
@@ -73,6 +75,7 @@ public class ElasticSearchOperationStatus {
         return type;
     }
 
+    @JsonAlias("_type")
     public void setType(String type) {
         this.type = type;
     }
@@ -81,6 +84,7 @@ public class ElasticSearchOperationStatus {
         return id;
     }
 
+    @JsonAlias("_id")
     public void setId(String id) {
         this.id = id;
     }
@@ -89,6 +93,7 @@ public class ElasticSearchOperationStatus {
         return version;
     }
 
+    @JsonAlias("_version")
     public void setVersion(String version) {
         this.version = version;
     }
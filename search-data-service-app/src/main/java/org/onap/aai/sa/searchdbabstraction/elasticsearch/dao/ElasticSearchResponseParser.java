@@ -0,0 +1,648 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.onap.aai.sa.rest.ApiUtils;
+import org.onap.aai.sa.searchdbabstraction.entity.AggregationResults;
+import org.onap.aai.sa.searchdbabstraction.entity.Document;
+import org.onap.aai.sa.searchdbabstraction.entity.DocumentOperationResult;
+import org.onap.aai.sa.searchdbabstraction.entity.ErrorResult;
+import org.onap.aai.sa.searchdbabstraction.entity.OperationResult;
+import org.onap.aai.sa.searchdbabstraction.entity.RawJson;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchHit;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchHits;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchOperationResult;
+import org.onap.aai.sa.searchdbabstraction.entity.SuggestHit;
+import org.onap.aai.sa.searchdbabstraction.entity.SuggestHits;
+import org.onap.aai.sa.searchdbabstraction.util.AggregationParsingUtil;
+
+/**
+ * Decodes Elasticsearch responses in a single streaming pass, filling in the operation result as the response body is
+ * read rather than first copying the body into a string and then parsing it.
+ *
+ * <p>
+ * Document contents and aggregations are built as json-simple objects, with the same value types (Long, Double,
+ * String, Boolean) that json-simple itself would produce, so that they are rendered exactly as before. Every other
+ * part of the response which the service does not use is skipped without being decoded.
+ *
+ * <p>
+ * When a search response has been read into a buffer, the source of each hit can instead be kept as a reference to its
+ * bytes in that buffer, which are then copied to the client without ever being decoded.
+ */
+final class ElasticSearchResponseParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String JSON_ATTR_ID = "_id";
+    private static final String JSON_ATTR_INDEX = "index";
+    private static final String JSON_ATTR_DOCS = "docs";
+    private static final String JSON_ATTR_FOUND = "found";
+    private static final String JSON_ATTR_VERSION = "_version";
+    private static final String JSON_ATTR_SOURCE = "_source";
+    private static final String JSON_ATTR_SCORE = "_score";
+    private static final String JSON_ATTR_SORT = "sort";
+    private static final String JSON_ATTR_ERROR = "error";
+    private static final String JSON_ATTR_TYPE = "type";
+    private static final String JSON_ATTR_REASON = "reason";
+    private static final String JSON_ATTR_HITS = "hits";
+    private static final String JSON_ATTR_TOTAL = "total";
+    private static final String JSON_ATTR_AGGREGATIONS = "aggregations";
+    private static final String JSON_ATTR_SUGGEST = "suggest-vnf";
+    private static final String JSON_ATTR_OPTIONS = "options";
+    private static final String JSON_ATTR_SUGGEST_SCORE = "score";
+    private static final String JSON_ATTR_SUGGEST_TEXT = "text";
+    private static final String JSON_ATTR_PAYLOAD = "payload";
+
+    private ElasticSearchResponseParser() { // Do not instantiate
+    }
+
+    static JsonParser createParser(InputStream body) throws IOException {
+        return JSON_FACTORY.createParser(body);
+    }
+
+    static JsonParser createParser(byte[] body) throws IOException {
+        return JSON_FACTORY.createParser(body);
+    }
+
+    static JsonParser createParser(String body) throws IOException {
+        return JSON_FACTORY.createParser(body);
+    }
+
+    /**
+     * Extracts the top level version from a response.
+     *
+     * @param result - The response body.
+     * @return - The version, null if the response has none, or an empty string if the response is not JSON.
+     */
+    static String parseVersion(String result) {
+        try (JsonParser parser = createParser(result)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return "";
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if (JSON_ATTR_VERSION.equals(field)) {
+                    return toStringOrNull(readValue(parser));
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            // Not all responses from ElasticSearch include a version, so
+            // if we don't get one back, just return an empty string rather
+            // than trigger a false failure.
+            return "";
+        }
+    }
+
+    /**
+     * Fills in a document operation result from the response to a document request: the document URL, version and
+     * content on success, or the error otherwise.
+     *
+     * @param parser - A parser positioned before the start of the response.
+     * @param result - The result, with its result code already set.
+     * @param index - The index holding the document.
+     * @throws IOException if the response could not be read or is not in the expected form.
+     */
+    static void parseDocumentResult(JsonParser parser, DocumentOperationResult result, String index)
+            throws IOException {
+        Object id = null;
+        JSONObject source = null;
+        ErrorResult error = null;
+
+        startObject(parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case JSON_ATTR_ID:
+                    id = readValue(parser);
+                    break;
+                case JSON_ATTR_VERSION:
+                    result.setResultVersion(toStringOrNull(readValue(parser)));
+                    break;
+                case JSON_ATTR_SOURCE:
+                    source = readObject(parser);
+                    break;
+                case JSON_ATTR_ERROR:
+                    error = readError(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (isSuccess(result)) {
+            if (id == null) {
+                throw new JsonParseException(parser, "Response has no document id");
+            }
+            Document doc = new Document();
+            doc.setEtag(result.getResultVersion());
+            doc.setUrl(ApiUtils.buildDocumentUri(index, id.toString()));
+            doc.setContent(source);
+            result.setDocument(doc);
+        } else if (error != null) {
+            result.setError(error);
+        }
+    }
+
+    /**
+     * Fills in a search operation result from the response to a search: the hits and aggregations on success, or the
+     * error otherwise.
+     *
+     * @param parser - A parser positioned before the start of the response.
+     * @param result - The result, with its result code already set.
+     * @param index - The index which was searched.
+     * @throws IOException if the response could not be read or is not in the expected form.
+     */
+    static void parseSearchResult(JsonParser parser, SearchOperationResult result, String index) throws IOException {
+        parseSearchResult(parser, result, index, null);
+    }
+
+    /**
+     * Fills in a search operation result from the response to a search, keeping the source of each hit as raw JSON.
+     *
+     * @param parser - A parser over the supplied buffer, positioned before the start of the response.
+     * @param result - The result, with its result code already set.
+     * @param index - The index which was searched.
+     * @param body - The buffer holding the whole response, or null to decode the source of each hit.
+     * @throws IOException if the response could not be read or is not in the expected form.
+     */
+    static void parseSearchResult(JsonParser parser, SearchOperationResult result, String index, byte[] body)
+            throws IOException {
+        SearchHits hits = null;
+        JSONObject aggregations = null;
+        ErrorResult error = null;
+
+        startObject(parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case JSON_ATTR_HITS:
+                    hits = readSearchHits(parser, index, body);
+                    break;
+                case JSON_ATTR_AGGREGATIONS:
+                    aggregations = readObject(parser);
+                    break;
+                case JSON_ATTR_VERSION:
+                    result.setResultVersion(toStringOrNull(readValue(parser)));
+                    break;
+                case JSON_ATTR_ERROR:
+                    error = readError(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (isSuccess(result)) {
+            if (hits == null) {
+                throw new JsonParseException(parser, "Response has no hits");
+            }
+            result.setSearchResult(hits);
+            setAggregations(result, aggregations);
+        } else if (error != null) {
+            result.setError(error);
+        }
+    }
+
+    /**
+     * Fills in a search operation result from the response to a suggestion query: the options of the first suggestion
+     * and the aggregations on success, or the error otherwise.
+     *
+     * @param parser - A parser positioned before the start of the response.
+     * @param result - The result, with its result code already set.
+     * @param index - The index which was queried.
+     * @throws IOException if the response could not be read or is not in the expected form.
+     */
+    static void parseSuggestResult(JsonParser parser, SearchOperationResult result, String index) throws IOException {
+        SuggestHits hits = null;
+        JSONObject aggregations = null;
+        ErrorResult error = null;
+
+        startObject(parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case JSON_ATTR_SUGGEST:
+                    hits = readSuggestHits(parser, index);
+                    break;
+                case JSON_ATTR_AGGREGATIONS:
+                    aggregations = readObject(parser);
+                    break;
+                case JSON_ATTR_VERSION:
+                    result.setResultVersion(toStringOrNull(readValue(parser)));
+                    break;
+                case JSON_ATTR_ERROR:
+                    error = readError(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (isSuccess(result)) {
+            if (hits == null) {
+                throw new JsonParseException(parser, "Response has no suggestions");
+            }
+            result.setSuggestResult(hits);
+            setAggregations(result, aggregations);
+        } else if (error != null) {
+            result.setError(error);
+        }
+    }
+
+    /**
+     * Reads the index names from a response to {@code _cat/indices?format=json}.
+     *
+     * @param parser - A parser positioned before the start of the response.
+     * @return - The names of the indexes.
+     * @throws IOException if the response could not be read or is not in the expected form.
+     */
+    static Set<String> parseIndexNames(JsonParser parser) throws IOException {
+        Set<String> names = new HashSet<>();
+        parser.nextToken();
+        startArray(parser);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            startObject(parser, parser.getCurrentToken());
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if (JSON_ATTR_INDEX.equals(field)) {
+                    names.add(parser.getValueAsString());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Reads whether each requested document was found from a response to {@code _mget}.
+     *
+     * @param parser - A parser positioned before the start of the response.
+     * @return - One entry for each requested document, in the order in which they were requested. A document which
+     *         could not be fetched, for example because its index does not exist, is reported as not found.
+     * @throws IOException if the response could not be read or is not in the expected form.
+     */
+    static List<Boolean> parseDocumentsFound(JsonParser parser) throws IOException {
+        List<Boolean> found = new ArrayList<>();
+        for (String version : parseDocumentVersions(parser)) {
+            found.add(version != null);
+        }
+        return found;
+    }
+
+    /**
+     * Reads the current version of each requested document from a response to {@code _mget}.
+     *
+     * @param parser - A parser positioned before the start of the response.
+     * @return - One entry for each requested document, in the order in which they were requested: the version of the
+     *         document, an empty string if it was found without a version, or null if it was not found. A document
+     *         which could not be fetched, for example because its index does not exist, is reported as not found.
+     * @throws IOException if the response could not be read or is not in the expected form.
+     */
+    static List<String> parseDocumentVersions(JsonParser parser) throws IOException {
+        List<String> versions = new ArrayList<>();
+        startObject(parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (!JSON_ATTR_DOCS.equals(field)) {
+                parser.skipChildren();
+                continue;
+            }
+            startArray(parser);
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                startObject(parser, parser.getCurrentToken());
+                boolean docFound = false;
+                String version = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String docField = parser.getCurrentName();
+                    parser.nextToken();
+                    if (JSON_ATTR_FOUND.equals(docField)) {
+                        docFound = parser.getCurrentToken() == JsonToken.VALUE_TRUE;
+                    } else if (JSON_ATTR_VERSION.equals(docField)) {
+                        version = toStringOrNull(readValue(parser));
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                if (!docFound) {
+                    versions.add(null);
+                } else {
+                    versions.add(version != null ? version : "");
+                }
+            }
+        }
+        return versions;
+    }
+
+    private static SearchHits readSearchHits(JsonParser parser, String index, byte[] body) throws IOException {
+        Object total = null;
+        List<SearchHit> hitList = new ArrayList<>();
+
+        startObject(parser, parser.getCurrentToken());
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (JSON_ATTR_TOTAL.equals(field)) {
+                total = readValue(parser);
+            } else if (JSON_ATTR_HITS.equals(field)) {
+                startArray(parser);
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    hitList.add(readSearchHit(parser, index, body));
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (total == null) {
+            throw new JsonParseException(parser, "Response has no hit count");
+        }
+
+        SearchHits searchHits = new SearchHits();
+        searchHits.setTotalHits(total.toString());
+        searchHits.setHits(hitList.toArray(new SearchHit[hitList.size()]));
+        return searchHits;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SearchHit readSearchHit(JsonParser parser, String index, byte[] body) throws IOException {
+        Object score = null;
+        Object version = null;
+        Object id = null;
+        JSONArray sortValues = null;
+        JSONObject source = null;
+        RawJson rawSource = null;
+
+        startObject(parser, parser.getCurrentToken());
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case JSON_ATTR_SCORE:
+                    score = readValue(parser);
+                    break;
+                case JSON_ATTR_VERSION:
+                    version = readValue(parser);
+                    break;
+                case JSON_ATTR_ID:
+                    id = readValue(parser);
+                    break;
+                case JSON_ATTR_SORT:
+                    startArray(parser);
+                    sortValues = (JSONArray) readValue(parser);
+                    break;
+                case JSON_ATTR_SOURCE:
+                    rawSource = (body != null) ? readRawObject(parser, body) : null;
+                    if (rawSource == null) {
+                        source = readObject(parser);
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        SearchHit searchHit = new SearchHit();
+        searchHit.setScore(score != null ? score.toString() : "");
+        searchHit.setSortValues(sortValues);
+        Document doc = buildHitDocument(index, id, version, source);
+        if (rawSource != null) {
+            doc.setRawContent(rawSource);
+        }
+        searchHit.setDocument(doc);
+        return searchHit;
+    }
+
+    private static SuggestHits readSuggestHits(JsonParser parser, String index) throws IOException {
+        List<SuggestHit> hitList = null;
+
+        startArray(parser);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (hitList != null) {
+                // Only the options of the first suggestion are reported.
+                parser.skipChildren();
+                continue;
+            }
+            hitList = new ArrayList<>();
+            startObject(parser, parser.getCurrentToken());
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if (JSON_ATTR_OPTIONS.equals(field)) {
+                    startArray(parser);
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        hitList.add(readSuggestHit(parser, index));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        if (hitList == null) {
+            throw new JsonParseException(parser, "Response has no suggestions");
+        }
+
+        SuggestHits suggestHits = new SuggestHits();
+        suggestHits.setTotalHits(String.valueOf(hitList.size()));
+        suggestHits.setHits(hitList.toArray(new SuggestHit[hitList.size()]));
+        return suggestHits;
+    }
+
+    private static SuggestHit readSuggestHit(JsonParser parser, String index) throws IOException {
+        Object score = null;
+        Object text = null;
+        Object version = null;
+        Object id = null;
+        JSONObject payload = null;
+
+        startObject(parser, parser.getCurrentToken());
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case JSON_ATTR_SUGGEST_SCORE:
+                    score = readValue(parser);
+                    break;
+                case JSON_ATTR_SUGGEST_TEXT:
+                    text = readValue(parser);
+                    break;
+                case JSON_ATTR_VERSION:
+                    version = readValue(parser);
+                    break;
+                case JSON_ATTR_ID:
+                    id = readValue(parser);
+                    break;
+                case JSON_ATTR_PAYLOAD:
+                    payload = readObject(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        SuggestHit suggestHit = new SuggestHit();
+        suggestHit.setScore(score != null ? score.toString() : "");
+        suggestHit.setText(text != null ? text.toString() : "");
+        suggestHit.setDocument(buildHitDocument(index, id, version, payload));
+        return suggestHit;
+    }
+
+    private static Document buildHitDocument(String index, Object id, Object version, JSONObject content) {
+        Document doc = new Document();
+        if (version != null) {
+            doc.setEtag(version.toString());
+        }
+        doc.setUrl(ApiUtils.buildDocumentUri(index, id != null ? id.toString() : ""));
+        doc.setContent(content);
+        return doc;
+    }
+
+    private static void setAggregations(SearchOperationResult result, JSONObject aggregations) throws IOException {
+        if (aggregations != null) {
+            AggregationResults aggs = new AggregationResults();
+            aggs.setAggregations(AggregationParsingUtil.parseAggregationResults(aggregations));
+            result.setAggregationResult(aggs);
+        }
+    }
+
+    private static ErrorResult readError(JsonParser parser) throws IOException {
+        Object error = readValue(parser);
+        if (error == null) {
+            return null;
+        }
+        if (!(error instanceof JSONObject)) {
+            throw new JsonParseException(parser, "Unexpected error description: " + error);
+        }
+        Object type = ((JSONObject) error).get(JSON_ATTR_TYPE);
+        Object reason = ((JSONObject) error).get(JSON_ATTR_REASON);
+        if (type == null || reason == null) {
+            throw new JsonParseException(parser, "Incomplete error description: " + error);
+        }
+        return new ErrorResult(type.toString(), reason.toString());
+    }
+
+    /**
+     * Skips over the object at the current token, returning a reference to its bytes in the buffer being parsed, or
+     * null without consuming anything if the current token is not the start of an object.
+     */
+    private static RawJson readRawObject(JsonParser parser, byte[] body) throws IOException {
+        long start = parser.getTokenLocation().getByteOffset();
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT || start < 0) {
+            return null;
+        }
+        parser.skipChildren();
+        long end = parser.getTokenLocation().getByteOffset() + 1;
+        return new RawJson(body, (int) start, (int) (end - start));
+    }
+
+    private static JSONObject readObject(JsonParser parser) throws IOException {
+        Object value = readValue(parser);
+        if (value != null && !(value instanceof JSONObject)) {
+            throw new JsonParseException(parser, "Expected an object but found " + value);
+        }
+        return (JSONObject) value;
+    }
+
+    /**
+     * Reads the JSON value at the current token into the json-simple representation of that value.
+     */
+    @SuppressWarnings("unchecked")
+    static Object readValue(JsonParser parser) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == null) {
+            throw new JsonParseException(parser, "Unexpected end of response");
+        }
+        switch (token) {
+            case START_OBJECT:
+                JSONObject object = new JSONObject();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    object.put(field, readValue(parser));
+                }
+                return object;
+            case START_ARRAY:
+                JSONArray array = new JSONArray();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    array.add(readValue(parser));
+                }
+                return array;
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER ? parser.getBigIntegerValue()
+                        : (Object) parser.getLongValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            default:
+                throw new JsonParseException(parser, "Unexpected token " + token);
+        }
+    }
+
+    private static void startObject(JsonParser parser) throws IOException {
+        startObject(parser, parser.nextToken());
+    }
+
+    private static void startObject(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected an object but found " + token);
+        }
+    }
+
+    private static void startArray(JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Expected an array but found " + parser.getCurrentToken());
+        }
+    }
+
+    private static String toStringOrNull(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static boolean isSuccess(OperationResult result) {
+        return ApiUtils.isSuccessStatusCode(result.getResultCode());
+    }
+}
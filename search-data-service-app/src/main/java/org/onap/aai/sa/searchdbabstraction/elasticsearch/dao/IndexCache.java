@@ -0,0 +1,173 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.ws.rs.core.Response.Status;
+import org.onap.aai.cl.api.Logger;
+import org.onap.aai.cl.eelf.LoggerFactory;
+import org.onap.aai.sa.rest.ApiUtils;
+import org.onap.aai.sa.searchdbabstraction.entity.OperationResult;
+import org.onap.aai.sa.searchdbabstraction.logging.SearchDbMsgs;
+
+/**
+ * Remembers which indexes exist in the document store, so that the existence check made before writing a document
+ * does not need a round trip for every request.
+ *
+ * <p>
+ * The cache is filled from a listing of every index, which is refreshed in the background, and from the outcome of
+ * individual existence checks. An index which is not known, or whose entry is older than the time to live, is checked
+ * individually. Only definite answers (found or not found) are remembered; any other outcome of a check is passed on
+ * without being cached.
+ */
+class IndexCache {
+
+    private static final Logger logger = LoggerFactory.getInstance().getLogger(IndexCache.class.getName());
+
+    private final Function<String, CompletableFuture<OperationResult>> checker;
+    private final Supplier<CompletableFuture<Set<String>>> lister;
+    private final long ttlNanos;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService refresher;
+
+    /**
+     * @param checker - Checks whether a single index exists.
+     * @param lister - Lists the names of every index.
+     * @param ttlMs - The time for which an answer is trusted, or zero to check every index individually every time.
+     * @param refreshIntervalMs - The interval between background refreshes of the index listing, or zero for none.
+     */
+    IndexCache(Function<String, CompletableFuture<OperationResult>> checker,
+            Supplier<CompletableFuture<Set<String>>> lister, long ttlMs, long refreshIntervalMs) {
+        this.checker = checker;
+        this.lister = lister;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+
+        if (ttlMs > 0 && refreshIntervalMs > 0) {
+            refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "es-index-cache-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            refresher.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            refresher = null;
+        }
+    }
+
+    /**
+     * Determines whether an index exists, from the cache if possible.
+     *
+     * @param index - The index name.
+     * @return - A future holding true if the index exists.
+     */
+    CompletableFuture<Boolean> exists(String index) {
+        if (ttlNanos > 0) {
+            Entry entry = entries.get(index);
+            if (entry != null && !entry.isExpired(ttlNanos)) {
+                return CompletableFuture.completedFuture(entry.exists);
+            }
+        }
+
+        return checker.apply(index).thenApply(result -> {
+            if (result.getResultCode() == Status.NOT_FOUND.getStatusCode()) {
+                put(index, false);
+            } else if (ApiUtils.isSuccessStatusCode(result.getResultCode())) {
+                put(index, true);
+            }
+            return ApiUtils.isSuccessStatusCode(result.getResultCode());
+        });
+    }
+
+    /**
+     * Records that an index has been created or deleted by this service.
+     */
+    void put(String index, boolean exists) {
+        if (ttlNanos > 0) {
+            entries.put(index, new Entry(exists));
+        }
+    }
+
+    /**
+     * Forgets what is known about an index, so that it is checked again on next use.
+     */
+    void invalidate(String index) {
+        entries.remove(index);
+    }
+
+    /**
+     * Replaces the contents of the cache with the current listing of the indexes.
+     *
+     * @return - A future which completes when the cache has been refreshed.
+     */
+    CompletableFuture<Void> refresh() {
+        return lister.get().thenAccept(this::update);
+    }
+
+    void shutdown() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    private void update(Collection<String> indexes) {
+        Set<String> missing = new HashSet<>(entries.keySet());
+        for (String index : indexes) {
+            put(index, true);
+            missing.remove(index);
+        }
+        // An index which has gone from the listing has been deleted, unless it is an alias, which is not listed; the
+        // next use of either kind will check it again.
+        for (String index : missing) {
+            invalidate(index);
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh().join();
+        } catch (Exception e) {
+            logger.debug(SearchDbMsgs.EXCEPTION_DURING_METHOD_CALL, "IndexCache.refresh", e.getLocalizedMessage());
+        }
+    }
+
+    private static final class Entry {
+        private final boolean exists;
+        private final long recordedAt = System.nanoTime();
+
+        Entry(boolean exists) {
+            this.exists = exists;
+        }
+
+        boolean isExpired(long ttlNanos) {
+            return System.nanoTime() - recordedAt >= ttlNanos;
+        }
+    }
+}
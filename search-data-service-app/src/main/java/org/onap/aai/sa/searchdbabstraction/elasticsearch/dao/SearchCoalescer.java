@@ -0,0 +1,102 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchOperationResult;
+
+/**
+ * Lets identical searches which are in progress at the same time share a single search of the document store.
+ *
+ * <p>
+ * A search of an index with exactly the same query as a search already in progress waits for the result of that search
+ * instead of being sent. The callers share the parsed result, which they may serialize but must not change. A search
+ * made after the shared search has completed, or after the index has been written to, is sent again.
+ */
+class SearchCoalescer {
+
+    static final String METRIC_COALESCED = "elasticsearch.search.coalesced";
+
+    private final Map<String, CompletableFuture<SearchOperationResult>> inProgress = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    /**
+     * @param registry - The registry in which the searches which were not sent are counted.
+     */
+    SearchCoalescer(MeterRegistry registry) {
+        coalesced = Counter.builder(METRIC_COALESCED)
+                .description("Searches answered with the result of an identical search already in progress")
+                .register(registry);
+    }
+
+    /**
+     * Makes a search, or joins an identical search which is already in progress.
+     *
+     * @param index - The index searched.
+     * @param query - The query, including anything else which changes the result, such as the search path.
+     * @param search - Makes the search.
+     * @return - A future holding the result of the search.
+     */
+    CompletableFuture<SearchOperationResult> search(String index, String query,
+            Supplier<CompletableFuture<SearchOperationResult>> search) {
+        String key = index + '\n' + query;
+        CompletableFuture<SearchOperationResult> started = new CompletableFuture<>();
+        CompletableFuture<SearchOperationResult> existing = inProgress.putIfAbsent(key, started);
+        if (existing != null) {
+            coalesced.increment();
+            // Each caller gets its own future, so that one caller cannot complete or cancel it for the others.
+            return existing.thenApply(Function.identity());
+        }
+
+        CompletableFuture<SearchOperationResult> sent;
+        try {
+            sent = search.get();
+        } catch (RuntimeException e) {
+            inProgress.remove(key, started);
+            started.completeExceptionally(e);
+            return started.thenApply(Function.identity());
+        }
+        sent.whenComplete((result, error) -> {
+            inProgress.remove(key, started);
+            if (error != null) {
+                started.completeExceptionally(error);
+            } else {
+                started.complete(result);
+            }
+        });
+        return started.thenApply(Function.identity());
+    }
+
+    /**
+     * Stops later searches of an index which has been written to from joining the searches of it already in progress,
+     * which may not see the write.
+     */
+    void invalidate(String index) {
+        String prefix = index + '\n';
+        inProgress.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+}
@@ -0,0 +1,291 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.onap.aai.sa.rest.ApiUtils;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.HttpTransportResponse;
+
+/**
+ * Remembers the responses to searches, so that the same search repeated against an index which has not changed does
+ * not need a round trip to the document store.
+ *
+ * <p>
+ * Responses are keyed by the index and the query exactly as given (see {@link #normalize} for JSON payloads), and are
+ * kept for a time to live which may be set for each index. The least recently used responses are dropped once the
+ * cached responses take more than the maximum number of bytes. Only successful responses are cached.
+ *
+ * <p>
+ * Any write to an index by this service drops the responses cached for it, including those to searches which were
+ * still in progress when the write completed. Since the document store only shows a write to searches once it next
+ * refreshes the index, the responses to searches which start within the refresh interval after a write are not cached
+ * either, so that a response from before the write is not cached again for the whole time to live. With a maximum
+ * staleness, a response whose time to live has passed is still returned for that much longer while a single search
+ * refreshes it in the background, so that searches keep being answered while the document store is slow or failing.
+ */
+class SearchResultCache {
+
+    // An estimate of the memory taken by an entry besides its key and body.
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final Map<String, Long> ttlNanosByIndex = new HashMap<>();
+    private final long maxStaleNanos;
+    private final long refreshIntervalNanos;
+    private final Lock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Long> generations = new HashMap<>();
+    private final Map<String, Long> writtenAt = new HashMap<>();
+    private long bytes;
+
+    /**
+     * @param maxBytes - The most memory, approximately, to be taken by the cached responses.
+     * @param ttlMs - The time for which a response is used, unless set for its index.
+     * @param ttlMsByIndex - The time for which a response is used for each index which has its own setting; zero
+     *        disables caching for the index.
+     * @param maxStaleMs - The time after its time to live for which a response is still used while it is refreshed, or
+     *        zero to refresh it before answering.
+     * @param refreshIntervalMs - The time after a write to an index within which the document store may still answer
+     *        searches of it as though the write had not been made.
+     */
+    SearchResultCache(long maxBytes, long ttlMs, Map<String, Integer> ttlMsByIndex, long maxStaleMs,
+            long refreshIntervalMs) {
+        this.maxBytes = maxBytes;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.maxStaleNanos = TimeUnit.MILLISECONDS.toNanos(maxStaleMs);
+        this.refreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(refreshIntervalMs);
+        for (Map.Entry<String, Integer> ttl : ttlMsByIndex.entrySet()) {
+            ttlNanosByIndex.put(ttl.getKey(), TimeUnit.MILLISECONDS.toNanos(ttl.getValue()));
+        }
+    }
+
+    /**
+     * Answers a search from the cache if possible, and otherwise with the supplied search, whose response is cached if
+     * it is successful.
+     *
+     * @param index - The index searched.
+     * @param query - The query, including anything else which changes the response, such as the search path. Queries
+     *        which differ in any way are cached apart.
+     * @param search - Sends the search to the document store.
+     * @return - A future holding the response.
+     */
+    CompletableFuture<CachedResponse> get(String index, String query,
+            Supplier<CompletableFuture<CachedResponse>> search) {
+        long ttl = ttlNanosByIndex.getOrDefault(index, ttlNanos);
+        if (ttl <= 0) {
+            return search.get();
+        }
+
+        String key = index + '\n' + query;
+        long now = System.nanoTime();
+        long generation;
+        boolean refreshed;
+        Entry stale = null;
+        lock.lock();
+        try {
+            generation = generations.getOrDefault(index, 0L);
+            Long written = writtenAt.get(index);
+            refreshed = written == null || now - written >= refreshIntervalNanos;
+            Entry entry = entries.get(key);
+            if (entry != null && entry.generation == generation) {
+                long age = now - entry.storedAt;
+                if (age < ttl) {
+                    return CompletableFuture.completedFuture(entry.response);
+                }
+                if (age - ttl < maxStaleNanos) {
+                    stale = entry;
+                }
+            }
+            if (stale == null && entry != null) {
+                remove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (stale == null) {
+            return search.get().thenApply(response -> {
+                if (refreshed) {
+                    put(index, key, generation, response);
+                }
+                return response;
+            });
+        }
+
+        AtomicBoolean refreshing = stale.refreshing;
+        if (refreshing.compareAndSet(false, true)) {
+            search.get().whenComplete((response, error) -> {
+                if (error != null || !refreshed || !put(index, key, generation, response)) {
+                    refreshing.set(false);
+                }
+            });
+        }
+        return CompletableFuture.completedFuture(stale.response);
+    }
+
+    /**
+     * Drops the responses cached for an index which has been written to, and stops the responses to searches of it
+     * being cached until the write can be seen.
+     */
+    void invalidate(String index) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            generations.merge(index, 1L, Long::sum);
+            writtenAt.put(index, now);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return - The number of cached responses, including those which have been invalidated but not yet dropped.
+     */
+    int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Caches a response to a search unless it failed, is too large, or the index has been written to since the search
+     * was sent.
+     *
+     * @return - True if the response was cached.
+     */
+    private boolean put(String index, String key, long generation, CachedResponse response) {
+        if (!ApiUtils.isSuccessStatusCode(response.getStatusCode())) {
+            return false;
+        }
+        long size = ENTRY_OVERHEAD + 2L * key.length() + response.getBody().length;
+        if (size > maxBytes) {
+            return false;
+        }
+
+        lock.lock();
+        try {
+            if (generations.getOrDefault(index, 0L) != generation) {
+                return false;
+            }
+            remove(key);
+            entries.put(key, new Entry(response, generation, size));
+            bytes += size;
+            Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+            while (bytes > maxBytes && leastRecentlyUsed.hasNext()) {
+                bytes -= leastRecentlyUsed.next().size;
+                leastRecentlyUsed.remove();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.size;
+        }
+    }
+
+    /**
+     * Drops the whitespace outside of strings in a JSON query, so that queries which differ only in their layout share
+     * a cache entry. Only JSON payloads may be normalized; whitespace in a URL query string is significant.
+     */
+    static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(query.length());
+        boolean inString = false;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (inString) {
+                sb.append(c);
+                if (c == '\\' && i + 1 < query.length()) {
+                    sb.append(query.charAt(++i));
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (!Character.isWhitespace(c)) {
+                sb.append(c);
+                inString = c == '"';
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The status and buffered body of a response to a search.
+     */
+    static final class CachedResponse {
+        private final int statusCode;
+        private final byte[] body;
+
+        CachedResponse(int statusCode, byte[] body) {
+            this.statusCode = statusCode;
+            this.body = body;
+        }
+
+        int getStatusCode() {
+            return statusCode;
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * @return - A new response reading the buffered body.
+         */
+        HttpTransportResponse toResponse() {
+            return new HttpTransportResponse(statusCode, new ByteArrayInputStream(body));
+        }
+    }
+
+    private static final class Entry {
+        private final CachedResponse response;
+        private final long generation;
+        private final long size;
+        private final long storedAt = System.nanoTime();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(CachedResponse response, long generation, long size) {
+            this.response = response;
+            this.generation = generation;
+            this.size = size;
+        }
+    }
+}
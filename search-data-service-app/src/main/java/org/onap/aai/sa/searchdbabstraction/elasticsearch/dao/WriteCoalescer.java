@@ -0,0 +1,313 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import javax.ws.rs.core.Response.Status;
+import org.onap.aai.sa.rest.ApiUtils;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.exception.DocumentStoreOperationException;
+import org.onap.aai.sa.searchdbabstraction.entity.Document;
+import org.onap.aai.sa.searchdbabstraction.entity.DocumentOperationResult;
+import org.onap.aai.sa.searchdbabstraction.entity.ErrorResult;
+
+/**
+ * Collects single-document writes which are made at about the same time and sends them to the document store together
+ * as one Elasticsearch bulk request, completing the future of each caller with the outcome of its own operation.
+ *
+ * <p>
+ * A batch is sent once its first write has waited for the maximum delay, or as soon as it holds the maximum number of
+ * operations or bytes. An update which follows a pending update of the same document at the same version replaces the
+ * content of that update rather than being sent as well, and both callers receive the outcome of the write which is
+ * sent. Any other writes to the same document are sent in the order in which they were made, which is the order in
+ * which Elasticsearch applies them.
+ */
+class WriteCoalescer {
+
+    private final Function<String, CompletableFuture<ElasticSearchBulkOperationResult>> sender;
+    private final long maxDelayMs;
+    private final int maxOperations;
+    private final int maxBytes;
+    private final ScheduledExecutorService timer;
+
+    private final Lock lock = new ReentrantLock();
+    private List<PendingWrite> pending = new ArrayList<>();
+    private final Map<String, PendingWrite> latestWrites = new HashMap<>();
+    private int pendingBytes;
+    private ScheduledFuture<?> scheduledFlush;
+
+    /**
+     * @param sender - Sends the operations of a bulk request and reads the response.
+     * @param maxDelayMs - The longest time for which a write waits for others to join it.
+     * @param maxOperations - The number of writes at which a batch is sent without waiting any longer.
+     * @param maxBytes - The size of the operations at which a batch is sent without waiting any longer.
+     */
+    WriteCoalescer(Function<String, CompletableFuture<ElasticSearchBulkOperationResult>> sender, long maxDelayMs,
+            int maxOperations, int maxBytes) {
+        this.sender = sender;
+        this.maxDelayMs = maxDelayMs;
+        this.maxOperations = maxOperations;
+        this.maxBytes = maxBytes;
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "es-write-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates a document, failing with a conflict if a document with the same id already exists.
+     *
+     * @param index - The index name.
+     * @param document - The document, with no id if Elasticsearch is to generate one.
+     * @return - A future holding the outcome of the create.
+     */
+    CompletableFuture<DocumentOperationResult> create(String index, DocumentStoreDataEntity document) {
+        if (document.getId() == null || document.getId().isEmpty()) {
+            return enqueue(Operation.CREATE, ElasticSearchHttpController.BULK_ACTION_INDEX, index, null, null,
+                    document.getContentInJson());
+        }
+        return enqueue(Operation.CREATE, ElasticSearchHttpController.BULK_ACTION_CREATE, index, document.getId(), null,
+                document.getContentInJson());
+    }
+
+    /**
+     * Replaces a document, provided that its current version is the version of the supplied document.
+     *
+     * @param index - The index name.
+     * @param document - The new content of the document.
+     * @return - A future holding the outcome of the update.
+     */
+    CompletableFuture<DocumentOperationResult> update(String index, DocumentStoreDataEntity document) {
+        return enqueue(Operation.UPDATE, ElasticSearchHttpController.BULK_ACTION_INDEX, index, document.getId(),
+                document.getVersion(), document.getContentInJson());
+    }
+
+    /**
+     * Deletes a document, provided that its current version is the version of the supplied document.
+     *
+     * @param index - The index name.
+     * @param document - The document to delete.
+     * @return - A future holding the outcome of the delete.
+     */
+    CompletableFuture<DocumentOperationResult> delete(String index, DocumentStoreDataEntity document) {
+        return enqueue(Operation.DELETE, ElasticSearchHttpController.BULK_ACTION_DELETE, index, document.getId(),
+                document.getVersion(), null);
+    }
+
+    /**
+     * Sends any pending writes and stops the timer.
+     */
+    void shutdown() {
+        flush();
+        timer.shutdownNow();
+    }
+
+    private CompletableFuture<DocumentOperationResult> enqueue(Operation operation, String action, String index,
+            String id, String version, String content) {
+        CompletableFuture<DocumentOperationResult> future = new CompletableFuture<>();
+        List<PendingWrite> batch = null;
+
+        lock.lock();
+        try {
+            String key = (id == null) ? null : index + '/' + id;
+            PendingWrite latest = (key == null) ? null : latestWrites.get(key);
+            if (operation == Operation.UPDATE && latest != null && latest.operation == Operation.UPDATE
+                    && Objects.equals(latest.version, version)) {
+                pendingBytes += content.length() - latest.content.length();
+                latest.content = content;
+                latest.waiters.add(future);
+            } else {
+                StringBuilder actionLine = new StringBuilder(64);
+                ElasticSearchHttpController.appendBulkAction(actionLine, action, index, id, version);
+                PendingWrite write = new PendingWrite(operation, index, version, actionLine.toString(), content);
+                write.waiters.add(future);
+                pending.add(write);
+                pendingBytes += write.length();
+                if (key != null) {
+                    latestWrites.put(key, write);
+                }
+            }
+
+            if (pending.size() >= maxOperations || pendingBytes >= maxBytes) {
+                batch = takePending();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = timer.schedule(this::flush, maxDelayMs, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (batch != null) {
+            send(batch);
+        }
+        return future;
+    }
+
+    private void flush() {
+        List<PendingWrite> batch;
+        lock.lock();
+        try {
+            batch = takePending();
+        } finally {
+            lock.unlock();
+        }
+
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    /**
+     * Starts a new batch. The caller must hold the lock.
+     *
+     * @return - The writes which were pending.
+     */
+    private List<PendingWrite> takePending() {
+        List<PendingWrite> batch = pending;
+        pending = new ArrayList<>();
+        latestWrites.clear();
+        pendingBytes = 0;
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void send(List<PendingWrite> batch) {
+        StringBuilder operations = new StringBuilder(128 * batch.size());
+        for (PendingWrite write : batch) {
+            operations.append(write.actionLine);
+            if (write.content != null) {
+                operations.append(write.content).append('\n');
+            }
+        }
+
+        CompletableFuture<ElasticSearchBulkOperationResult> response;
+        try {
+            response = sender.apply(operations.toString());
+        } catch (RuntimeException e) {
+            response = DocumentStoreFutures.failed(e);
+        }
+        response.whenComplete((result, error) -> complete(batch, result, error));
+    }
+
+    private void complete(List<PendingWrite> batch, ElasticSearchBulkOperationResult result, Throwable error) {
+        Throwable failure = (error == null) ? null : DocumentStoreFutures.unwrap(error);
+        if (failure == null && (result == null || result.getItems() == null
+                || result.getItems().length != batch.size())) {
+            failure = new DocumentStoreOperationException(
+                    "Unexpected response to a bulk request of " + batch.size() + " operations.");
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            PendingWrite write = batch.get(i);
+            for (CompletableFuture<DocumentOperationResult> waiter : write.waiters) {
+                if (failure != null) {
+                    waiter.completeExceptionally(failure);
+                } else {
+                    waiter.complete(toResult(write, result.getItems()[i].operationStatus()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the result of a single write from its item in the bulk response, in the form returned for a write sent
+     * on its own.
+     */
+    private static DocumentOperationResult toResult(PendingWrite write, ElasticSearchOperationStatus status) {
+        DocumentOperationResult result = new DocumentOperationResult();
+        int resultCode = (status == null || status.getStatus() == null)
+                ? Status.INTERNAL_SERVER_ERROR.getStatusCode() : status.getStatus();
+
+        if (resultCode == Status.CONFLICT.getStatusCode()) {
+            if (write.operation == Operation.CREATE) {
+                result.setFailureCause(ElasticSearchHttpController.MSG_DOCUMENT_EXISTS);
+            } else {
+                resultCode = Status.PRECONDITION_FAILED.getStatusCode();
+            }
+        }
+        result.setResultCode(resultCode);
+
+        if (status == null) {
+            result.setResult("");
+            return result;
+        }
+
+        result.setResultVersion(status.getVersion());
+        if (ApiUtils.isSuccessStatusCode(resultCode)) {
+            result.setResult("");
+            // The etag and url are not reported for a delete as they are not required.
+            if (write.operation != Operation.DELETE) {
+                Document doc = new Document();
+                doc.setEtag(status.getVersion());
+                doc.setUrl(ApiUtils.buildDocumentUri(write.index, status.getId()));
+                result.setDocument(doc);
+            }
+        } else if (status.getError() != null) {
+            result.setResult(status.getError().getReason());
+            result.setError(new ErrorResult(status.getError().getType(), status.getError().getReason()));
+        } else {
+            result.setResult("");
+        }
+        return result;
+    }
+
+    private enum Operation {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    private static final class PendingWrite {
+        private final Operation operation;
+        private final String index;
+        private final String version;
+        private final String actionLine;
+        private String content;
+        private final List<CompletableFuture<DocumentOperationResult>> waiters = new ArrayList<>(1);
+
+        PendingWrite(Operation operation, String index, String version, String actionLine, String content) {
+            this.operation = operation;
+            this.index = index;
+            this.version = version;
+            this.actionLine = actionLine;
+            this.content = content;
+        }
+
+        int length() {
+            return actionLine.length() + ((content == null) ? 0 : content.length() + 1);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.exception;
+
+/**
+ * Thrown when a request is not sent to the document store because it is not currently accepting that kind of request.
+ * The client should be told to retry later rather than that the request failed.
+ */
+public class DocumentStoreUnavailableException extends DocumentStoreOperationException {
+
+    private static final long serialVersionUID = -2290174851203873419L;
+
+    public DocumentStoreUnavailableException(String message, Exception ex) {
+        super(message, ex);
+    }
+}
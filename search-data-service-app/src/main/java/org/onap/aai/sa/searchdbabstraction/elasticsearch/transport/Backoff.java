@@ -0,0 +1,64 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.transport;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with random jitter, for the waits before requests to Elasticsearch are sent again. The upper
+ * bound of the wait doubles with each attempt, and the wait itself is drawn at random below that bound so that clients
+ * which failed together do not all retry together.
+ */
+public final class Backoff {
+
+    // Keeps the backoff shift within the range of a long.
+    private static final int MAX_SHIFT = 30;
+
+    private Backoff() { // Do not instantiate
+    }
+
+    /**
+     * @param initialMs - The upper bound of the wait before the first retry.
+     * @param maxMs - The most that the upper bound may grow to.
+     * @param attempt - The number of retries already made.
+     * @return - The upper bound of the wait before the next retry: the initial bound doubled for each retry already
+     *         made, capped at the maximum.
+     */
+    public static long ceilingMs(long initialMs, long maxMs, int attempt) {
+        return Math.max(Math.min(maxMs, initialMs << Math.min(attempt, MAX_SHIFT)), 0);
+    }
+
+    /**
+     * @param ceilingMs - The upper bound of the wait.
+     * @return - A random wait of between nothing and the whole of the upper bound.
+     */
+    public static long fullJitterMs(long ceilingMs) {
+        return ThreadLocalRandom.current().nextLong(ceilingMs + 1);
+    }
+
+    /**
+     * @param ceilingMs - The upper bound of the wait.
+     * @return - A random wait of between a half and the whole of the upper bound.
+     */
+    public static long equalJitterMs(long ceilingMs) {
+        return ceilingMs / 2 + ThreadLocalRandom.current().nextLong(ceilingMs / 2 + 1);
+    }
+}
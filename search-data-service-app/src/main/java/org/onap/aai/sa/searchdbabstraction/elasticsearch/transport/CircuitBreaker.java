@@ -0,0 +1,187 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.transport;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.onap.aai.cl.api.Logger;
+import org.onap.aai.cl.eelf.LoggerFactory;
+import org.onap.aai.sa.searchdbabstraction.logging.SearchDbMsgs;
+
+/**
+ * Stops requests from being sent to a node which keeps failing them, giving the node time to recover.
+ *
+ * <p>
+ * The circuit opens after a number of consecutive failures and then rejects every request for the configured period.
+ * After that it is half open: a limited number of trial requests are let through, and the circuit closes again if one
+ * succeeds, or re-opens if one fails.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final Logger logger = LoggerFactory.getInstance().getLogger(CircuitBreaker.class.getName());
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final int halfOpenRequests;
+
+    private final Lock lock = new ReentrantLock();
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private int trialRequests;
+
+    /**
+     * @param name - Identifies the node and the kind of request for logging.
+     * @param failureThreshold - The number of consecutive failures which opens the circuit.
+     * @param openMs - The time for which the open circuit rejects all requests.
+     * @param halfOpenRequests - The number of trial requests allowed at a time while the circuit is half open.
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openMs, int halfOpenRequests) {
+        this.name = name;
+        this.failureThreshold = Math.max(failureThreshold, 1);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+        this.halfOpenRequests = Math.max(halfOpenRequests, 1);
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true if {@link #tryAcquire()} would currently let a request through.
+     */
+    public boolean isCallPermitted() {
+        lock.lock();
+        try {
+            switch (state) {
+                case OPEN:
+                    return openPeriodElapsed();
+                case HALF_OPEN:
+                    return trialRequests < halfOpenRequests;
+                default:
+                    return true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Asks to send a request. Every request which is let through must be followed by a call to {@link #onSuccess()}
+     * or {@link #onFailure()}.
+     *
+     * @return - true if the request may be sent.
+     */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (!openPeriodElapsed()) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialRequests = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (trialRequests >= halfOpenRequests) {
+                    return false;
+                }
+                trialRequests++;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess() {
+        boolean closed = false;
+        lock.lock();
+        try {
+            consecutiveFailures = 0;
+            if (state == State.HALF_OPEN) {
+                state = State.CLOSED;
+                closed = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // Logged without holding the lock, which every request to the node takes.
+        if (closed) {
+            logger.info(SearchDbMsgs.CIRCUIT_BREAKER_CLOSED, name);
+        }
+    }
+
+    public void onFailure() {
+        int failures = 0;
+        lock.lock();
+        try {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+                state = State.OPEN;
+                openedAt = System.nanoTime();
+                failures = consecutiveFailures;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (failures > 0) {
+            logger.warn(SearchDbMsgs.CIRCUIT_BREAKER_OPENED, name, Integer.toString(failures));
+        }
+    }
+
+    /**
+     * @return the time until an open circuit will let a trial request through, or zero if it is not open.
+     */
+    public long getRemainingOpenMs() {
+        lock.lock();
+        try {
+            if (state != State.OPEN) {
+                return 0;
+            }
+            return Math.max(0, TimeUnit.NANOSECONDS.toMillis(openNanos - (System.nanoTime() - openedAt)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean openPeriodElapsed() {
+        return System.nanoTime() - openedAt >= openNanos;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.transport;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
+
+/**
+ * An Elasticsearch node to which requests may be sent, together with its load and health, its circuit breakers and the
+ * metrics recorded for the requests that it has served.
+ */
+public class ElasticSearchNode {
+
+    static final String METRIC_LATENCY = "elasticsearch.node.requests";
+    static final String METRIC_ERRORS = "elasticsearch.node.errors";
+    static final String METRIC_OUTSTANDING = "elasticsearch.node.outstanding";
+    static final String METRIC_AVAILABLE = "elasticsearch.node.available";
+    static final String METRIC_CIRCUIT_STATE = "elasticsearch.node.circuit.state";
+    static final String TAG_NODE = "node";
+    static final String TAG_OPERATION = "operation";
+
+    private final String host;
+    private final int port;
+    private final AtomicInteger outstandingRequests = new AtomicInteger();
+    private final Timer latency;
+    private final Counter errors;
+    private final Map<OperationClass, CircuitBreaker> circuitBreakers = new EnumMap<>(OperationClass.class);
+
+    // Time (System.nanoTime) until which the node is out of service, or zero if it is in service.
+    private volatile long ejectedUntil;
+
+    public ElasticSearchNode(String host, int port, ElasticSearchConfig config, MeterRegistry registry) {
+        this.host = host;
+        this.port = port;
+
+        String name = getName();
+        latency = Timer.builder(METRIC_LATENCY).tag(TAG_NODE, name)
+                .description("Elasticsearch requests sent to the node").register(registry);
+        errors = Counter.builder(METRIC_ERRORS).tag(TAG_NODE, name)
+                .description("Elasticsearch requests to the node which failed or returned a server error")
+                .register(registry);
+        Gauge.builder(METRIC_OUTSTANDING, outstandingRequests, AtomicInteger::get).tag(TAG_NODE, name)
+                .description("Elasticsearch requests to the node which are in progress").register(registry);
+        Gauge.builder(METRIC_AVAILABLE, this, node -> node.isAvailable() ? 1 : 0).tag(TAG_NODE, name)
+                .description("1 if the Elasticsearch node is in service, 0 if it has been ejected").register(registry);
+
+        if (config.useCircuitBreaker()) {
+            for (OperationClass operation : OperationClass.values()) {
+                CircuitBreaker circuitBreaker = new CircuitBreaker(name + " " + operation,
+                        config.getCircuitBreakerFailureThreshold(), config.getCircuitBreakerOpenMs(),
+                        config.getCircuitBreakerHalfOpenRequests());
+                circuitBreakers.put(operation, circuitBreaker);
+                Gauge.builder(METRIC_CIRCUIT_STATE, circuitBreaker, breaker -> breaker.getState().ordinal())
+                        .tags(TAG_NODE, name, TAG_OPERATION, operation.name().toLowerCase(Locale.ROOT))
+                        .description("State of the circuit breaker: 0 closed, 1 open, 2 half open").register(registry);
+            }
+        }
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @return the node address in host:port form.
+     */
+    public String getName() {
+        return nameOf(host, port);
+    }
+
+    static String nameOf(String host, int port) {
+        return (host.indexOf(':') >= 0 ? "[" + host + "]" : host) + ":" + port;
+    }
+
+    public int getOutstandingRequests() {
+        return outstandingRequests.get();
+    }
+
+    public long getRequestCount() {
+        return latency.count();
+    }
+
+    public long getErrorCount() {
+        return (long) errors.count();
+    }
+
+    /**
+     * @return true unless the node has been taken out of service and its ejection period has not yet elapsed.
+     */
+    public boolean isAvailable() {
+        long until = ejectedUntil;
+        return until == 0 || System.nanoTime() - until >= 0;
+    }
+
+    long getEjectedUntil() {
+        return ejectedUntil;
+    }
+
+    /**
+     * Takes the node out of service.
+     *
+     * @param periodMs - The time after which the node may be used again, unless a health check restores it sooner.
+     * @return true if the node was in service.
+     */
+    boolean eject(long periodMs) {
+        boolean wasAvailable = isAvailable();
+        ejectedUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(periodMs, 1));
+        return wasAvailable;
+    }
+
+    /**
+     * Returns the node to service.
+     *
+     * @return true if the node was out of service.
+     */
+    boolean restore() {
+        boolean wasEjected = ejectedUntil != 0;
+        ejectedUntil = 0;
+        return wasEjected;
+    }
+
+    /**
+     * @param operation - The kind of request.
+     * @return the circuit breaker for the kind of request, or null if circuit breaking is disabled.
+     */
+    public CircuitBreaker getCircuitBreaker(OperationClass operation) {
+        return circuitBreakers.get(operation);
+    }
+
+    /**
+     * @return true if the circuit breaker for the kind of request would let a request through.
+     */
+    boolean isCallPermitted(OperationClass operation) {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(operation);
+        return circuitBreaker == null || circuitBreaker.isCallPermitted();
+    }
+
+    /**
+     * Asks the circuit breaker for the kind of request to let a request through, and if it does counts the request as
+     * outstanding until {@link #requestCompleted(OperationClass, long, int, Throwable)} is called.
+     *
+     * @return true if the request may be sent.
+     */
+    boolean tryStartRequest(OperationClass operation) {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(operation);
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            return false;
+        }
+        outstandingRequests.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Records the outcome of a request.
+     *
+     * @param operation - The kind of request.
+     * @param startNanos - The time (System.nanoTime) at which the request was sent.
+     * @param statusCode - The response status, if a response was received.
+     * @param error - The reason that no response was received, or null.
+     */
+    void requestCompleted(OperationClass operation, long startNanos, int statusCode, Throwable error) {
+        outstandingRequests.decrementAndGet();
+        latency.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        if (error != null || statusCode >= 500) {
+            errors.increment();
+        }
+
+        CircuitBreaker circuitBreaker = circuitBreakers.get(operation);
+        if (circuitBreaker != null) {
+            if (error != null || isOverloaded(statusCode)) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+        }
+    }
+
+    /**
+     * @return true if the status shows that the node could not handle the request at this time, as opposed to the
+     *         request itself being at fault.
+     */
+    static boolean isOverloaded(int statusCode) {
+        return statusCode == 429 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
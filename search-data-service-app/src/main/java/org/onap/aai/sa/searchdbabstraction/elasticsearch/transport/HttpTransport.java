@@ -0,0 +1,91 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.transport;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import javax.net.ssl.SSLContext;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
+
+/**
+ * The HTTP layer used by the Elasticsearch DAO to exchange requests with the document store.
+ */
+public interface HttpTransport {
+
+    /**
+     * Sends a single request and returns as soon as the response status is available. The caller must close the
+     * returned response once the body has been consumed so that the underlying connection can be released.
+     *
+     * @param method - The HTTP method.
+     * @param url - The target URL.
+     * @param contentType - The content type of the request payload.
+     * @param content - The request payload, or null if the request has no body.
+     * @return - The response.
+     * @throws IOException if the request could not be sent or no response was received in time.
+     */
+    HttpTransportResponse execute(String method, URL url, String contentType, String content) throws IOException;
+
+    /**
+     * Sends a single request without blocking the calling thread. The returned future completes once the whole
+     * response has been received, or completes exceptionally with an {@link IOException} if the request failed. The
+     * caller must close the response, as for {@link #execute(String, URL, String, String)}.
+     *
+     * @param method - The HTTP method.
+     * @param url - The target URL.
+     * @param contentType - The content type of the request payload.
+     * @param content - The request payload, or null if the request has no body.
+     * @return - A future holding the response.
+     */
+    CompletableFuture<HttpTransportResponse> executeAsync(String method, URL url, String contentType, String content);
+
+    /**
+     * Releases any connections and threads held by the transport.
+     */
+    void shutdown();
+
+    /**
+     * Creates the transport selected by the supplied configuration.
+     *
+     * @param config - The Elasticsearch configuration.
+     * @param sslContext - The SSL context to use for HTTPS, or null to use the JVM defaults.
+     * @return - A transport which balances requests across the configured nodes, sending them over a pooled keep-alive
+     *         transport or, if pooling is disabled, a connection-per-request transport.
+     * @throws IOException if the transport could not be started.
+     */
+    static HttpTransport create(ElasticSearchConfig config, SSLContext sslContext) throws IOException {
+        if (config.useConnectionPool()) {
+            return forNodes(config, new PooledHttpTransport(config, sslContext));
+        }
+        return forNodes(config, new UrlConnectionTransport(config));
+    }
+
+    /**
+     * Layers load balancing, circuit breaking and retries over a transport which sends requests to a single node.
+     *
+     * @param config - The Elasticsearch configuration.
+     * @param transport - The transport used to send each request.
+     * @return - A transport which spreads requests across the configured nodes and retries failed reads.
+     */
+    static HttpTransport forNodes(ElasticSearchConfig config, HttpTransport transport) {
+        return new RetryingTransport(new LoadBalancingTransport(transport, config), config);
+    }
+}
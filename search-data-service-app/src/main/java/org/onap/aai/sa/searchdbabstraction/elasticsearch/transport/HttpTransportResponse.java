@@ -0,0 +1,68 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * The status and body of a response received from the document store.
+ */
+public class HttpTransportResponse implements Closeable {
+
+    private final int statusCode;
+    private final InputStream body;
+
+    public HttpTransportResponse(int statusCode, InputStream body) {
+        this.statusCode = statusCode;
+        this.body = (body != null) ? body : new ByteArrayInputStream(new byte[0]);
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public InputStream getBody() {
+        return body;
+    }
+
+    public String getBodyAsString() throws IOException {
+        return IOUtils.toString(body, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Consumes whatever is left of the body and closes it, which allows a persistent connection to be reused.
+     */
+    @Override
+    public void close() {
+        try {
+            IOUtils.skip(body, Long.MAX_VALUE);
+        } catch (IOException e) {
+            // The connection is discarded rather than reused; nothing else to do.
+        } finally {
+            IOUtils.closeQuietly(body);
+        }
+    }
+}
@@ -0,0 +1,356 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.transport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.onap.aai.cl.api.Logger;
+import org.onap.aai.cl.eelf.LoggerFactory;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig.LoadBalancingPolicy;
+import org.onap.aai.sa.searchdbabstraction.logging.SearchDbMsgs;
+
+/**
+ * Spreads requests across the nodes of an Elasticsearch cluster so that no single coordinating node becomes a hotspot.
+ *
+ * <p>
+ * Requests are addressed to any configured node and are re-targeted to the node chosen by the configured
+ * {@link LoadBalancingPolicy}. A node whose request fails at the transport level, or which fails a background
+ * _cluster/health check, is taken out of service for the configured ejection period or until it passes a health
+ * check again. If every node is out of service, the node due to return soonest is used. When sniffing is enabled the
+ * node list is refreshed from the _nodes/http API on each health check.
+ *
+ * <p>
+ * Each node also has a {@link CircuitBreaker} for each {@link OperationClass}, which opens when the node keeps failing
+ * or rejecting that kind of request. Requests are not sent through an open circuit, and fail at once with a
+ * {@link CircuitBreakerOpenException} if the circuit is open on every node.
+ */
+public class LoadBalancingTransport implements HttpTransport {
+
+    public static final String HEALTH_CHECK_PATH = "_cluster/health";
+    static final String NODES_INFO_PATH = "_nodes/http";
+
+    private static final Logger logger = LoggerFactory.getInstance().getLogger(LoadBalancingTransport.class.getName());
+
+    private static final String APPLICATION_JSON = "application/json";
+
+    private final HttpTransport delegate;
+    private final ElasticSearchConfig config;
+    private final MeterRegistry registry;
+    private final List<ElasticSearchNode> seedNodes;
+    private final AtomicInteger nextNode = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private volatile List<ElasticSearchNode> nodes;
+
+    public LoadBalancingTransport(HttpTransport delegate, ElasticSearchConfig config) {
+        this(delegate, config, Metrics.globalRegistry);
+    }
+
+    /**
+     * @param delegate - The transport used to send requests to the selected node.
+     * @param config - The Elasticsearch configuration listing the nodes.
+     * @param registry - The registry in which the per-node metrics are recorded.
+     */
+    public LoadBalancingTransport(HttpTransport delegate, ElasticSearchConfig config, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.config = config;
+        this.registry = registry;
+
+        List<ElasticSearchNode> configuredNodes = new ArrayList<>();
+        for (InetSocketAddress address : config.getNodes()) {
+            configuredNodes.add(new ElasticSearchNode(address.getHostString(), address.getPort(), config, registry));
+        }
+        seedNodes = Collections.unmodifiableList(configuredNodes);
+        nodes = seedNodes;
+
+        if (config.getHealthCheckIntervalMs() > 0) {
+            healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "es-health-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            healthChecker.scheduleWithFixedDelay(this::checkNodes, config.getHealthCheckIntervalMs(),
+                    config.getHealthCheckIntervalMs(), TimeUnit.MILLISECONDS);
+        } else {
+            healthChecker = null;
+        }
+    }
+
+    /**
+     * @return the nodes to which requests may currently be sent.
+     */
+    public List<ElasticSearchNode> getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public HttpTransportResponse execute(String method, URL url, String contentType, String content)
+            throws IOException {
+        OperationClass operation = OperationClass.of(method, url);
+        ElasticSearchNode node = startRequest(operation);
+        long start = System.nanoTime();
+        int statusCode = 0;
+        Throwable error = null;
+        try {
+            HttpTransportResponse response = delegate.execute(method, retarget(url, node), contentType, content);
+            statusCode = response.getStatusCode();
+            return response;
+        } catch (IOException e) {
+            error = e;
+            eject(node, e);
+            throw e;
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            node.requestCompleted(operation, start, statusCode, error);
+        }
+    }
+
+    @Override
+    public CompletableFuture<HttpTransportResponse> executeAsync(String method, URL url, String contentType,
+            String content) {
+        OperationClass operation = OperationClass.of(method, url);
+        final ElasticSearchNode node;
+        final URL target;
+        try {
+            node = startRequest(operation);
+            target = retarget(url, node);
+        } catch (IOException e) {
+            CompletableFuture<HttpTransportResponse> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        long start = System.nanoTime();
+        return delegate.executeAsync(method, target, contentType, content).whenComplete((response, error) -> {
+            node.requestCompleted(operation, start, response != null ? response.getStatusCode() : 0, error);
+            if (error != null) {
+                eject(node, error);
+            }
+        });
+    }
+
+    @Override
+    public void shutdown() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        delegate.shutdown();
+    }
+
+    /**
+     * Chooses the node for the next request according to the configured policy, skipping nodes which are out of service
+     * or whose circuit breaker for the kind of request is open. If every node is out of service, the node due to return
+     * soonest is used.
+     *
+     * @param operation - The kind of request.
+     * @return - The selected node, on which the request has been counted as outstanding.
+     * @throws CircuitBreakerOpenException if the circuit breaker for the kind of request is open on every node.
+     */
+    ElasticSearchNode startRequest(OperationClass operation) throws CircuitBreakerOpenException {
+        List<ElasticSearchNode> candidates = nodes;
+        int size = candidates.size();
+        int offset = Math.floorMod(nextNode.getAndIncrement(), size);
+
+        ElasticSearchNode selected = null;
+        for (int i = 0; i < size; i++) {
+            ElasticSearchNode node = candidates.get((offset + i) % size);
+            if (!node.isAvailable() || !node.isCallPermitted(operation)) {
+                continue;
+            }
+            if (config.getLoadBalancingPolicy() == LoadBalancingPolicy.ROUND_ROBIN) {
+                if (node.tryStartRequest(operation)) {
+                    return node;
+                }
+            } else if (selected == null || node.getOutstandingRequests() < selected.getOutstandingRequests()) {
+                selected = node;
+            }
+        }
+        if (selected != null && selected.tryStartRequest(operation)) {
+            return selected;
+        }
+
+        ElasticSearchNode soonest = null;
+        for (ElasticSearchNode node : candidates) {
+            if (node.isCallPermitted(operation)
+                    && (soonest == null || node.getEjectedUntil() - soonest.getEjectedUntil() < 0)) {
+                soonest = node;
+            }
+        }
+        if (soonest != null && soonest.tryStartRequest(operation)) {
+            return soonest;
+        }
+
+        long retryAfterMs = Long.MAX_VALUE;
+        for (ElasticSearchNode node : candidates) {
+            CircuitBreaker circuitBreaker = node.getCircuitBreaker(operation);
+            if (circuitBreaker != null) {
+                retryAfterMs = Math.min(retryAfterMs, circuitBreaker.getRemainingOpenMs());
+            }
+        }
+        throw new CircuitBreakerOpenException("Elasticsearch is not accepting "
+                + operation.name().toLowerCase(Locale.ROOT)
+                + " requests: the circuit breaker is open on every node. Retry in " + retryAfterMs + "ms.");
+    }
+
+    /**
+     * Probes every node with the same _cluster/health request that the controller uses to check its connection,
+     * ejecting the nodes which fail and restoring those which pass, then refreshes the node list if sniffing is
+     * enabled.
+     */
+    void checkNodes() {
+        try {
+            List<CompletableFuture<Void>> probes = new ArrayList<>();
+            for (ElasticSearchNode node : nodes) {
+                probes.add(probe(node));
+            }
+            CompletableFuture.allOf(probes.toArray(new CompletableFuture<?>[0])).join();
+
+            if (config.isSniffEnabled()) {
+                sniffNodes();
+            }
+        } catch (Exception e) {
+            logger.debug(SearchDbMsgs.EXCEPTION_DURING_METHOD_CALL, "LoadBalancingTransport.checkNodes",
+                    e.getLocalizedMessage());
+        }
+    }
+
+    private CompletableFuture<Void> probe(ElasticSearchNode node) {
+        final URL url;
+        try {
+            url = nodeUrl(node, HEALTH_CHECK_PATH);
+        } catch (MalformedURLException e) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return delegate.executeAsync("GET", url, APPLICATION_JSON, null).handle((response, error) -> {
+            if (error != null) {
+                eject(node, error);
+                return null;
+            }
+            try (HttpTransportResponse probeResponse = response) {
+                if (!isSuccess(probeResponse.getStatusCode())) {
+                    eject(node, new IOException("Health check returned status " + probeResponse.getStatusCode()));
+                } else if (node.restore()) {
+                    logger.info(SearchDbMsgs.ELASTIC_SEARCH_NODE_RESTORED, node.getName());
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Replaces the node list with the configured nodes plus the HTTP publish addresses reported by the cluster. Nodes
+     * which are already known keep their load and health state.
+     */
+    private void sniffNodes() throws IOException {
+        ElasticSearchNode source = nodes.get(0);
+        for (ElasticSearchNode node : nodes) {
+            if (node.isAvailable()) {
+                source = node;
+                break;
+            }
+        }
+        JsonNode nodesInfo;
+        try (HttpTransportResponse response =
+                delegate.execute("GET", nodeUrl(source, NODES_INFO_PATH), APPLICATION_JSON, null)) {
+            if (!isSuccess(response.getStatusCode())) {
+                return;
+            }
+            nodesInfo = mapper.readTree(response.getBody()).path("nodes");
+        }
+
+        Map<String, ElasticSearchNode> current = new LinkedHashMap<>();
+        for (ElasticSearchNode node : nodes) {
+            current.put(node.getName(), node);
+        }
+
+        Map<String, ElasticSearchNode> discovered = new LinkedHashMap<>();
+        for (ElasticSearchNode node : seedNodes) {
+            discovered.put(node.getName(), node);
+        }
+        for (Iterator<JsonNode> it = nodesInfo.elements(); it.hasNext();) {
+            String publishAddress = it.next().path("http").path("publish_address").asText(null);
+            if (publishAddress == null) {
+                continue;
+            }
+            // The address may be reported as hostname/ip:port.
+            InetSocketAddress address =
+                    ElasticSearchConfig.parseNodeAddress(publishAddress.substring(publishAddress.indexOf('/') + 1));
+            String name = ElasticSearchNode.nameOf(address.getHostString(), address.getPort());
+            if (!discovered.containsKey(name)) {
+                ElasticSearchNode node = current.get(name);
+                discovered.put(name, node != null ? node
+                        : new ElasticSearchNode(address.getHostString(), address.getPort(), config, registry));
+            }
+        }
+
+        if (!discovered.keySet().equals(current.keySet())) {
+            nodes = Collections.unmodifiableList(new ArrayList<>(discovered.values()));
+            logger.info(SearchDbMsgs.ELASTIC_SEARCH_NODES_DISCOVERED, discovered.keySet().toString());
+        }
+    }
+
+    private void eject(ElasticSearchNode node, Throwable error) {
+        if (node.eject(config.getNodeEjectionMs())) {
+            Throwable cause =
+                    error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            logger.warn(SearchDbMsgs.ELASTIC_SEARCH_NODE_EJECTED, node.getName(), cause.getMessage());
+        }
+    }
+
+    private static URL retarget(URL url, ElasticSearchNode node) throws MalformedURLException {
+        if (node.getHost().equals(url.getHost()) && node.getPort() == url.getPort()) {
+            return url;
+        }
+        return new URL(url.getProtocol(), node.getHost(), node.getPort(), url.getFile());
+    }
+
+    private URL nodeUrl(ElasticSearchNode node, String path) throws MalformedURLException {
+        return new URL(config.getUriScheme(), node.getHost(), node.getPort(), "/" + path);
+    }
+
+    private static boolean isSuccess(int statusCode) {
+        return statusCode >= 200 && statusCode < 300;
+    }
+}
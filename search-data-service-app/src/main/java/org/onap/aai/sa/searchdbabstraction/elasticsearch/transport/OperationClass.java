@@ -0,0 +1,56 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.transport;
+
+import java.net.URL;
+
+/**
+ * The kinds of request sent to Elasticsearch. Each node has a separate circuit breaker for each kind, so that, for
+ * example, bulk requests being rejected under indexing pressure do not stop searches from being served.
+ */
+public enum OperationClass {
+
+    /** Searches and other reads, which are safe to retry. */
+    SEARCH,
+
+    /** Writes of a single document or index. */
+    WRITE,
+
+    /** Bulk operations. */
+    BULK;
+
+    /**
+     * @param method - The HTTP method.
+     * @param url - The request URL.
+     * @return - The kind of request.
+     */
+    public static OperationClass of(String method, URL url) {
+        String path = url.getPath();
+        if (path.endsWith("/_bulk")) {
+            return BULK;
+        }
+        if ("GET".equals(method) || "HEAD".equals(method) || path.endsWith("/_search")
+                || path.endsWith("/_suggest") || path.endsWith("/_mget")) {
+            return SEARCH;
+        }
+        return WRITE;
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.net.ssl.SSLContext;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
+import org.eclipse.jetty.client.util.InputStreamResponseListener;
+import org.eclipse.jetty.client.util.StringContentProvider;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.onap.aai.cl.api.Logger;
+import org.onap.aai.cl.eelf.LoggerFactory;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
+import org.onap.aai.sa.searchdbabstraction.logging.SearchDbMsgs;
+import org.onap.aai.sa.searchdbabstraction.util.VirtualThreads;
+
+/**
+ * Sends requests over a bounded pool of persistent connections per Elasticsearch host, so that the TCP (and TLS)
+ * handshake is paid once per connection rather than once per request.
+ */
+public class PooledHttpTransport implements HttpTransport {
+
+    private static final Logger logger = LoggerFactory.getInstance().getLogger(PooledHttpTransport.class.getName());
+
+    // Upper bound on the size of a response body which is buffered for an asynchronous request.
+    private static final int MAX_ASYNC_RESPONSE_BYTES = 256 * 1024 * 1024;
+
+    private final ElasticSearchConfig config;
+    private final HttpClient httpClient;
+
+    public PooledHttpTransport(ElasticSearchConfig config, SSLContext sslContext) throws IOException {
+        this.config = config;
+
+        SslContextFactory sslContextFactory = new SslContextFactory.Client();
+        if (sslContext != null) {
+            sslContextFactory.setSslContext(sslContext);
+        }
+        // Host name checking is left to the trust managers, as it is for the HttpsURLConnection defaults.
+        sslContextFactory.setEndpointIdentificationAlgorithm(null);
+
+        QueuedThreadPool executor = new QueuedThreadPool();
+        executor.setName("es-http-client");
+        executor.setDaemon(true);
+
+        httpClient = new HttpClient(sslContextFactory);
+        httpClient.setExecutor(executor);
+        httpClient.setMaxConnectionsPerDestination(config.getMaxConnectionsPerHost());
+        httpClient.setIdleTimeout(config.getConnectionIdleTimeoutMs());
+        httpClient.setConnectTimeout(config.getConnectTimeoutMs());
+        httpClient.setFollowRedirects(false);
+        httpClient.setUserAgentField(null);
+
+        try {
+            httpClient.start();
+        } catch (Exception e) {
+            throw new IOException("Failed to start the Elasticsearch HTTP client: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public HttpTransportResponse execute(String method, URL url, String contentType, String content)
+            throws IOException {
+        if (VirtualThreads.isEnabled()) {
+            // The streaming listener waits on an object monitor, which would pin a virtual thread to its carrier, so
+            // wait for the buffered response instead.
+            return awaitResponse(executeAsync(method, url, contentType, content), url);
+        }
+
+        Request request = newRequest(method, url, contentType, content);
+
+        InputStreamResponseListener listener = new InputStreamResponseListener();
+        request.send(listener);
+        try {
+            Response response = listener.get(config.getConnectTimeoutMs() + (long) config.getReadTimeoutMs(),
+                    TimeUnit.MILLISECONDS);
+            return new HttpTransportResponse(response.getStatus(), listener.getInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            request.abort(e);
+            throw new InterruptedIOException("Interrupted waiting for a response from " + url);
+        } catch (TimeoutException e) {
+            request.abort(e);
+            throw new SocketTimeoutException("Timed out waiting for a response from " + url);
+        } catch (ExecutionException e) {
+            throw new IOException("Request to " + url + " failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    @Override
+    public CompletableFuture<HttpTransportResponse> executeAsync(String method, URL url, String contentType,
+            String content) {
+        CompletableFuture<HttpTransportResponse> future = new CompletableFuture<>();
+        Request request = newRequest(method, url, contentType, content) //
+                .timeout(config.getConnectTimeoutMs() + (long) config.getReadTimeoutMs(), TimeUnit.MILLISECONDS);
+
+        request.send(new BufferingResponseListener(MAX_ASYNC_RESPONSE_BYTES) {
+            @Override
+            public void onComplete(Result result) {
+                if (result.isFailed()) {
+                    Throwable cause = result.getFailure();
+                    future.completeExceptionally(cause instanceof TimeoutException
+                            ? new SocketTimeoutException("Timed out waiting for a response from " + url)
+                            : new IOException("Request to " + url + " failed: " + cause.getMessage(), cause));
+                } else {
+                    future.complete(new HttpTransportResponse(result.getResponse().getStatus(),
+                            new ByteArrayInputStream(getContent())));
+                }
+            }
+        });
+        return future;
+    }
+
+    private HttpTransportResponse awaitResponse(CompletableFuture<HttpTransportResponse> future, URL url)
+            throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new InterruptedIOException("Interrupted waiting for a response from " + url);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Request to " + url + " failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        try {
+            httpClient.stop();
+        } catch (Exception e) {
+            logger.debug(SearchDbMsgs.EXCEPTION_DURING_METHOD_CALL, "PooledHttpTransport.shutdown",
+                    e.getLocalizedMessage());
+        }
+    }
+
+    private Request newRequest(String method, URL url, String contentType, String content) {
+        Request request = httpClient.newRequest(url.toString()) //
+                .method(method) //
+                .idleTimeout(config.getReadTimeoutMs(), TimeUnit.MILLISECONDS) //
+                .header(HttpHeader.CONTENT_TYPE, contentType);
+        if (config.useAuth()) {
+            request.header(HttpHeader.AUTHORIZATION, config.getAuthValue());
+        }
+        if (content != null) {
+            request.content(new StringContentProvider(contentType, content, StandardCharsets.UTF_8));
+        }
+        return request;
+    }
+}
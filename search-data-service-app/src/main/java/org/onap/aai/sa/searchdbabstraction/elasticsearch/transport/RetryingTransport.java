@@ -0,0 +1,162 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.transport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
+
+/**
+ * Retries searches and other reads which could not be served, waiting for an exponentially growing, randomly jittered
+ * interval before each retry so that clients which failed together do not retry together.
+ *
+ * <p>
+ * A read is retried if the connection failed, or if Elasticsearch rejected it as overloaded (429, 502, 503 or 504).
+ * Requests which timed out are not retried, since a node which is too slow to answer would only be given more work,
+ * and neither are requests rejected by an open circuit breaker. Writes are never retried.
+ */
+public class RetryingTransport implements HttpTransport {
+
+
+    private final HttpTransport delegate;
+    private final ElasticSearchConfig config;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param delegate - The transport used to send each attempt.
+     * @param config - The Elasticsearch configuration holding the retry settings.
+     */
+    public RetryingTransport(HttpTransport delegate, ElasticSearchConfig config) {
+        this.delegate = delegate;
+        this.config = config;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "es-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public HttpTransportResponse execute(String method, URL url, String contentType, String content)
+            throws IOException {
+        if (!isRetryable(method, url)) {
+            return delegate.execute(method, url, contentType, content);
+        }
+
+        for (int attempt = 0;; attempt++) {
+            try {
+                HttpTransportResponse response = delegate.execute(method, url, contentType, content);
+                if (!shouldRetry(attempt, response, null)) {
+                    return response;
+                }
+                response.close();
+            } catch (IOException e) {
+                if (!shouldRetry(attempt, null, e)) {
+                    throw e;
+                }
+            }
+
+            try {
+                Thread.sleep(backoffMs(attempt));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting to retry the request to " + url);
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<HttpTransportResponse> executeAsync(String method, URL url, String contentType,
+            String content) {
+        if (!isRetryable(method, url)) {
+            return delegate.executeAsync(method, url, contentType, content);
+        }
+        return executeAsync(method, url, contentType, content, 0);
+    }
+
+    private CompletableFuture<HttpTransportResponse> executeAsync(String method, URL url, String contentType,
+            String content, int attempt) {
+        return delegate.executeAsync(method, url, contentType, content).handle((response, error) -> {
+            Throwable cause =
+                    error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            CompletableFuture<HttpTransportResponse> result = new CompletableFuture<>();
+            if (!shouldRetry(attempt, response, cause)) {
+                if (cause != null) {
+                    result.completeExceptionally(cause);
+                } else {
+                    result.complete(response);
+                }
+                return result;
+            }
+
+            if (response != null) {
+                response.close();
+            }
+            scheduler.schedule(() -> executeAsync(method, url, contentType, content, attempt + 1)
+                    .whenComplete((retryResponse, retryError) -> {
+                        if (retryError != null) {
+                            result.completeExceptionally(retryError);
+                        } else {
+                            result.complete(retryResponse);
+                        }
+                    }), backoffMs(attempt), TimeUnit.MILLISECONDS);
+            return result;
+        }).thenCompose(Function.identity());
+    }
+
+    @Override
+    public void shutdown() {
+        scheduler.shutdownNow();
+        delegate.shutdown();
+    }
+
+    /**
+     * @return the time to wait before the retry following the given attempt: a random interval of up to the initial
+     *         backoff doubled for each previous attempt, capped at the maximum backoff.
+     */
+    long backoffMs(int attempt) {
+        return Backoff.fullJitterMs(
+                Backoff.ceilingMs(config.getRetryInitialBackoffMs(), config.getRetryMaxBackoffMs(), attempt));
+    }
+
+    private boolean isRetryable(String method, URL url) {
+        return config.getMaxRetries() > 0 && OperationClass.of(method, url) == OperationClass.SEARCH;
+    }
+
+    private boolean shouldRetry(int attempt, HttpTransportResponse response, Throwable error) {
+        if (attempt >= config.getMaxRetries()) {
+            return false;
+        }
+        if (error != null) {
+            return error instanceof IOException && !(error instanceof SocketTimeoutException)
+                    && !(error instanceof CircuitBreakerOpenException);
+        }
+        return ElasticSearchNode.isOverloaded(response.getStatusCode());
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.transport;
+
+import static javax.ws.rs.core.HttpHeaders.CONTENT_TYPE;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import org.apache.commons.io.IOUtils;
+import org.onap.aai.sa.rest.ApiUtils;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
+import org.onap.aai.sa.searchdbabstraction.util.VirtualThreads;
+
+/**
+ * Opens a new {@link HttpURLConnection} for every request and closes it once the response has been consumed.
+ */
+public class UrlConnectionTransport implements HttpTransport {
+
+    private final ElasticSearchConfig config;
+
+    // HttpURLConnection only offers blocking I/O, so asynchronous requests are handed off to these threads.
+    private final ExecutorService executor = VirtualThreads.newBlockingTaskExecutor("es-url-connection");
+
+    public UrlConnectionTransport(ElasticSearchConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    public HttpTransportResponse execute(String method, URL url, String contentType, String content)
+            throws IOException {
+        final HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        try {
+            conn.setConnectTimeout(config.getConnectTimeoutMs());
+            conn.setReadTimeout(config.getReadTimeoutMs());
+            conn.setRequestMethod(method);
+            conn.setRequestProperty(CONTENT_TYPE, contentType);
+            conn.setRequestProperty("Connection", "Close");
+            if (config.useAuth()) {
+                conn.setRequestProperty("Authorization", config.getAuthValue());
+            }
+
+            if (content != null) {
+                conn.setDoOutput(true);
+                try (OutputStream out = conn.getOutputStream()) {
+                    out.write(content.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+
+            int statusCode = conn.getResponseCode();
+            InputStream body = ApiUtils.isSuccessStatusCode(statusCode) ? conn.getInputStream() : conn.getErrorStream();
+            return new HttpTransportResponse(statusCode, body) {
+                @Override
+                public void close() {
+                    super.close();
+                    conn.disconnect();
+                }
+            };
+        } catch (IOException e) {
+            conn.disconnect();
+            throw e;
+        }
+    }
+
+    /**
+     * Sends a request from a worker thread, which also reads the whole response body before the future completes, so
+     * that the caller never blocks reading from the connection.
+     */
+    @Override
+    public CompletableFuture<HttpTransportResponse> executeAsync(String method, URL url, String contentType,
+            String content) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (HttpTransportResponse response = execute(method, url, contentType, content)) {
+                return new HttpTransportResponse(response.getStatusCode(),
+                        new ByteArrayInputStream(IOUtils.toByteArray(response.getBody())));
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public void shutdown() {
+        // Connections are not shared between requests, so only the worker threads need to be released.
+        executor.shutdown();
+    }
+}
@@ -20,6 +20,8 @@
  */
 package org.onap.aai.sa.searchdbabstraction.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.json.simple.JSONObject;
 
 public class Document {
@@ -27,6 +29,7 @@ public class Document {
     private String url;
 
     private JSONObject content;
+    private RawJson rawContent;
 
     public String getEtag() {
         return etag;
@@ -44,12 +47,39 @@ public class Document {
         this.url = url;
     }
 
+    /**
+     * @return the content of the document, decoded from the raw content if that is all the document holds.
+     */
+    @JsonIgnore
     public JSONObject getContent() {
+        if (content == null && rawContent != null) {
+            content = rawContent.toJSONObject();
+            rawContent = null;
+        }
         return content;
     }
 
     public void setContent(JSONObject content) {
         this.content = content;
+        this.rawContent = null;
+    }
+
+    @JsonIgnore
+    public RawJson getRawContent() {
+        return rawContent;
+    }
+
+    /**
+     * Sets the content as the JSON received from the document store, which is then written out without being decoded.
+     */
+    public void setRawContent(RawJson rawContent) {
+        this.rawContent = rawContent;
+        this.content = null;
+    }
+
+    @JsonProperty("content")
+    private Object getSerializedContent() {
+        return rawContent != null ? rawContent : content;
     }
 
     @Override
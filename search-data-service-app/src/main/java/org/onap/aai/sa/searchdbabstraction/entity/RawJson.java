@@ -0,0 +1,195 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.entity;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * A JSON object held as the UTF-8 bytes in which it was received. The bytes are not copied: the object refers to a
+ * range of the buffer which holds the whole response. When serialized to a byte stream, as streamed search responses
+ * are, the bytes are copied to the output as they are, without being decoded; only output written as characters, such
+ * as a response built as a string, decodes them.
+ */
+public class RawJson implements JsonSerializable {
+
+    private final byte[] buffer;
+    private final int offset;
+    private final int length;
+
+    public RawJson(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Decodes the JSON into a json-simple object, for callers which need to inspect the content.
+     *
+     * @return - The decoded object.
+     * @throws IllegalStateException if the bytes do not hold a JSON object.
+     */
+    public JSONObject toJSONObject() {
+        try {
+            return (JSONObject) new JSONParser().parse(toString());
+        } catch (ParseException | ClassCastException e) {
+            throw new IllegalStateException("Raw content is not a JSON object", e);
+        }
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeRawValue(new Utf8Bytes());
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, offset, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lends the bytes to a generator writing UTF-8, which copies them straight into its output buffer. Raw JSON is
+     * only ever written unquoted; the quoted forms are provided for completeness.
+     */
+    private final class Utf8Bytes implements SerializableString {
+
+        @Override
+        public String getValue() {
+            return RawJson.this.toString();
+        }
+
+        @Override
+        public int charLength() {
+            return getValue().length();
+        }
+
+        @Override
+        public char[] asQuotedChars() {
+            return JsonStringEncoder.getInstance().quoteAsString(getValue());
+        }
+
+        @Override
+        public byte[] asUnquotedUTF8() {
+            return Arrays.copyOfRange(buffer, offset, offset + length);
+        }
+
+        @Override
+        public byte[] asQuotedUTF8() {
+            return JsonStringEncoder.getInstance().quoteAsUTF8(getValue());
+        }
+
+        @Override
+        public int appendQuotedUTF8(byte[] dest, int destOffset) {
+            byte[] quoted = asQuotedUTF8();
+            return append(quoted, 0, quoted.length, dest, destOffset);
+        }
+
+        @Override
+        public int appendQuoted(char[] dest, int destOffset) {
+            char[] quoted = asQuotedChars();
+            if (destOffset + quoted.length > dest.length) {
+                return -1;
+            }
+            System.arraycopy(quoted, 0, dest, destOffset, quoted.length);
+            return quoted.length;
+        }
+
+        @Override
+        public int appendUnquotedUTF8(byte[] dest, int destOffset) {
+            return append(buffer, offset, length, dest, destOffset);
+        }
+
+        @Override
+        public int appendUnquoted(char[] dest, int destOffset) {
+            String value = getValue();
+            if (destOffset + value.length() > dest.length) {
+                return -1;
+            }
+            value.getChars(0, value.length(), dest, destOffset);
+            return value.length();
+        }
+
+        @Override
+        public int writeQuotedUTF8(OutputStream out) throws IOException {
+            byte[] quoted = asQuotedUTF8();
+            out.write(quoted);
+            return quoted.length;
+        }
+
+        @Override
+        public int writeUnquotedUTF8(OutputStream out) throws IOException {
+            out.write(buffer, offset, length);
+            return length;
+        }
+
+        @Override
+        public int putQuotedUTF8(ByteBuffer dest) {
+            byte[] quoted = asQuotedUTF8();
+            if (quoted.length > dest.remaining()) {
+                return -1;
+            }
+            dest.put(quoted);
+            return quoted.length;
+        }
+
+        @Override
+        public int putUnquotedUTF8(ByteBuffer dest) {
+            if (length > dest.remaining()) {
+                return -1;
+            }
+            dest.put(buffer, offset, length);
+            return length;
+        }
+
+        /**
+         * @return - The number of bytes appended, or -1 if they do not fit.
+         */
+        private int append(byte[] source, int sourceOffset, int count, byte[] dest, int destOffset) {
+            if (destOffset + count > dest.length) {
+                return -1;
+            }
+            System.arraycopy(source, sourceOffset, dest, destOffset, count);
+            return count;
+        }
+    }
+}
@@ -20,9 +20,13 @@
  */
 package org.onap.aai.sa.searchdbabstraction.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.List;
+
 public class SearchHit {
     private String score;
     Document document;
+    private List<Object> sortValues;
 
     public String getScore() {
         return score;
@@ -40,6 +44,18 @@ public class SearchHit {
         this.document = document;
     }
 
+    /**
+     * @return the values by which the hit was sorted, or null if the search was not sorted.
+     */
+    @JsonIgnore
+    public List<Object> getSortValues() {
+        return sortValues;
+    }
+
+    public void setSortValues(List<Object> sortValues) {
+        this.sortValues = sortValues;
+    }
+
     @Override
     public String toString() {
         return "SearchHit [score=" + score + ", document=" + document + "]";
@@ -25,6 +25,7 @@ import java.util.Arrays;
 public class SearchHits {
     private String totalHits;
     private SearchHit[] hits;
+    private String cursor;
 
     public String getTotalHits() {
         return totalHits;
@@ -42,9 +43,20 @@ public class SearchHits {
         this.hits = hits;
     }
 
+    /**
+     * @return the cursor from which the next page of hits follows, or null if the search was not paged by cursor.
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
     @Override
     public String toString() {
-        return "SearchHits [totalHits=" + totalHits + ", hits=" + Arrays.toString(hits) + "]";
+        return "SearchHits [totalHits=" + totalHits + ", hits=" + Arrays.toString(hits) + ", cursor=" + cursor + "]";
     }
 
 }
@@ -130,6 +130,41 @@ public enum SearchDbMsgs implements LogMessageEnum {
      */
     PROCESS_PAYLOAD_QUERY,
 
+    /**
+     * Arguments {0} - Name of the thread pool which uses virtual threads.
+     */
+    VIRTUAL_THREADS_ENABLED,
+
+    /**
+     * Arguments: {0} = Node address.
+     */
+    ELASTIC_SEARCH_NODE_RESTORED,
+
+    /**
+     * Arguments: {0} = Node addresses.
+     */
+    ELASTIC_SEARCH_NODES_DISCOVERED,
+
+    /**
+     * Arguments: {0} = Node address and operation class.
+     */
+    CIRCUIT_BREAKER_CLOSED,
+
+    /**
+     * Arguments: {0} = Job id {1} = Number of operations which succeeded {2} = Number of operations which failed.
+     */
+    BULK_JOB_COMPLETED,
+
+    /**
+     * Arguments: {0} = Number of rules {1} = Payload translation configuration file.
+     */
+    PAYLOAD_TRANSLATION_LOADED,
+
+    /**
+     * Arguments: {0} = Template id {1} = Index.
+     */
+    SEARCH_TEMPLATE_REGISTERED,
+
     /**
      * Arguments: {0} = Index {1} = Error
      */
@@ -150,6 +185,26 @@ public enum SearchDbMsgs implements LogMessageEnum {
      */
     BULK_OPERATION_FAILURE,
 
+    /**
+     * Arguments: {0} = Node address {1} = Failure cause.
+     */
+    ELASTIC_SEARCH_NODE_EJECTED,
+
+    /**
+     * Arguments: {0} = Node address and operation class {1} = Number of consecutive failures.
+     */
+    CIRCUIT_BREAKER_OPENED,
+
+    /**
+     * Arguments: {0} = Job id {1} = Failure cause.
+     */
+    BULK_JOB_FAILURE,
+
+    /**
+     * Arguments: {0} = Template id {1} = Failure cause.
+     */
+    SEARCH_TEMPLATE_FAILURE,
+
     /**
      * Arguments: {0} = Method {1} = Exception
      */
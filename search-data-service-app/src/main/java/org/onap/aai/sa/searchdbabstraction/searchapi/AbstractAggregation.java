@@ -70,6 +70,23 @@ public abstract class AbstractAggregation {
         this.minThreshold = minThreshold;
     }
 
-    public abstract String toElasticSearch();
+    /**
+     * This method returns a string which represents this aggregation in syntax that is understandable by
+     * ElasticSearch.
+     *
+     * @return - ElasticSearch syntax string.
+     */
+    public String toElasticSearch() {
+        SyntaxWriter out = new SyntaxWriter();
+        writeTo(out);
+        return out.toString();
+    }
+
+    /**
+     * Writes this aggregation in ElasticSearch syntax.
+     *
+     * @param out - The writer to assemble the aggregation with.
+     */
+    abstract void writeTo(SyntaxWriter out);
 
 }
@@ -45,12 +45,19 @@ public class Aggregation {
     }
 
     public String toElasticSearch() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("\"");
-        sb.append(name);
-        sb.append("\": ");
-        sb.append(aggregation.toElasticSearch());
-        return sb.toString();
+        SyntaxWriter out = new SyntaxWriter();
+        writeTo(out);
+        return out.toString();
+    }
+
+    /**
+     * Writes this aggregation in ElasticSearch syntax.
+     *
+     * @param out - The writer to assemble the aggregation with.
+     */
+    void writeTo(SyntaxWriter out) {
+        out.quoted(name).raw(": ");
+        aggregation.writeTo(out);
     }
 
     @Override
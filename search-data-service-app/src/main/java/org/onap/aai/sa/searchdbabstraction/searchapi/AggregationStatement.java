@@ -81,48 +81,53 @@ public class AggregationStatement {
     }
 
     public String toElasticSearch() {
-        StringBuilder sb = new StringBuilder();
+        SyntaxWriter out = new SyntaxWriter();
+        writeTo(out);
+        return out.toString();
+    }
 
-        sb.append("{");
+    /**
+     * Writes this aggregation statement in ElasticSearch syntax.
+     *
+     * @param out - The writer to assemble the statement with.
+     */
+    void writeTo(SyntaxWriter out) {
+        out.raw("{");
 
         if (nested != null && nested.length > 0) {
-            sb.append("\"nested\": {\"path\": \"");
-            if (nested[0].getStatement() != null) {
-                sb.append(nested[0].getStatement().getNestedPath());
-            }
-            sb.append("\"}, \"aggs\": {");
+            out.raw("\"nested\": {\"path\": ")
+                    .quoted((nested[0].getStatement() != null) ? nested[0].getStatement().getNestedPath() : "");
+            out.raw("}, \"aggs\": {");
             for (int i = 0; i < nested.length; i++) {
                 if (i > 0) {
-                    sb.append(",");
+                    out.raw(",");
                 }
-                sb.append(nested[i].toElasticSearch());
+                nested[i].writeTo(out);
             }
 
-            sb.append("}");
+            out.raw("}");
         } else {
             if (groupBy != null) {
-                sb.append(groupBy.toElasticSearch());
+                groupBy.writeTo(out);
             } else if (dateRange != null) {
-                sb.append(dateRange.toElasticSearch());
+                dateRange.writeTo(out);
             } else if (dateHist != null) {
-                sb.append(dateHist.toElasticSearch());
+                dateHist.writeTo(out);
             }
 
             if (subAggregations != null && subAggregations.length > 0) {
-                sb.append(", \"aggs\": {");
+                out.raw(", \"aggs\": {");
                 for (int i = 0; i < subAggregations.length; i++) {
                     if (i > 0) {
-                        sb.append(",");
+                        out.raw(",");
                     }
-                    sb.append(subAggregations[i].toElasticSearch());
+                    subAggregations[i].writeTo(out);
                 }
-                sb.append("}");
+                out.raw("}");
             }
         }
 
-        sb.append("}");
-
-        return sb.toString();
+        out.raw("}");
     }
 
     @Override
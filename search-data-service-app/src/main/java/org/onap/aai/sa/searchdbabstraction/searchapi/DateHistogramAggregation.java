@@ -76,37 +76,24 @@ public class DateHistogramAggregation extends AbstractAggregation {
     }
 
     @Override
-    public String toElasticSearch() {
-        StringBuilder sb = new StringBuilder();
-
-        sb.append("\"date_histogram\": {\"field\": \"");
-        sb.append(field);
-        sb.append("\"");
+    void writeTo(SyntaxWriter out) {
+        out.raw("\"date_histogram\": {\"field\": ").quoted(field);
         if (interval != null) {
-            sb.append(", \"interval\": \"");
-            sb.append(interval);
-            sb.append("\"");
+            out.raw(", \"interval\": ").quoted(interval);
         }
         if (format != null) {
-            sb.append(", \"format\": \"");
-            sb.append(format);
-            sb.append("\"");
+            out.raw(", \"format\": ").quoted(format);
         }
         if (timeZone != null) {
-            sb.append(", \"time_zone\": \"");
-            sb.append(timeZone);
-            sb.append("\"");
+            out.raw(", \"time_zone\": ").quoted(timeZone);
         }
         if (size != null) {
-            sb.append(", \"size\": ");
-            sb.append(size);
+            out.raw(", \"size\": ").value(size);
         }
         if (minThreshold != null) {
-            sb.append(", \"min_doc_count\": ").append(minThreshold);
+            out.raw(", \"min_doc_count\": ").value(minThreshold);
         }
-        sb.append("}");
-
-        return sb.toString();
+        out.raw("}");
     }
 
     @Override
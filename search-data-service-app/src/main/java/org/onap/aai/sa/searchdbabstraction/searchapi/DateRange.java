@@ -80,31 +80,32 @@ public class DateRange {
     }
 
     public String toElasticSearch() {
-        StringBuilder sb = new StringBuilder();
+        SyntaxWriter out = new SyntaxWriter();
+        writeTo(out);
+        return out.toString();
+    }
 
-        sb.append("{");
+    /**
+     * Writes this date range in ElasticSearch syntax.
+     *
+     * @param out - The writer to assemble the date range with.
+     */
+    void writeTo(SyntaxWriter out) {
+        out.raw("{");
 
         if (fromDate != null) {
-            sb.append("\"from\": \"");
-            sb.append(fromDate);
-            sb.append("\"");
+            out.raw("\"from\": ").quoted(fromDate);
         }
 
         if (toDate != null) {
             if (fromDate != null) {
-                sb.append(", \"to\": \"");
-                sb.append(toDate);
-                sb.append("\"");
+                out.raw(", \"to\": ").quoted(toDate);
             } else {
-                sb.append("\"to\": \"");
-                sb.append(toDate);
-                sb.append("\"");
+                out.raw("\"to\": ").quoted(toDate);
             }
         }
 
-        sb.append("}");
-
-        return sb.toString();
+        out.raw("}");
     }
 
     @Override
@@ -71,44 +71,35 @@ public class DateRangeAggregation extends AbstractAggregation {
     }
 
     @Override
-    public String toElasticSearch() {
-        StringBuilder sb = new StringBuilder();
-
-        sb.append("\"date_range\": {\"field\": \"");
-        sb.append(field);
-        sb.append("\"");
+    void writeTo(SyntaxWriter out) {
+        out.raw("\"date_range\": {\"field\": ").quoted(field);
 
         if (format != null) {
-            sb.append(", \"format\": \"");
-            sb.append(format);
-            sb.append("\"");
+            out.raw(", \"format\": ").quoted(format);
         }
 
         if (dateRanges != null && dateRanges.length > 0) {
-            sb.append(", \"ranges\": [");
+            out.raw(", \"ranges\": [");
 
             for (int i = 0; i < dateRanges.length; i++) {
                 if (i > 0) {
-                    sb.append(",");
+                    out.raw(",");
                 }
-                sb.append(dateRanges[i].toElasticSearch());
+                dateRanges[i].writeTo(out);
             }
 
-            sb.append("]");
+            out.raw("]");
         }
 
         if (size != null) {
-            sb.append(", \"size\": ");
-            sb.append(size);
+            out.raw(", \"size\": ").value(size);
         }
 
         if (minThreshold != null) {
-            sb.append(", \"min_doc_count\": ").append(minThreshold);
+            out.raw(", \"min_doc_count\": ").value(minThreshold);
         }
 
-        sb.append("}");
-
-        return sb.toString();
+        out.raw("}");
     }
 
     @Override
@@ -74,83 +74,90 @@ public class Filter {
      * @return - ElasticSearch syntax string.
      */
     public String toElasticSearch() {
+        SyntaxWriter out = new SyntaxWriter();
+        writeTo(out);
+        return out.toString();
+    }
 
-        StringBuilder sb = new StringBuilder();
+    /**
+     * Writes this filter in ElasticSearch syntax.
+     *
+     * @param out - The writer to assemble the filter with.
+     */
+    void writeTo(SyntaxWriter out) {
 
         List<QueryStatement> notMatchQueries = new ArrayList<>();
-        sb.append("{");
-        sb.append("\"bool\": {");
+        out.raw("{");
+        out.raw("\"bool\": {");
 
         // Add the queries from our 'all' list.
         int matchQueriesCount = 0;
         int notMatchQueriesCount = 0;
         if (all != null) {
-            sb.append("\"must\": [");
+            out.raw("\"must\": [");
 
             for (QueryStatement query : all) {
                 if (matchQueriesCount > 0) {
-                    sb.append(", ");
+                    out.raw(", ");
                 }
 
                 if (query.isNotMatch()) {
                     notMatchQueries.add(query);
                 } else {
-                    sb.append(query.toElasticSearch());
+                    query.writeTo(out);
                     matchQueriesCount++;
                 }
             }
-            sb.append("],");
+            out.raw("],");
 
 
-            sb.append("\"must_not\": [");
+            out.raw("\"must_not\": [");
             for (QueryStatement query : notMatchQueries) {
                 if (notMatchQueriesCount > 0) {
-                    sb.append(", ");
+                    out.raw(", ");
                 }
-                sb.append(query.toElasticSearch());
+                query.writeTo(out);
                 notMatchQueriesCount++;
             }
-            sb.append("]");
+            out.raw("]");
         }
 
         // Add the queries from our 'any' list.
         notMatchQueries.clear();
         if (any != null) {
             if (all != null) {
-                sb.append(",");
+                out.raw(",");
             }
-            sb.append("\"should\": [");
+            out.raw("\"should\": [");
 
             matchQueriesCount = 0;
             for (QueryStatement query : any) {
                 if (matchQueriesCount > 0) {
-                    sb.append(", ");
+                    out.raw(", ");
                 }
 
                 if (query.isNotMatch()) {
                     notMatchQueries.add(query);
                 } else {
-                    sb.append(query.toElasticSearch());
+                    query.writeTo(out);
                     matchQueriesCount++;
                 }
             }
-            sb.append("],");
+            out.raw("],");
 
             notMatchQueriesCount = 0;
-            sb.append("\"must_not\": [");
+            out.raw("\"must_not\": [");
             for (QueryStatement query : notMatchQueries) {
                 if (notMatchQueriesCount > 0) {
-                    sb.append(", ");
+                    out.raw(", ");
                 }
-                sb.append(query.toElasticSearch());
+                query.writeTo(out);
                 notMatchQueriesCount++;
             }
-            sb.append("]");
+            out.raw("]");
         }
-        sb.append("}");
-        sb.append("}");
-
-        return sb.toString();
+        out.raw("}");
+        out.raw("}");
     }
 
     @Override
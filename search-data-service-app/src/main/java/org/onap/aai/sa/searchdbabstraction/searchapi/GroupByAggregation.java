@@ -42,24 +42,17 @@ package org.onap.aai.sa.searchdbabstraction.searchapi;
 public class GroupByAggregation extends AbstractAggregation {
 
     @Override
-    public String toElasticSearch() {
-        StringBuilder sb = new StringBuilder();
-
-        sb.append("\"terms\": {\"field\": \"");
-        sb.append(field);
-        sb.append("\"");
+    void writeTo(SyntaxWriter out) {
+        out.raw("\"terms\": {\"field\": ").quoted(field);
         if (size != null) {
-            sb.append(", \"size\": ");
-            sb.append(size);
+            out.raw(", \"size\": ").value(size);
         }
 
         if (minThreshold != null) {
-            sb.append(", \"min_doc_count\": ").append(minThreshold);
+            out.raw(", \"min_doc_count\": ").value(minThreshold);
         }
 
-        sb.append("}");
-
-        return sb.toString();
+        out.raw("}");
     }
 
     @Override
@@ -100,17 +100,23 @@ public class ParsedQuery {
      * @return - ElasticSearch syntax string.
      */
     public String toElasticSearch() {
+        SyntaxWriter out = new SyntaxWriter();
+        writeTo(out);
+        return out.toString();
+    }
 
-        StringBuilder sb = new StringBuilder();
-
-        sb.append("{");
-        sb.append("\"query_string\": {");
-        sb.append("\"default_field\": \"").append(field).append("\", ");
-        sb.append("\"query\": \"").append(queryString).append("\"");
-        sb.append("}");
-        sb.append("}");
-
-        return sb.toString();
+    /**
+     * Writes this query in ElasticSearch syntax.
+     *
+     * @param out - The writer to assemble the query with.
+     */
+    void writeTo(SyntaxWriter out) {
+        out.raw("{");
+        out.raw("\"query_string\": {");
+        out.raw("\"default_field\": ").quoted(field).raw(", ");
+        out.raw("\"query\": ").quoted(queryString);
+        out.raw("}");
+        out.raw("}");
     }
 
     @Override
@@ -71,36 +71,55 @@ public class QueryStatement {
     }
 
     public String toElasticSearch() {
+        if (match == null && notMatch == null && parsedQuery == null && range == null) {
+            // throw an exception?
+            return null;
+        }
+        SyntaxWriter out = new SyntaxWriter();
+        writeTo(out);
+        return out.toString();
+    }
+
+    /**
+     * Writes this query in ElasticSearch syntax, or null if no query has been defined.
+     *
+     * @param out - The writer to assemble the query with.
+     */
+    void writeTo(SyntaxWriter out) {
 
         if (match != null) {
-            return match.toElasticSearch();
+            match.writeTo(out);
 
         } else if (notMatch != null) {
-            return notMatch.toElasticSearch();
+            notMatch.writeTo(out);
 
         } else if (parsedQuery != null) {
 
             // We need some special wrapping if this query is against a nested field.
             if (fieldIsNested(parsedQuery.getField())) {
-                return "{\"nested\": { \"path\": \"" + pathForNestedField(parsedQuery.getField()) + "\", \"query\": "
-                        + parsedQuery.toElasticSearch() + "}}";
+                out.raw("{\"nested\": { \"path\": ").quoted(pathForNestedField(parsedQuery.getField()))
+                        .raw(", \"query\": ");
+                parsedQuery.writeTo(out);
+                out.raw("}}");
             } else {
-                return parsedQuery.toElasticSearch();
+                parsedQuery.writeTo(out);
             }
 
         } else if (range != null) {
 
             // We need some special wrapping if this query is against a nested field.
             if (fieldIsNested(range.getField())) {
-                return "{\"nested\": { \"path\": \"" + pathForNestedField(range.getField()) + "\", \"query\": "
-                        + range.toElasticSearch() + "}}";
+                out.raw("{\"nested\": { \"path\": ").quoted(pathForNestedField(range.getField()))
+                        .raw(", \"query\": ");
+                range.writeTo(out);
+                out.raw("}}");
             } else {
-                return range.toElasticSearch();
+                range.writeTo(out);
             }
 
         } else {
-            // throw an exception?
-            return null;
+            // Nothing to write, which has always come out as null within a statement.
+            out.value(null);
         }
     }
 
@@ -0,0 +1,600 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.searchapi;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Translates search statements into ElasticSearch syntax with templates, each compiled once for the statements with
+ * the same structure.
+ *
+ * <p>
+ * The structure of a statement is everything which is not a value that a client would vary from one search to the
+ * next: the kinds of query, the fields, the sort and the aggregations. The values are the terms matched, the query
+ * strings, the bounds of ranges, the start and size of the result set and the position of a cursor. A template is
+ * compiled by translating a statement with a marker in place of each value and splitting the result at the markers, so
+ * that it produces exactly what the statement itself would. Filling it in takes a single string builder.
+ *
+ * <p>
+ * At most a fixed number of templates are kept, and the least recently used template is dropped to make room for a
+ * new structure, so that the structures in use keep their templates however many others have been seen.
+ */
+class QueryTemplateCache {
+
+    static final String METRIC_HITS = "elasticsearch.query-translation.hits";
+    static final String METRIC_MISSES = "elasticsearch.query-translation.misses";
+    static final int MAX_TEMPLATES = 1024;
+
+    private static final QueryTemplateCache instance = new QueryTemplateCache(MAX_TEMPLATES, Metrics.globalRegistry);
+
+    /**
+     * Encloses the position of a value in a translation. This is a Unicode noncharacter, which is not escaped in a JSON
+     * string and does not appear in text.
+     */
+    private static final char MARKER = '\uFDD0';
+
+    /** Kinds of value, which are part of the structure since they change how the value is written. */
+    private static final char TEXT = 's';
+    private static final char NUMBER = 'n';
+    private static final char OTHER = 'o';
+
+    /** Stands in for the structures which could not be compiled, so that they are not compiled again. */
+    private static final Template UNCOMPILABLE = new Template(new String[0], new int[0], new boolean[0], 0);
+
+    private final Lock lock = new ReentrantLock();
+    private final Map<String, Template> templates;
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * @param maxTemplates - The most templates to keep, beyond which the least recently used template is dropped.
+     * @param registry - The registry in which the statements translated with and without a template are counted.
+     */
+    QueryTemplateCache(int maxTemplates, MeterRegistry registry) {
+        templates = new LinkedHashMap<String, Template>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+                return size() > maxTemplates;
+            }
+        };
+        hits = Counter.builder(METRIC_HITS)
+                .description("Search statements translated with a template compiled for an earlier statement")
+                .register(registry);
+        misses = Counter.builder(METRIC_MISSES)
+                .description("Search statements translated without a template compiled for an earlier statement")
+                .register(registry);
+    }
+
+    /**
+     * @return - The cache used to translate search statements.
+     */
+    static QueryTemplateCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * @return - The number of structures for which a template is kept.
+     */
+    int size() {
+        lock.lock();
+        try {
+            return templates.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Translates a statement into ElasticSearch syntax. The values of a statement from which a template is compiled
+     * are replaced while it is translated, so it must not be in use by another thread.
+     *
+     * @param statement - The statement to translate.
+     * @return - ElasticSearch syntax string.
+     */
+    String translate(SearchStatement statement) {
+        Values values = new Values(false);
+        if (!visit(statement, values)) {
+            misses.increment();
+            return statement.buildElasticSearch();
+        }
+
+        String key = values.structure.toString();
+        Template template;
+        lock.lock();
+        try {
+            template = templates.get(key);
+        } finally {
+            lock.unlock();
+        }
+        if (template != null && template != UNCOMPILABLE) {
+            hits.increment();
+            return template.fill(values.values);
+        }
+
+        misses.increment();
+        String translated = statement.buildElasticSearch();
+        if (template == null) {
+            Template compiled = compile(statement, translated, values.values);
+            lock.lock();
+            try {
+                templates.putIfAbsent(key, compiled);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return translated;
+    }
+
+    /**
+     * Compiles a template for a statement, whether or not one is kept for its structure.
+     *
+     * @param statement - The statement, which must not be in use by another thread.
+     * @param values - Receives the values of the statement, in the order of the positions which they fill.
+     * @return - The template, or null if the statement cannot be translated with a template.
+     */
+    static Template compileTemplate(SearchStatement statement, List<Object> values) {
+        Values recorded = new Values(false);
+        if (!visit(statement, recorded)) {
+            return null;
+        }
+        Template template = compile(statement, statement.buildElasticSearch(),
+                recorded.values);
+        if (template == UNCOMPILABLE) {
+            return null;
+        }
+        values.addAll(recorded.values);
+        return template;
+    }
+
+    /**
+     * Compiles a template by translating the statement with markers in place of its values. The template is only used
+     * if filling it in with the statement's own values gives what the statement translates to.
+     */
+    private static Template compile(SearchStatement statement, String translated, List<Object> values) {
+        Values markers = new Values(true);
+        String marked;
+        try {
+            visit(statement, markers);
+            marked = statement.buildElasticSearch(markers.from, markers.size, markers.searchAfter);
+        } finally {
+            markers.restore();
+        }
+
+        Template template = parse(marked, markers.kinds, values.size());
+        if (template == null || !template.fill(values).equals(translated)) {
+            return UNCOMPILABLE;
+        }
+        return template;
+    }
+
+    /**
+     * Splits a translation at the markers, each of which must appear exactly once.
+     *
+     * @return - The template, or null if the markers cannot be found.
+     */
+    private static Template parse(String marked, List<Character> kinds, int slotCount) {
+        List<String> segments = new ArrayList<>();
+        int[] slots = new int[slotCount];
+        boolean[] text = new boolean[slotCount];
+        boolean[] seen = new boolean[slotCount];
+        int fixedLength = 0;
+        int start = 0;
+        int slotIndex = 0;
+        int marker;
+        while ((marker = marked.indexOf(MARKER, start)) >= 0) {
+            int end = marked.indexOf(MARKER, marker + 1);
+            if (end < 0 || slotIndex == slotCount) {
+                return null;
+            }
+            int slot;
+            try {
+                slot = Integer.parseInt(marked.substring(marker + 1, end));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (slot < 0 || slot >= slotCount || seen[slot]) {
+                return null;
+            }
+            seen[slot] = true;
+
+            // A number is written without the quotes which enclose the textual marker standing in for it.
+            int segmentEnd = marker;
+            int next = end + 1;
+            if (kinds.get(slot) == NUMBER) {
+                if (marker == 0 || marked.charAt(marker - 1) != '"' || next >= marked.length()
+                        || marked.charAt(next) != '"') {
+                    return null;
+                }
+                segmentEnd--;
+                next++;
+            }
+            segments.add(marked.substring(start, segmentEnd));
+            fixedLength += segmentEnd - start;
+            text[slotIndex] = kinds.get(slot) == TEXT;
+            slots[slotIndex++] = slot;
+            start = next;
+        }
+        if (slotIndex != slotCount) {
+            return null;
+        }
+        segments.add(marked.substring(start));
+        fixedLength += marked.length() - start;
+        return new Template(segments.toArray(new String[0]), slots, text, fixedLength);
+    }
+
+    /**
+     * Records the structure and values of a statement.
+     *
+     * @return - false if the statement cannot be translated with a template, as when it is incomplete.
+     */
+    private static boolean visit(SearchStatement statement, Values values) {
+        Query[] queries = statement.getQueries();
+        if (queries == null) {
+            return false;
+        }
+        values.structure.append(statement.getFrom() != null ? 'f' : '-');
+        values.structure.append(statement.getSize() != null ? 'z' : '-');
+        if (statement.getFrom() != null) {
+            values.from = values.slot(OTHER, statement.getFrom(), null);
+        }
+        if (statement.getSize() != null) {
+            values.size = values.slot(OTHER, statement.getSize(), null);
+        }
+
+        values.structure.append('Q').append(queries.length);
+        for (Query query : queries) {
+            if (query == null || query.getQueryStatement() == null) {
+                return false;
+            }
+            values.structure.append(query.isMust() ? 'M' : 'Y');
+            if (!visit(query.getQueryStatement(), values)) {
+                return false;
+            }
+        }
+
+        Filter filter = statement.getFilter();
+        if (filter != null) {
+            values.structure.append('F');
+            if (!visit(filter.getAll(), values) || !visit(filter.getAny(), values)) {
+                return false;
+            }
+        }
+
+        Sort sort = statement.getSort();
+        if (sort != null) {
+            List<Sort> criteria = sort.getCriteria();
+            values.structure.append('O').append(criteria.size());
+            for (Sort criterion : criteria) {
+                values.structural(criterion.getField());
+                values.structural(criterion.getOrder() != null ? criterion.getOrder().name() : null);
+            }
+        }
+
+        SearchCursor cursor = statement.getCursor();
+        if (cursor != null) {
+            values.structure.append('C');
+            if (!cursor.isFirstPage()) {
+                values.searchAfter = values.slot(OTHER, cursor, null);
+            }
+        }
+
+        Aggregation[] aggregations = statement.getAggregations();
+        if (statement.hasAggregations()) {
+            values.structure.append('A').append(aggregations.length);
+            for (Aggregation aggregation : aggregations) {
+                visit(aggregation, values);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records the structure of an aggregation, all of which is structure since it has no values.
+     */
+    private static void visit(Aggregation aggregation, Values values) {
+        values.structural(aggregation.getName());
+        AggregationStatement statement = aggregation.getStatement();
+        if (statement == null) {
+            values.structure.append('-');
+            return;
+        }
+        values.structure.append('{');
+        visit(statement.getNested(), values);
+        GroupByAggregation groupBy = statement.getGroupBy();
+        if (groupBy != null) {
+            values.structure.append('g');
+            visit(groupBy, values);
+        }
+        DateRangeAggregation dateRange = statement.getDateRange();
+        if (dateRange != null) {
+            values.structure.append('d');
+            visit(dateRange, values);
+            values.structural(dateRange.getFormat());
+            DateRange[] ranges = dateRange.getDateRanges();
+            values.structure.append(ranges != null ? ranges.length : -1);
+            if (ranges != null) {
+                for (DateRange range : ranges) {
+                    values.structural(range.getFromDate());
+                    values.structural(range.getToDate());
+                }
+            }
+        }
+        DateHistogramAggregation dateHist = statement.getDateHist();
+        if (dateHist != null) {
+            values.structure.append('h');
+            visit(dateHist, values);
+            values.structural(dateHist.getInterval());
+            values.structural(dateHist.getFormat());
+            values.structural(dateHist.getTimeZone());
+        }
+        visit(statement.getSubAggregations(), values);
+        values.structure.append('}');
+    }
+
+    private static void visit(Aggregation[] aggregations, Values values) {
+        if (aggregations == null) {
+            values.structure.append('-');
+            return;
+        }
+        values.structure.append('[').append(aggregations.length);
+        for (Aggregation aggregation : aggregations) {
+            visit(aggregation, values);
+        }
+    }
+
+    private static void visit(AbstractAggregation aggregation, Values values) {
+        values.structural(aggregation.getField());
+        values.structural(aggregation.getSize());
+        values.structural(aggregation.getMinThreshold());
+    }
+
+    private static boolean visit(QueryStatement[] queries, Values values) {
+        if (queries == null) {
+            values.structure.append('-');
+            return true;
+        }
+        values.structure.append('[').append(queries.length);
+        for (QueryStatement query : queries) {
+            if (query == null || !visit(query, values)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean visit(QueryStatement query, Values values) {
+        values.structure.append(query.getMatch() != null ? 'm' : '-');
+        values.structure.append(query.isNotMatch() ? 'n' : '-');
+        if (query.getMatch() != null) {
+            return visit(query.getMatch(), values);
+        } else if (query.getNotMatch() != null) {
+            return visit(query.getNotMatch(), values);
+        } else if (query.getParsedQuery() != null) {
+            ParsedQuery parsedQuery = query.getParsedQuery();
+            if (parsedQuery.getField() == null) {
+                return false;
+            }
+            values.structure.append('p');
+            values.structural(parsedQuery.getField());
+            values.slot(TEXT, parsedQuery.getQueryString(), value -> parsedQuery.setQueryString((String) value));
+            return true;
+        } else if (query.getRange() != null) {
+            return visit(query.getRange(), values);
+        }
+        values.structure.append('x');
+        return true;
+    }
+
+    private static boolean visit(TermQuery term, Values values) {
+        if (term.getField() == null) {
+            return false;
+        }
+        values.structural(term.getField());
+        values.structural(term.getOperator());
+        values.structural(term.getSearchAnalyzer());
+
+        Object value = term.getValue();
+        if (term.isNestedMultiFieldQuery()) {
+            // The words of the value are each matched on their own, so the value is part of the structure.
+            if (!(value instanceof String)) {
+                return false;
+            }
+            values.structure.append('w');
+            values.structural((String) value);
+        } else {
+            boolean numeric = (value instanceof Integer) || (value instanceof Double);
+            values.slot(numeric ? NUMBER : TEXT, value, term::setValue);
+        }
+        return true;
+    }
+
+    private static boolean visit(RangeQuery range, Values values) {
+        if (range.getField() == null) {
+            return false;
+        }
+        values.structure.append('r');
+        values.structural(range.getField());
+        values.structural(range.getFormat());
+        values.structural(range.getTimeZone());
+        values.bound(range.getGt(), range::setGt);
+        values.bound(range.getGte(), range::setGte);
+        values.bound(range.getLt(), range::setLt);
+        values.bound(range.getLte(), range::setLte);
+        return true;
+    }
+
+    /**
+     * The structure and values of a statement, recorded as it is visited. When compiling a template, each value is
+     * replaced with a marker giving its position until the statement has been translated.
+     */
+    private static final class Values {
+
+        private final boolean marking;
+        private final StringBuilder structure;
+        private final List<Object> values = new ArrayList<>();
+        private final List<Character> kinds = new ArrayList<>();
+        private final List<Runnable> restores = new ArrayList<>();
+        private Object from;
+        private Object size;
+        private Object searchAfter;
+
+        Values(boolean marking) {
+            this.marking = marking;
+            this.structure = new StringBuilder(64);
+        }
+
+        void structural(String part) {
+            if (part == null) {
+                structure.append('-');
+            } else {
+                structure.append(part.length()).append(':').append(part);
+            }
+        }
+
+        void structural(Integer part) {
+            if (part == null) {
+                structure.append('-');
+            } else {
+                structure.append('i').append(part.intValue()).append(':');
+            }
+        }
+
+        void bound(Object bound, Consumer<Object> setter) {
+            if (bound == null) {
+                structure.append('-');
+            } else {
+                // Bounds other than strings are written as they are, and must stay other than strings.
+                slot(bound instanceof String ? TEXT : OTHER, bound, setter);
+            }
+        }
+
+        /**
+         * Records a value, or puts a marker in its place when compiling a template.
+         *
+         * @return - The value, or its marker when compiling a template.
+         */
+        Object slot(char kind, Object value, Consumer<Object> setter) {
+            structure.append(kind);
+            int index = values.size();
+            values.add(value);
+            kinds.add(kind);
+            if (!marking) {
+                return value;
+            }
+
+            String text = MARKER + Integer.toString(index) + MARKER;
+            Object marker = kind == OTHER ? new Marker(text) : text;
+            if (setter != null) {
+                setter.accept(marker);
+                restores.add(() -> setter.accept(value));
+            }
+            return marker;
+        }
+
+        /**
+         * Puts the values back in place of the markers, in the reverse order to that in which they were replaced.
+         */
+        void restore() {
+            for (int i = restores.size() - 1; i >= 0; i--) {
+                restores.get(i).run();
+            }
+        }
+    }
+
+    /**
+     * A marker for a value which is written as it is, and so must not be a string.
+     */
+    private static final class Marker {
+
+        private final String text;
+
+        Marker(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    /**
+     * A translation split into the text which is the same for every statement with the structure, and the positions of
+     * the values to write between it.
+     */
+    static final class Template {
+
+        private final String[] segments;
+        private final int[] slots;
+        private final boolean[] text;
+        private final int fixedLength;
+
+        Template(String[] segments, int[] slots, boolean[] text, int fixedLength) {
+            this.segments = segments;
+            this.slots = slots;
+            this.text = text;
+            this.fixedLength = fixedLength;
+        }
+
+        /**
+         * @return - The text before each value, and after the last.
+         */
+        String[] getSegments() {
+            return segments;
+        }
+
+        /**
+         * @return - The position of each value in the order in which they are written.
+         */
+        int[] getSlots() {
+            return slots;
+        }
+
+        /**
+         * @return - true if the value at a position is written between quotes, and so must be escaped.
+         */
+        boolean isText(int position) {
+            return text[position];
+        }
+
+        String fill(List<Object> values) {
+            StringBuilder sb = new StringBuilder(fixedLength + 16 * slots.length);
+            for (int i = 0; i < slots.length; i++) {
+                sb.append(segments[i]);
+                if (text[i]) {
+                    SyntaxWriter.escape(String.valueOf(values.get(slots[i])), sb);
+                } else {
+                    sb.append(values.get(slots[i]));
+                }
+            }
+            return sb.append(segments[slots.length]).toString();
+        }
+    }
+}
@@ -226,17 +226,17 @@ public class RangeQuery {
 
     /**
      * This convenience method determines whether or not the supplied value needs to be enclosed in '"' characters when
-     * generating ElasticSearch compatible syntax.
+     * generating ElasticSearch compatible syntax, and writes it accordingly.
      *
-     * @param val - The value to check.
-     * @return - A string representation of the value for inclusion in an ElasticSearch syntax string.
+     * @param val - The value to write.
+     * @param out - The writer to write the value with.
      */
-    private String formatStringOrNumericVal(Object val) {
+    private void writeStringOrNumericVal(Object val, SyntaxWriter out) {
 
         if (val instanceof String) {
-            return "\"" + val.toString() + "\"";
+            out.quoted(val);
         } else {
-            return val.toString();
+            out.value(val);
         }
     }
 
@@ -263,21 +263,32 @@ public class RangeQuery {
      * @return - ElasticSearch syntax string.
      */
     public String toElasticSearch() {
+        SyntaxWriter out = new SyntaxWriter();
+        writeTo(out);
+        return out.toString();
+    }
 
-        StringBuilder sb = new StringBuilder();
+    /**
+     * Writes this query in ElasticSearch syntax.
+     *
+     * @param out - The writer to assemble the query with.
+     */
+    void writeTo(SyntaxWriter out) {
 
-        sb.append("{");
-        sb.append("\"range\": {");
-        sb.append("\"").append(field).append("\": {");
+        out.raw("{");
+        out.raw("\"range\": {");
+        out.quoted(field).raw(": {");
 
         // We may have one or zero of 'greater than' or 'greater
         // than or equal'
         boolean needComma = false;
         if (gte != null) {
-            sb.append("\"gte\": ").append(formatStringOrNumericVal(gte));
+            out.raw("\"gte\": ");
+            writeStringOrNumericVal(gte, out);
             needComma = true;
         } else if (gt != null) {
-            sb.append("\"gt\": ").append(formatStringOrNumericVal(gt));
+            out.raw("\"gt\": ");
+            writeStringOrNumericVal(gt, out);
             needComma = true;
         }
 
@@ -285,31 +296,31 @@ public class RangeQuery {
         // than or equal'
         if (lte != null) {
             if (needComma) {
-                sb.append(", ");
+                out.raw(", ");
             }
-            sb.append("\"lte\": ").append(formatStringOrNumericVal(lte));
+            out.raw("\"lte\": ");
+            writeStringOrNumericVal(lte, out);
         } else if (lt != null) {
             if (needComma) {
-                sb.append(", ");
+                out.raw(", ");
             }
-            sb.append("\"lt\": ").append(formatStringOrNumericVal(lt));
+            out.raw("\"lt\": ");
+            writeStringOrNumericVal(lt, out);
         }
 
         // Append the format specifier if one was provided.
         if (format != null) {
-            sb.append(", \"format\": \"").append(format).append("\"");
+            out.raw(", \"format\": ").quoted(format);
         }
 
         // Append the time zone specifier if one was provided.
         if (timeZone != null) {
-            sb.append(", \"time_zone\": \"").append(timeZone).append("\"");
+            out.raw(", \"time_zone\": ").quoted(timeZone);
         }
 
-        sb.append("}");
-        sb.append("}");
-        sb.append("}");
-
-        return sb.toString();
+        out.raw("}");
+        out.raw("}");
+        out.raw("}");
     }
 
     @Override
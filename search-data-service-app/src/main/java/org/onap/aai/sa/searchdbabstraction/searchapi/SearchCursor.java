@@ -0,0 +1,132 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.searchapi;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * A position in the sorted results of a search, from which the next page of results follows.
+ *
+ * <p>
+ * A cursor is handed to clients as an opaque token: the sort values of the last hit of a page, which end with the id
+ * of the document to break ties between hits which are equal by every field of the sort, written as a JSON array and
+ * encoded in URL safe Base64. A search given the token asks ElasticSearch for the hits after those values with
+ * <i>search_after</i>, so each page costs the same however deep it is, and no page is limited by the result window of
+ * the index as it would be with <i>from</i> and <i>size</i>.
+ */
+public final class SearchCursor {
+
+    /**
+     * The token which starts paging with a cursor at the first page of results.
+     */
+    public static final String FIRST_PAGE = "*";
+
+    /**
+     * The field on which results are finally sorted, so that no two hits have the same sort values.
+     */
+    static final String TIEBREAKER_FIELD = "_id";
+
+    private static final SearchCursor FIRST = new SearchCursor(null);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** The sort values of the last hit of the previous page, as a JSON array, or null for the first page. */
+    private final JsonNode sortValues;
+
+    private SearchCursor(JsonNode sortValues) {
+        this.sortValues = sortValues;
+    }
+
+    /**
+     * Decodes a token supplied by a client.
+     *
+     * @param token - The token returned with the previous page, or {@link #FIRST_PAGE}.
+     * @return - The cursor.
+     * @throws IllegalArgumentException if the token is not one which was returned with a page of results.
+     */
+    public static SearchCursor decode(String token) {
+        if (token == null) {
+            throw new IllegalArgumentException("A cursor must not be null");
+        }
+        if (FIRST_PAGE.equals(token)) {
+            return FIRST;
+        }
+
+        JsonNode values;
+        try {
+            values = MAPPER.readTree(Base64.getUrlDecoder().decode(token));
+        } catch (IllegalArgumentException | IOException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        if (values == null || !values.isArray() || values.size() == 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        for (JsonNode value : values) {
+            if (!value.isValueNode()) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+        }
+        return new SearchCursor(values);
+    }
+
+    /**
+     * Encodes the position after a hit.
+     *
+     * @param sortValues - The sort values of the hit, as returned by ElasticSearch.
+     * @return - The token from which the next page of results follows.
+     */
+    public static String encode(List<Object> sortValues) {
+        try {
+            byte[] json = MAPPER.writeValueAsString(sortValues).getBytes(StandardCharsets.UTF_8);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot encode the sort values " + sortValues, e);
+        }
+    }
+
+    /**
+     * @return - true if this cursor starts at the first page of results.
+     */
+    public boolean isFirstPage() {
+        return sortValues == null;
+    }
+
+    /**
+     * @return - The number of sort values of the hit which this cursor follows, including the tiebreaker, or 0 for the
+     *         first page.
+     */
+    public int size() {
+        return sortValues != null ? sortValues.size() : 0;
+    }
+
+    /**
+     * @return - The sort values of the hit which this cursor follows, in ElasticSearch syntax.
+     */
+    @Override
+    public String toString() {
+        return String.valueOf(sortValues);
+    }
+}
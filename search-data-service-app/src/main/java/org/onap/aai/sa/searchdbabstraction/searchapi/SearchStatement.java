@@ -23,7 +23,6 @@ package org.onap.aai.sa.searchdbabstraction.searchapi;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
 import org.radeox.util.logging.Logger;
 
 /**
@@ -38,6 +37,8 @@ import org.radeox.util.logging.Logger;
  *     {
  *         "results-start": int,  - Optional: index of starting point in result set.
  *         "results-size": int,   - Optional: maximum number of documents to include in result set.
+ *         "cursor": string,      - Optional: page through the result set with a cursor, starting with "*" for the
+ *                                  first page and then passing the cursor returned with each page for the next.
  *
  *         "filter": {
  *             { filter structure - see {@link Filter} }
@@ -57,12 +58,19 @@ import org.radeox.util.logging.Logger;
  *                              .
  *                              .
  *             { aggregation structure - see {@link AggregationStatement} },
- *         ]
+ *         ],
+ *
+ *         "sort": { sort structure - see {@link Sort} }
  *     }
  * </pre>
  */
 public class SearchStatement {
 
+    /**
+     * The size of the buffer into which a statement is first written, which holds a typical statement without growing.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
     /**
      * Defines the filters that should be applied before running the actual queries. This is optional.
      */
@@ -89,6 +97,12 @@ public class SearchStatement {
     @JsonProperty("results-size")
     private Integer size;
 
+    /**
+     * The position in the sorted result set after which to return documents, for paging with a cursor. This is
+     * optional.
+     */
+    private SearchCursor cursor;
+
     public Filter getFilter() {
         return filter;
     }
@@ -145,104 +159,185 @@ public class SearchStatement {
         this.size = size;
     }
 
+    public SearchCursor getCursor() {
+        return cursor;
+    }
+
+    /**
+     * @param token - The cursor returned with the previous page of results, or {@link SearchCursor#FIRST_PAGE}.
+     * @throws IllegalArgumentException if the token is not a cursor.
+     */
+    public void setCursor(String token) {
+        this.cursor = SearchCursor.decode(token);
+    }
+
+    public boolean isPagedByCursor() {
+        return cursor != null;
+    }
+
+    /**
+     * Checks that a cursor, if one is supplied, can be used with the rest of this statement. The pages of a cursor
+     * start where the previous page ended rather than at an index into the result set, and a cursor holds a sort value
+     * for each field of the sort with which it was returned, and one for the tiebreaker.
+     *
+     * @throws IllegalArgumentException if the cursor cannot be used with this statement.
+     */
+    public void validateCursor() {
+        if (cursor == null) {
+            return;
+        }
+        if (resultsStart != null && resultsStart != 0) {
+            throw new IllegalArgumentException("A cursor cannot be combined with results-start");
+        }
+        int sortFields = (sort != null) ? sort.getCriteria().size() : 0;
+        if (!cursor.isFirstPage() && cursor.size() != sortFields + 1) {
+            throw new IllegalArgumentException("The cursor does not match the sort of the statement");
+        }
+    }
+
     /**
      * This method returns a string which represents this statement in syntax that is understandable by ElasticSearch
      * and is suitable for inclusion in an ElasticSearch query string.
      *
+     * <p>
+     * Statements with the same structure and different values are translated with a template, compiled once for the
+     * structure, into which the values are filled.
+     *
      * @return - ElasticSearch syntax string.
      */
     public String toElasticSearch() {
-        StringBuilder sb = new StringBuilder();
+        String query = QueryTemplateCache.getInstance().translate(this);
+
+        Logger.debug("Generated raw ElasticSearch query statement: " + query);
+        return query;
+    }
+
+    /**
+     * Builds the ElasticSearch syntax for this statement as it is.
+     *
+     * @return - ElasticSearch syntax string.
+     */
+    String buildElasticSearch() {
+        return buildElasticSearch(resultsStart, size, (cursor != null && !cursor.isFirstPage()) ? cursor : null);
+    }
+
+    /**
+     * Builds the ElasticSearch syntax for this statement, with the supplied start and size of the result set and
+     * position of the cursor in place of the statement's own.
+     *
+     * @param from - The index of the first document to return, or null to leave it to ElasticSearch.
+     * @param resultsSize - The maximum number of documents to return, or null to leave it to ElasticSearch.
+     * @param searchAfter - The sort values after which to return documents, or null if the statement is not paged by
+     *        cursor or is on its first page.
+     * @return - ElasticSearch syntax string.
+     */
+    String buildElasticSearch(Object from, Object resultsSize, Object searchAfter) {
+        SyntaxWriter out = new SyntaxWriter(new StringBuilder(INITIAL_CAPACITY));
         List<QueryStatement> notMatchQueries = new ArrayList<>();
         List<QueryStatement> mustQueries = new ArrayList<>();
         List<QueryStatement> shouldQueries = new ArrayList<>();
 
         createQueryLists(queries, mustQueries, shouldQueries, notMatchQueries);
 
-        sb.append("{");
+        out.raw("{");
 
-        sb.append("\"version\": true,");
+        out.raw("\"version\": true,");
 
         // If the client has specified an index into the results for the first
         // document in the result set then include that in the ElasticSearch
         // query.
-        if (resultsStart != null) {
-            sb.append("\"from\": ").append(resultsStart).append(", ");
+        if (from != null) {
+            out.raw("\"from\": ").value(from).raw(", ");
         }
 
         // If the client has specified a maximum number of documents to be returned
         // in the result set then include that in the ElasticSearch query.
-        if (size != null) {
-            sb.append("\"size\": ").append(size).append(", ");
+        if (resultsSize != null) {
+            out.raw("\"size\": ").value(resultsSize).raw(", ");
         }
 
-        sb.append("\"query\": {");
-        sb.append("\"bool\": {");
+        out.raw("\"query\": {");
+        out.raw("\"bool\": {");
 
-        sb.append("\"must\": [");
-        AtomicBoolean firstQuery = new AtomicBoolean(true);
+        out.raw("\"must\": [");
+        boolean firstQuery = true;
         for (QueryStatement query : mustQueries) {
 
-            if (!firstQuery.compareAndSet(true, false)) {
-                sb.append(", ");
+            if (!firstQuery) {
+                out.raw(", ");
             }
+            firstQuery = false;
 
-            sb.append(query.toElasticSearch());
+            query.writeTo(out);
         }
-        sb.append("], ");
+        out.raw("], ");
 
-        sb.append("\"should\": [");
+        out.raw("\"should\": [");
 
-        firstQuery = new AtomicBoolean(true);
+        firstQuery = true;
         for (QueryStatement query : shouldQueries) {
 
-            if (!firstQuery.compareAndSet(true, false)) {
-                sb.append(", ");
+            if (!firstQuery) {
+                out.raw(", ");
             }
+            firstQuery = false;
 
-            sb.append(query.toElasticSearch());
+            query.writeTo(out);
         }
 
-        sb.append("],"); // close should list
+        out.raw("],"); // close should list
 
-        sb.append("\"must_not\": [");
-        firstQuery.set(true);
+        out.raw("\"must_not\": [");
         for (QueryStatement query : notMatchQueries) {
-            sb.append(query.toElasticSearch());
+            query.writeTo(out);
         }
-        sb.append("]");
+        out.raw("]");
 
         // Add the filter stanza, if one is required.
         if (isFiltered()) {
-            sb.append(", \"filter\": ").append(filter.toElasticSearch());
+            out.raw(", \"filter\": ");
+            filter.writeTo(out);
         }
 
-        sb.append("}"); // close bool clause
-        sb.append("}"); // close query clause
+        out.raw("}"); // close bool clause
+        out.raw("}"); // close query clause
+
+        // Add the sort directive, if one is required. Paging with a cursor needs
+        // a sort in which no two documents are equal, so the document id is
+        // added to break ties.
+        if (cursor != null) {
+            out.raw(", \"sort\": [");
+            if (sort != null) {
+                sort.writeCriteria(out);
+                out.raw(", ");
+            }
+            out.raw("{ ").quoted(SearchCursor.TIEBREAKER_FIELD).raw(": { \"order\": \"asc\"}}]");
 
-        // Add the sort directive, if one is required.
-        if (sort != null) {
-            sb.append(", \"sort\": ").append(sort.toElasticSearch());
+            if (searchAfter != null) {
+                out.raw(", \"search_after\": ").value(searchAfter);
+            }
+        } else if (sort != null) {
+            out.raw(", \"sort\": ");
+            sort.writeTo(out);
         }
 
         // Add aggregations
         if (hasAggregations()) {
-            sb.append(", \"aggs\": {");
+            out.raw(", \"aggs\": {");
 
             for (int i = 0; i < aggregations.length; i++) {
                 if (i > 0) {
-                    sb.append(",");
+                    out.raw(",");
                 }
-                sb.append(aggregations[i].toElasticSearch());
+                aggregations[i].writeTo(out);
             }
 
-            sb.append("}");
+            out.raw("}");
         }
 
-        sb.append("}");
+        out.raw("}");
 
-        Logger.debug("Generated raw ElasticSearch query statement: " + sb.toString());
-        return sb.toString();
+        return out.toString();
     }
 
     private void createQueryLists(Query[] queries, List<QueryStatement> mustList, List<QueryStatement> mayList,
@@ -280,32 +375,38 @@ public class SearchStatement {
             sb.append("from: ").append(resultsStart).append(", size: ").append(size).append(", ");
         }
 
+        if (cursor != null) {
+            sb.append("search after: ").append(cursor).append(", ");
+        }
+
         if (filter != null) {
             sb.append("filter: ").append(filter.toString()).append(", ");
         }
 
         sb.append("queries: [");
-        AtomicBoolean firstQuery = new AtomicBoolean(true);
+        boolean firstQuery = true;
         if (queries != null) {
             for (Query query : queries) {
 
-                if (!firstQuery.compareAndSet(true, false)) {
+                if (!firstQuery) {
                     sb.append(", ");
                 }
+                firstQuery = false;
                 sb.append(query.toString());
             }
         }
         sb.append("]");
 
         sb.append("aggregations: [");
-        firstQuery = new AtomicBoolean(true);
+        firstQuery = true;
 
         if (aggregations != null) {
             for (Aggregation agg : aggregations) {
 
-                if (!firstQuery.compareAndSet(true, false)) {
+                if (!firstQuery) {
                     sb.append(", ");
                 }
+                firstQuery = false;
                 sb.append(agg.toString());
             }
         }
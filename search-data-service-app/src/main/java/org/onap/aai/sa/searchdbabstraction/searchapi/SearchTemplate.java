@@ -0,0 +1,363 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.searchapi;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.DoubleNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A search statement registered under a name, in which some of the values are left as parameters to be supplied each
+ * time that it is run.
+ *
+ * <p>
+ * The expected JSON structure to represent a search template is as follows:
+ *
+ * <p>
+ *
+ * <pre>
+ *     {
+ *         "parameters": {               - Optional: the type of each parameter.
+ *             "name": "string" | "integer" | "number",
+ *                              .
+ *                              .
+ *         },
+ *
+ *         "statement": {
+ *             { search statement structure - see {@link SearchStatement} }
+ *         }
+ *     }
+ * </pre>
+ *
+ * <p>
+ * A parameter is used by giving "{{name}}" as the whole of a value in the statement: a term to match, a query string,
+ * a bound of a range, or the start or size of the result set. The statement is validated and translated into
+ * ElasticSearch syntax once, when the template is compiled, so that running it only takes the values of the parameters
+ * to be written in place.
+ */
+public final class SearchTemplate {
+
+    public enum ParameterType {
+        STRING,
+        INTEGER,
+        NUMBER
+    }
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{([A-Za-z0-9_.-]+)\\}\\}");
+    private static final Pattern PARAMETER_NAME = Pattern.compile("[A-Za-z0-9_.-]+");
+
+    /**
+     * The first of the numbers which stand in for numeric parameters while a template is compiled. Any number which
+     * appears in the statement itself is skipped.
+     */
+    private static final int FIRST_SAMPLE = 1_999_999_000;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final JsonNode definition;
+    private final Map<String, Integer> parameterIndexes;
+    private final String[] parameterNames;
+    private final ParameterType[] parameterTypes;
+    private final String[] segments;
+
+    /** For each position in the translation, the index of the parameter written there, or -1 for a fixed value. */
+    private final int[] parameters;
+
+    /** For each position in the translation, the fixed value written there, or null for a parameter. */
+    private final String[] constants;
+    private final int fixedLength;
+
+    private SearchTemplate(JsonNode definition, String[] parameterNames, ParameterType[] parameterTypes,
+            String[] segments, int[] parameters, String[] constants) {
+        this.definition = definition;
+        this.parameterNames = parameterNames;
+        this.parameterTypes = parameterTypes;
+        this.segments = segments;
+        this.parameters = parameters;
+        this.constants = constants;
+
+        parameterIndexes = new HashMap<>();
+        for (int i = 0; i < parameterNames.length; i++) {
+            parameterIndexes.put(parameterNames[i], i);
+        }
+        int length = 0;
+        for (String segment : segments) {
+            length += segment.length();
+        }
+        for (String constant : constants) {
+            length += (constant != null) ? constant.length() : 0;
+        }
+        fixedLength = length;
+    }
+
+    /**
+     * Validates a template and translates its statement into ElasticSearch syntax.
+     *
+     * @param definition - The template, in the structure described above.
+     * @return - The compiled template.
+     * @throws IllegalArgumentException if the template is not valid, or uses a parameter where a value cannot vary.
+     */
+    public static SearchTemplate compile(JsonNode definition) {
+        if (definition == null || !definition.isObject()) {
+            throw new IllegalArgumentException("A search template must be a JSON object");
+        }
+        JsonNode statementNode = definition.get("statement");
+        if (statementNode == null || !statementNode.isObject()) {
+            throw new IllegalArgumentException("A search template must contain a statement");
+        }
+        JsonNode parametersNode = definition.path("parameters");
+        if (!parametersNode.isMissingNode() && !parametersNode.isObject()) {
+            throw new IllegalArgumentException("The parameters of a search template must be a JSON object");
+        }
+
+        // Give each parameter a value of its type which cannot be mistaken for any other value in the statement.
+        Set<String> numbers = new HashSet<>();
+        collectNumbers(statementNode, numbers);
+        List<String> names = new ArrayList<>();
+        List<ParameterType> types = new ArrayList<>();
+        Map<String, JsonNode> samples = new LinkedHashMap<>();
+        int nextSample = FIRST_SAMPLE;
+        Iterator<Map.Entry<String, JsonNode>> fields = parametersNode.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String name = field.getKey();
+            if (!PARAMETER_NAME.matcher(name).matches()) {
+                throw new IllegalArgumentException("Invalid parameter name: " + name);
+            }
+            ParameterType type = parseType(name, field.getValue());
+            JsonNode sample;
+            if (type == ParameterType.STRING) {
+                sample = TextNode.valueOf("{{" + name + "}}");
+            } else {
+                do {
+                    sample = (type == ParameterType.INTEGER) ? IntNode.valueOf(nextSample)
+                            : DoubleNode.valueOf(nextSample + 0.5);
+                    nextSample++;
+                } while (numbers.contains(sample.asText()));
+            }
+            names.add(name);
+            types.add(type);
+            samples.put(name, sample);
+        }
+
+        SearchStatement statement;
+        try {
+            statement = mapper.treeToValue(substitute(statementNode.deepCopy(), samples), SearchStatement.class);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid search statement: " + e.getMessage(), e);
+        }
+
+        List<Object> values = new ArrayList<>();
+        QueryTemplateCache.Template template;
+        try {
+            template = QueryTemplateCache.compileTemplate(statement, values);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid search statement: " + e.getMessage(), e);
+        }
+        if (template == null) {
+            throw new IllegalArgumentException("The search statement cannot be compiled into a template");
+        }
+
+        // Work out which positions in the translation each parameter fills, from the values standing in for them.
+        String[] segments = template.getSegments();
+        int[] slots = template.getSlots();
+        int[] parameters = new int[slots.length];
+        String[] constants = new String[slots.length];
+        boolean[] used = new boolean[names.size()];
+        for (int i = 0; i < slots.length; i++) {
+            Object value = values.get(slots[i]);
+            parameters[i] = indexOfSample(samples, value);
+            if (parameters[i] >= 0) {
+                used[parameters[i]] = true;
+            } else {
+                constants[i] = template.isText(i) ? SyntaxWriter.escape(String.valueOf(value)) : String.valueOf(value);
+            }
+        }
+        for (int i = 0; i < names.size(); i++) {
+            String sample = samples.get(names.get(i)).asText();
+            for (String segment : segments) {
+                if (segment.contains(sample)) {
+                    throw new IllegalArgumentException(
+                            "Parameter " + names.get(i) + " is used where only a fixed value is allowed");
+                }
+            }
+            if (!used[i]) {
+                throw new IllegalArgumentException("Parameter " + names.get(i) + " is not used in the statement");
+            }
+        }
+
+        return new SearchTemplate(definition.deepCopy(), names.toArray(new String[0]),
+                types.toArray(new ParameterType[0]), segments, parameters, constants);
+    }
+
+    /**
+     * @return - The template as it was registered.
+     */
+    public JsonNode getDefinition() {
+        return definition.deepCopy();
+    }
+
+    /**
+     * Writes the statement in ElasticSearch syntax with the supplied parameter values. Every parameter must be given a
+     * value of its declared type, and no other values may be given.
+     *
+     * @param values - A JSON object holding the value of each parameter, or null if the template has no parameters.
+     * @return - ElasticSearch syntax string.
+     * @throws IllegalArgumentException if a parameter is missing, unknown or of the wrong type.
+     */
+    public String bind(JsonNode values) {
+        if (values != null && !values.isNull() && !values.isObject()) {
+            throw new IllegalArgumentException("The parameter values must be a JSON object");
+        }
+        if (values != null) {
+            Iterator<String> names = values.fieldNames();
+            while (names.hasNext()) {
+                String name = names.next();
+                if (!parameterIndexes.containsKey(name)) {
+                    throw new IllegalArgumentException("Unknown parameter: " + name);
+                }
+            }
+        }
+
+        String[] written = new String[parameterNames.length];
+        for (int i = 0; i < parameterNames.length; i++) {
+            JsonNode value = (values != null) ? values.get(parameterNames[i]) : null;
+            if (value == null || value.isNull()) {
+                throw new IllegalArgumentException("Missing parameter: " + parameterNames[i]);
+            }
+            written[i] = write(parameterNames[i], parameterTypes[i], value);
+        }
+
+        StringBuilder sb = new StringBuilder(fixedLength + 16 * parameters.length);
+        for (int i = 0; i < parameters.length; i++) {
+            sb.append(segments[i]).append(parameters[i] >= 0 ? written[parameters[i]] : constants[i]);
+        }
+        return sb.append(segments[parameters.length]).toString();
+    }
+
+    /**
+     * Writes the value of a parameter as it appears in ElasticSearch syntax. Strings are escaped, since they are
+     * written between the quotes in the translation.
+     */
+    private static String write(String name, ParameterType type, JsonNode value) {
+        switch (type) {
+            case STRING:
+                if (!value.isTextual()) {
+                    throw new IllegalArgumentException("Parameter " + name + " must be a string");
+                }
+                return SyntaxWriter.escape(value.textValue());
+            case INTEGER:
+                if (!value.isIntegralNumber() || !value.canConvertToInt()) {
+                    throw new IllegalArgumentException("Parameter " + name + " must be an integer");
+                }
+                return Integer.toString(value.intValue());
+            default:
+                if (!value.isNumber()) {
+                    throw new IllegalArgumentException("Parameter " + name + " must be a number");
+                }
+                return value.asText();
+        }
+    }
+
+    private static ParameterType parseType(String name, JsonNode type) {
+        if (type.isTextual()) {
+            for (ParameterType parameterType : ParameterType.values()) {
+                if (parameterType.name().equals(type.textValue().toUpperCase(Locale.ROOT))) {
+                    return parameterType;
+                }
+            }
+        }
+        throw new IllegalArgumentException(
+                "Parameter " + name + " must have a type of string, integer or number, not " + type);
+    }
+
+    private static void collectNumbers(JsonNode node, Set<String> numbers) {
+        if (node.isNumber()) {
+            numbers.add(node.asText());
+        }
+        for (JsonNode child : node) {
+            collectNumbers(child, numbers);
+        }
+    }
+
+    /**
+     * Replaces each value which is a parameter placeholder with the value standing in for that parameter.
+     *
+     * @return - The node with its placeholders replaced.
+     */
+    private static JsonNode substitute(JsonNode node, Map<String, JsonNode> samples) {
+        if (node.isTextual()) {
+            Matcher matcher = PLACEHOLDER.matcher(node.textValue());
+            if (!matcher.matches()) {
+                return node;
+            }
+            JsonNode sample = samples.get(matcher.group(1));
+            if (sample == null) {
+                throw new IllegalArgumentException("Undeclared parameter: " + matcher.group(1));
+            }
+            return sample;
+        } else if (node.isObject()) {
+            ObjectNode object = (ObjectNode) node;
+            Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                field.setValue(substitute(field.getValue(), samples));
+            }
+        } else if (node.isArray()) {
+            ArrayNode array = (ArrayNode) node;
+            for (int i = 0; i < array.size(); i++) {
+                array.set(i, substitute(array.get(i), samples));
+            }
+        }
+        return node;
+    }
+
+    /**
+     * @return - The index of the parameter for which the value stands in, or -1 if it is a value of the statement.
+     */
+    private static int indexOfSample(Map<String, JsonNode> samples, Object value) {
+        int index = 0;
+        for (JsonNode sample : samples.values()) {
+            Object sampleValue = sample.isTextual() ? sample.textValue() : sample.numberValue();
+            if (sampleValue.equals(value)) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+}
@@ -20,16 +20,63 @@
  */
 package org.onap.aai.sa.searchdbabstraction.searchapi;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class represents the sort criteria of a search statement.
+ *
+ * <p>
+ * A sort on a single field is expressed as an object, and a sort on several fields as an array of such objects, the
+ * first field of which orders the results and each later field of which orders the results which are equal by the
+ * fields before it:
+ *
+ * <p>
+ *
+ * <pre>
+ *     { "field": "LastName", "order": "ascending" }
+ *
+ *     [ { "field": "LastName", "order": "ascending" }, { "field": "BirthDate", "order": "descending" } ]
+ * </pre>
+ */
 public class Sort {
 
     private String field;
     private SortDirection order = null;
 
+    /**
+     * The criteria of a sort on several fields, in order, or null for a sort on a single field.
+     */
+    private List<Sort> criteria;
+
     public enum SortDirection {
         ascending,
         descending
     }
 
+    /**
+     * Creates a sort on several fields.
+     *
+     * @param criteria - The sort on each field, in order.
+     * @return - The sort criteria.
+     */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static Sort byFields(List<Sort> criteria) {
+        if (criteria == null || criteria.isEmpty()) {
+            throw new IllegalArgumentException("A sort must have at least one field");
+        }
+        for (Sort criterion : criteria) {
+            if (criterion == null || criterion.criteria != null) {
+                throw new IllegalArgumentException("Each field of a sort must be an object");
+            }
+        }
+        Sort sort = new Sort();
+        sort.criteria = Collections.unmodifiableList(new ArrayList<>(criteria));
+        return sort;
+    }
+
     public String getField() {
         return field;
     }
@@ -46,27 +93,67 @@ public class Sort {
         this.order = order;
     }
 
+    /**
+     * @return - The sort on each field, in order. A sort on a single field is its own only criterion.
+     */
+    public List<Sort> getCriteria() {
+        return criteria != null ? criteria : Collections.singletonList(this);
+    }
+
     public String toElasticSearch() {
+        SyntaxWriter out = new SyntaxWriter();
+        writeTo(out);
+        return out.toString();
+    }
+
+    /**
+     * Writes this sort criteria in ElasticSearch syntax: an object for a sort on a single field, or an array for a sort
+     * on several.
+     *
+     * @param out - The writer to assemble the sort criteria with.
+     */
+    void writeTo(SyntaxWriter out) {
+        if (criteria == null) {
+            writeCriterion(out);
+            return;
+        }
+        out.raw("[");
+        writeCriteria(out);
+        out.raw("]");
+    }
+
+    /**
+     * Writes the sort on each field, separated by commas, without enclosing them in an array.
+     *
+     * @param out - The writer to assemble the sort criteria with.
+     */
+    void writeCriteria(SyntaxWriter out) {
+        List<Sort> fields = getCriteria();
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                out.raw(", ");
+            }
+            fields.get(i).writeCriterion(out);
+        }
+    }
 
-        StringBuilder sb = new StringBuilder();
+    private void writeCriterion(SyntaxWriter out) {
 
-        sb.append("{ \"").append(field).append("\": { \"order\": ");
+        out.raw("{ ").quoted(field).raw(": { \"order\": ");
 
         // If a sort order wasn't explicitly supplied, default to 'ascending'.
         if (order != null) {
             switch (order) {
                 case ascending:
-                    sb.append("\"asc\"}}");
+                    out.raw("\"asc\"}}");
                     break;
                 case descending:
-                    sb.append("\"desc\"}}");
+                    out.raw("\"desc\"}}");
                     break;
                 default:
             }
         } else {
-            sb.append("\"asc\"}}");
+            out.raw("\"asc\"}}");
         }
-
-        return sb.toString();
     }
 }
@@ -73,21 +73,29 @@ public class SuggestionStatement {
      * @return - ElasticSearch syntax string.
      */
     public String toElasticSearch() {
+        SyntaxWriter out = new SyntaxWriter();
+        writeTo(out);
 
-        StringBuilder sb = new StringBuilder();
-
-        sb.append("{");
-        sb.append("\"suggest-vnf\": {");
-        sb.append("\"text\": ").append("\"" + text + "\"").append(", ");
-        sb.append("\"completion\": {");
-        sb.append("\"field\": ").append("\"" + field + "\"").append(", ");
-        sb.append("\"size\": ").append(size);
-        sb.append("}");
-        sb.append("}");
-        sb.append("}");
+        String query = out.toString();
+        Logger.debug("Generated raw ElasticSearch suggest statement: " + query);
+        return query;
+    }
 
-        Logger.debug("Generated raw ElasticSearch suggest statement: " + sb.toString());
-        return sb.toString();
+    /**
+     * Writes this statement in ElasticSearch syntax.
+     *
+     * @param out - The writer to assemble the statement with.
+     */
+    void writeTo(SyntaxWriter out) {
+        out.raw("{");
+        out.raw("\"suggest-vnf\": {");
+        out.raw("\"text\": ").quoted(text).raw(", ");
+        out.raw("\"completion\": {");
+        out.raw("\"field\": ").quoted(field).raw(", ");
+        out.raw("\"size\": ").value(size);
+        out.raw("}");
+        out.raw("}");
+        out.raw("}");
     }
 
 }
@@ -0,0 +1,128 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.searchapi;
+
+/**
+ * Writes ElasticSearch syntax into a single buffer, which is shared by a statement and all of its parts so that each
+ * part writes straight into the finished query rather than building a string of its own to be copied.
+ *
+ * <p>
+ * The fixed text of the syntax is written as it is. Strings supplied by clients, such as field names and the values
+ * matched, are written between quotes and escaped, so that they cannot change the structure of the query.
+ */
+final class SyntaxWriter {
+
+    private static final int DEFAULT_CAPACITY = 256;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final StringBuilder sb;
+
+    SyntaxWriter() {
+        this(new StringBuilder(DEFAULT_CAPACITY));
+    }
+
+    /**
+     * @param sb - The buffer to write to.
+     */
+    SyntaxWriter(StringBuilder sb) {
+        this.sb = sb;
+    }
+
+    /**
+     * Writes fixed text of the syntax, as it is.
+     */
+    SyntaxWriter raw(String text) {
+        sb.append(text);
+        return this;
+    }
+
+    /**
+     * Writes a value which is not a string, such as a number, as it is.
+     */
+    SyntaxWriter value(Object value) {
+        sb.append(value);
+        return this;
+    }
+
+    /**
+     * Writes a value as an escaped string between quotes.
+     */
+    SyntaxWriter quoted(Object value) {
+        sb.append('"');
+        escape(String.valueOf(value), sb);
+        sb.append('"');
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return sb.toString();
+    }
+
+    /**
+     * Escapes the characters which cannot appear as they are in a JSON string: the quote, the backslash and the control
+     * characters.
+     *
+     * @param text - The text to escape.
+     * @param out - The buffer to write the escaped text to.
+     */
+    static void escape(String text, StringBuilder out) {
+        int start = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= ' ' && c != '"' && c != '\\') {
+                continue;
+            }
+            out.append(text, start, i);
+            start = i + 1;
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+            }
+        }
+        out.append(text, start, length);
+    }
+
+    /**
+     * @return - The text, escaped for a JSON string.
+     */
+    static String escape(String text) {
+        StringBuilder out = new StringBuilder(text.length() + 8);
+        escape(text, out);
+        return out.toString();
+    }
+}
@@ -23,7 +23,6 @@ package org.onap.aai.sa.searchdbabstraction.searchapi;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * This class represents a simple term query.
@@ -137,10 +136,19 @@ public class TermQuery {
      * @return - ElasticSearch syntax string.
      */
     public String toElasticSearch() {
+        SyntaxWriter out = new SyntaxWriter();
+        writeTo(out);
+        return out.toString();
+    }
 
-        StringBuilder sb = new StringBuilder();
+    /**
+     * Writes this query in ElasticSearch syntax.
+     *
+     * @param out - The writer to assemble the query with.
+     */
+    void writeTo(SyntaxWriter out) {
 
-        sb.append("{");
+        out.raw("{");
 
         // Are we generating a multi field query?
         if (isMultiFieldQuery()) {
@@ -151,12 +159,12 @@ public class TermQuery {
             if (field.contains(".")) {
 
                 // Build the equivalent of a multi match query across one or more nested fields.
-                toElasticSearchNestedMultiMatchQuery(sb);
+                writeNestedMultiMatchQuery(out);
 
             } else {
 
                 // Build a real multi match query, since we don't need to worry about nested fields.
-                toElasticSearchMultiFieldQuery(sb);
+                writeMultiFieldQuery(out);
             }
         } else {
 
@@ -164,23 +172,31 @@ public class TermQuery {
 
             // Add the necessary wrapping if this is a query against a nested field.
             if (fieldIsNested(field)) {
-                sb.append("{\"nested\": { \"path\": \"").append(pathForNestedField(field)).append("\", \"query\": ");
+                out.raw("{\"nested\": { \"path\": ").quoted(pathForNestedField(field)).raw(", \"query\": ");
             }
 
             // Build the query.
-            toElasticSearchSingleFieldQuery(sb);
+            writeSingleFieldQuery(out);
 
             if (fieldIsNested(field)) {
-                sb.append("}}");
+                out.raw("}}");
             }
         }
 
-        sb.append("}");
-
-        return sb.toString();
+        out.raw("}");
     }
 
 
+    /**
+     * Determines whether the value is split into words, each matched on its own, by a query with multiple fields of
+     * which at least one is nested.
+     *
+     * @return - true if the structure of the query depends on the value, false, otherwise.
+     */
+    boolean isNestedMultiFieldQuery() {
+        return isMultiFieldQuery() && field.contains(".");
+    }
+
     /**
      * Determines whether or not the client has specified a term query with multiple fields.
      *
@@ -195,55 +211,54 @@ public class TermQuery {
     /**
      * Constructs a single field term query in ElasticSearch syntax.
      *
-     * @param sb - The string builder to assemble the query string with.
-     * @return - The single term query.
+     * @param out - The writer to assemble the query with.
      */
-    private void toElasticSearchSingleFieldQuery(StringBuilder sb) {
+    private void writeSingleFieldQuery(SyntaxWriter out) {
 
-        sb.append("\"term\": {\"").append(field).append("\" : ");
+        out.raw("\"term\": {").quoted(field).raw(" : ");
 
         // For numeric values, don't enclose the value in quotes.
         if (!isNumericValue()) {
-            sb.append("\"").append(value).append("\"");
+            out.quoted(value);
         } else {
-            sb.append(value);
+            out.value(value);
         }
 
-        sb.append("}");
+        out.raw("}");
     }
 
 
     /**
      * Constructs a multi field query in ElasticSearch syntax.
      *
-     * @param sb - The string builder to assemble the query string with.
-     * @return - The multi field query.
+     * @param out - The writer to assemble the query with.
      */
-    private void toElasticSearchMultiFieldQuery(StringBuilder sb) {
+    private void writeMultiFieldQuery(SyntaxWriter out) {
 
-        sb.append("\"multi_match\": {");
+        out.raw("\"multi_match\": {");
 
-        sb.append("\"query\": \"").append(value).append("\", ");
-        sb.append("\"type\": \"cross_fields\",");
-        sb.append("\"fields\": [");
+        out.raw("\"query\": ").quoted(value).raw(", ");
+        out.raw("\"type\": \"cross_fields\",");
+        out.raw("\"fields\": [");
 
         List<String> fields = Arrays.asList(field.split(" "));
-        AtomicBoolean firstField = new AtomicBoolean(true);
+        boolean firstField = true;
         for (String f : fields) {
-            if (!firstField.compareAndSet(true, false)) {
-                sb.append(", ");
+            if (!firstField) {
+                out.raw(", ");
             }
-            sb.append("\"").append(f.trim()).append("\"");
+            firstField = false;
+            out.quoted(f.trim());
         }
-        sb.append("],");
+        out.raw("],");
 
-        sb.append("\"operator\": \"").append((operator != null) ? operator.toLowerCase() : "and").append("\"");
+        out.raw("\"operator\": ").quoted((operator != null) ? operator.toLowerCase() : "and");
 
         if (searchAnalyzer != null) {
-            sb.append(", \"analyzer\": \"").append(searchAnalyzer).append("\"");
+            out.raw(", \"analyzer\": ").quoted(searchAnalyzer);
         }
 
-        sb.append("}");
+        out.raw("}");
     }
 
 
@@ -257,72 +272,78 @@ public class TermQuery {
      * @param sb - The string builder to use to build the query.
      */
     public void toElasticSearchNestedMultiMatchQuery(StringBuilder sb) {
+        writeNestedMultiMatchQuery(new SyntaxWriter(sb));
+    }
+
+    private void writeNestedMultiMatchQuery(SyntaxWriter out) {
 
         // Break out our whitespace delimited list of fields and values into a actual lists.
         List<String> fields = Arrays.asList(field.split(" "));
         List<String> values = Arrays.asList(((String) value).split(" ")); // GDF: revisit this cast.
 
-        sb.append("\"bool\": {");
+        out.raw("\"bool\": {");
 
         if (operator != null) {
 
             if (operator.toLowerCase().equals("and")) {
-                sb.append("\"must\": [");
+                out.raw("\"must\": [");
             } else if (operator.toLowerCase().equals("or")) {
-                sb.append("\"should\": [");
+                out.raw("\"should\": [");
             }
 
         } else {
-            sb.append("\"must\": [");
+            out.raw("\"must\": [");
         }
 
-        AtomicBoolean firstField = new AtomicBoolean(true);
+        boolean firstField = true;
         for (String f : fields) {
 
-            if (!firstField.compareAndSet(true, false)) {
-                sb.append(", ");
+            if (!firstField) {
+                out.raw(", ");
             }
+            firstField = false;
 
-            sb.append("{ ");
+            out.raw("{ ");
 
             // Is this a nested field?
             if (fieldIsNested(f)) {
 
-                sb.append("\"nested\": {");
-                sb.append("\"path\": \"").append(pathForNestedField(f)).append("\", ");
-                sb.append("\"query\": ");
+                out.raw("\"nested\": {");
+                out.raw("\"path\": ").quoted(pathForNestedField(f)).raw(", ");
+                out.raw("\"query\": ");
             }
 
-            sb.append("{\"bool\": {");
-            sb.append("\"should\": [");
+            out.raw("{\"bool\": {");
+            out.raw("\"should\": [");
 
-            AtomicBoolean firstValue = new AtomicBoolean(true);
+            boolean firstValue = true;
             for (String v : values) {
-                if (!firstValue.compareAndSet(true, false)) {
-                    sb.append(", ");
+                if (!firstValue) {
+                    out.raw(", ");
                 }
-                sb.append("{\"match\": { \"");
-                sb.append(f).append("\": {\"query\": \"").append(v).append("\"");
+                firstValue = false;
+                out.raw("{\"match\": { ");
+                out.quoted(f).raw(": {\"query\": ").quoted(v);
 
                 if (searchAnalyzer != null) {
-                    sb.append(", \"analyzer\": \"").append(searchAnalyzer).append("\"");
+                    out.raw(", \"analyzer\": ").quoted(searchAnalyzer);
                 }
-                sb.append("}}}");
+                out.raw("}}}");
             }
 
-            sb.append("]");
-            sb.append("}");
+            out.raw("]");
+            out.raw("}");
 
             if (fieldIsNested(f)) {
-                sb.append("}");
-                sb.append("}");
+                out.raw("}");
+                out.raw("}");
             }
 
-            sb.append("}");
+            out.raw("}");
         }
 
-        sb.append("]");
-        sb.append("}");
+        out.raw("]");
+        out.raw("}");
     }
 
 
@@ -26,13 +26,16 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import org.apache.commons.io.IOUtils;
 import org.onap.aai.sa.rest.DocumentFieldSchema;
 import org.onap.aai.sa.rest.DocumentSchema;
 
 public class DocumentSchemaUtil {
 
-    private static String dynamicCustomMapping = null;
+    private static final Lock dynamicCustomMappingLock = new ReentrantLock();
+    private static volatile String dynamicCustomMapping = null;
     private static final String DYNAMIC_CUSTOM_TEMPALTE_FILE =
             System.getProperty("CONFIG_HOME") + File.separator + "dynamic-custom-template.json";
 
@@ -49,22 +52,13 @@ public class DocumentSchemaUtil {
     public static String generateDocumentMappings(DocumentSchema schema) throws IOException {
         // Adding dynamic template to add fielddata=true to dynamic fields of type "string"
         // in order to avoid aggregation queries breaking in ESv6.1.2
-        if (dynamicCustomMapping == null) {
-            try {
-                dynamicCustomMapping = IOUtils.toString(new FileInputStream(DYNAMIC_CUSTOM_TEMPALTE_FILE), "UTF-8")
-                        .replaceAll("\\s+", "");
-            } catch (IOException e) {
-                throw new IOException(
-                        "Dynamic Custom template configuration went wrong! Please check for the correct template file.",
-                        e);
-            }
-        }
+        String customMapping = loadDynamicCustomMapping();
 
         // Now, generate the Elastic Search mapping json and return it.
         StringBuilder sb = new StringBuilder();
         sb.append("{");
         // Adding custom mapping which adds fielddata=true to dynamic fields of type "string"
-        sb.append(dynamicCustomMapping != null ? dynamicCustomMapping : "");
+        sb.append(customMapping != null ? customMapping : "");
         sb.append("\"properties\": {");
 
         generateFieldMappings(schema.getFields(), sb);
@@ -75,6 +69,31 @@ public class DocumentSchemaUtil {
         return sb.toString();
     }
 
+    /**
+     * Reads the dynamic custom template the first time it is needed.
+     */
+    private static String loadDynamicCustomMapping() throws IOException {
+        String customMapping = dynamicCustomMapping;
+        if (customMapping != null) {
+            return customMapping;
+        }
+
+        dynamicCustomMappingLock.lock();
+        try {
+            if (dynamicCustomMapping == null) {
+                try (FileInputStream in = new FileInputStream(DYNAMIC_CUSTOM_TEMPALTE_FILE)) {
+                    dynamicCustomMapping = IOUtils.toString(in, "UTF-8").replaceAll("\\s+", "");
+                } catch (IOException e) {
+                    throw new IOException("Dynamic Custom template configuration went wrong! "
+                            + "Please check for the correct template file.", e);
+                }
+            }
+            return dynamicCustomMapping;
+        } finally {
+            dynamicCustomMappingLock.unlock();
+        }
+    }
+
 
     private static void generateFieldMappings(List<DocumentFieldSchema> fields, StringBuilder sb) {
 
@@ -20,17 +20,35 @@
  */
 package org.onap.aai.sa.searchdbabstraction.util;
 
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import org.apache.commons.io.IOUtils;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.onap.aai.cl.api.Logger;
 import org.onap.aai.cl.eelf.LoggerFactory;
 import org.onap.aai.sa.searchdbabstraction.logging.SearchDbMsgs;
@@ -45,6 +63,11 @@ import org.onap.aai.sa.searchdbabstraction.logging.SearchDbMsgs;
  * So this class will make those translations reading off from a json configuration file, therefore the configuration
  * can be updated with new translations as and when required without touching the code.
  *
+ * The configuration is read and compiled when it is first needed, and read again whenever the file changes. Rules which
+ * select objects anywhere in the payload by the values of their own fields, such as
+ * <code>$..[?(@.type=='string' &amp;&amp; !@.index)]</code>, are all applied in a single walk of the payload. Any other
+ * JSON Path query is supported, but then every rule is evaluated in turn with JSON Path.
+ *
  * @author EDWINL
  *
  */
@@ -55,7 +78,33 @@ public class ElasticSearchPayloadTranslator {
     private static final String CONFIG_DIRECTORY = System.getProperty("CONFIG_HOME");
     private static final String ES_PAYLOAD_TRANSLATION_FILE = "es-payload-translation.json";
 
-    private ElasticSearchPayloadTranslator() { // Do not instantiate
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /** A query which selects every object, anywhere in the payload, matching a filter on its own fields. */
+    private static final Pattern SCAN_QUERY = Pattern.compile("^\\$\\.\\.\\[\\?\\((.*)\\)\\]$");
+    /** A term of such a filter: the field exists, does not exist, or is equal to a literal. */
+    private static final Pattern FIELD_TERM =
+            Pattern.compile("^\\s*(!?)\\s*@\\.([\\w-]+)\\s*(?:==\\s*('[^']*'|\"[^\"]*\"|[^'\"\\s]+))?\\s*$");
+
+    private final Path translationFile;
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile Rules rules;
+    private WatchService watcher;
+
+    /**
+     * Creates a translator which applies the rules in the supplied file, read when they are first needed.
+     *
+     * @param translationFile - The payload translation configuration file.
+     */
+    public ElasticSearchPayloadTranslator(Path translationFile) {
+        this.translationFile = translationFile;
+    }
+
+    /**
+     * @return - The translator using the configuration in the CONFIG_HOME directory.
+     */
+    public static ElasticSearchPayloadTranslator getInstance() {
+        return DefaultTranslator.INSTANCE;
     }
 
     /**
@@ -67,35 +116,286 @@ public class ElasticSearchPayloadTranslator {
      * @throws IOException
      */
     public static String translateESPayload(String source) throws IOException {
-        logger.info(SearchDbMsgs.PROCESS_PAYLOAD_QUERY, "translateESPayload, method-params[ source=" + source + "]",
-                "(unknown)");
-        String pathToTranslationFile = CONFIG_DIRECTORY + File.separator + ES_PAYLOAD_TRANSLATION_FILE;
+        return getInstance().translate(source);
+    }
+
+    /**
+     * Translates a payload with the rules in the configuration file.
+     *
+     * @param source - The payload to translate.
+     * @return - The translated payload.
+     * @throws IOException if the configuration cannot be read, or the payload cannot be parsed.
+     */
+    public String translate(String source) throws IOException {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Payload before translation: " + source);
+        }
+
+        Rules current = rules;
+        if (current == null) {
+            current = load(false);
+        }
+
+        String translated = current.apply(source);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Payload after translation: " + translated);
+        }
+        return translated;
+    }
 
+    /**
+     * Stops watching the configuration file for changes.
+     */
+    public void close() {
+        loadLock.lock();
         try {
-            JSONObject translationConfigPayload =
-                    new JSONObject(IOUtils.toString(new FileInputStream(new File(pathToTranslationFile)), "UTF-8"));
-            JSONArray attrTranslations = translationConfigPayload.getJSONArray("attr-translations");
-            DocumentContext payloadToTranslate = JsonPath.parse(source);
+            if (watcher != null) {
+                watcher.close();
+                watcher = null;
+            }
+        } catch (IOException e) {
+            logger.debug("Failed to stop watching " + translationFile + ": " + e.getMessage());
+        } finally {
+            loadLock.unlock();
+        }
+    }
 
-            for (Object obj : attrTranslations) {
-                JSONObject jsonObj = ((JSONObject) obj);
-                String query = jsonObj.get("query").toString();
-                JSONObject attrToUpdate = (JSONObject) jsonObj.get("update");
-                List<Map<String, Object>> filteredObjects = payloadToTranslate.read(query);
-                for (Map<String, Object> objMap : filteredObjects) {
-                    objMap.putAll(attrToUpdate.toMap());
+    /**
+     * Reads and compiles the rules, and starts watching the file for changes once they have first been read. Rules
+     * which have been read before are kept if the file can no longer be read.
+     *
+     * @param reload - true to read the rules even if they have already been read.
+     * @return - The rules in use.
+     */
+    private Rules load(boolean reload) throws IOException {
+        loadLock.lock();
+        try {
+            if (!reload && rules != null) {
+                return rules;
+            }
+            Rules loaded = compile(translationFile);
+            rules = loaded;
+            logger.info(SearchDbMsgs.PAYLOAD_TRANSLATION_LOADED, String.valueOf(loaded.size()),
+                    translationFile.toString());
+            if (watcher == null) {
+                watch();
+            }
+            return loaded;
+        } catch (IOException ex) {
+            logger.error(SearchDbMsgs.FILTERS_CONFIG_FAILURE, ex, ES_PAYLOAD_TRANSLATION_FILE, ex.getMessage());
+            throw ex;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void watch() {
+        Path directory = translationFile.toAbsolutePath().getParent();
+        try {
+            watcher = directory.getFileSystem().newWatchService();
+            directory.register(watcher, ENTRY_CREATE, ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.error(SearchDbMsgs.FILTERS_CONFIG_FAILURE, e, ES_PAYLOAD_TRANSLATION_FILE,
+                    "changes will not be applied until restart: " + e.getMessage());
+            return;
+        }
+
+        WatchService service = watcher;
+        Thread thread = new Thread(() -> reloadOnChange(service), "es-payload-translation-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void reloadOnChange(WatchService service) {
+        Path fileName = translationFile.getFileName();
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= event.context() == null || fileName.equals(event.context());
+                }
+                key.reset();
+                if (changed) {
+                    try {
+                        load(true);
+                    } catch (IOException e) {
+                        // Already logged; the previous rules remain in use.
+                    }
                 }
             }
+        } catch (ClosedWatchServiceException e) {
+            // The translator has been closed.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-            logger.info(SearchDbMsgs.PROCESS_PAYLOAD_QUERY,
-                    "Payload after translation: " + payloadToTranslate.jsonString());
-            return payloadToTranslate.jsonString();
-        } catch (JSONException ex) {
-            logger.error(SearchDbMsgs.FILTERS_CONFIG_FAILURE, ex, ES_PAYLOAD_TRANSLATION_FILE, ex.getMessage());
+    private static Rules compile(Path translationFile) throws IOException {
+        JsonNode config;
+        try {
+            config = mapper.readTree(Files.readAllBytes(translationFile));
+        } catch (JsonProcessingException ex) {
             throw new IOException("Payload translation configuration looks corrupted. Please correct!", ex);
         } catch (IOException ex) {
-            logger.error(SearchDbMsgs.FILTERS_CONFIG_FAILURE, ex, ES_PAYLOAD_TRANSLATION_FILE, ex.getMessage());
             throw new IOException("Error in configuring payload translation file. Please check if it exists.", ex);
         }
+
+        JsonNode attrTranslations = config == null ? null : config.get("attr-translations");
+        if (attrTranslations == null || !attrTranslations.isArray()) {
+            throw new IOException("Payload translation configuration looks corrupted. Please correct!");
+        }
+
+        List<Rule> compiled = new ArrayList<>();
+        for (JsonNode translation : attrTranslations) {
+            JsonNode query = translation.get("query");
+            JsonNode update = translation.get("update");
+            if (query == null || update == null || !update.isObject()) {
+                throw new IOException("Payload translation configuration looks corrupted. Please correct!");
+            }
+            try {
+                compiled.add(new Rule(query.asText(), (ObjectNode) update));
+            } catch (InvalidPathException ex) {
+                throw new IOException("Payload translation configuration looks corrupted. Please correct!", ex);
+            }
+        }
+        return new Rules(compiled);
+    }
+
+    /**
+     * Compiles a filter made of field terms joined with <code>&amp;&amp;</code>.
+     *
+     * @return - The filter, or null if it is not made only of such terms.
+     */
+    private static Predicate<ObjectNode> compileFilter(String filter) {
+        Predicate<ObjectNode> compiled = node -> true;
+        for (String term : filter.split("&&", -1)) {
+            Matcher matcher = FIELD_TERM.matcher(term);
+            if (!matcher.matches()) {
+                return null;
+            }
+            boolean negated = !matcher.group(1).isEmpty();
+            String field = matcher.group(2);
+            String literal = matcher.group(3);
+            Predicate<ObjectNode> termFilter;
+            if (literal == null) {
+                termFilter = negated ? node -> !node.has(field) : node -> node.has(field);
+            } else {
+                Predicate<JsonNode> equalsLiteral = compileLiteral(literal);
+                if (negated || equalsLiteral == null) {
+                    return null;
+                }
+                termFilter = node -> node.has(field) && equalsLiteral.test(node.get(field));
+            }
+            compiled = compiled.and(termFilter);
+        }
+        return compiled;
+    }
+
+    private static Predicate<JsonNode> compileLiteral(String literal) {
+        if (literal.length() >= 2 && (literal.charAt(0) == '\'' || literal.charAt(0) == '"')) {
+            String text = literal.substring(1, literal.length() - 1);
+            return value -> value.isTextual() && value.textValue().equals(text);
+        }
+        if ("true".equals(literal) || "false".equals(literal)) {
+            boolean bool = Boolean.parseBoolean(literal);
+            return value -> value.isBoolean() && value.booleanValue() == bool;
+        }
+        if ("null".equals(literal)) {
+            return JsonNode::isNull;
+        }
+        try {
+            BigDecimal number = new BigDecimal(literal);
+            return value -> value.isNumber() && value.decimalValue().compareTo(number) == 0;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A translation rule: the objects selected by a query have the fields of the update set on them.
+     */
+    private static final class Rule {
+
+        private final JsonPath query;
+        private final Predicate<ObjectNode> filter;
+        private final ObjectNode update;
+        private final Map<String, Object> updateFields;
+
+        @SuppressWarnings("unchecked")
+        Rule(String query, ObjectNode update) {
+            this.query = JsonPath.compile(query);
+            Matcher scan = SCAN_QUERY.matcher(query.trim());
+            this.filter = scan.matches() ? compileFilter(scan.group(1)) : null;
+            this.update = update;
+            this.updateFields = Collections.unmodifiableMap(mapper.convertValue(update, Map.class));
+        }
+    }
+
+    /**
+     * The compiled rules, applied in the order in which they are configured.
+     */
+    private static final class Rules {
+
+        private final List<Rule> rules;
+        private final boolean singleWalk;
+
+        Rules(List<Rule> rules) {
+            this.rules = rules;
+            boolean allFilters = true;
+            for (Rule rule : rules) {
+                allFilters &= rule.filter != null;
+            }
+            this.singleWalk = allFilters;
+        }
+
+        int size() {
+            return rules.size();
+        }
+
+        String apply(String source) throws IOException {
+            if (singleWalk) {
+                JsonNode payload = mapper.readTree(source);
+                walk(payload);
+                return mapper.writeValueAsString(payload);
+            }
+
+            DocumentContext payloadToTranslate = JsonPath.parse(source);
+            for (Rule rule : rules) {
+                List<Map<String, Object>> filteredObjects = payloadToTranslate.read(rule.query);
+                for (Map<String, Object> objMap : filteredObjects) {
+                    objMap.putAll(rule.updateFields);
+                }
+            }
+            return payloadToTranslate.jsonString();
+        }
+
+        /**
+         * Applies every rule to an object before walking its fields, so that each rule sees the object as the rules
+         * before it have left it, as when the rules are evaluated in turn.
+         */
+        private void walk(JsonNode node) {
+            if (node.isObject()) {
+                ObjectNode object = (ObjectNode) node;
+                for (Rule rule : rules) {
+                    if (rule.filter.test(object)) {
+                        object.setAll(rule.update.deepCopy());
+                    }
+                }
+            }
+            if (node.isContainerNode()) {
+                for (Iterator<JsonNode> children = node.elements(); children.hasNext();) {
+                    walk(children.next());
+                }
+            }
+        }
+    }
+
+    /**
+     * Holds the translator for the CONFIG_HOME directory, which is created when it is first used.
+     */
+    private static final class DefaultTranslator {
+        private static final ElasticSearchPayloadTranslator INSTANCE = new ElasticSearchPayloadTranslator(
+                Paths.get(CONFIG_DIRECTORY + File.separator + ES_PAYLOAD_TRANSLATION_FILE));
     }
 }
@@ -44,6 +44,20 @@ public class SearchDbConstants {
     public static final String SDB_ANALYSIS_CONFIG_FILE = SDB_SPECIFIC_CONFIG + "analysis-config.json";
     public static final String SDB_SETTINGS_CONFIG_FILE = SDB_SPECIFIC_CONFIG + "settings-config.json";
 
+    // Threading related
+    public static final String SDB_VIRTUAL_THREADS_PROPERTY = "search.virtual-threads.enabled";
+
+    // Bulk job related
+    public static final String SDB_BULK_JOB_WORKERS_PROPERTY = "search.bulk-jobs.workers";
+    public static final String SDB_BULK_JOB_QUEUE_SIZE_PROPERTY = "search.bulk-jobs.queue-size";
+    public static final String SDB_BULK_JOB_RETENTION_PROPERTY = "search.bulk-jobs.retention-ms";
+
+    // Streamed response related
+    public static final String SDB_STREAMING_TIMEOUT_PROPERTY = "search.streaming.timeout-ms";
+
+    // Search template related
+    public static final String SDB_SEARCH_TEMPLATE_MAX_PROPERTY = "search.templates.max";
+
     // Logging related
     public static final String SDB_SERVICE_NAME = "SearchDataService";
 
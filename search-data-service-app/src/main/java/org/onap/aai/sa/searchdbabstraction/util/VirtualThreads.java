@@ -0,0 +1,135 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.onap.aai.cl.api.Logger;
+import org.onap.aai.cl.eelf.LoggerFactory;
+import org.onap.aai.sa.searchdbabstraction.logging.SearchDbMsgs;
+
+/**
+ * Access to virtual threads when the service is both configured to use them and running on a JVM which provides them.
+ *
+ * <p>
+ * Virtual threads are enabled with the {@value SearchDbConstants#SDB_VIRTUAL_THREADS_PROPERTY} system property. The
+ * service is built for Java 8, so the JDK 21 API is looked up reflectively and the platform thread behaviour is kept
+ * when it is not available.
+ *
+ * <p>
+ * Code which may run on a virtual thread guards blocking work with a {@link java.util.concurrent.locks.Lock} rather
+ * than an object monitor, since a virtual thread which blocks while holding or waiting for a monitor is pinned to its
+ * carrier thread, and so holds up the other virtual threads scheduled on that carrier.
+ */
+public final class VirtualThreads {
+
+    private static final Logger logger = LoggerFactory.getInstance().getLogger(VirtualThreads.class.getName());
+
+    private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+    private static final Method BUILDER_NAME = findMethod(classForName("java.lang.Thread$Builder"), "name",
+            String.class, long.class);
+    private static final Method BUILDER_FACTORY =
+            findMethod(classForName("java.lang.Thread$Builder"), "factory");
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR =
+            findMethod(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+
+    private static final boolean ENABLED = Boolean.getBoolean(SearchDbConstants.SDB_VIRTUAL_THREADS_PROPERTY);
+
+    private VirtualThreads() { // Do not instantiate
+    }
+
+    /**
+     * @return true if virtual threads were requested and the running JVM supports them.
+     */
+    public static boolean isEnabled() {
+        return ENABLED && isSupported();
+    }
+
+    /**
+     * @return true if the running JVM supports virtual threads.
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null && BUILDER_NAME != null && BUILDER_FACTORY != null
+                && NEW_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Creates an executor which starts a new virtual thread for each task.
+     *
+     * @param namePrefix - The prefix for the names of the threads, which are numbered from zero.
+     * @return - The executor.
+     * @throws UnsupportedOperationException if the running JVM does not support virtual threads.
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by this JVM");
+        }
+        try {
+            Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Failed to create a virtual thread executor", e);
+        }
+    }
+
+    /**
+     * Creates an executor for blocking tasks: virtual threads when enabled, otherwise a cached pool of daemon platform
+     * threads.
+     *
+     * @param namePrefix - The prefix for the names of the threads, which are numbered from zero.
+     * @return - The executor.
+     */
+    public static ExecutorService newBlockingTaskExecutor(String namePrefix) {
+        if (isEnabled()) {
+            logger.info(SearchDbMsgs.VIRTUAL_THREADS_ENABLED, namePrefix);
+            return newThreadPerTaskExecutor(namePrefix);
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static Class<?> classForName(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        if (type == null) {
+            return null;
+        }
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
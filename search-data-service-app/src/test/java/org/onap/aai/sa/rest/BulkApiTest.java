@@ -20,9 +20,15 @@
  */
 package org.onap.aai.sa.rest;
 
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.File;
 import java.io.IOException;
 import org.junit.Test;
@@ -33,6 +39,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 
 /**
@@ -83,4 +90,57 @@ public class BulkApiTest {
         this.mockMvc.perform(post(TOP_URI).contentType(MediaType.APPLICATION_JSON).content(inValidPayloadStr))
                 .andExpect(status().isBadRequest());
     }
+
+    /**
+     * This test validates that a newline delimited stream of operations is accepted and that the results are streamed
+     * back, ending with a summary line.
+     */
+    @Test
+    public void streamingBulkTest() throws Exception {
+        String operations = "{\"create\":{\"metaData\":{\"url\":\"/indexes/test-index/documents/\"},"
+                + "\"document\":{\"field1\":\"value1\"}}}\n"
+                + "{\"delete\":{\"metaData\":{\"url\":\"/indexes/test-index/documents/7\"}}}\n";
+
+        MvcResult asyncResult = this.mockMvc
+                .perform(post(TOP_URI).contentType(BulkApi.APPLICATION_NDJSON_VALUE).content(operations))
+                .andExpect(request().asyncStarted()).andReturn();
+
+        MvcResult result = this.mockMvc.perform(asyncDispatch(asyncResult)).andExpect(status().isOk()).andReturn();
+        String output = result.getResponse().getContentAsString().trim();
+        String summary = output.substring(output.lastIndexOf('\n') + 1);
+        assertTrue("Unexpected summary " + summary, summary.startsWith("{\"total_operations\":"));
+    }
+
+    @Test
+    public void bulkJobTest() throws Exception {
+        String operations = "[{\"create\":{\"metaData\":{\"url\":\"/indexes/test-index/documents/\"},"
+                + "\"document\":{\"field1\":\"value1\"}}},"
+                + "{\"delete\":{\"metaData\":{\"url\":\"/indexes/test-index/documents/7\"}}}]";
+
+        MvcResult accepted = this.mockMvc
+                .perform(post(TOP_URI + "/jobs").contentType(MediaType.APPLICATION_JSON).content(operations))
+                .andExpect(status().isAccepted()).andReturn();
+        ObjectMapper mapper = new ObjectMapper();
+        String jobId = mapper.readTree(accepted.getResponse().getContentAsString()).get("job_id").asText();
+
+        // The job runs in the background, so poll until it has finished.
+        JsonNode job = null;
+        for (int i = 0; i < 100; i++) {
+            MvcResult result =
+                    this.mockMvc.perform(get(TOP_URI + "/jobs/" + jobId)).andExpect(status().isOk()).andReturn();
+            job = mapper.readTree(result.getResponse().getContentAsString());
+            if ("completed".equals(job.get("status").asText())) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+        assertTrue("Unexpected job status " + job, "completed".equals(job.get("status").asText()));
+        assertTrue("Unexpected job status " + job, job.get("total_operations").asInt() == 2);
+        assertTrue("Unexpected job status " + job, job.get("results").isArray());
+    }
+
+    @Test
+    public void unknownBulkJobTest() throws Exception {
+        this.mockMvc.perform(get(TOP_URI + "/jobs/no-such-job")).andExpect(status().isNotFound());
+    }
 }
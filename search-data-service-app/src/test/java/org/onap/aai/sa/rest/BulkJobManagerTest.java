@@ -0,0 +1,192 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.rest;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.junit.After;
+import org.junit.Test;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.exception.DocumentStoreUnavailableException;
+import org.onap.aai.sa.searchdbabstraction.entity.OperationResult;
+
+public class BulkJobManagerTest {
+
+    private final List<Integer> windowSizes = new CopyOnWriteArrayList<>();
+    private BulkJobManager manager;
+
+    @After
+    public void tearDown() {
+        if (manager != null) {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void testJobCompletesWithResultsInOrder() throws Exception {
+        manager = new BulkJobManager(1, 10, 60_000);
+
+        BulkJob job = manager.submit(operations(2500), this::perform);
+        JsonNode status = awaitFinished(job.getId());
+
+        assertThat(windowSizes.size(), is(3));
+        assertThat(status.get("status").asText(), is("completed"));
+        assertThat(status.get("total_operations").asInt(), is(2500));
+        assertThat(status.get("total_success").asInt(), is(2500));
+        assertThat(status.get("total_fails").asInt(), is(0));
+        assertThat(status.get("results").size(), is(2500));
+        for (int i = 0; i < 2500; i++) {
+            assertThat(status.get("results").get(i).get("url").asText(), is(url(i)));
+        }
+    }
+
+    @Test
+    public void testFailedWindowIsReportedPerOperation() throws Exception {
+        manager = new BulkJobManager(1, 10, 60_000);
+        Function<BulkRequest[], OperationResult> unavailable = window -> {
+            throw new CompletionException(new DocumentStoreUnavailableException("no nodes available", null));
+        };
+
+        BulkJob job = manager.submit(operations(3), unavailable);
+        JsonNode status = awaitFinished(job.getId());
+
+        assertThat(status.get("status").asText(), is("completed"));
+        assertThat(status.get("total_fails").asInt(), is(3));
+        assertThat(status.get("results").get(0).get("status-code").asText(), is("503"));
+    }
+
+    @Test
+    public void testSubmissionIsRejectedWhenQueueIsFull() throws Exception {
+        manager = new BulkJobManager(1, 1, 60_000);
+        CountDownLatch release = new CountDownLatch(1);
+        Function<BulkRequest[], OperationResult> blocked = window -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return perform(window);
+        };
+
+        BulkJob running = manager.submit(operations(1), blocked);
+        awaitStatus(running, BulkJob.Status.RUNNING);
+        BulkJob queued = manager.submit(operations(1), blocked);
+        BulkJob rejected = manager.submit(operations(1), blocked);
+        release.countDown();
+
+        assertThat(queued, is(notNullValue()));
+        assertThat(rejected, is(nullValue()));
+        assertThat(awaitFinished(queued.getId()).get("status").asText(), is("completed"));
+    }
+
+    @Test
+    public void testFinishedJobExpires() throws Exception {
+        manager = new BulkJobManager(1, 10, 0);
+
+        BulkJob job = manager.submit(operations(1), this::perform);
+        awaitStatus(job, BulkJob.Status.COMPLETED);
+        Thread.sleep(5);
+
+        assertThat(manager.get(job.getId()), is(nullValue()));
+    }
+
+    @Test
+    public void testJustFinishedJobHasNotExpired() throws Exception {
+        long retentionNanos = TimeUnit.HOURS.toNanos(1);
+
+        BulkJob completed = new BulkJob("completed", operations(1));
+        completed.run(this::perform, 10);
+        BulkJob failed = new BulkJob("failed", operations(1));
+        failed.run(window -> {
+            throw new IllegalStateException("unexpected");
+        }, 10);
+
+        assertThat(completed.getStatus(), is(BulkJob.Status.COMPLETED));
+        assertThat(completed.isExpired(retentionNanos), is(false));
+        assertThat(failed.getStatus(), is(BulkJob.Status.FAILED));
+        assertThat(failed.isExpired(retentionNanos), is(false));
+    }
+
+    private JsonNode awaitFinished(String id) throws Exception {
+        BulkJob job = manager.get(id);
+        awaitStatus(job, BulkJob.Status.COMPLETED);
+
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator gen = new JsonFactory().createGenerator(writer)) {
+            job.writeStatus(gen);
+        }
+        return new ObjectMapper().readTree(writer.toString());
+    }
+
+    private static void awaitStatus(BulkJob job, BulkJob.Status status) throws InterruptedException {
+        for (int i = 0; i < 200 && job.getStatus() != status; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(job.getStatus(), is(status));
+    }
+
+    /**
+     * Answers each window with a created status for each operation.
+     */
+    private OperationResult perform(BulkRequest[] window) {
+        windowSizes.add(window.length);
+        StringBuilder sb = new StringBuilder("{\"total_operations\":").append(window.length).append(",\"results\":[");
+        for (int i = 0; i < window.length; i++) {
+            sb.append(i == 0 ? "" : ",").append("{\"operation\":\"create\",\"url\":\"")
+                    .append(window[i].getOperation().getMetaData().getUrl()).append("\",\"status-code\":\"201\"}");
+        }
+        OperationResult result = new OperationResult();
+        result.setResultCode(200);
+        result.setResult(sb.append("]}").toString());
+        return result;
+    }
+
+    private static BulkRequest[] operations(int count) {
+        BulkRequest[] requests = new BulkRequest[count];
+        for (int i = 0; i < count; i++) {
+            BulkMetaData metaData = new BulkMetaData();
+            metaData.setUrl(url(i));
+            BulkOperation operation = new BulkOperation();
+            operation.setMetaData(metaData);
+            operation.setDocument(new Document());
+            requests[i] = new BulkRequest();
+            requests[i].setCreate(operation);
+        }
+        return requests;
+    }
+
+    private static String url(int i) {
+        return "/indexes/test-index/documents/" + i;
+    }
+}
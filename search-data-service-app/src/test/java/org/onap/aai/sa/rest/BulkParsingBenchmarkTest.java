@@ -0,0 +1,121 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.lang.management.ManagementFactory;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares the time and memory taken to turn a bulk request of 10,000 operations into the body of a request to the
+ * document store, binding each operation to a tree of objects as the bulk endpoint used to, with reading it with the
+ * streaming parser and copying each document as it stands.
+ */
+@Ignore("Benchmark - run manually")
+public class BulkParsingBenchmarkTest {
+
+    private static final int OPERATIONS = 10_000;
+    private static final int ITERATIONS = 20;
+
+    private static final String ACTION_TEMPLATE =
+            "{\"create\":{\"_index\" : \"%s\", \"_type\" : \"%s\", \"_id\" : \"%s\" } }\n";
+
+    @Test
+    public void compareBulkParsing() throws Exception {
+        String content = buildContent(OPERATIONS);
+        measure("object binding", () -> renderBound(content));
+        measure("streaming parser", () -> renderStreamed(content));
+    }
+
+    private void measure(String name, Renderer renderer) throws Exception {
+        for (int i = 0; i < ITERATIONS; i++) {
+            renderer.render();
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocated = 0;
+        long elapsed = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            renderer.render();
+            elapsed += System.nanoTime() - start;
+            allocated += threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        }
+
+        System.out.printf("%6d operations, %-18s %8.2f ms, allocated %10.1f KB/request%n", OPERATIONS, name,
+                elapsed / 1e6 / ITERATIONS, allocated / 1024.0 / ITERATIONS);
+    }
+
+    /**
+     * The previous approach: a new mapper binds the request, each document is serialized again with another new
+     * mapper, each action line is formatted from a template, and the URL is split once for each part read from it.
+     */
+    private String renderBound(String content) throws Exception {
+        BulkRequest[] requests = new ObjectMapper().readValue(content, BulkRequest[].class);
+        StringBuilder sb = new StringBuilder();
+        for (BulkRequest request : requests) {
+            String url = request.getOperation().getMetaData().getUrl();
+            ApiUtils.validateDocumentUri(url, false);
+            sb.append(String.format(ACTION_TEMPLATE, ApiUtils.extractIndexFromUri(url), "default",
+                    ApiUtils.extractIdFromUri(url)));
+            sb.append(new ObjectMapper().writeValueAsString(request.getOperation().getDocument())).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private String renderStreamed(String content) throws Exception {
+        BulkRequest[] requests = BulkRequestParser.parseOperations(content);
+        StringBuilder sb = new StringBuilder();
+        for (BulkRequest request : requests) {
+            request.getOperation().getMetaData().isValidDocumentUrl(false);
+            sb.append("{\"create\":{\"_index\":\"").append(request.getIndex()).append("\",\"_type\":\"default\",")
+                    .append("\"_id\":\"").append(request.getId()).append("\"}}\n");
+            request.getOperation().getDocument().appendJson(sb);
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String buildContent(int operations) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < operations; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"create\":{\"metaData\":{\"url\":\"")
+                    .append(ApiUtils.buildDocumentUri("test-index", "doc-" + i)).append("\"},")
+                    .append("\"document\":{\"entityType\":\"service-instance\",")
+                    .append("\"edgeTagQueryEntityFieldName\":\"service-instance.service-instance-id\",")
+                    .append("\"edgeTagQueryEntityFieldValue\":\"").append(100000 + i).append("\",")
+                    .append("\"searchTagIDs\":\"").append(i).append("\",")
+                    .append("\"searchTags\":\"service-instance-id\"}}}");
+        }
+        return sb.append(']').toString();
+    }
+
+    @FunctionalInterface
+    private interface Renderer {
+        void render() throws Exception;
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.rest;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import org.junit.Test;
+
+public class BulkRequestParserTest {
+
+    private static final String URL = "/services/search-data-service/v1/search/indexes/index1/documents/doc1";
+
+    @Test
+    public void testParseOperations() throws Exception {
+        String content = "[{\"create\":{\"metaData\":{\"url\":\"" + URL + "\"},"
+                + "\"document\":{\"name\": \"a \\\"quoted} value\", \"nested\": {\"list\": [1, 2]}}}},"
+                + "{\"update\":{\"metaData\":{\"url\":\"" + URL + "\",\"etag\":\"3\"},\"document\":{\"name\":\"b\"}}},"
+                + "{\"delete\":{\"metaData\":{\"url\":\"" + URL + "\",\"etag\":4}}}]";
+
+        BulkRequest[] requests = BulkRequestParser.parseOperations(content);
+
+        assertThat(requests.length, is(3));
+        assertThat(requests[0].getOperationType(), is(BulkRequest.OperationType.CREATE));
+        assertThat(requests[0].getIndex(), is("index1"));
+        assertThat(requests[0].getId(), is("doc1"));
+        assertThat(requests[0].getOperation().getMetaData().isValidDocumentUrl(true), is(true));
+        assertThat(requests[0].getOperation().getDocument().toJson(),
+                is("{\"name\": \"a \\\"quoted} value\", \"nested\": {\"list\": [1, 2]}}"));
+        assertThat(requests[1].getOperationType(), is(BulkRequest.OperationType.UPDATE));
+        assertThat(requests[1].getOperation().getMetaData().getEtag(), is("3"));
+        assertThat(requests[2].getOperationType(), is(BulkRequest.OperationType.DELETE));
+        assertThat(requests[2].getOperation().getMetaData().getEtag(), is("4"));
+        assertThat(requests[2].getOperation().getDocument(), is(nullValue()));
+    }
+
+    @Test
+    public void testDocumentIsCopiedWithoutParsing() throws Exception {
+        String content = "[{\"create\":{\"metaData\":{\"url\":\"" + URL + "\"},\"document\":{\"name\":\"a\"}}}]";
+
+        Document document = BulkRequestParser.parseOperations(content)[0].getOperation().getDocument();
+        StringBuilder sb = new StringBuilder("prefix:");
+        document.appendJson(sb);
+
+        assertThat(sb.toString(), is("prefix:{\"name\":\"a\"}"));
+        assertThat(document.getFields().get("name"), is((Object) "a"));
+    }
+
+    @Test
+    public void testMultiLineDocumentIsWrittenOnOneLine() throws Exception {
+        String content = "[\n  {\n    \"create\": {\n      \"metaData\": {\"url\": \"" + URL + "\"},\n"
+                + "      \"document\": {\n        \"name\": \"a\",\n        \"count\": 2\n      }\n    }\n  }\n]";
+
+        Document document = BulkRequestParser.parseOperations(content)[0].getOperation().getDocument();
+
+        assertThat(document.toJson(), is("{\"name\":\"a\",\"count\":2}"));
+    }
+
+    @Test
+    public void testDocumentFieldsCanBeChanged() throws Exception {
+        Document document =
+                BulkRequestParser.parseOperation("{\"create\":{\"document\":{\"name\":\"a\"}}}").getCreate()
+                        .getDocument();
+
+        document.setField("name", "b");
+
+        assertThat(document.toJson(), is("{\"name\":\"b\"}"));
+    }
+
+    @Test
+    public void testUrlWithoutDocumentId() throws Exception {
+        BulkRequest request = BulkRequestParser.parseOperation(
+                "{\"create\":{\"metaData\":{\"url\":\"/services/search-data-service/v1/search/indexes/index1/"
+                        + "documents\"},\"document\":{}}}");
+
+        assertThat(request.getIndex(), is("index1"));
+        assertThat(request.getId(), is(nullValue()));
+        assertThat(request.getOperation().getMetaData().isValidDocumentUrl(false), is(true));
+        assertThat(request.getOperation().getMetaData().isValidDocumentUrl(true), is(false));
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnrecognizedFieldIsRejected() throws Exception {
+        BulkRequestParser.parseOperations("[{\"upsert\":{}}]");
+    }
+
+    @Test(expected = IOException.class)
+    public void testOperationsMustBeAnArray() throws Exception {
+        BulkRequestParser.parseOperations("{\"create\":{}}");
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedContentIsRejected() throws Exception {
+        BulkRequestParser.parseOperations("[{\"create\":{\"document\":{\"name\":");
+    }
+}
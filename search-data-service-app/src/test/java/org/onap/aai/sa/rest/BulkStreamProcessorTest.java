@@ -0,0 +1,182 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.rest;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.Test;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.exception.DocumentStoreUnavailableException;
+import org.onap.aai.sa.searchdbabstraction.entity.OperationResult;
+
+public class BulkStreamProcessorTest {
+
+    private static final String OPERATION = "{\"create\":{\"metaData\":{\"url\":\"/indexes/test-index/documents/%d\"},"
+            + "\"document\":{\"field1\":\"v\"}}}";
+
+    private final List<Integer> windowSizes = new CopyOnWriteArrayList<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+
+    @Test
+    public void testResultsAreStreamedInOrder() throws Exception {
+        List<JsonNode> lines = process(new BulkStreamProcessor(this::perform, 10, 2), operations(25));
+
+        assertThat(windowSizes.size(), is(3));
+        assertThat(lines.size(), is(26));
+        for (int i = 0; i < 25; i++) {
+            assertThat(lines.get(i).get("url").asText(), is("/indexes/test-index/documents/" + i));
+            assertThat(lines.get(i).get("status-code").asText(), is("201"));
+        }
+        JsonNode summary = lines.get(25);
+        assertThat(summary.get("total_operations").asInt(), is(25));
+        assertThat(summary.get("total_success").asInt(), is(25));
+        assertThat(summary.get("total_fails").asInt(), is(0));
+    }
+
+    @Test
+    public void testWindowsInFlightAreBounded() throws Exception {
+        Function<BulkRequest[], OperationResult> slow = window -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+                return perform(window);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                active.decrementAndGet();
+            }
+        };
+
+        List<JsonNode> lines = process(new BulkStreamProcessor(slow, 5, 2), operations(50));
+
+        assertThat(lines.size(), is(51));
+        assertTrue("Too many windows in flight: " + maxActive.get(), maxActive.get() <= 2);
+    }
+
+    @Test
+    public void testMalformedLinesAreRejectedInPlace() throws Exception {
+        String input = "not json\n" + String.format(OPERATION, 0) + "\n\nnot json\n" + String.format(OPERATION, 1)
+                + "\n";
+
+        List<JsonNode> lines = process(new BulkStreamProcessor(this::perform, 10, 2), input);
+
+        assertThat(lines.size(), is(5));
+        assertThat(lines.get(0).get("line").asInt(), is(1));
+        assertThat(lines.get(0).get("status-code").asText(), is("400"));
+        assertThat(lines.get(1).get("url").asText(), is("/indexes/test-index/documents/0"));
+        assertThat(lines.get(2).get("line").asInt(), is(4));
+        assertThat(lines.get(2).get("status-code").asText(), is("400"));
+        assertThat(lines.get(3).get("url").asText(), is("/indexes/test-index/documents/1"));
+        assertThat(lines.get(4).get("total_operations").asInt(), is(4));
+        assertThat(lines.get(4).get("total_fails").asInt(), is(2));
+    }
+
+    @Test
+    public void testMalformedLinesAreRejectedInPlaceAmongFailures() throws Exception {
+        Function<BulkRequest[], OperationResult> unavailable = window -> {
+            throw new CompletionException(new DocumentStoreUnavailableException("unavailable", null));
+        };
+        String input = String.format(OPERATION, 0) + "\nnot json\n" + String.format(OPERATION, 1) + "\nnot json\n";
+
+        List<JsonNode> lines = process(new BulkStreamProcessor(unavailable, 10, 2), input);
+
+        assertThat(lines.size(), is(5));
+        assertThat(lines.get(0).get("status-code").asText(), is("503"));
+        assertThat(lines.get(1).get("line").asInt(), is(2));
+        assertThat(lines.get(2).get("status-code").asText(), is("503"));
+        assertThat(lines.get(3).get("line").asInt(), is(4));
+        assertThat(lines.get(4).get("total_fails").asInt(), is(4));
+    }
+
+    @Test
+    public void testFailedWindowIsReportedPerOperation() throws Exception {
+        Function<BulkRequest[], OperationResult> unavailable = window -> {
+            throw new CompletionException(new DocumentStoreUnavailableException("unavailable", null));
+        };
+
+        List<JsonNode> lines = process(new BulkStreamProcessor(unavailable, 10, 2), operations(3));
+
+        assertThat(lines.size(), is(4));
+        assertThat(lines.get(0).get("operation").asText(), is("create"));
+        assertThat(lines.get(0).get("status-code").asText(), is("503"));
+        assertThat(lines.get(3).get("total_fails").asInt(), is(3));
+    }
+
+    @Test
+    public void testEmptyRequest() throws Exception {
+        List<JsonNode> lines = process(new BulkStreamProcessor(this::perform, 10, 2), "");
+
+        assertThat(lines.size(), is(1));
+        assertThat(lines.get(0).get("total_operations").asInt(), is(0));
+    }
+
+    private OperationResult perform(BulkRequest[] window) {
+        windowSizes.add(window.length);
+        StringBuilder results = new StringBuilder();
+        for (BulkRequest request : window) {
+            if (results.length() > 0) {
+                results.append(", ");
+            }
+            results.append("{\"operation\": \"create\", \"url\": \"")
+                    .append(request.getOperation().getMetaData().getUrl())
+                    .append("\", \"etag\": \"1\", \"status-code\": \"201\", \"status-message\": \"OK\"}");
+        }
+        OperationResult result = new OperationResult();
+        result.setResultCode(207);
+        result.setResult("{ \"total_operations\": " + window.length + ", \"total_success\": " + window.length
+                + ", \"total_fails\": 0, \"results\": [" + results + "]}");
+        return result;
+    }
+
+    private static String operations(int count) {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            input.append(String.format(OPERATION, i)).append('\n');
+        }
+        return input.toString();
+    }
+
+    private static List<JsonNode> process(BulkStreamProcessor processor, String input) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        processor.process(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out);
+
+        List<JsonNode> lines = new ArrayList<>();
+        ObjectMapper mapper = new ObjectMapper();
+        for (String line : new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+            assertTrue(line, line.startsWith("{"));
+            lines.add(mapper.readTree(line));
+        }
+        return lines;
+    }
+}
@@ -20,13 +20,20 @@
  */
 package org.onap.aai.sa.rest;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 
 import java.io.IOException;
+import java.util.Base64;
+import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
@@ -57,6 +64,9 @@ public class DocumentApiTest {
     private static final String COMPLEX_QUERY = "{" + "\"filter\": {" + "\"all\": ["
             + "{\"match\": {\"field\": \"searchTags\", \"value\": \"a\"}}" + "]" + "}," + "\"queries\": ["
             + "{\"may\": {\"parsed-query\": {\"field\": \"searchTags\", \"query-string\": \"b\"}}}" + "]" + "}";
+    private static final String CURSOR_QUERY = "{\"queries\": ["
+            + "{\"may\": {\"parsed-query\": {\"field\": \"searchTags\", \"query-string\": \"b\"}}}],"
+            + "\"sort\": {\"field\": \"searchTags\"}, \"results-size\": 1, \"cursor\": \"%s\"%s}";
 
     private static final String CREATE_JSON_CONTENT = "creation content";
 
@@ -123,10 +133,11 @@ public class DocumentApiTest {
 
         // MvcResult result = this.mockMvc.perform ( get ( INDEXES_URI + INDEX_NAME + "/" + DOCUMENT_URI + DOC_ID )
         // ).andReturn ();
-        MvcResult result = this.mockMvc
+        MvcResult asyncResult = this.mockMvc
                 .perform(get(INDEXES_URI + INDEX_NAME + "/" + DOCUMENT_URI + DOC_ID)
                         .contentType(MediaType.APPLICATION_JSON).header("If-Match", "1").content(CREATE_JSON_CONTENT))
-                .andReturn();
+                .andExpect(request().asyncStarted()).andReturn();
+        MvcResult result = this.mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
 
 
         // Our stub document store DAO returns the parameters that it was
@@ -174,10 +185,11 @@ public class DocumentApiTest {
      */
     @Ignore
     public void searchDocumentTest1() throws Exception {
-        MvcResult result = this.mockMvc
+        MvcResult asyncResult = this.mockMvc
                 .perform(get(INDEXES_URI + INDEX_NAME + "/" + SEARCH_URI + SIMPLE_QUERY)
                         .contentType(MediaType.APPLICATION_JSON).header("If-Match", "1").content(CREATE_JSON_CONTENT))
-                .andReturn();
+                .andExpect(request().asyncStarted()).andReturn();
+        MvcResult result = this.mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
 
         JSONParser parser = new JSONParser();
         JSONObject json = (JSONObject) parser.parse(result.getResponse().getContentAsString());
@@ -193,8 +205,10 @@ public class DocumentApiTest {
      */
     @Test
     public void searchDocumentTest2() throws Exception {
-        MvcResult result = this.mockMvc.perform(get(INDEXES_URI + INDEX_NAME + "/" + SEARCH_URI)
-                .contentType(MediaType.APPLICATION_JSON).content(COMPLEX_QUERY)).andReturn();
+        MvcResult asyncResult = this.mockMvc.perform(get(INDEXES_URI + INDEX_NAME + "/" + SEARCH_URI)
+                .contentType(MediaType.APPLICATION_JSON).content(COMPLEX_QUERY))
+                .andExpect(request().asyncStarted()).andReturn();
+        MvcResult result = this.mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
 
         JSONParser parser = new JSONParser();
         JSONObject json = (JSONObject) parser.parse(result.getResponse().getContentAsString());
@@ -203,4 +217,101 @@ public class DocumentApiTest {
         assertTrue("Unexpected Result ", resultJson.get("totalHits").toString().equals("1"));
     }
 
+    /**
+     * This test validates the behaviour of the 'Search Documents' POST request endpoint when the results are streamed.
+     */
+    @Test
+    public void streamingSearchDocumentTest() throws Exception {
+        String output = streamQuery(false);
+
+        JSONParser parser = new JSONParser();
+        JSONObject json = (JSONObject) parser.parse(output);
+        JSONObject resultJson = (JSONObject) json.get("searchResult");
+
+        assertTrue("Unexpected Result ", resultJson.get("totalHits").toString().equals("1"));
+        assertTrue("Unexpected Result ", ((JSONArray) resultJson.get("hits")).size() == 1);
+        assertFalse("Output should be compact", output.contains("\n"));
+
+        assertTrue("Output should be pretty printed", streamQuery(true).contains("\n"));
+    }
+
+    /**
+     * This test validates that a search paged by cursor returns the cursor of the next page, which is accepted by the
+     * next search.
+     */
+    @Test
+    public void cursorSearchDocumentTest() throws Exception {
+        MvcResult result = runQuery(String.format(CURSOR_QUERY, "*", ""));
+        assertEquals(200, result.getResponse().getStatus());
+
+        JSONObject json = (JSONObject) new JSONParser().parse(result.getResponse().getContentAsString());
+        String cursor = (String) ((JSONObject) json.get("searchResult")).get("cursor");
+        assertEquals("[\"value0\",\"doc1\"]", new String(Base64.getUrlDecoder().decode(cursor), "UTF-8"));
+
+        result = runQuery(String.format(CURSOR_QUERY, cursor, ""));
+        assertEquals(200, result.getResponse().getStatus());
+
+        // Searches which are not paged by cursor are not given one.
+        result = runQuery(COMPLEX_QUERY);
+        json = (JSONObject) new JSONParser().parse(result.getResponse().getContentAsString());
+        assertNull(((JSONObject) json.get("searchResult")).get("cursor"));
+    }
+
+    /**
+     * This test validates paging by cursor through a search with no sort, whose cursor holds only the document id.
+     */
+    @Test
+    public void cursorWithoutSortSearchDocumentTest() throws Exception {
+        String query = "{\"queries\": [{\"may\": {\"parsed-query\": {\"field\": \"searchTags\", "
+                + "\"query-string\": \"b\"}}}], \"results-size\": 1, \"cursor\": \"%s\"}";
+
+        MvcResult result = runQuery(String.format(query, "*"));
+        assertEquals(200, result.getResponse().getStatus());
+        String cursor = getCursor(result);
+        assertEquals("[\"doc1\"]", new String(Base64.getUrlDecoder().decode(cursor), "UTF-8"));
+
+        result = runQuery(String.format(query, cursor));
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(cursor, getCursor(result));
+    }
+
+    /**
+     * This test validates that a cursor which cannot be used with the search is rejected.
+     */
+    @Test
+    public void invalidCursorSearchDocumentTest() throws Exception {
+        MvcResult result = runQuery(String.format(CURSOR_QUERY, "not-a-cursor", ""));
+        assertEquals(400, result.getResponse().getStatus());
+
+        result = runQuery(String.format(CURSOR_QUERY, "*", ", \"results-start\": 5"));
+        assertEquals(400, result.getResponse().getStatus());
+    }
+
+    private String getCursor(MvcResult result) throws Exception {
+        JSONObject json = (JSONObject) new JSONParser().parse(result.getResponse().getContentAsString());
+        return (String) ((JSONObject) json.get("searchResult")).get("cursor");
+    }
+
+    private MvcResult runQuery(String query) throws Exception {
+        MvcResult asyncResult = this.mockMvc.perform(post(INDEXES_URI + INDEX_NAME + "/" + SEARCH_URI)
+                .contentType(MediaType.APPLICATION_JSON).content(query)).andExpect(request().asyncStarted())
+                .andReturn();
+        return this.mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+    }
+
+    private String streamQuery(boolean pretty) throws Exception {
+        MvcResult asyncResult = this.mockMvc
+                .perform(post(INDEXES_URI + INDEX_NAME + "/" + SEARCH_URI).param("stream", "true")
+                        .param("pretty", Boolean.toString(pretty)).contentType(MediaType.APPLICATION_JSON)
+                        .content(COMPLEX_QUERY))
+                .andExpect(request().asyncStarted()).andReturn();
+
+        // The response body is written asynchronously once the query result is available.
+        MvcResult result = this.mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result.getAsyncResult();
+        }
+        return result.getResponse().getContentAsString();
+    }
+
 }
@@ -0,0 +1,169 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.rest;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import org.json.simple.JSONObject;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.onap.aai.sa.searchdbabstraction.entity.Document;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchHit;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchHits;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchOperationResult;
+
+/**
+ * Compares the peak heap used to render a page of search hits as one pretty printed string, as the buffered query
+ * endpoint does, with writing it straight to the response stream.
+ */
+@Ignore("Benchmark - run manually")
+public class SearchResponseBenchmarkTest {
+
+    private static final int ITERATIONS = 20;
+
+    @Test
+    public void compareResponseRendering() throws Exception {
+        for (int hits : new int[] {1_000, 10_000}) {
+            SearchOperationResult result = buildResult(hits);
+            measure(hits, "buffered string", () -> renderBuffered(result));
+            measure(hits, "streamed", () -> SearchResponseWriter.write(result, false, new DiscardingOutputStream()));
+            measure(hits, "streamed, pretty",
+                    () -> SearchResponseWriter.write(result, true, new DiscardingOutputStream()));
+        }
+    }
+
+    private void measure(int hits, String name, Renderer renderer) throws Exception {
+        // Warm up, then record the highest heap occupancy seen while rendering.
+        for (int i = 0; i < ITERATIONS; i++) {
+            renderer.render();
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long peakIncrease = 0;
+        long allocated = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            System.gc();
+            long baseline = heapUsed();
+            resetPeaks();
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            renderer.render();
+            allocated += threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            peakIncrease = Math.max(peakIncrease, heapPeak() - baseline);
+        }
+
+        System.out.printf("%6d hits, %-18s peak heap increase %8.1f KB, allocated %8.1f KB/request%n", hits, name,
+                peakIncrease / 1024.0, allocated / 1024.0 / ITERATIONS);
+    }
+
+    /**
+     * The buffered rendering: the whole response is built as a string, which is then encoded for the client.
+     */
+    private void renderBuffered(SearchOperationResult result) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setSerializationInclusion(Include.NON_EMPTY);
+        StringBuffer output = new StringBuffer();
+        output.append("{\r\n\"searchResult\":");
+        output.append(mapper.writerWithDefaultPrettyPrinter().writeValueAsString(result.getSearchResult()));
+        output.append("\r\n}");
+        new DiscardingOutputStream().write(output.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SearchOperationResult buildResult(int hitCount) {
+        SearchHit[] hits = new SearchHit[hitCount];
+        for (int i = 0; i < hitCount; i++) {
+            JSONObject content = new JSONObject();
+            content.put("entityType", "service-instance");
+            content.put("edgeTagQueryEntityFieldName", "service-instance.service-instance-id");
+            content.put("edgeTagQueryEntityFieldValue", Integer.toString(100000 + i));
+            content.put("searchTagIDs", Integer.toString(i));
+            content.put("searchTags", "service-instance-id");
+
+            Document doc = new Document();
+            doc.setEtag("1");
+            doc.setUrl(ApiUtils.buildDocumentUri("test", "doc-" + i));
+            doc.setContent(content);
+            SearchHit hit = new SearchHit();
+            hit.setScore("1.0");
+            hit.setDocument(doc);
+            hits[i] = hit;
+        }
+
+        SearchHits searchHits = new SearchHits();
+        searchHits.setTotalHits(Integer.toString(hitCount));
+        searchHits.setHits(hits);
+        SearchOperationResult result = new SearchOperationResult();
+        result.setResultCode(200);
+        result.setSearchResult(searchHits);
+        return result;
+    }
+
+    private static long heapUsed() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    private static long heapPeak() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static void resetPeaks() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Renderer {
+        void render() throws Exception;
+    }
+
+    private static class DiscardingOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+            // Discard
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            // Discard
+        }
+    }
+}
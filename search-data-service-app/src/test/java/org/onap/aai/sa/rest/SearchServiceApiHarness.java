@@ -20,6 +20,7 @@
  */
 package org.onap.aai.sa.rest;
 
+import java.util.concurrent.CompletableFuture;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpHeaders;
@@ -80,8 +81,9 @@ public class SearchServiceApiHarness extends SearchServiceApi {
 
     @Override
     @RequestMapping(value = "/indexes/{index}/documents/{id}", method = RequestMethod.GET)
-    public ResponseEntity<String> processGetDocument(HttpServletRequest request, HttpServletResponse httpResponse,
-            @RequestHeader HttpHeaders headers, @PathVariable("index") String index, @PathVariable("id") String id) {
+    public CompletableFuture<ResponseEntity<String>> processGetDocument(HttpServletRequest request,
+            HttpServletResponse httpResponse, @RequestHeader HttpHeaders headers, @PathVariable("index") String index,
+            @PathVariable("id") String id) {
 
         return super.processGetDocument(request, httpResponse, headers, index, id);
     }
@@ -116,24 +118,25 @@ public class SearchServiceApiHarness extends SearchServiceApi {
 
     @Override
     @RequestMapping(value = "/indexes/{index}/query/{queryText}", method = RequestMethod.GET)
-    public ResponseEntity<String> processInlineQuery(HttpServletRequest request, @RequestHeader HttpHeaders headers,
-            @PathVariable("index") String index, @PathVariable("queryText") String queryText) {
+    public CompletableFuture<ResponseEntity<String>> processInlineQuery(HttpServletRequest request,
+            @RequestHeader HttpHeaders headers, @PathVariable("index") String index,
+            @PathVariable("queryText") String queryText) {
 
         return super.processInlineQuery(request, headers, index, queryText);
     }
 
     @Override
     @RequestMapping(value = "/indexes/{index}/query", method = RequestMethod.GET, consumes = {"application/json"})
-    public ResponseEntity<String> processQueryWithGet(@RequestBody String requestBody, HttpServletRequest request,
-            @RequestHeader HttpHeaders headers, @PathVariable("index") String index) {
+    public CompletableFuture<ResponseEntity<String>> processQueryWithGet(@RequestBody String requestBody,
+            HttpServletRequest request, @RequestHeader HttpHeaders headers, @PathVariable("index") String index) {
 
         return super.processQueryWithGet(requestBody, request, headers, index);
     }
 
     @Override
     @RequestMapping(value = "/indexes/{index}/query", method = RequestMethod.POST, consumes = {"application/json"})
-    public ResponseEntity<String> processQuery(@RequestBody String requestBody, HttpServletRequest request,
-            @RequestHeader HttpHeaders headers, @PathVariable("index") String index) {
+    public CompletableFuture<ResponseEntity<String>> processQuery(@RequestBody String requestBody,
+            HttpServletRequest request, @RequestHeader HttpHeaders headers, @PathVariable("index") String index) {
 
         return super.processQuery(requestBody, request, headers, index);
     }
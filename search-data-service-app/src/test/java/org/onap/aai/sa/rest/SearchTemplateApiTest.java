@@ -0,0 +1,117 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.rest;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * This suite of tests validates the behaviour of the search template REST end points.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+public class SearchTemplateApiTest {
+
+    private static final String TEMPLATES_URI = "/test/indexes/template-index/templates/";
+    private static final String TEMPLATE = "{\"parameters\": {\"type\": \"string\", \"size\": \"integer\"},"
+            + " \"statement\": {\"results-size\": \"{{size}}\","
+            + " \"queries\": [{\"must\": {\"match\": {\"field\": \"entityType\", \"value\": \"{{type}}\"}}}]}}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void registerAndRunTemplateTest() throws Exception {
+        MvcResult created = this.mockMvc
+                .perform(put(TEMPLATES_URI + "by-type").contentType(MediaType.APPLICATION_JSON).content(TEMPLATE))
+                .andExpect(status().isCreated()).andReturn();
+        assertThat(created.getResponse().getContentAsString(), containsString("\"scope\": \"instance\""));
+        this.mockMvc.perform(put(TEMPLATES_URI + "by-type").contentType(MediaType.APPLICATION_JSON).content(TEMPLATE))
+                .andExpect(status().isOk());
+
+        MvcResult template = this.mockMvc.perform(get(TEMPLATES_URI + "by-type")).andExpect(status().isOk())
+                .andReturn();
+        assertThat(template.getResponse().getContentAsString(), containsString("{{type}}"));
+
+        MvcResult result = this.mockMvc.perform(asyncDispatch(runTemplate("by-type", "{\"type\": \"pserver\","
+                + " \"size\": 10}"))).andExpect(status().isOk()).andReturn();
+
+        JSONObject json = (JSONObject) new JSONParser().parse(result.getResponse().getContentAsString());
+        JSONObject resultJson = (JSONObject) json.get("searchResult");
+        assertTrue("Unexpected Result ", resultJson.get("totalHits").toString().equals("1"));
+
+        this.mockMvc.perform(delete(TEMPLATES_URI + "by-type")).andExpect(status().isOk());
+        this.mockMvc.perform(get(TEMPLATES_URI + "by-type")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void invalidTemplateTest() throws Exception {
+        this.mockMvc.perform(put(TEMPLATES_URI + "invalid").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"statement\": {\"queries\": [{\"must\": {\"match\": {\"field\": \"a\","
+                        + " \"value\": \"{{undeclared}}\"}}}]}}"))
+                .andExpect(status().isBadRequest());
+        this.mockMvc.perform(get(TEMPLATES_URI + "invalid")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void invalidParametersTest() throws Exception {
+        this.mockMvc.perform(put(TEMPLATES_URI + "params").contentType(MediaType.APPLICATION_JSON).content(TEMPLATE))
+                .andExpect(status().isCreated());
+
+        this.mockMvc.perform(asyncDispatch(runTemplate("params", "{\"type\": \"pserver\"}")))
+                .andExpect(status().isBadRequest());
+        this.mockMvc.perform(asyncDispatch(runTemplate("params", "{\"type\": \"pserver\", \"size\": \"ten\"}")))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void unknownTemplateTest() throws Exception {
+        this.mockMvc.perform(asyncDispatch(runTemplate("no-such-template", "{}"))).andExpect(status().isNotFound());
+        this.mockMvc.perform(delete(TEMPLATES_URI + "no-such-template")).andExpect(status().isNotFound());
+    }
+
+    private MvcResult runTemplate(String templateId, String parameters) throws Exception {
+        return this.mockMvc.perform(post(TEMPLATES_URI + templateId + "/query")
+                .contentType(MediaType.APPLICATION_JSON).content(parameters))
+                .andExpect(request().asyncStarted()).andReturn();
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.rest;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * This suite of tests validates that streamed responses are not cut off by the timeout of other asynchronous requests.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.mvc.async.request-timeout=" + StreamingTimeoutTest.REQUEST_TIMEOUT_MS)
+@AutoConfigureMockMvc(addFilters = false)
+public class StreamingTimeoutTest {
+
+    static final long REQUEST_TIMEOUT_MS = 100;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void streamingBulkOutlastsRequestTimeoutTest() throws Exception {
+        String operations = "{\"create\":{\"metaData\":{\"url\":\"/indexes/" + StubEsController.SLOW_INDEX
+                + "/documents/\"},\"document\":{\"field1\":\"value1\"}}}\n";
+
+        MvcResult asyncResult = this.mockMvc
+                .perform(post("/test/bulk").contentType(BulkApi.APPLICATION_NDJSON_VALUE).content(operations))
+                .andExpect(request().asyncStarted()).andReturn();
+        long timeout = asyncResult.getRequest().getAsyncContext().getTimeout();
+        assertTrue("Unexpected timeout " + timeout, timeout > StubEsController.SLOW_INDEX_DELAY_MS);
+
+        // Waits for the stream to end, which takes longer than the request timeout.
+        MvcResult result = this.mockMvc.perform(asyncDispatch(asyncResult)).andExpect(status().isOk()).andReturn();
+        String output = result.getResponse().getContentAsString().trim();
+        String summary = output.substring(output.lastIndexOf('\n') + 1);
+        assertTrue("Unexpected summary " + summary, summary.startsWith("{\"total_operations\":1"));
+    }
+
+    @Test
+    public void streamingSearchIsGivenStreamingTimeoutTest() throws Exception {
+        String query = "{\"queries\": ["
+                + "{\"may\": {\"parsed-query\": {\"field\": \"searchTags\", \"query-string\": \"b\"}}}]}";
+
+        MvcResult asyncResult = this.mockMvc
+                .perform(post("/test/indexes/test-index/query/").param("stream", "true")
+                        .contentType(MediaType.APPLICATION_JSON).content(query))
+                .andExpect(request().asyncStarted()).andReturn();
+
+        // The query itself is still bounded by the request timeout, but writing its results is not.
+        MvcResult result = this.mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+        assertTrue("The results were not streamed", result.getRequest().isAsyncStarted());
+        long timeout = result.getRequest().getAsyncContext().getTimeout();
+        assertTrue("Unexpected timeout " + timeout, timeout > REQUEST_TIMEOUT_MS);
+        result.getAsyncResult();
+        assertTrue(result.getResponse().getContentAsString().contains("searchResult"));
+    }
+}
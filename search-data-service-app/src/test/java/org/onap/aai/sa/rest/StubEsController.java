@@ -21,7 +21,9 @@
 package org.onap.aai.sa.rest;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.json.simple.JSONObject;
 import org.onap.aai.sa.searchdbabstraction.elasticsearch.dao.DocumentStoreDataEntity;
@@ -42,6 +44,8 @@ import org.onap.aai.sa.searchdbabstraction.util.DocumentSchemaUtil;
 public class StubEsController implements DocumentStoreInterface {
 
     public static final String DOES_NOT_EXIST_INDEX = "index-does-not-exist";
+    public static final String SLOW_INDEX = "slow-index";
+    public static final long SLOW_INDEX_DELAY_MS = 300;
 
     private AnalysisConfiguration analysisConfig = null;
 
@@ -202,11 +206,29 @@ public class StubEsController implements DocumentStoreInterface {
         } else {
             opResult.setResultCode(200);
             opResult.setResult(indexName + "@" + query);
+            opResult.getSearchResult().getHits()[0].setSortValues(buildSortValues(query));
         }
 
         return opResult;
     }
 
+    /**
+     * Builds the sort values of a hit as ElasticSearch would return them, one for each field of the sort of the query,
+     * the last of which is the document id.
+     */
+    private List<Object> buildSortValues(String query) {
+        int sortIndex = query.indexOf("\"sort\": ");
+        if (sortIndex < 0) {
+            return null;
+        }
+        List<Object> values = new ArrayList<>();
+        for (int i = query.indexOf("\"order\"", sortIndex); i >= 0; i = query.indexOf("\"order\"", i + 1)) {
+            values.add("value" + values.size());
+        }
+        values.set(values.size() - 1, "doc1");
+        return values;
+    }
+
     @Override
     public SearchOperationResult suggestionQueryWithPayload(String indexName, String query)
             throws DocumentStoreOperationException {
@@ -225,6 +247,16 @@ public class StubEsController implements DocumentStoreInterface {
     @Override
     public OperationResult performBulkOperations(BulkRequest[] requests) throws DocumentStoreOperationException {
 
+        for (BulkRequest request : requests) {
+            if (SLOW_INDEX.equals(request.getIndex())) {
+                try {
+                    Thread.sleep(SLOW_INDEX_DELAY_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
         OperationResult opResult = new OperationResult();
         opResult.setResultCode(200);
 
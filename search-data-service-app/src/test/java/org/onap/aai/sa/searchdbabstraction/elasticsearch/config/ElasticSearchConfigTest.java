@@ -50,4 +50,34 @@ public class ElasticSearchConfigTest {
         Assert.assertEquals(elasticSearchConfig.getJavaApiPort(), "9300");
         Assert.assertNotNull(elasticSearchConfig.toString());
     }
+
+    @Test
+    public void testNodeListDefaultsToIpAddressAndPort() {
+        Properties prop = new Properties();
+        prop.put(ElasticSearchConfig.ES_IP_ADDRESS, "127.0.0.1");
+        prop.put(ElasticSearchConfig.ES_HTTP_PORT, "9001");
+        ElasticSearchConfig config = new ElasticSearchConfig(prop);
+
+        Assert.assertEquals(1, config.getNodes().size());
+        Assert.assertEquals("127.0.0.1", config.getNodes().get(0).getHostString());
+        Assert.assertEquals(9001, config.getNodes().get(0).getPort());
+        Assert.assertEquals(ElasticSearchConfig.LoadBalancingPolicy.ROUND_ROBIN, config.getLoadBalancingPolicy());
+    }
+
+    @Test
+    public void testNodeListIsParsed() {
+        Properties prop = new Properties();
+        prop.put(ElasticSearchConfig.ES_NODES, "es1:9200, es2, [::1]:9201");
+        prop.put(ElasticSearchConfig.ES_LOAD_BALANCING, "least-outstanding");
+        ElasticSearchConfig config = new ElasticSearchConfig(prop);
+
+        Assert.assertEquals(3, config.getNodes().size());
+        Assert.assertEquals("es2", config.getNodes().get(1).getHostString());
+        Assert.assertEquals(9200, config.getNodes().get(1).getPort());
+        Assert.assertEquals("::1", config.getNodes().get(2).getHostString());
+        Assert.assertEquals(9201, config.getNodes().get(2).getPort());
+        Assert.assertEquals("es1", config.getIpAddress());
+        Assert.assertEquals(ElasticSearchConfig.LoadBalancingPolicy.LEAST_OUTSTANDING,
+                config.getLoadBalancingPolicy());
+    }
 }
@@ -0,0 +1,269 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Metrics;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import org.onap.aai.sa.rest.BulkMetaData;
+import org.onap.aai.sa.rest.BulkOperation;
+import org.onap.aai.sa.rest.BulkRequest;
+import org.onap.aai.sa.rest.Document;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.exception.DocumentStoreOperationException;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.HttpTransport;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.HttpTransportResponse;
+import org.onap.aai.sa.searchdbabstraction.entity.OperationResult;
+
+/**
+ * Checks that large bulk requests are split into several Elasticsearch bulk requests, sent concurrently, and that the
+ * results are combined in the order of the client's operations.
+ */
+public class BulkBatchingTest {
+
+    private static final String DOCUMENT_URL = "services/search-data-service/v1/search/indexes/index1/documents/%s";
+
+    private final BulkTransport transport = new BulkTransport();
+
+    @After
+    public void tearDown() {
+        transport.shutdown();
+    }
+
+    @Test
+    public void testOperationsAreSplitByCount() throws Exception {
+        ElasticSearchHttpController controller = createController("1000000", "3", "2");
+
+        JsonNode response = perform(controller, "doc0", "doc1", "doc2", "doc3", "doc4", "doc5", "doc6", "doc7",
+                "doc8", "doc9");
+
+        assertThat(transport.bulkRequests.get(), is(4));
+        assertThat(transport.maxInFlight.get(), is(2));
+        assertThat(response.get("total_operations").asInt(), is(10));
+        assertThat(response.get("total_success").asInt(), is(10));
+        for (int i = 0; i < 10; i++) {
+            assertThat(response.get("results").get(i).get("url").asText(), is(String.format(DOCUMENT_URL, "doc" + i)));
+        }
+    }
+
+    @Test
+    public void testOperationsAreSplitBySize() throws Exception {
+        ElasticSearchHttpController controller = createController("1", "1000", "1");
+
+        JsonNode response = perform(controller, "doc0", "doc1", "doc2");
+
+        assertThat(transport.bulkRequests.get(), is(3));
+        assertThat(transport.maxInFlight.get(), is(1));
+        assertThat(response.get("total_success").asInt(), is(3));
+    }
+
+    @Test
+    public void testSmallRequestsAreSentWhole() throws Exception {
+        ElasticSearchHttpController controller = createController(null, null, null);
+
+        perform(controller, "doc0", "doc1", "doc2");
+
+        assertThat(transport.bulkRequests.get(), is(1));
+    }
+
+    @Test
+    public void testFailedBatchIsReportedPerOperation() throws Exception {
+        ElasticSearchHttpController controller = createController("1000000", "2", "2");
+
+        JsonNode response = perform(controller, "doc0", "doc1", "fail2", "doc3", "doc4");
+
+        assertThat(response.get("total_operations").asInt(), is(5));
+        assertThat(response.get("total_success").asInt(), is(3));
+        assertThat(response.get("total_fails").asInt(), is(2));
+        assertThat(response.get("results").get(2).get("url").asText(), is(String.format(DOCUMENT_URL, "fail2")));
+        assertThat(response.get("results").get(2).get("status-code").asText(), is("500"));
+        assertThat(response.get("results").get(3).get("status-code").asText(), is("500"));
+    }
+
+    @Test
+    public void testRejectedOperationsAreRetried() throws Exception {
+        ElasticSearchHttpController controller = createController("1000000", "10", "1");
+
+        JsonNode response = perform(controller, "doc0", "busy1", "doc2", "busy3");
+
+        assertThat(transport.bulkRequests.get(), is(2));
+        assertThat(transport.lastOperations.split("\n").length, is(4));
+        assertThat(response.get("total_success").asInt(), is(4));
+        assertThat(response.get("results").get(1).get("url").asText(), is(String.format(DOCUMENT_URL, "busy1")));
+        assertThat(response.get("results").get(3).get("url").asText(), is(String.format(DOCUMENT_URL, "busy3")));
+    }
+
+    @Test
+    public void testOperationsStillRejectedAreReported() throws Exception {
+        ElasticSearchHttpController controller = createController("1000000", "10", "1");
+
+        JsonNode response = perform(controller, "doc0", "full1");
+
+        assertThat(transport.bulkRequests.get(), is(4));
+        assertThat(response.get("total_success").asInt(), is(1));
+        assertThat(response.get("results").get(1).get("status-code").asText(), is("429"));
+    }
+
+    @Test
+    public void testFailedRetryIsCounted() throws Exception {
+        ElasticSearchHttpController controller = createController("1000000", "10", "1");
+        double failures = Metrics.globalRegistry.get(BulkThrottle.METRIC_RETRY_FAILURES).counter().count();
+
+        JsonNode response = perform(controller, "doc0", "flaky1");
+
+        assertThat(transport.bulkRequests.get(), is(2));
+        assertThat(response.get("total_success").asInt(), is(1));
+        assertThat(response.get("results").get(1).get("status-code").asText(), is("429"));
+        assertThat(Metrics.globalRegistry.get(BulkThrottle.METRIC_RETRY_FAILURES).counter().count(),
+                is(failures + 1));
+    }
+
+    @Test(expected = DocumentStoreOperationException.class)
+    public void testRequestFailsWhenEveryBatchFails() throws Exception {
+        ElasticSearchHttpController controller = createController("1000000", "1", "2");
+
+        perform(controller, "fail0", "fail1");
+    }
+
+    private ElasticSearchHttpController createController(String maxBytes, String maxOperations, String parallelism) {
+        Properties properties = new Properties();
+        properties.put(ElasticSearchConfig.ES_IP_ADDRESS, "localhost");
+        properties.put(ElasticSearchConfig.ES_HTTP_PORT, "9200");
+        properties.put(ElasticSearchConfig.ES_INDEX_CACHE_REFRESH_INTERVAL, "0");
+        properties.put(ElasticSearchConfig.ES_BULK_RETRY_BACKOFF, "1");
+        if (maxBytes != null) {
+            properties.put(ElasticSearchConfig.ES_BULK_MAX_BYTES, maxBytes);
+            properties.put(ElasticSearchConfig.ES_BULK_MAX_OPERATIONS, maxOperations);
+            properties.put(ElasticSearchConfig.ES_BULK_PARALLELISM, parallelism);
+        }
+        return new ElasticSearchHttpController(new ElasticSearchConfig(properties), transport);
+    }
+
+    private JsonNode perform(ElasticSearchHttpController controller, String... ids) throws Exception {
+        List<BulkRequest> requests = new ArrayList<>();
+        for (String id : ids) {
+            BulkMetaData metaData = new BulkMetaData();
+            metaData.setUrl(String.format(DOCUMENT_URL, id));
+            BulkOperation operation = new BulkOperation();
+            operation.setMetaData(metaData);
+            operation.setDocument(new Document());
+            BulkRequest request = new BulkRequest();
+            request.setCreate(operation);
+            requests.add(request);
+        }
+        OperationResult result = controller.performBulkOperations(requests.toArray(new BulkRequest[0]));
+        return new ObjectMapper().readTree(result.getResult());
+    }
+
+    /**
+     * Answers each bulk request after a short delay with a created status for each operation, or with a server error
+     * if the request contains a document whose id starts with {@code fail}. An operation on a document whose id starts
+     * with {@code busy} is rejected as too busy the first time, and one whose id starts with {@code full} every time.
+     * An operation on a document whose id starts with {@code flaky} is rejected the first time, and fails the request
+     * which sends it again.
+     * Every index exists.
+     */
+    private static class BulkTransport implements HttpTransport {
+
+        private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        private final AtomicInteger bulkRequests = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private final Set<String> rejected = ConcurrentHashMap.newKeySet();
+        private volatile String lastOperations;
+
+        @Override
+        public HttpTransportResponse execute(String method, URL url, String contentType, String content) {
+            return response(200, "{}");
+        }
+
+        @Override
+        public CompletableFuture<HttpTransportResponse> executeAsync(String method, URL url, String contentType,
+                String content) {
+            if (!url.getPath().equals("/_bulk")) {
+                return CompletableFuture.completedFuture(execute(method, url, contentType, content));
+            }
+
+            bulkRequests.incrementAndGet();
+            lastOperations = content;
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            CompletableFuture<HttpTransportResponse> future = new CompletableFuture<>();
+            scheduler.schedule(() -> {
+                inFlight.decrementAndGet();
+                future.complete(bulkResponse(content));
+            }, 50, TimeUnit.MILLISECONDS);
+            return future;
+        }
+
+        @Override
+        public void shutdown() {
+            scheduler.shutdownNow();
+        }
+
+        private HttpTransportResponse bulkResponse(String content) {
+            try {
+                StringBuilder items = new StringBuilder("{\"took\":1,\"errors\":false,\"items\":[");
+                String separator = "";
+                for (String line : content.split("\n")) {
+                    JsonNode action = new ObjectMapper().readTree(line).get("create");
+                    if (action == null) {
+                        continue;
+                    }
+                    String id = action.get("_id").asText();
+                    if (id.startsWith("fail") || (id.startsWith("flaky") && rejected.contains(id))) {
+                        return response(500, "{}");
+                    }
+                    boolean firstTime = (id.startsWith("busy") || id.startsWith("flaky")) && rejected.add(id);
+                    int status = id.startsWith("full") || firstTime ? 429 : 201;
+                    items.append(separator).append("{\"create\":{\"index\":\"index1\",\"id\":\"").append(id)
+                            .append("\",\"status\":").append(status).append("}}");
+                    separator = ",";
+                }
+                return response(200, items.append("]}").toString());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static HttpTransportResponse response(int status, String body) {
+            return new HttpTransportResponse(status, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.Before;
+import org.junit.Test;
+import org.onap.aai.sa.rest.BulkMetaData;
+import org.onap.aai.sa.rest.BulkOperation;
+import org.onap.aai.sa.rest.BulkRequest;
+import org.onap.aai.sa.rest.Document;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.HttpTransport;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.HttpTransportResponse;
+import org.onap.aai.sa.searchdbabstraction.entity.OperationResult;
+
+/**
+ * Checks that the documents targeted by the operations in a bulk request are looked up with a single {@code _mget},
+ * and that operations on missing documents are rejected as they were when each document was checked on its own.
+ */
+public class BulkOperationValidationTest {
+
+    private static final String DOCUMENT_URL = "/services/search-data-service/v1/search/indexes/%s/documents/%s";
+
+    private final RecordingTransport transport = new RecordingTransport();
+    private ElasticSearchHttpController controller;
+
+    @Before
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.put(ElasticSearchConfig.ES_IP_ADDRESS, "localhost");
+        properties.put(ElasticSearchConfig.ES_HTTP_PORT, "9200");
+        properties.put(ElasticSearchConfig.ES_INDEX_CACHE_REFRESH_INTERVAL, "0");
+        controller = new ElasticSearchHttpController(new ElasticSearchConfig(properties), transport);
+        transport.requests.clear();
+    }
+
+    @Test
+    public void testDocumentsAreLookedUpTogether() throws Exception {
+        BulkRequest[] requests = {update("index1", "doc1", "1"), update("index1", "missing1", "1"),
+                delete("index1", "doc2", null), delete("index1", "missing2", "1"), update("noindex", "doc3", "1")};
+
+        OperationResult result = controller.performBulkOperations(requests);
+
+        assertThat(transport.count("POST /_mget"), is(1));
+        assertThat(transport.count("HEAD /index1/default/"), is(0));
+        assertThat(transport.count("PUT /_bulk"), is(1));
+
+        JsonNode response = new ObjectMapper().readTree(result.getResult());
+        assertThat(response.get("total_operations").asInt(), is(5));
+        assertThat(response.get("total_success").asInt(), is(1));
+        assertThat(response.get("total_fails").asInt(), is(4));
+
+        Map<String, String> statusByUrl = new HashMap<>();
+        for (JsonNode item : response.get("results")) {
+            statusByUrl.put(item.get("url").asText(), item.get("status-code").asText());
+        }
+        assertThat(statusByUrl.get(url("index1", "missing1")), is("404"));
+        assertThat(statusByUrl.get(url("index1", "doc2")), is("400"));
+        assertThat(statusByUrl.get(url("index1", "missing2")), is("404"));
+        assertThat(statusByUrl.get(url("noindex", "doc3")), is("404"));
+    }
+
+    @Test
+    public void testDocumentsAreMissingWhenTheLookupFails() throws Exception {
+        transport.failLookups = true;
+
+        OperationResult result = controller.performBulkOperations(new BulkRequest[] {update("index1", "doc1", "1")});
+
+        JsonNode response = new ObjectMapper().readTree(result.getResult());
+        assertThat(response.get("total_fails").asInt(), is(1));
+        assertThat(response.get("results").get(0).get("status-code").asText(), is("404"));
+        assertThat(transport.count("PUT /_bulk"), is(0));
+    }
+
+    @Test
+    public void testCreatesAreNotLookedUp() throws Exception {
+        BulkRequest request = new BulkRequest();
+        request.setCreate(operation(url("index1", "doc4"), null, new Document()));
+
+        controller.performBulkOperations(new BulkRequest[] {request});
+
+        assertThat(transport.count("POST /_mget"), is(0));
+        assertThat(transport.count("PUT /_bulk"), is(1));
+    }
+
+    private static BulkRequest update(String index, String id, String etag) {
+        BulkRequest request = new BulkRequest();
+        request.setUpdate(operation(url(index, id), etag, new Document()));
+        return request;
+    }
+
+    private static BulkRequest delete(String index, String id, String etag) {
+        BulkRequest request = new BulkRequest();
+        request.setDelete(operation(url(index, id), etag, null));
+        return request;
+    }
+
+    private static BulkOperation operation(String url, String etag, Document document) {
+        BulkMetaData metaData = new BulkMetaData();
+        metaData.setUrl(url);
+        metaData.setEtag(etag);
+        BulkOperation operation = new BulkOperation();
+        operation.setMetaData(metaData);
+        operation.setDocument(document);
+        return operation;
+    }
+
+    private static String url(String index, String id) {
+        return String.format(DOCUMENT_URL, index, id);
+    }
+
+    /**
+     * Answers as a cluster holding the index {@code index1} and every document in it whose id does not start with
+     * {@code missing}, recording each request.
+     */
+    private static class RecordingTransport implements HttpTransport {
+
+        private final List<String> requests = new CopyOnWriteArrayList<>();
+        private volatile boolean failLookups;
+
+        @Override
+        public HttpTransportResponse execute(String method, URL url, String contentType, String content) {
+            requests.add(method + " " + url.getPath());
+            if (url.getPath().equals("/_bulk")) {
+                return response(200, "{\"took\":1,\"errors\":false,\"items\":[{\"index\":{\"status\":200}}]}");
+            }
+            if (url.getPath().equals("/_mget")) {
+                return failLookups ? response(503, "{}") : response(200, lookup(content));
+            }
+            if ("HEAD".equals(method)) {
+                return response(url.getPath().equals("/index1") ? 200 : 404, "");
+            }
+            return response(200, "{}");
+        }
+
+        @Override
+        public CompletableFuture<HttpTransportResponse> executeAsync(String method, URL url, String contentType,
+                String content) {
+            return CompletableFuture.completedFuture(execute(method, url, contentType, content));
+        }
+
+        @Override
+        public void shutdown() {
+            // Nothing to release.
+        }
+
+        int count(String prefix) {
+            return (int) requests.stream().filter(r -> r.startsWith(prefix)).count();
+        }
+
+        private static String lookup(String content) {
+            try {
+                StringBuilder docs = new StringBuilder("{\"docs\":[");
+                String separator = "";
+                for (JsonNode doc : new ObjectMapper().readTree(content).get("docs")) {
+                    boolean found = "index1".equals(doc.get("_index").asText())
+                            && !doc.get("_id").asText().startsWith("missing");
+                    docs.append(separator).append("{\"_index\":\"").append(doc.get("_index").asText())
+                            .append("\",\"_id\":\"").append(doc.get("_id").asText()).append("\",\"found\":")
+                            .append(found).append('}');
+                    separator = ",";
+                }
+                return docs.append("]}").toString();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static HttpTransportResponse response(int status, String body) {
+            return new HttpTransportResponse(status, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
+
+public class BulkThrottleTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(5);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private BulkThrottle throttle;
+
+    @After
+    public void tearDown() {
+        throttle.shutdown();
+    }
+
+    @Test
+    public void testRejectionsCutTheLimits() {
+        throttle = createThrottle("1000");
+
+        throttle.record(FAST, 0);
+        assertThat(throttle.getOperations(), is(100));
+        assertThat(throttle.getParallelism(), is(4));
+
+        throttle.record(FAST, 3);
+        assertThat(throttle.getOperations(), is(50));
+        assertThat(throttle.getParallelism(), is(3));
+        assertThat(registry.get(BulkThrottle.METRIC_REJECTIONS).counter().count(), is(3.0));
+        assertThat(registry.get(BulkThrottle.METRIC_OPERATIONS).gauge().value(), is(50.0));
+        assertThat(registry.get(BulkThrottle.METRIC_PARALLELISM).gauge().value(), is(3.0));
+    }
+
+    @Test
+    public void testSlowRequestsCutTheLimits() {
+        throttle = createThrottle("1000");
+
+        for (int i = 0; i < 10; i++) {
+            throttle.record(SLOW, 0);
+        }
+
+        assertThat(throttle.getOperations(), is(1));
+        assertThat(throttle.getParallelism(), is(1));
+    }
+
+    @Test
+    public void testLimitsGrowBackToTheMaximum() {
+        throttle = createThrottle("1000");
+        throttle.record(SLOW, 0);
+        throttle.record(SLOW, 0);
+
+        throttle.record(FAST, 0);
+        assertThat(throttle.getOperations(), is(35));
+        assertThat(throttle.getParallelism(), is(2));
+
+        for (int i = 0; i < 20; i++) {
+            throttle.record(FAST, 0);
+        }
+        assertThat(throttle.getOperations(), is(100));
+        assertThat(throttle.getParallelism(), is(4));
+    }
+
+    @Test
+    public void testTuningCanBeDisabled() {
+        throttle = createThrottle("0");
+
+        throttle.record(SLOW, 5);
+
+        assertThat(throttle.getOperations(), is(100));
+        assertThat(throttle.getParallelism(), is(4));
+        assertThat(registry.get(BulkThrottle.METRIC_REJECTIONS).counter().count(), is(5.0));
+    }
+
+    @Test
+    public void testRetriesAreLimitedAndDelayed() throws Exception {
+        throttle = createThrottle("1000");
+
+        assertThat(throttle.shouldRetry(2), is(true));
+        assertThat(throttle.shouldRetry(3), is(false));
+
+        long start = System.nanoTime();
+        throttle.delayRetry(1, 2).get(5, TimeUnit.SECONDS);
+        assertThat(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20), is(true));
+        assertThat(registry.get(BulkThrottle.METRIC_RETRIES).counter().count(), is(2.0));
+    }
+
+    private BulkThrottle createThrottle(String targetLatencyMs) {
+        Properties properties = new Properties();
+        properties.put(ElasticSearchConfig.ES_BULK_MAX_OPERATIONS, "100");
+        properties.put(ElasticSearchConfig.ES_BULK_PARALLELISM, "4");
+        properties.put(ElasticSearchConfig.ES_BULK_TARGET_LATENCY, targetLatencyMs);
+        properties.put(ElasticSearchConfig.ES_BULK_RETRY_BACKOFF, "20");
+        return new BulkThrottle(new ElasticSearchConfig(properties), registry);
+    }
+}
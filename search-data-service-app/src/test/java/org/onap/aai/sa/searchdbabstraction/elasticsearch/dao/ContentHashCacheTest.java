@@ -0,0 +1,70 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+public class ContentHashCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ContentHashCache cache = new ContentHashCache(16, registry);
+
+    @Test
+    public void testRecordedContentIsUnchangedAtTheSameVersion() {
+        long hash = ContentHashCache.hash("{\"a\":1}");
+        cache.record("index1", "doc1", "3", hash);
+
+        assertThat(cache.isUnchanged("index1", "doc1", "3", hash), is(true));
+        assertThat(cache.isUnchanged("index1", "doc1", "2", hash), is(false));
+        assertThat(cache.isUnchanged("index1", "doc1", "3", ContentHashCache.hash("{\"a\":2}")), is(false));
+        assertThat(cache.isUnchanged("index1", "doc2", "3", hash), is(false));
+        assertThat(cache.isUnchanged("index2", "doc1", "3", hash), is(false));
+    }
+
+    @Test
+    public void testForgottenAndUnversionedContentIsNotUnchanged() {
+        long hash = ContentHashCache.hash("{}");
+        cache.record("index1", "doc1", "1", hash);
+        cache.forget("index1", "doc1");
+        cache.record("index1", "doc2", "not-a-version", hash);
+
+        assertThat(cache.isUnchanged("index1", "doc1", "1", hash), is(false));
+        assertThat(cache.isUnchanged("index1", "doc2", "not-a-version", hash), is(false));
+        assertThat(cache.isUnchanged("index1", null, "1", hash), is(false));
+    }
+
+    @Test
+    public void testHashOfPartOfTheContent() {
+        assertThat(ContentHashCache.hash("x{\"a\":1}\n", 1, 8), is(ContentHashCache.hash("{\"a\":1}")));
+    }
+
+    @Test
+    public void testSuppressedWritesAreCounted() {
+        cache.recordSuppressed();
+        cache.recordSuppressed();
+
+        assertThat(registry.get(ContentHashCache.METRIC_SUPPRESSED).counter().count(), is(2.0));
+    }
+}
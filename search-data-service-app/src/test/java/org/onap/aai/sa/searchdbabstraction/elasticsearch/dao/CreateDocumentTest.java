@@ -0,0 +1,123 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.Before;
+import org.junit.Test;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.HttpTransport;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.HttpTransportResponse;
+import org.onap.aai.sa.searchdbabstraction.entity.DocumentOperationResult;
+
+/**
+ * Checks that a document with a supplied id is created with a single conditional request, rather than a check for an
+ * existing document followed by the write.
+ */
+public class CreateDocumentTest {
+
+    private final RecordingTransport transport = new RecordingTransport();
+    private ElasticSearchHttpController controller;
+
+    @Before
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.put(ElasticSearchConfig.ES_IP_ADDRESS, "localhost");
+        properties.put(ElasticSearchConfig.ES_HTTP_PORT, "9200");
+        properties.put(ElasticSearchConfig.ES_INDEX_CACHE_REFRESH_INTERVAL, "0");
+        controller = new ElasticSearchHttpController(new ElasticSearchConfig(properties), transport);
+        transport.requests.clear();
+    }
+
+    @Test
+    public void testDocumentIsCreatedInOneRequest() throws Exception {
+        DocumentOperationResult result = controller.createDocument("index1", document("doc1"), true);
+
+        assertThat(result.getResultCode(), is(201));
+        assertThat(result.getResultVersion(), is("1"));
+        assertThat(result.getDocument().getEtag(), is("1"));
+        assertThat(transport.requests, is(Arrays.asList("PUT /index1/default/doc1?op_type=create")));
+    }
+
+    @Test
+    public void testExistingDocumentIsAConflict() throws Exception {
+        DocumentOperationResult result = controller.createDocument("index1", document("existing"), true);
+
+        assertThat(result.getResultCode(), is(409));
+        assertThat(result.getFailureCause(), is(ElasticSearchHttpController.MSG_DOCUMENT_EXISTS));
+        assertThat(transport.requests.size(), is(1));
+    }
+
+    private static DocumentStoreDataEntityImpl document(String id) {
+        DocumentStoreDataEntityImpl document = new DocumentStoreDataEntityImpl();
+        document.setId(id);
+        document.setContent("{\"a\":1}");
+        return document;
+    }
+
+    /**
+     * Answers as a cluster holding the document {@code existing}, recording each request.
+     */
+    private static class RecordingTransport implements HttpTransport {
+
+        private final List<String> requests = new CopyOnWriteArrayList<>();
+
+        @Override
+        public HttpTransportResponse execute(String method, URL url, String contentType, String content) {
+            requests.add(method + " " + url.getPath() + (url.getQuery() != null ? "?" + url.getQuery() : ""));
+            if (url.getPath().endsWith("/existing")) {
+                return response(409, "{\"error\":{\"type\":\"version_conflict_engine_exception\","
+                        + "\"reason\":\"[default][existing]: version conflict, document already exists\"},"
+                        + "\"status\":409}");
+            }
+            if (url.getPath().startsWith("/index1/default/")) {
+                return response(201, "{\"_index\":\"index1\",\"_type\":\"default\",\"_id\":\"doc1\",\"_version\":1,"
+                        + "\"result\":\"created\"}");
+            }
+            return response(200, "{}");
+        }
+
+        @Override
+        public CompletableFuture<HttpTransportResponse> executeAsync(String method, URL url, String contentType,
+                String content) {
+            return CompletableFuture.completedFuture(execute(method, url, contentType, content));
+        }
+
+        @Override
+        public void shutdown() {
+            // Nothing to release.
+        }
+
+        private static HttpTransportResponse response(int status, String body) {
+            return new HttpTransportResponse(status, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+}
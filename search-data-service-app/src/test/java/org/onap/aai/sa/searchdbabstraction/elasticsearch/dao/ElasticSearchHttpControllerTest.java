@@ -26,6 +26,7 @@ import static org.hamcrest.CoreMatchers.either;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.junit.Assert.assertThat;
 
 import java.util.Properties;
@@ -38,7 +39,9 @@ import org.onap.aai.sa.rest.AnalysisConfiguration;
 import org.onap.aai.sa.rest.DocumentSchema;
 import org.onap.aai.sa.rest.SettingConfiguration;
 import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
+import org.onap.aai.sa.searchdbabstraction.entity.DocumentOperationResult;
 import org.onap.aai.sa.searchdbabstraction.entity.OperationResult;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchOperationResult;
 
 @Ignore("All tests in this classes require an Elasticsearch instance to run locally")
 public class ElasticSearchHttpControllerTest {
@@ -129,14 +132,14 @@ public class ElasticSearchHttpControllerTest {
 
     @Test
     public void testCreateDocument() throws Exception {
-        OperationResult result = elasticSearch.createDocument(TEST_INDEX_NAME, testDocument, false);
-        assertThat(result.getResult(), not(equalTo("")));
+        DocumentOperationResult result = elasticSearch.createDocument(TEST_INDEX_NAME, testDocument, false);
+        assertThat(result.getDocument(), is(notNullValue()));
 
         DocumentStoreDataEntityImpl ds = new DocumentStoreDataEntityImpl();
         ds.setId(testDocument.getId());
 
         result = elasticSearch.getDocument(TEST_INDEX_NAME, ds);
-        assertThat(result.getResult(), not(equalTo("")));
+        assertThat(result.getDocument(), is(notNullValue()));
     }
 
     @Test
@@ -150,7 +153,7 @@ public class ElasticSearchHttpControllerTest {
     public void testUpdateDocument() throws Exception {
         testDocument.setEdgeTagQueryEntityFieldValue("567890");
 
-        OperationResult result = elasticSearch.getDocument(TEST_INDEX_NAME, testDocument);
+        DocumentOperationResult result = elasticSearch.getDocument(TEST_INDEX_NAME, testDocument);
         if (result.getResultCode() == 404) {
             testCreateDocument();
         }
@@ -161,7 +164,7 @@ public class ElasticSearchHttpControllerTest {
         assertThat(result.getResultCode(), anyOf(equalTo(200), equalTo(412)));
 
         result = elasticSearch.getDocument(TEST_INDEX_NAME, testDocument);
-        assertThat(result.getResult(), containsString("test123"));
+        assertThat(result.getDocument().getUrl(), containsString("test123"));
     }
 
     @Test
@@ -172,7 +175,7 @@ public class ElasticSearchHttpControllerTest {
         }
 
         result = elasticSearch.deleteDocument(TEST_INDEX_NAME, testDocument);
-        assertThat(result.getResult(), containsString(TEST_INDEX_NAME));
+        assertThat(result.getResultCode(), is(200));
 
         result = elasticSearch.getDocument(TEST_INDEX_NAME, testDocument);
         assertThat(result.getResult(), containsString("test123"));
@@ -196,28 +199,28 @@ public class ElasticSearchHttpControllerTest {
 
     @Test
     public void serchByEntityType() throws Exception {
-        OperationResult result = elasticSearch.search(TEST_INDEX_NAME, "q=instance");
-        assertThat(result.getResult(), not(equalTo("")));
+        SearchOperationResult result = elasticSearch.search(TEST_INDEX_NAME, "q=instance");
+        assertThat(result.getSearchResult(), is(notNullValue()));
     }
 
     @Test
     public void serchByTagIDs() throws Exception {
-        OperationResult result = elasticSearch.search(TEST_INDEX_NAME, "q=9");
-        assertThat(result.getResult(), not(equalTo("")));
+        SearchOperationResult result = elasticSearch.search(TEST_INDEX_NAME, "q=9");
+        assertThat(result.getSearchResult(), is(notNullValue()));
     }
 
     @Test
     public void serchByTags() throws Exception {
-        OperationResult result = elasticSearch.search(TEST_INDEX_NAME, "q=service");
-        assertThat(result.getResult(), not(equalTo("")));
+        SearchOperationResult result = elasticSearch.search(TEST_INDEX_NAME, "q=service");
+        assertThat(result.getSearchResult(), is(notNullValue()));
     }
 
     @Test
     public void searchWithPayload() throws Exception {
         testCreateIndex();
-        OperationResult result =
+        SearchOperationResult result =
                 elasticSearch.searchWithPayload(TEST_INDEX_NAME, "{\"query\":{\"term\":{\"user\":\"fred\"}}}");
-        assertThat(result.getResult(), containsString("successful"));
+        assertThat(result.getSearchResult(), is(notNullValue()));
         assertThat(result.getResultCode(), is(equalTo(200)));
     }
 
@@ -242,8 +245,8 @@ public class ElasticSearchHttpControllerTest {
         doc.setSearchTagIDs("321");
         doc.setSearchTags("service-instance-id");
 
-        OperationResult result = elasticSearch.createDocument(TEST_INDEX_NAME, doc, false);
-        assertThat(result.getResult(), not(equalTo("")));
+        DocumentOperationResult result = elasticSearch.createDocument(TEST_INDEX_NAME, doc, false);
+        assertThat(result.getDocument().getUrl(), containsString(TEST_INDEX_NAME));
     }
 
     @Test
@@ -0,0 +1,246 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Test;
+import org.onap.aai.sa.searchdbabstraction.entity.Document;
+import org.onap.aai.sa.searchdbabstraction.entity.DocumentOperationResult;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchHit;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchOperationResult;
+import org.onap.aai.sa.searchdbabstraction.entity.SuggestHit;
+
+public class ElasticSearchResponseParserTest {
+
+    private static final String INDEX = "test";
+
+    @Test
+    public void testParseDocumentResult() throws IOException {
+        DocumentOperationResult result = newDocumentResult(200);
+        parseDocument("{\"_index\":\"test\",\"_type\":\"default\",\"_id\":\"doc1\",\"_version\":3,\"found\":true,"
+                + "\"_source\":{\"name\":\"x\",\"count\":5,\"ratio\":0.5,\"flag\":true,\"tags\":[\"a\",null]}}",
+                result);
+
+        assertThat(result.getResultVersion(), is("3"));
+        assertThat(result.getDocument().getEtag(), is("3"));
+        assertThat(result.getDocument().getUrl(), containsString("/indexes/test/documents/doc1"));
+        JSONObject content = result.getDocument().getContent();
+        assertThat(content.get("name"), is((Object) "x"));
+        assertThat(content.get("count"), is((Object) 5L));
+        assertThat(content.get("ratio"), is((Object) 0.5));
+        assertThat(content.get("flag"), is((Object) Boolean.TRUE));
+        assertThat(content.get("tags"), instanceOf(JSONArray.class));
+        assertThat(((JSONArray) content.get("tags")).get(1), is(nullValue()));
+    }
+
+    @Test
+    public void testParseDocumentErrorResult() throws IOException {
+        DocumentOperationResult result = newDocumentResult(400);
+        parseDocument("{\"error\":{\"root_cause\":[],\"type\":\"mapper_parsing_exception\",\"reason\":\"bad\"},"
+                + "\"status\":400}", result);
+
+        assertThat(result.getDocument(), is(nullValue()));
+        assertThat(result.getError().getType(), is("mapper_parsing_exception"));
+        assertThat(result.getError().getReason(), is("bad"));
+    }
+
+    @Test
+    public void testParseDocumentNotFoundResult() throws IOException {
+        DocumentOperationResult result = newDocumentResult(404);
+        parseDocument("{\"_index\":\"test\",\"_type\":\"default\",\"_id\":\"doc1\",\"found\":false}", result);
+
+        assertThat(result.getDocument(), is(nullValue()));
+        assertThat(result.getError(), is(nullValue()));
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testParseDocumentResultWithoutId() throws IOException {
+        parseDocument("{\"_version\":1}", newDocumentResult(200));
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void testParseMalformedResponse() throws IOException {
+        parseDocument("{\"_id\":\"doc1\",", newDocumentResult(200));
+    }
+
+    @Test
+    public void testParseSearchResult() throws IOException {
+        SearchOperationResult result = newSearchResult(200);
+        parseSearch("{\"took\":1,\"timed_out\":false,\"_shards\":{\"total\":5,\"successful\":5,\"failed\":0},"
+                + "\"hits\":{\"total\":2,\"max_score\":1.5,\"hits\":["
+                + "{\"_index\":\"test\",\"_id\":\"a\",\"_score\":1.5,\"_version\":7,\"_source\":{\"f\":\"1\"}},"
+                + "{\"_index\":\"test\",\"_id\":\"b\",\"_score\":null,\"_source\":{\"f\":\"2\"}}]},"
+                + "\"aggregations\":{\"byType\":{\"doc_count_error_upper_bound\":0,\"sum_other_doc_count\":0,"
+                + "\"buckets\":[{\"key\":\"x\",\"doc_count\":2}]}}}", result);
+
+        assertThat(result.getSearchResult().getTotalHits(), is("2"));
+        SearchHit[] hits = result.getSearchResult().getHits();
+        assertThat(hits.length, is(2));
+        assertThat(hits[0].getScore(), is("1.5"));
+        assertThat(hits[0].getDocument().getEtag(), is("7"));
+        assertThat(hits[0].getDocument().getUrl(), containsString("/indexes/test/documents/a"));
+        assertThat(hits[0].getDocument().getContent().get("f"), is((Object) "1"));
+        assertThat(hits[1].getScore(), is(""));
+        assertThat(hits[1].getDocument().getEtag(), is(nullValue()));
+        assertThat(result.getAggregationResult().getAggregations().length, is(1));
+        assertThat(result.getAggregationResult().getAggregations()[0].getName(), is("byType"));
+    }
+
+    @Test
+    public void testParseSearchResultWithRawSource() throws IOException {
+        String source = "{ \"f\" : \"caf\u00e9\", \"nested\" : {\"n\":[1,2]} }";
+        byte[] body = ("{\"hits\":{\"total\":1,\"hits\":[{\"_id\":\"a\",\"_score\":1.0,\"_version\":2,"
+                + "\"_source\":" + source + ",\"sort\":[1]}]}}").getBytes(StandardCharsets.UTF_8);
+        SearchOperationResult result = newSearchResult(200);
+        try (JsonParser parser = ElasticSearchResponseParser.createParser(body)) {
+            ElasticSearchResponseParser.parseSearchResult(parser, result, INDEX, body);
+        }
+
+        Document doc = result.getSearchResult().getHits()[0].getDocument();
+        assertThat(doc.getEtag(), is("2"));
+        assertThat(doc.getRawContent().toString(), is(source));
+
+        String output = new ObjectMapper().writeValueAsString(result.getSearchResult());
+        assertThat(output, containsString("\"content\":" + source));
+
+        // The content is still available to callers which need to inspect it
+        assertThat(doc.getContent().get("f"), is((Object) "caf\u00e9"));
+        assertThat(doc.getRawContent(), is(nullValue()));
+    }
+
+    @Test
+    public void testParseSearchResultSortValues() throws IOException {
+        SearchOperationResult result = newSearchResult(200);
+        parseSearch("{\"hits\":{\"total\":2,\"hits\":["
+                + "{\"_id\":\"a\",\"_score\":null,\"_source\":{},\"sort\":[1507046400000,\"x\",\"a\"]},"
+                + "{\"_id\":\"b\",\"_score\":1.0,\"_source\":{}}]}}", result);
+
+        SearchHit[] hits = result.getSearchResult().getHits();
+        assertThat(hits[0].getSortValues(), is(Arrays.<Object>asList(1507046400000L, "x", "a")));
+        assertThat(hits[1].getSortValues(), is(nullValue()));
+        assertThat(new ObjectMapper().writeValueAsString(hits[0]), not(containsString("sort")));
+    }
+
+    @Test
+    public void testParseSearchErrorResult() throws IOException {
+        SearchOperationResult result = newSearchResult(400);
+        parseSearch("{\"error\":{\"type\":\"search_phase_execution_exception\",\"reason\":\"all shards failed\"},"
+                + "\"status\":400}", result);
+
+        assertThat(result.getSearchResult(), is(nullValue()));
+        assertThat(result.getError().getType(), is("search_phase_execution_exception"));
+    }
+
+    @Test
+    public void testParseSuggestResult() throws IOException {
+        SearchOperationResult result = newSearchResult(200);
+        try (JsonParser parser = ElasticSearchResponseParser.createParser("{\"_shards\":{\"total\":1},"
+                + "\"suggest-vnf\":[{\"text\":\"fr\",\"offset\":0,\"length\":2,\"options\":["
+                + "{\"text\":\"fred\",\"_id\":\"a\",\"score\":2.0,\"payload\":{\"p\":1}},"
+                + "{\"text\":\"frank\",\"_id\":\"b\",\"score\":1.0}]},"
+                + "{\"text\":\"ignored\",\"options\":[{\"text\":\"x\"}]}]}")) {
+            ElasticSearchResponseParser.parseSuggestResult(parser, result, INDEX);
+        }
+
+        assertThat(result.getSuggestResult().getTotalHits(), is("2"));
+        SuggestHit[] hits = result.getSuggestResult().getHits();
+        assertThat(hits[0].getText(), is("fred"));
+        assertThat(hits[0].getScore(), is("2.0"));
+        assertThat(hits[0].getDocument().getContent().get("p"), is((Object) 1L));
+        assertThat(hits[1].getDocument().getUrl(), containsString("/indexes/test/documents/b"));
+    }
+
+    @Test
+    public void testParseVersion() {
+        assertThat(ElasticSearchResponseParser.parseVersion("{\"acknowledged\":true,\"_version\":4}"), is("4"));
+        assertThat(ElasticSearchResponseParser.parseVersion("{\"acknowledged\":true}"), is(nullValue()));
+        assertThat(ElasticSearchResponseParser.parseVersion("not json"), is(""));
+        assertThat(ElasticSearchResponseParser.parseVersion(""), is(""));
+    }
+
+    @Test
+    public void testParseIndexNames() throws Exception {
+        String response = "[{\"index\":\"index1\"},{\"index\":\"index2\",\"health\":\"green\"}]";
+        try (JsonParser parser = ElasticSearchResponseParser.createParser(response)) {
+            Set<String> names = ElasticSearchResponseParser.parseIndexNames(parser);
+            assertThat(names, is((Set<String>) new HashSet<>(Arrays.asList("index1", "index2"))));
+        }
+    }
+
+    @Test
+    public void testParseDocumentsFound() throws Exception {
+        String response = "{\"docs\":[{\"_index\":\"index1\",\"_type\":\"default\",\"_id\":\"1\","
+                + "\"_version\":2,\"found\":true},{\"_index\":\"index1\",\"_id\":\"2\",\"found\":false},"
+                + "{\"_index\":\"missing\",\"_id\":\"3\",\"error\":{\"type\":\"index_not_found_exception\"}}]}";
+        try (JsonParser parser = ElasticSearchResponseParser.createParser(response)) {
+            assertThat(ElasticSearchResponseParser.parseDocumentsFound(parser), is(Arrays.asList(true, false, false)));
+        }
+    }
+
+    @Test
+    public void testParseDocumentVersions() throws Exception {
+        String response = "{\"docs\":[{\"_index\":\"index1\",\"_type\":\"default\",\"_id\":\"1\","
+                + "\"_version\":2,\"found\":true},{\"_index\":\"index1\",\"_id\":\"2\",\"found\":false}]}";
+        try (JsonParser parser = ElasticSearchResponseParser.createParser(response)) {
+            assertThat(ElasticSearchResponseParser.parseDocumentVersions(parser), is(Arrays.asList("2", null)));
+        }
+    }
+
+    private DocumentOperationResult newDocumentResult(int resultCode) {
+        DocumentOperationResult result = new DocumentOperationResult();
+        result.setResultCode(resultCode);
+        return result;
+    }
+
+    private SearchOperationResult newSearchResult(int resultCode) {
+        SearchOperationResult result = new SearchOperationResult();
+        result.setResultCode(resultCode);
+        return result;
+    }
+
+    private void parseDocument(String response, DocumentOperationResult result) throws IOException {
+        try (JsonParser parser = ElasticSearchResponseParser.createParser(response)) {
+            ElasticSearchResponseParser.parseDocumentResult(parser, result, INDEX);
+        }
+    }
+
+    private void parseSearch(String response, SearchOperationResult result) throws IOException {
+        try (JsonParser parser = ElasticSearchResponseParser.createParser(response)) {
+            ElasticSearchResponseParser.parseSearchResult(parser, result, INDEX);
+        }
+    }
+}
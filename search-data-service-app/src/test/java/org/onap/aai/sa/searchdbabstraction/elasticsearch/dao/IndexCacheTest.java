@@ -0,0 +1,152 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import org.onap.aai.sa.searchdbabstraction.entity.OperationResult;
+import org.onap.aai.sa.searchdbabstraction.entity.OperationResultBuilder;
+
+public class IndexCacheTest {
+
+    private final Map<String, Integer> statuses = new HashMap<>();
+    private final Set<String> listing = new HashSet<>();
+    private final AtomicInteger checks = new AtomicInteger();
+    private final AtomicInteger listCalls = new AtomicInteger();
+    private IndexCache cache;
+
+    @After
+    public void shutdown() {
+        if (cache != null) {
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    public void testExistenceIsCheckedOnce() throws Exception {
+        statuses.put("index1", 200);
+        statuses.put("missing", 404);
+        cache = new IndexCache(this::check, this::list, 60000, 0);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.exists("index1").get(), is(true));
+            assertThat(cache.exists("missing").get(), is(false));
+        }
+        assertThat(checks.get(), is(2));
+    }
+
+    @Test
+    public void testUnexpectedResponsesAreNotCached() throws Exception {
+        statuses.put("index1", 500);
+        cache = new IndexCache(this::check, this::list, 60000, 0);
+
+        assertThat(cache.exists("index1").get(), is(false));
+        statuses.put("index1", 200);
+        assertThat(cache.exists("index1").get(), is(true));
+        assertThat(checks.get(), is(2));
+    }
+
+    @Test
+    public void testEntriesExpire() throws Exception {
+        statuses.put("index1", 200);
+        cache = new IndexCache(this::check, this::list, 10, 0);
+
+        assertThat(cache.exists("index1").get(), is(true));
+        Thread.sleep(20);
+        assertThat(cache.exists("index1").get(), is(true));
+        assertThat(checks.get(), is(2));
+    }
+
+    @Test
+    public void testCacheCanBeDisabled() throws Exception {
+        statuses.put("index1", 200);
+        cache = new IndexCache(this::check, this::list, 0, 0);
+
+        cache.exists("index1").get();
+        cache.exists("index1").get();
+        assertThat(checks.get(), is(2));
+    }
+
+    @Test
+    public void testRefreshFillsTheCache() throws Exception {
+        listing.addAll(Arrays.asList("index1", "index2"));
+        cache = new IndexCache(this::check, this::list, 60000, 0);
+
+        cache.refresh().get();
+        assertThat(cache.exists("index1").get(), is(true));
+        assertThat(cache.exists("index2").get(), is(true));
+        assertThat(checks.get(), is(0));
+
+        // An index which is no longer listed is checked again on next use
+        listing.remove("index2");
+        statuses.put("index2", 404);
+        cache.refresh().get();
+        assertThat(cache.exists("index2").get(), is(false));
+        assertThat(checks.get(), is(1));
+    }
+
+    @Test
+    public void testBackgroundRefresh() throws Exception {
+        listing.add("index1");
+        cache = new IndexCache(this::check, this::list, 60000, 10);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline && listCalls.get() == 0) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(20);
+        assertThat(cache.exists("index1").get(), is(true));
+        assertThat(checks.get(), is(0));
+    }
+
+    @Test
+    public void testRecordedChanges() throws Exception {
+        statuses.put("index1", 200);
+        cache = new IndexCache(this::check, this::list, 60000, 0);
+
+        cache.put("index1", false);
+        assertThat(cache.exists("index1").get(), is(false));
+        cache.invalidate("index1");
+        assertThat(cache.exists("index1").get(), is(true));
+        assertThat(checks.get(), is(1));
+    }
+
+    private CompletableFuture<OperationResult> check(String index) {
+        checks.incrementAndGet();
+        int status = statuses.containsKey(index) ? statuses.get(index) : 404;
+        return CompletableFuture.completedFuture(new OperationResultBuilder().resultCode(status).build());
+    }
+
+    private CompletableFuture<Set<String>> list() {
+        listCalls.incrementAndGet();
+        return CompletableFuture.completedFuture(new HashSet<>(listing));
+    }
+}
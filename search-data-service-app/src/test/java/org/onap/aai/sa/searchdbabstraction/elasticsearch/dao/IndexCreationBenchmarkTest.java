@@ -0,0 +1,174 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import org.apache.commons.io.IOUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.HttpTransport;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.HttpTransportResponse;
+import org.onap.aai.sa.searchdbabstraction.entity.OperationResult;
+import org.onap.aai.sa.searchdbabstraction.util.ElasticSearchPayloadTranslator;
+
+/**
+ * Measures the throughput of index creation for many indexes, as when tenants are onboarded. The payload translation
+ * is first compared on its own with the previous translation, which read and parsed the configuration file and
+ * evaluated every JSON Path query for each index, and then the whole creation of each index is timed against an
+ * Elasticsearch which acknowledges every request at once.
+ */
+@Ignore("Benchmark - run manually")
+public class IndexCreationBenchmarkTest {
+
+    private static final String CONFIG_HOME = "src/test/resources/json";
+    private static final String TRANSLATION_FILE = CONFIG_HOME + File.separator + "es-payload-translation.json";
+    private static final int INDEXES = 500;
+    private static final int FIELDS = 40;
+
+    @Test
+    public void measureIndexCreation() throws Exception {
+        System.setProperty("CONFIG_HOME", CONFIG_HOME);
+        String payload = buildIndexPayload(FIELDS);
+        ElasticSearchPayloadTranslator translator = new ElasticSearchPayloadTranslator(Paths.get(TRANSLATION_FILE));
+
+        run("previous translation", INDEXES, i -> translateWithFileAndJsonPath(payload));
+        run("compiled translation", INDEXES, i -> translator.translate(payload));
+        run("previous translation", INDEXES, i -> translateWithFileAndJsonPath(payload));
+        run("compiled translation", INDEXES, i -> translator.translate(payload));
+        translator.close();
+
+        Properties properties = new Properties();
+        properties.put(ElasticSearchConfig.ES_IP_ADDRESS, "localhost");
+        properties.put(ElasticSearchConfig.ES_HTTP_PORT, "9200");
+        properties.put(ElasticSearchConfig.ES_INDEX_CACHE_REFRESH_INTERVAL, "0");
+        ElasticSearchHttpController controller =
+                new ElasticSearchHttpController(new ElasticSearchConfig(properties), new AcknowledgingTransport());
+        run("index creation", INDEXES, i -> createIndex(controller, "warmup-" + i, payload));
+        run("index creation", INDEXES, i -> createIndex(controller, "tenant-" + i, payload));
+    }
+
+    private void run(String name, int iterations, Iteration iteration) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            iteration.run(i);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%-22s %8.3f ms/index %10.0f indexes/s%n", name, elapsed / 1_000_000.0 / iterations,
+                iterations * 1_000_000_000.0 / elapsed);
+    }
+
+    private static void createIndex(ElasticSearchHttpController controller, String index, String payload)
+            throws Exception {
+        OperationResult result = controller.createDynamicIndex(index, payload);
+        if (result.getResultCode() != 201) {
+            throw new IllegalStateException("Unexpected result " + result.getResultCode());
+        }
+    }
+
+    /**
+     * The previous translation: the configuration is read and parsed, and every query evaluated, for each payload.
+     */
+    private static String translateWithFileAndJsonPath(String source) throws Exception {
+        JSONObject translationConfigPayload =
+                new JSONObject(IOUtils.toString(new FileInputStream(new File(TRANSLATION_FILE)), "UTF-8"));
+        JSONArray attrTranslations = translationConfigPayload.getJSONArray("attr-translations");
+        DocumentContext payloadToTranslate = JsonPath.parse(source);
+        for (Object obj : attrTranslations) {
+            JSONObject jsonObj = (JSONObject) obj;
+            List<Map<String, Object>> filteredObjects = payloadToTranslate.read(jsonObj.get("query").toString());
+            for (Map<String, Object> objMap : filteredObjects) {
+                objMap.putAll(((JSONObject) jsonObj.get("update")).toMap());
+            }
+        }
+        return payloadToTranslate.jsonString();
+    }
+
+    private static String buildIndexPayload(int fields) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"settings\":{\"number_of_shards\":5,\"number_of_replicas\":1},")
+                .append("\"mappings\":{\"default\":{\"properties\":{");
+        for (int i = 0; i < fields; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("\"field").append(i).append("\":");
+            switch (i % 4) {
+                case 0:
+                    sb.append("{\"type\":\"string\",\"index\":\"analyzed\"}");
+                    break;
+                case 1:
+                    sb.append("{\"type\":\"string\",\"index\":\"not_analyzed\"}");
+                    break;
+                case 2:
+                    sb.append("{\"type\":\"string\"}");
+                    break;
+                default:
+                    sb.append("{\"type\":\"date\",\"format\":\"yyyy-MM-dd\"}");
+                    break;
+            }
+        }
+        sb.append("}}}}");
+        return sb.toString();
+    }
+
+    @FunctionalInterface
+    private interface Iteration {
+        void run(int i) throws Exception;
+    }
+
+    /**
+     * Acknowledges every request.
+     */
+    private static class AcknowledgingTransport implements HttpTransport {
+
+        @Override
+        public HttpTransportResponse execute(String method, URL url, String contentType, String content) {
+            return new HttpTransportResponse(200,
+                    new ByteArrayInputStream("{\"acknowledged\":true}".getBytes(StandardCharsets.UTF_8)));
+        }
+
+        @Override
+        public CompletableFuture<HttpTransportResponse> executeAsync(String method, URL url, String contentType,
+                String content) {
+            return CompletableFuture.completedFuture(execute(method, url, contentType, content));
+        }
+
+        @Override
+        public void shutdown() {
+            // Nothing to release.
+        }
+    }
+}
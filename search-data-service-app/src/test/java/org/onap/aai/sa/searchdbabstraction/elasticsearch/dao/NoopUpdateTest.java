@@ -0,0 +1,245 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.Before;
+import org.junit.Test;
+import org.onap.aai.sa.rest.BulkMetaData;
+import org.onap.aai.sa.rest.BulkOperation;
+import org.onap.aai.sa.rest.BulkRequest;
+import org.onap.aai.sa.rest.Document;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.HttpTransport;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.HttpTransportResponse;
+import org.onap.aai.sa.searchdbabstraction.entity.DocumentOperationResult;
+
+/**
+ * Checks that updates which would not change a document are answered without sending them to Elasticsearch, and only
+ * while the version they replace is still the current one.
+ */
+public class NoopUpdateTest {
+
+    private static final String DOCUMENT_URL = "/services/search-data-service/v1/search/indexes/index1/documents/%s";
+
+    private final DocumentTransport transport = new DocumentTransport();
+    private ElasticSearchHttpController controller;
+
+    @Before
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.put(ElasticSearchConfig.ES_IP_ADDRESS, "localhost");
+        properties.put(ElasticSearchConfig.ES_HTTP_PORT, "9200");
+        properties.put(ElasticSearchConfig.ES_INDEX_CACHE_REFRESH_INTERVAL, "0");
+        properties.put(ElasticSearchConfig.ES_NOOP_DETECTION_ENABLED, "true");
+        controller = new ElasticSearchHttpController(new ElasticSearchConfig(properties), transport);
+    }
+
+    @Test
+    public void testUnchangedUpdateIsSuppressed() throws Exception {
+        controller.createDocument("index1", document("doc1", null, "{\"a\":1}"), false);
+        transport.requests.clear();
+
+        DocumentOperationResult result = controller.updateDocument("index1", document("doc1", "1", "{\"a\":1}"), false);
+
+        assertThat(result.getResultCode(), is(200));
+        assertThat(result.getResultVersion(), is("1"));
+        assertThat(result.getDocument().getEtag(), is("1"));
+        assertThat(transport.count("PUT "), is(0));
+        assertThat(transport.versions.get("doc1"), is(1L));
+
+        result = controller.updateDocument("index1", document("doc1", "1", "{\"a\":2}"), false);
+
+        assertThat(result.getResultCode(), is(200));
+        assertThat(result.getResultVersion(), is("2"));
+        assertThat(transport.count("PUT "), is(1));
+    }
+
+    @Test
+    public void testUpdateIsSentWhenTheDocumentChangedElsewhere() throws Exception {
+        controller.createDocument("index1", document("doc1", null, "{\"a\":1}"), false);
+        transport.versions.put("doc1", 2L);
+        transport.requests.clear();
+
+        DocumentOperationResult result = controller.updateDocument("index1", document("doc1", "1", "{\"a\":1}"), false);
+
+        assertThat(result.getResultCode(), is(412));
+        assertThat(transport.count("PUT "), is(1));
+    }
+
+    @Test
+    public void testUnchangedBulkUpdateIsSuppressed() throws Exception {
+        transport.versions.put("doc1", 1L);
+        controller.performBulkOperations(new BulkRequest[] {update("doc1", "1", 1)});
+        assertThat(transport.count("PUT /_bulk"), is(1));
+        transport.requests.clear();
+
+        JsonNode response = new ObjectMapper().readTree(
+                controller.performBulkOperations(new BulkRequest[] {update("doc1", "2", 1)}).getResult());
+
+        assertThat(transport.count("PUT /_bulk"), is(0));
+        assertThat(response.get("total_success").asInt(), is(1));
+        assertThat(response.get("results").get(0).get("etag").asText(), is("2"));
+        assertThat(response.get("results").get(0).get("url").asText(), is(String.format(DOCUMENT_URL, "doc1")));
+
+        controller.performBulkOperations(new BulkRequest[] {update("doc1", "2", 2)});
+        assertThat(transport.count("PUT /_bulk"), is(1));
+    }
+
+    private static DocumentStoreDataEntityImpl document(String id, String version, String content) {
+        DocumentStoreDataEntityImpl document = new DocumentStoreDataEntityImpl();
+        document.setId(id);
+        document.setVersion(version);
+        document.setContent(content);
+        return document;
+    }
+
+    private static BulkRequest update(String id, String etag, int value) {
+        BulkMetaData metaData = new BulkMetaData();
+        metaData.setUrl(String.format(DOCUMENT_URL, id));
+        metaData.setEtag(etag);
+        Document document = new Document();
+        document.setField("a", value);
+        BulkOperation operation = new BulkOperation();
+        operation.setMetaData(metaData);
+        operation.setDocument(document);
+        BulkRequest request = new BulkRequest();
+        request.setUpdate(operation);
+        return request;
+    }
+
+    /**
+     * Answers as a cluster holding the index {@code index1}, keeping the version of each document written to it and
+     * recording each request.
+     */
+    private static class DocumentTransport implements HttpTransport {
+
+        private static final String DOCUMENT_PATH = "/index1/default/";
+        private static final String CONFLICT =
+                "{\"error\":{\"type\":\"version_conflict_engine_exception\",\"reason\":\"version conflict\"}}";
+
+        private final List<String> requests = new CopyOnWriteArrayList<>();
+        private final Map<String, Long> versions = new ConcurrentHashMap<>();
+
+        @Override
+        public HttpTransportResponse execute(String method, URL url, String contentType, String content) {
+            requests.add(method + " " + url.getPath());
+            String path = url.getPath();
+            if (path.equals("/_bulk")) {
+                return response(200, bulk(content));
+            }
+            if (path.equals("/_mget")) {
+                return response(200, lookup(content));
+            }
+            if (!path.startsWith(DOCUMENT_PATH)) {
+                return response(path.equals("/index1") || path.equals("/") ? 200 : 404, "{}");
+            }
+
+            String id = path.substring(DOCUMENT_PATH.length());
+            Long version = versions.get(id);
+            if ("PUT".equals(method)) {
+                String query = url.getQuery();
+                boolean create = "op_type=create".equals(query);
+                if (create ? version != null : query != null && !query.equals("version=" + version)) {
+                    return response(409, CONFLICT);
+                }
+                versions.put(id, version == null ? 1 : version + 1);
+                return response(version == null ? 201 : 200, "{\"_id\":\"" + id + "\",\"_version\":"
+                        + versions.get(id) + "}");
+            }
+            if (version == null) {
+                return response(404, "{\"_id\":\"" + id + "\",\"found\":false}");
+            }
+            return response(200, "{\"_id\":\"" + id + "\",\"_version\":" + version + ",\"found\":true}");
+        }
+
+        @Override
+        public CompletableFuture<HttpTransportResponse> executeAsync(String method, URL url, String contentType,
+                String content) {
+            return CompletableFuture.completedFuture(execute(method, url, contentType, content));
+        }
+
+        @Override
+        public void shutdown() {
+            // Nothing to release.
+        }
+
+        int count(String prefix) {
+            return (int) requests.stream().filter(r -> r.startsWith(prefix)).count();
+        }
+
+        private String bulk(String content) {
+            try {
+                StringBuilder items = new StringBuilder("{\"took\":1,\"errors\":false,\"items\":[");
+                String separator = "";
+                String[] lines = content.split("\n");
+                for (int i = 0; i < lines.length; i += 2) {
+                    String id = new ObjectMapper().readTree(lines[i]).get("index").get("_id").asText();
+                    long version = versions.merge(id, 1L, Long::sum);
+                    items.append(separator).append("{\"index\":{\"_index\":\"index1\",\"_id\":\"").append(id)
+                            .append("\",\"_version\":").append(version).append(",\"status\":200}}");
+                    separator = ",";
+                }
+                return items.append("]}").toString();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private String lookup(String content) {
+            try {
+                StringBuilder docs = new StringBuilder("{\"docs\":[");
+                String separator = "";
+                for (JsonNode doc : new ObjectMapper().readTree(content).get("docs")) {
+                    String id = doc.get("_id").asText();
+                    docs.append(separator).append("{\"_index\":\"index1\",\"_id\":\"").append(id).append('"');
+                    if (versions.containsKey(id)) {
+                        docs.append(",\"_version\":").append(versions.get(id)).append(",\"found\":true}");
+                    } else {
+                        docs.append(",\"found\":false}");
+                    }
+                    separator = ",";
+                }
+                return docs.append("]}").toString();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static HttpTransportResponse response(int status, String body) {
+            return new HttpTransportResponse(status, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.IOUtils;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.onap.aai.sa.rest.ApiUtils;
+import org.onap.aai.sa.searchdbabstraction.entity.Document;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchHit;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchHits;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchOperationResult;
+
+/**
+ * Compares the time taken and the memory allocated when decoding a 10,000 hit search response in a single streaming
+ * pass with reading the response into a string and parsing it twice, once for the version and once for the hits. The
+ * streaming pass is measured both with the source of each hit decoded and with it passed through as raw JSON.
+ */
+@Ignore("Benchmark - run manually")
+public class ResponseParsingBenchmarkTest {
+
+    private static final int HITS = 10_000;
+    private static final int ITERATIONS = 50;
+    private static final int WARMUP_ITERATIONS = 20;
+
+    @Test
+    public void compareResponseParsing() throws Exception {
+        byte[] response = buildSearchResponse(HITS);
+        System.out.printf("response size: %d bytes%n", response.length);
+
+        run("string + json-simple", response, WARMUP_ITERATIONS, this::parseWithStringAndJsonSimple);
+        run("streaming", response, WARMUP_ITERATIONS, this::parseStreaming);
+        run("streaming, raw source", response, WARMUP_ITERATIONS, this::parseWithRawSource);
+        run("string + json-simple", response, ITERATIONS, this::parseWithStringAndJsonSimple);
+        run("streaming", response, ITERATIONS, this::parseStreaming);
+        run("streaming, raw source", response, ITERATIONS, this::parseWithRawSource);
+    }
+
+    private void run(String name, byte[] response, int iterations, ResponseDecoder decoder) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            SearchOperationResult result = decoder.decode(new ByteArrayInputStream(response));
+            if (result.getSearchResult().getHits().length != HITS) {
+                throw new IllegalStateException("Unexpected hit count");
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("%-22s %8.2f ms/response %10.1f KB allocated/response%n", name,
+                elapsed / 1_000_000.0 / iterations, allocated / 1024.0 / iterations);
+    }
+
+    private SearchOperationResult parseStreaming(InputStream body) throws Exception {
+        SearchOperationResult result = new SearchOperationResult();
+        result.setResultCode(200);
+        try (JsonParser parser = ElasticSearchResponseParser.createParser(body)) {
+            ElasticSearchResponseParser.parseSearchResult(parser, result, "test");
+        }
+        return result;
+    }
+
+    private SearchOperationResult parseWithRawSource(InputStream body) throws Exception {
+        SearchOperationResult result = new SearchOperationResult();
+        result.setResultCode(200);
+        byte[] bytes = IOUtils.toByteArray(body);
+        try (JsonParser parser = ElasticSearchResponseParser.createParser(bytes)) {
+            ElasticSearchResponseParser.parseSearchResult(parser, result, "test", bytes);
+        }
+        return result;
+    }
+
+    /**
+     * The previous decoding path: the body is copied into a string, parsed once to find the version and then parsed
+     * again to build the hits.
+     */
+    private SearchOperationResult parseWithStringAndJsonSimple(InputStream body) throws Exception {
+        String raw = IOUtils.toString(body, StandardCharsets.UTF_8);
+
+        SearchOperationResult result = new SearchOperationResult();
+        result.setResultCode(200);
+        result.setResult(raw);
+        Object version = ((JSONObject) new JSONParser().parse(raw)).get("_version");
+        result.setResultVersion(version != null ? version.toString() : null);
+
+        JSONObject root = (JSONObject) new JSONParser().parse(result.getResult());
+        JSONObject hits = (JSONObject) root.get("hits");
+        JSONArray hitArray = (JSONArray) hits.get("hits");
+        SearchHit[] searchHits = new SearchHit[hitArray.size()];
+        for (int i = 0; i < hitArray.size(); i++) {
+            JSONObject hit = (JSONObject) hitArray.get(i);
+            SearchHit searchHit = new SearchHit();
+            searchHit.setScore(hit.get("_score") != null ? hit.get("_score").toString() : "");
+            Document doc = new Document();
+            if (hit.get("_version") != null) {
+                doc.setEtag(hit.get("_version").toString());
+            }
+            doc.setUrl(ApiUtils.buildDocumentUri("test", hit.get("_id").toString()));
+            doc.setContent((JSONObject) hit.get("_source"));
+            searchHit.setDocument(doc);
+            searchHits[i] = searchHit;
+        }
+        SearchHits searchResult = new SearchHits();
+        searchResult.setTotalHits(hits.get("total").toString());
+        searchResult.setHits(searchHits);
+        result.setSearchResult(searchResult);
+        return result;
+    }
+
+    private static byte[] buildSearchResponse(int hitCount) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"took\":12,\"timed_out\":false,\"_shards\":{\"total\":5,\"successful\":5,\"failed\":0},")
+                .append("\"hits\":{\"total\":").append(hitCount).append(",\"max_score\":1.0,\"hits\":[");
+        for (int i = 0; i < hitCount; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"_index\":\"test\",\"_type\":\"default\",\"_id\":\"doc-").append(i)
+                    .append("\",\"_version\":").append(1 + i % 5).append(",\"_score\":1.0,\"_source\":{")
+                    .append("\"entityType\":\"service-instance\",")
+                    .append("\"edgeTagQueryEntityFieldName\":\"service-instance.service-instance-id\",")
+                    .append("\"edgeTagQueryEntityFieldValue\":\"").append(100000 + i).append("\",")
+                    .append("\"searchTagIDs\":\"").append(i).append("\",")
+                    .append("\"searchTags\":\"service-instance-id\",\"count\":").append(i).append("}}");
+        }
+        sb.append("]}}");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    private interface ResponseDecoder {
+        SearchOperationResult decode(InputStream body) throws Exception;
+    }
+}
@@ -0,0 +1,229 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.Test;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.HttpTransport;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.HttpTransportResponse;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchOperationResult;
+
+public class SearchCoalescerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SearchCoalescer coalescer = new SearchCoalescer(registry);
+    private final AtomicInteger searches = new AtomicInteger();
+    private final CompletableFuture<SearchOperationResult> inProgress = new CompletableFuture<>();
+
+    @Test
+    public void testIdenticalSearchesShareOneSearch() throws Exception {
+        CompletableFuture<SearchOperationResult> first = coalescer.search("index1", "{\"size\": 1}", search());
+        CompletableFuture<SearchOperationResult> second = coalescer.search("index1", "{\"size\": 1}", search());
+        assertThat(second, is(not(sameInstance(first))));
+
+        SearchOperationResult result = new SearchOperationResult();
+        inProgress.complete(result);
+
+        assertThat(searches.get(), is(1));
+        assertThat(first.get(), is(sameInstance(result)));
+        assertThat(second.get(), is(sameInstance(result)));
+        assertThat(registry.get(SearchCoalescer.METRIC_COALESCED).counter().count(), is(1.0));
+    }
+
+    @Test
+    public void testDifferentSearchesAreNotShared() {
+        coalescer.search("index1", "{\"size\":1}", search());
+        coalescer.search("index2", "{\"size\":1}", search());
+        coalescer.search("index1", "{\"size\":2}", search());
+        coalescer.search("index1", "q=a b", search());
+        coalescer.search("index1", "q=ab", search());
+
+        assertThat(searches.get(), is(5));
+        assertThat(registry.get(SearchCoalescer.METRIC_COALESCED).counter().count(), is(0.0));
+    }
+
+    @Test
+    public void testSearchAfterCompletionIsSentAgain() throws Exception {
+        coalescer.search("index1", "q", search());
+        inProgress.complete(new SearchOperationResult());
+        coalescer.search("index1", "q", search()).get();
+
+        assertThat(searches.get(), is(2));
+    }
+
+    @Test
+    public void testSearchAfterAWriteIsSentAgain() {
+        coalescer.search("index1", "q", search());
+        coalescer.search("index2", "q", search());
+        coalescer.invalidate("index1");
+        coalescer.search("index1", "q", search());
+        coalescer.search("index2", "q", search());
+
+        assertThat(searches.get(), is(3));
+    }
+
+    @Test
+    public void testFailureIsSharedAndNotKept() throws Exception {
+        CompletableFuture<SearchOperationResult> first = coalescer.search("index1", "q", search());
+        CompletableFuture<SearchOperationResult> second = coalescer.search("index1", "q", search());
+        inProgress.completeExceptionally(new IllegalStateException("failed"));
+
+        assertThat(failure(first), is(instanceOf(IllegalStateException.class)));
+        assertThat(failure(second), is(instanceOf(IllegalStateException.class)));
+
+        coalescer.search("index1", "q", search());
+        assertThat(searches.get(), is(2));
+    }
+
+    @Test
+    public void testCancellingOneCallerDoesNotAffectTheOthers() throws Exception {
+        CompletableFuture<SearchOperationResult> first = coalescer.search("index1", "q", search());
+        CompletableFuture<SearchOperationResult> second = coalescer.search("index1", "q", search());
+        first.cancel(true);
+
+        SearchOperationResult result = new SearchOperationResult();
+        inProgress.complete(result);
+        assertThat(second.get(), is(sameInstance(result)));
+    }
+
+    @Test
+    public void testControllerSharesIdenticalSearches() throws Exception {
+        Properties properties = new Properties();
+        properties.put(ElasticSearchConfig.ES_IP_ADDRESS, "localhost");
+        properties.put(ElasticSearchConfig.ES_HTTP_PORT, "9200");
+        properties.put(ElasticSearchConfig.ES_INDEX_CACHE_REFRESH_INTERVAL, "0");
+        properties.put(ElasticSearchConfig.ES_SEARCH_COALESCING_ENABLED, "true");
+        HeldSearchTransport transport = new HeldSearchTransport();
+        ElasticSearchHttpController controller =
+                new ElasticSearchHttpController(new ElasticSearchConfig(properties), transport);
+
+        String query = "{\"query\":{\"match_all\":{}}}";
+        CompletableFuture<SearchOperationResult> first = controller.searchWithPayloadAsync("index1", query);
+        CompletableFuture<SearchOperationResult> second =
+                controller.searchWithPayloadAsync("index1", "{ \"query\": { \"match_all\": {} } }");
+        CompletableFuture<SearchOperationResult> other = controller.searchAsync("index1", "q=a b");
+        CompletableFuture<SearchOperationResult> another = controller.searchAsync("index1", "q=ab");
+        assertThat(transport.held.size(), is(3));
+
+        transport.release();
+        assertThat(first.get().getSearchResult().getTotalHits(), is("1"));
+        assertThat(second.get(), is(sameInstance(first.get())));
+        assertThat(other.get().getSearchResult().getTotalHits(), is("1"));
+        assertThat(another.get(), is(not(sameInstance(other.get()))));
+    }
+
+    @Test
+    public void testControllerDoesNotShareSearchesStartedBeforeAWrite() throws Exception {
+        Properties properties = new Properties();
+        properties.put(ElasticSearchConfig.ES_IP_ADDRESS, "localhost");
+        properties.put(ElasticSearchConfig.ES_HTTP_PORT, "9200");
+        properties.put(ElasticSearchConfig.ES_INDEX_CACHE_REFRESH_INTERVAL, "0");
+        properties.put(ElasticSearchConfig.ES_SEARCH_COALESCING_ENABLED, "true");
+        HeldSearchTransport transport = new HeldSearchTransport();
+        ElasticSearchHttpController controller =
+                new ElasticSearchHttpController(new ElasticSearchConfig(properties), transport);
+
+        String query = "{\"query\":{\"match_all\":{}}}";
+        CompletableFuture<SearchOperationResult> before = controller.searchWithPayloadAsync("index1", query);
+        DocumentStoreDataEntityImpl document = new DocumentStoreDataEntityImpl();
+        document.setId("doc1");
+        document.setContent("{}");
+        controller.createDocument("index1", document, true);
+        CompletableFuture<SearchOperationResult> after = controller.searchWithPayloadAsync("index1", query);
+        assertThat(transport.held.size(), is(2));
+
+        transport.release();
+        assertThat(after.get(), is(not(sameInstance(before.get()))));
+    }
+
+    private Supplier<CompletableFuture<SearchOperationResult>> search() {
+        return () -> {
+            searches.incrementAndGet();
+            return inProgress;
+        };
+    }
+
+    private static Throwable failure(CompletableFuture<?> future) throws InterruptedException {
+        try {
+            future.get();
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+
+    /**
+     * Holds back the responses to searches until released, answering them with a single hit.
+     */
+    private static class HeldSearchTransport implements HttpTransport {
+
+        private final List<CompletableFuture<HttpTransportResponse>> held = new CopyOnWriteArrayList<>();
+
+        void release() {
+            for (CompletableFuture<HttpTransportResponse> response : held) {
+                response.complete(response(
+                        "{\"hits\":{\"total\":1,\"hits\":[{\"_id\":\"a\",\"_score\":1.0,\"_source\":{}}]}}"));
+            }
+        }
+
+        @Override
+        public HttpTransportResponse execute(String method, URL url, String contentType, String content) {
+            return response("{\"_id\":\"doc1\",\"_version\":1}");
+        }
+
+        @Override
+        public CompletableFuture<HttpTransportResponse> executeAsync(String method, URL url, String contentType,
+                String content) {
+            if (!url.getPath().endsWith("/_search")) {
+                return CompletableFuture.completedFuture(execute(method, url, contentType, content));
+            }
+            CompletableFuture<HttpTransportResponse> response = new CompletableFuture<>();
+            held.add(response);
+            return response;
+        }
+
+        @Override
+        public void shutdown() {
+            // Nothing to release.
+        }
+
+        private static HttpTransportResponse response(String body) {
+            return new HttpTransportResponse(200, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+}
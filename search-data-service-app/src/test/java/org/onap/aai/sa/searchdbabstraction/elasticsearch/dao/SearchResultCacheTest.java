@@ -0,0 +1,275 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.Test;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.dao.SearchResultCache.CachedResponse;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.HttpTransport;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.HttpTransportResponse;
+
+public class SearchResultCacheTest {
+
+    private static final long MAX_BYTES = 1024 * 1024;
+    private static final long TTL_MS = 60000;
+
+    private final AtomicInteger searches = new AtomicInteger();
+
+    @Test
+    public void testRepeatedSearchIsAnsweredFromTheCache() throws Exception {
+        SearchResultCache cache = new SearchResultCache(MAX_BYTES, TTL_MS, Collections.emptyMap(), 0, 0);
+
+        CachedResponse first = cache.get("index1", "q", search(200, "a")).get();
+        CachedResponse second = cache.get("index1", "q", search(200, "b")).get();
+
+        assertThat(searches.get(), is(1));
+        assertThat(second, is(first));
+        assertThat(SearchResultCache.normalize("{ \"a b\" : [1, 2] }"), is("{\"a b\":[1,2]}"));
+    }
+
+    @Test
+    public void testQueriesWhichDifferOnlyInWhitespaceAreCachedApart() throws Exception {
+        SearchResultCache cache = new SearchResultCache(MAX_BYTES, TTL_MS, Collections.emptyMap(), 0, 0);
+
+        cache.get("index1", "_search?q=name:foo bar", search(200, "a")).get();
+        CachedResponse response = cache.get("index1", "_search?q=name:foobar", search(200, "b")).get();
+
+        assertThat(searches.get(), is(2));
+        assertThat(new String(response.getBody(), StandardCharsets.UTF_8), is("b"));
+    }
+
+    @Test
+    public void testSearchesJustAfterAWriteAreNotCached() throws Exception {
+        SearchResultCache cache = new SearchResultCache(MAX_BYTES, TTL_MS, Collections.emptyMap(), 0, TTL_MS);
+        cache.invalidate("index1");
+
+        cache.get("index1", "q", search(200, "a")).get();
+        cache.get("index1", "q", search(200, "b")).get();
+
+        assertThat(searches.get(), is(2));
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void testSearchesOnceAWriteCanBeSeenAreCached() throws Exception {
+        SearchResultCache cache = new SearchResultCache(MAX_BYTES, TTL_MS, Collections.emptyMap(), 0, 1);
+        cache.invalidate("index1");
+        Thread.sleep(5);
+
+        cache.get("index1", "q", search(200, "a")).get();
+        cache.get("index1", "q", search(200, "b")).get();
+
+        assertThat(searches.get(), is(1));
+    }
+
+    @Test
+    public void testWriteDropsTheResponsesForTheIndex() throws Exception {
+        SearchResultCache cache = new SearchResultCache(MAX_BYTES, TTL_MS, Collections.emptyMap(), 0, 0);
+        cache.get("index1", "q", search(200, "a")).get();
+        cache.get("index2", "q", search(200, "a")).get();
+
+        cache.invalidate("index1");
+        cache.get("index1", "q", search(200, "b")).get();
+        cache.get("index2", "q", search(200, "b")).get();
+
+        assertThat(searches.get(), is(3));
+    }
+
+    @Test
+    public void testSearchInProgressDuringAWriteIsNotCached() throws Exception {
+        SearchResultCache cache = new SearchResultCache(MAX_BYTES, TTL_MS, Collections.emptyMap(), 0, 0);
+        CompletableFuture<CachedResponse> inProgress = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> result = cache.get("index1", "q", () -> inProgress);
+
+        cache.invalidate("index1");
+        inProgress.complete(response(200, "a"));
+        result.get();
+        cache.get("index1", "q", search(200, "b")).get();
+
+        assertThat(searches.get(), is(1));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void testFailedResponsesAreNotCached() throws Exception {
+        SearchResultCache cache = new SearchResultCache(MAX_BYTES, TTL_MS, Collections.emptyMap(), 0, 0);
+
+        cache.get("index1", "q", search(503, "a")).get();
+        cache.get("index1", "q", search(503, "a")).get();
+
+        assertThat(searches.get(), is(2));
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedResponsesAreDropped() throws Exception {
+        SearchResultCache cache = new SearchResultCache(700, TTL_MS, Collections.emptyMap(), 0, 0);
+        String body = new String(new char[200]).replace('\0', 'x');
+        cache.get("index1", "q1", search(200, body)).get();
+        cache.get("index1", "q2", search(200, body)).get();
+        cache.get("index1", "q1", search(200, body)).get();
+        cache.get("index1", "q3", search(200, body)).get();
+
+        cache.get("index1", "q1", search(200, body)).get();
+        assertThat(searches.get(), is(3));
+        cache.get("index1", "q2", search(200, body)).get();
+        assertThat(searches.get(), is(4));
+    }
+
+    @Test
+    public void testIndexWithoutCachingIsAlwaysSearched() throws Exception {
+        Map<String, Integer> ttls = Collections.singletonMap("live", 0);
+        SearchResultCache cache = new SearchResultCache(MAX_BYTES, TTL_MS, ttls, 0, 0);
+
+        cache.get("live", "q", search(200, "a")).get();
+        cache.get("live", "q", search(200, "a")).get();
+
+        assertThat(searches.get(), is(2));
+    }
+
+    @Test
+    public void testExpiredResponseIsSearchedAgain() throws Exception {
+        SearchResultCache cache = new SearchResultCache(MAX_BYTES, 1, Collections.emptyMap(), 0, 0);
+        cache.get("index1", "q", search(200, "a")).get();
+        Thread.sleep(5);
+
+        CachedResponse response = cache.get("index1", "q", search(200, "b")).get();
+
+        assertThat(searches.get(), is(2));
+        assertThat(new String(response.getBody(), StandardCharsets.UTF_8), is("b"));
+    }
+
+    @Test
+    public void testStaleResponseIsServedWhileItIsRefreshed() throws Exception {
+        SearchResultCache cache = new SearchResultCache(MAX_BYTES, 1, Collections.emptyMap(), TTL_MS, 0);
+        CachedResponse stale = cache.get("index1", "q", search(200, "a")).get();
+        Thread.sleep(5);
+
+        CompletableFuture<CachedResponse> refresh = new CompletableFuture<>();
+        Supplier<CompletableFuture<CachedResponse>> slowSearch = () -> {
+            searches.incrementAndGet();
+            return refresh;
+        };
+        assertThat(cache.get("index1", "q", slowSearch).get(), is(stale));
+        assertThat(cache.get("index1", "q", slowSearch).get(), is(stale));
+        assertThat(searches.get(), is(2));
+
+        refresh.complete(response(200, "b"));
+        CachedResponse fresh = cache.get("index1", "q", search(200, "c")).get();
+        assertThat(new String(fresh.getBody(), StandardCharsets.UTF_8), is("b"));
+        assertThat(searches.get(), is(2));
+    }
+
+    @Test
+    public void testControllerDropsCachedSearchesWhenAnIndexIsWritten() throws Exception {
+        Properties properties = new Properties();
+        properties.put(ElasticSearchConfig.ES_IP_ADDRESS, "localhost");
+        properties.put(ElasticSearchConfig.ES_HTTP_PORT, "9200");
+        properties.put(ElasticSearchConfig.ES_INDEX_CACHE_REFRESH_INTERVAL, "0");
+        properties.put(ElasticSearchConfig.ES_SEARCH_CACHE_ENABLED, "true");
+        SearchTransport transport = new SearchTransport();
+        ElasticSearchHttpController controller =
+                new ElasticSearchHttpController(new ElasticSearchConfig(properties), transport);
+
+        String query = "{\"query\":{\"match_all\":{}}}";
+        controller.searchWithPayload("index1", query);
+        controller.searchWithPayload("index1", "{ \"query\": { \"match_all\": {} } }");
+        assertThat(transport.searches.get(), is(1));
+        assertThat(controller.searchWithPayload("index1", query).getSearchResult().getTotalHits(), is("1"));
+
+        DocumentStoreDataEntityImpl document = new DocumentStoreDataEntityImpl();
+        document.setId("doc1");
+        document.setContent("{}");
+        controller.createDocument("index1", document, true);
+        controller.searchWithPayload("index1", query);
+        assertThat(transport.searches.get(), is(2));
+    }
+
+    @Test
+    public void testControllerCachesQueryStringsWhichDifferOnlyInWhitespaceApart() throws Exception {
+        Properties properties = new Properties();
+        properties.put(ElasticSearchConfig.ES_IP_ADDRESS, "localhost");
+        properties.put(ElasticSearchConfig.ES_HTTP_PORT, "9200");
+        properties.put(ElasticSearchConfig.ES_INDEX_CACHE_REFRESH_INTERVAL, "0");
+        properties.put(ElasticSearchConfig.ES_SEARCH_CACHE_ENABLED, "true");
+        SearchTransport transport = new SearchTransport();
+        ElasticSearchHttpController controller =
+                new ElasticSearchHttpController(new ElasticSearchConfig(properties), transport);
+
+        controller.search("index1", "q=name:foo bar");
+        controller.search("index1", "q=name:foobar");
+        assertThat(transport.searches.get(), is(2));
+        controller.search("index1", "q=name:foo bar");
+        assertThat(transport.searches.get(), is(2));
+    }
+
+    private Supplier<CompletableFuture<CachedResponse>> search(int status, String body) {
+        return () -> {
+            searches.incrementAndGet();
+            return CompletableFuture.completedFuture(response(status, body));
+        };
+    }
+
+    private static CachedResponse response(int status, String body) {
+        return new CachedResponse(status, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Answers every search with a single hit and every other request with an empty success, counting the searches.
+     */
+    private static class SearchTransport implements HttpTransport {
+
+        private final AtomicInteger searches = new AtomicInteger();
+
+        @Override
+        public HttpTransportResponse execute(String method, URL url, String contentType, String content) {
+            String body = "{\"_id\":\"doc1\",\"_version\":1}";
+            if (url.getPath().endsWith("/_search")) {
+                searches.incrementAndGet();
+                body = "{\"hits\":{\"total\":1,\"hits\":[{\"_id\":\"a\",\"_score\":1.0,\"_source\":{}}]}}";
+            }
+            return new HttpTransportResponse(200, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        @Override
+        public CompletableFuture<HttpTransportResponse> executeAsync(String method, URL url, String contentType,
+                String content) {
+            return CompletableFuture.completedFuture(execute(method, url, contentType, content));
+        }
+
+        @Override
+        public void shutdown() {
+            // Nothing to release.
+        }
+    }
+}
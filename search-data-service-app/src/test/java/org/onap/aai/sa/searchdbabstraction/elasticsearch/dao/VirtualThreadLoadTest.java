@@ -0,0 +1,122 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.HttpTransport;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.StubHttpServer;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.transport.UrlConnectionTransport;
+import org.onap.aai.sa.searchdbabstraction.entity.SearchOperationResult;
+import org.onap.aai.sa.searchdbabstraction.util.VirtualThreads;
+
+/**
+ * Measures the search throughput of the blocking controller when 1k, 5k and 10k searches are in flight at once, first
+ * with a platform thread pool the size of Jetty's default and then with a virtual thread per search. The stub cluster
+ * delays every response to simulate query latency. Requires JDK 21 or later, run with
+ * {@code -Dsearch.virtual-threads.enabled=true} so that the transport's own I/O threads are virtual as well.
+ */
+@Ignore("Benchmark - run manually")
+public class VirtualThreadLoadTest {
+
+    private static final int[] CONCURRENT_SEARCHES = {1000, 5000, 10000};
+    private static final int PLATFORM_THREADS = 200;
+    private static final int SEARCHES_PER_CLIENT = 5;
+    private static final long RESPONSE_DELAY_MS = 50;
+
+    private static StubHttpServer server;
+
+    @BeforeClass
+    public static void startServer() throws Exception {
+        server = new StubHttpServer(RESPONSE_DELAY_MS);
+        server.start();
+    }
+
+    @AfterClass
+    public static void stopServer() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void compareThreadModels() throws Exception {
+        Assume.assumeTrue("Virtual threads must be enabled, on JDK 21 or later", VirtualThreads.isEnabled());
+
+        Properties properties = new Properties();
+        properties.put(ElasticSearchConfig.ES_IP_ADDRESS, "localhost");
+        properties.put(ElasticSearchConfig.ES_HTTP_PORT, Integer.toString(server.getPort()));
+        properties.put(ElasticSearchConfig.ES_READ_TIMEOUT, "120000");
+        ElasticSearchConfig config = new ElasticSearchConfig(properties);
+
+        // The connection-per-request transport performs blocking I/O on the calling thread.
+        HttpTransport transport = new UrlConnectionTransport(config);
+        ElasticSearchHttpController controller = new ElasticSearchHttpController(config, transport);
+        try {
+            for (int concurrency : CONCURRENT_SEARCHES) {
+                System.out.printf("%5d concurrent searches - platform threads (%d): %.0f searches/sec%n", concurrency,
+                        PLATFORM_THREADS, run(controller, Executors.newFixedThreadPool(PLATFORM_THREADS), concurrency));
+                System.out.printf("%5d concurrent searches - virtual threads:       %.0f searches/sec%n", concurrency,
+                        run(controller, VirtualThreads.newThreadPerTaskExecutor("search-"), concurrency));
+            }
+        } finally {
+            transport.shutdown();
+        }
+    }
+
+    private double run(ElasticSearchHttpController controller, ExecutorService executor, int concurrency)
+            throws Exception {
+        String index = StubHttpServer.SEARCH_RESULTS_PATH.substring(1);
+        List<Callable<Void>> clients = new ArrayList<>();
+        for (int c = 0; c < concurrency; c++) {
+            clients.add(() -> {
+                for (int i = 0; i < SEARCHES_PER_CLIENT; i++) {
+                    SearchOperationResult result = controller.search(index, "q=name:stub");
+                    if (result.getResultCode() != 200) {
+                        throw new IllegalStateException("Search failed: " + result.getResult());
+                    }
+                }
+                return null;
+            });
+        }
+
+        long start = System.nanoTime();
+        try {
+            for (Future<Void> future : executor.invokeAll(clients)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        return (concurrency * (double) SEARCHES_PER_CLIENT) / (elapsed / 1_000_000_000.0);
+    }
+}
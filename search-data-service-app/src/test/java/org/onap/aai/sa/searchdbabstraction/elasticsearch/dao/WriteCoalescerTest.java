@@ -0,0 +1,199 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.dao;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import org.onap.aai.sa.rest.ApiUtils;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.exception.DocumentStoreOperationException;
+import org.onap.aai.sa.searchdbabstraction.entity.DocumentOperationResult;
+
+/**
+ * Checks that single-document writes are sent together as bulk requests and that each caller receives the outcome of
+ * its own write.
+ */
+public class WriteCoalescerTest {
+
+    private static final String INDEX = "index1";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private volatile int status = 0;
+    private volatile DocumentStoreOperationException failure;
+    private WriteCoalescer coalescer;
+
+    @After
+    public void tearDown() {
+        coalescer.shutdown();
+    }
+
+    @Test
+    public void testConcurrentWritesAreSentAsOneBulkRequest() throws Exception {
+        coalescer = new WriteCoalescer(this::send, 50, 100, 1000000);
+
+        CompletableFuture<DocumentOperationResult> create = coalescer.create(INDEX, document("doc1", null, "{}"));
+        CompletableFuture<DocumentOperationResult> generated = coalescer.create(INDEX, document(null, null, "{}"));
+        CompletableFuture<DocumentOperationResult> update = coalescer.update(INDEX, document("doc2", "3", "{}"));
+        CompletableFuture<DocumentOperationResult> delete = coalescer.delete(INDEX, document("doc3", "4", null));
+
+        assertThat(get(create).getResultCode(), is(201));
+        assertThat(get(create).getDocument().getEtag(), is("1"));
+        assertThat(get(create).getDocument().getUrl(), is(ApiUtils.buildDocumentUri(INDEX, "doc1")));
+        assertThat(get(generated).getResultCode(), is(201));
+        assertThat(get(generated).getDocument().getUrl(), is(ApiUtils.buildDocumentUri(INDEX, "generated")));
+        assertThat(get(update).getResultCode(), is(200));
+        assertThat(get(update).getResultVersion(), is("4"));
+        assertThat(get(update).getDocument().getEtag(), is("4"));
+        assertThat(get(delete).getResultCode(), is(200));
+        assertThat(get(delete).getDocument(), is(nullValue()));
+        assertThat(requests.size(), is(1));
+    }
+
+    @Test
+    public void testBatchIsSentWhenFull() throws Exception {
+        coalescer = new WriteCoalescer(this::send, TimeUnit.MINUTES.toMillis(10), 2, 1000000);
+
+        CompletableFuture<DocumentOperationResult> first = coalescer.update(INDEX, document("doc1", "1", "{}"));
+        CompletableFuture<DocumentOperationResult> second = coalescer.update(INDEX, document("doc2", "1", "{}"));
+
+        assertThat(get(first).getResultCode(), is(200));
+        assertThat(get(second).getResultCode(), is(200));
+        assertThat(requests.size(), is(1));
+    }
+
+    @Test
+    public void testUpdatesFromTheSameVersionAreCollapsed() throws Exception {
+        coalescer = new WriteCoalescer(this::send, 50, 100, 1000000);
+
+        CompletableFuture<DocumentOperationResult> first =
+                coalescer.update(INDEX, document("doc1", "3", "{\"value\":\"first\"}"));
+        CompletableFuture<DocumentOperationResult> second =
+                coalescer.update(INDEX, document("doc1", "3", "{\"value\":\"second\"}"));
+        CompletableFuture<DocumentOperationResult> other =
+                coalescer.update(INDEX, document("doc1", "7", "{\"value\":\"other\"}"));
+
+        assertThat(get(first).getDocument().getEtag(), is("4"));
+        assertThat(get(second).getDocument().getEtag(), is("4"));
+        assertThat(get(other).getDocument().getEtag(), is("8"));
+        assertThat(requests.size(), is(1));
+        assertThat(requests.get(0).contains("first"), is(false));
+        assertThat(requests.get(0).split("\n").length, is(4));
+    }
+
+    @Test
+    public void testConflictsAreMapped() throws Exception {
+        coalescer = new WriteCoalescer(this::send, 1, 100, 1000000);
+        status = 409;
+
+        DocumentOperationResult create = get(coalescer.create(INDEX, document("doc1", null, "{}")));
+        DocumentOperationResult update = get(coalescer.update(INDEX, document("doc2", "3", "{}")));
+
+        assertThat(create.getResultCode(), is(409));
+        assertThat(create.getFailureCause(), is(ElasticSearchHttpController.MSG_DOCUMENT_EXISTS));
+        assertThat(update.getResultCode(), is(412));
+        assertThat(update.getError().getType(), is("version_conflict_engine_exception"));
+    }
+
+    @Test
+    public void testFailedRequestFailsEveryWrite() throws Exception {
+        coalescer = new WriteCoalescer(this::send, 50, 100, 1000000);
+        failure = new DocumentStoreOperationException("Failure interacting with document store.");
+
+        CompletableFuture<DocumentOperationResult> first = coalescer.update(INDEX, document("doc1", "1", "{}"));
+        CompletableFuture<DocumentOperationResult> second = coalescer.delete(INDEX, document("doc2", "1", null));
+
+        assertThat(failureOf(first), is((Throwable) failure));
+        assertThat(failureOf(second), is((Throwable) failure));
+    }
+
+    private static DocumentStoreDataEntityImpl document(String id, String version, String content) {
+        DocumentStoreDataEntityImpl document = new DocumentStoreDataEntityImpl();
+        document.setId(id);
+        document.setVersion(version);
+        document.setContent(content);
+        return document;
+    }
+
+    private static DocumentOperationResult get(CompletableFuture<DocumentOperationResult> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+
+    private static Throwable failureOf(CompletableFuture<DocumentOperationResult> future) throws Exception {
+        try {
+            get(future);
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+
+    /**
+     * Answers a bulk request with an item for each operation: a create is given version 1, an update the version after
+     * the one requested and a delete succeeds, unless every item is to be given the configured status.
+     */
+    private CompletableFuture<ElasticSearchBulkOperationResult> send(String operations) {
+        requests.add(operations);
+        if (failure != null) {
+            return DocumentStoreFutures.failed(failure);
+        }
+
+        try {
+            StringBuilder items = new StringBuilder("{\"took\":1,\"errors\":false,\"items\":[");
+            String[] lines = operations.split("\n");
+            for (int i = 0; i < lines.length; i++) {
+                String action = mapper.readTree(lines[i]).fieldNames().next();
+                JsonNode target = mapper.readTree(lines[i]).get(action);
+                String id = target.has("_id") ? target.get("_id").asText() : "generated";
+                int version = target.has("_version") ? target.get("_version").asInt() + 1 : 1;
+                int itemStatus = (status != 0) ? status
+                        : ("index".equals(action) && target.has("_id")) || "delete".equals(action) ? 200 : 201;
+                if (!"delete".equals(action)) {
+                    i++;
+                }
+
+                items.append(items.charAt(items.length() - 1) == '[' ? "" : ",").append("{\"").append(action)
+                        .append("\":{\"_index\":\"").append(INDEX).append("\",\"_type\":\"default\",\"_id\":\"")
+                        .append(id).append("\",\"_version\":").append(version).append(",\"status\":")
+                        .append(itemStatus);
+                if (itemStatus == 409) {
+                    items.append(",\"error\":{\"type\":\"version_conflict_engine_exception\",\"reason\":\"conflict\"}");
+                }
+                items.append("}}");
+            }
+            return CompletableFuture.completedFuture(
+                    mapper.readValue(items.append("]}").toString(), ElasticSearchBulkOperationResult.class));
+        } catch (IOException e) {
+            return DocumentStoreFutures.failed(e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.transport;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class BackoffTest {
+
+    @Test
+    public void testCeilingDoublesUntilCapped() {
+        assertThat(Backoff.ceilingMs(10, 100, 0), is(10L));
+        assertThat(Backoff.ceilingMs(10, 100, 1), is(20L));
+        assertThat(Backoff.ceilingMs(10, 100, 3), is(80L));
+        assertThat(Backoff.ceilingMs(10, 100, 4), is(100L));
+        assertThat(Backoff.ceilingMs(10, Long.MAX_VALUE, 1000), is(10L << 30));
+    }
+
+    @Test
+    public void testJitterStaysWithinItsBounds() {
+        for (int i = 0; i < 1000; i++) {
+            long full = Backoff.fullJitterMs(100);
+            assertThat(full >= 0 && full <= 100, is(true));
+            long equal = Backoff.equalJitterMs(100);
+            assertThat(equal >= 50 && equal <= 100, is(true));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.transport;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+    @Test
+    public void testOpensAfterConsecutiveFailures() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", 3, 60000, 1);
+
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        assertThat(circuitBreaker.getState(), is(CircuitBreaker.State.CLOSED));
+        assertThat(circuitBreaker.tryAcquire(), is(true));
+
+        circuitBreaker.onFailure();
+        assertThat(circuitBreaker.getState(), is(CircuitBreaker.State.OPEN));
+        assertThat(circuitBreaker.isCallPermitted(), is(false));
+        assertThat(circuitBreaker.tryAcquire(), is(false));
+        assertThat(circuitBreaker.getRemainingOpenMs() > 0, is(true));
+    }
+
+    @Test
+    public void testHalfOpenTrialRequestClosesCircuit() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", 1, 10, 1);
+        circuitBreaker.onFailure();
+        Thread.sleep(20);
+
+        assertThat(circuitBreaker.isCallPermitted(), is(true));
+        assertThat(circuitBreaker.tryAcquire(), is(true));
+        assertThat(circuitBreaker.getState(), is(CircuitBreaker.State.HALF_OPEN));
+        // Only one trial request at a time.
+        assertThat(circuitBreaker.tryAcquire(), is(false));
+
+        circuitBreaker.onSuccess();
+        assertThat(circuitBreaker.getState(), is(CircuitBreaker.State.CLOSED));
+        assertThat(circuitBreaker.tryAcquire(), is(true));
+    }
+
+    @Test
+    public void testHalfOpenTrialFailureReopensCircuit() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", 1, 10, 1);
+        circuitBreaker.onFailure();
+        Thread.sleep(20);
+
+        assertThat(circuitBreaker.tryAcquire(), is(true));
+        circuitBreaker.onFailure();
+        assertThat(circuitBreaker.getState(), is(CircuitBreaker.State.OPEN));
+        assertThat(circuitBreaker.tryAcquire(), is(false));
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.transport;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
+
+/**
+ * Compares the request throughput of the pooled keep-alive transport with the connection-per-request transport.
+ */
+@Ignore("Benchmark - run manually")
+public class HttpTransportBenchmarkTest {
+
+    private static final int THREADS = 16;
+    private static final int REQUESTS_PER_THREAD = 2000;
+    private static final int WARMUP_REQUESTS_PER_THREAD = 200;
+
+    private static StubHttpServer server;
+
+    @BeforeClass
+    public static void startServer() throws Exception {
+        server = new StubHttpServer();
+        server.start();
+    }
+
+    @AfterClass
+    public static void stopServer() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void compareTransports() throws Exception {
+        Properties properties = new Properties();
+        properties.put(ElasticSearchConfig.ES_MAX_CONNECTIONS_PER_HOST, Integer.toString(THREADS));
+        ElasticSearchConfig config = new ElasticSearchConfig(properties);
+
+        HttpTransport pooled = new PooledHttpTransport(config, null);
+        HttpTransport perCall = new UrlConnectionTransport(config);
+        try {
+            run(perCall, WARMUP_REQUESTS_PER_THREAD);
+            run(pooled, WARMUP_REQUESTS_PER_THREAD);
+            System.out.printf("connection per request: %.0f requests/sec%n", run(perCall, REQUESTS_PER_THREAD));
+            System.out.printf("pooled keep-alive:      %.0f requests/sec%n", run(pooled, REQUESTS_PER_THREAD));
+        } finally {
+            pooled.shutdown();
+        }
+    }
+
+    private double run(HttpTransport transport, int requestsPerThread) throws Exception {
+        final URL url = server.url("/test-index/default/_search");
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            tasks.add(() -> {
+                for (int i = 0; i < requestsPerThread; i++) {
+                    try (HttpTransportResponse response =
+                            transport.execute("POST", url, "application/json", "{\"query\":{}}")) {
+                        response.getBodyAsString();
+                    }
+                }
+                return null;
+            });
+        }
+
+        long start = System.nanoTime();
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+
+        return (THREADS * (double) requestsPerThread) / (elapsed / 1_000_000_000.0);
+    }
+}
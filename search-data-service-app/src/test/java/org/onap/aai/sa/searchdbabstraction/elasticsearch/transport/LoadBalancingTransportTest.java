@@ -0,0 +1,285 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.transport;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
+
+public class LoadBalancingTransportTest {
+
+    private RecordingTransport delegate;
+    private SimpleMeterRegistry registry;
+
+    @Before
+    public void setUp() {
+        delegate = new RecordingTransport();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void testRoundRobinSpreadsRequestsAcrossNodes() throws Exception {
+        LoadBalancingTransport transport = createTransport("round-robin", "node1:9200,node2:9200,node3:9200");
+
+        for (int i = 0; i < 6; i++) {
+            transport.execute("GET", new URL("http://node1:9200/index/_search"), "application/json", null).close();
+        }
+
+        assertThat(delegate.requestsTo("node1"), is(2));
+        assertThat(delegate.requestsTo("node2"), is(2));
+        assertThat(delegate.requestsTo("node3"), is(2));
+    }
+
+    @Test
+    public void testLeastOutstandingAvoidsBusyNode() throws Exception {
+        LoadBalancingTransport transport = createTransport("least-outstanding", "node1:9200,node2:9200");
+        delegate.holdResponses = true;
+
+        List<CompletableFuture<HttpTransportResponse>> pending = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            pending.add(transport.executeAsync("GET", new URL("http://node1:9200/index"), "application/json", null));
+        }
+        assertThat(delegate.requestsTo("node1"), is(2));
+        assertThat(delegate.requestsTo("node2"), is(2));
+
+        // Complete only the requests to node1, which leaves node2 busier.
+        delegate.completeHeld("node1");
+        transport.executeAsync("GET", new URL("http://node1:9200/index"), "application/json", null);
+        transport.executeAsync("GET", new URL("http://node1:9200/index"), "application/json", null);
+        assertThat(delegate.requestsTo("node1"), is(4));
+        assertThat(delegate.requestsTo("node2"), is(2));
+    }
+
+    @Test
+    public void testFailingNodeIsEjectedAndCounted() throws Exception {
+        LoadBalancingTransport transport = createTransport("round-robin", "node1:9200,node2:9200");
+        delegate.failingHosts.add("node1");
+
+        int failures = 0;
+        for (int i = 0; i < 5; i++) {
+            try {
+                transport.execute("GET", new URL("http://node1:9200/index"), "application/json", null).close();
+            } catch (IOException e) {
+                failures++;
+            }
+        }
+
+        assertThat(failures, is(1));
+        assertThat(delegate.requestsTo("node1"), is(1));
+        assertThat(delegate.requestsTo("node2"), is(4));
+        assertThat(registry.get(ElasticSearchNode.METRIC_ERRORS).tag(ElasticSearchNode.TAG_NODE, "node1:9200")
+                .counter().count(), is(1.0));
+        assertThat(registry.get(ElasticSearchNode.METRIC_LATENCY).tag(ElasticSearchNode.TAG_NODE, "node2:9200")
+                .timer().count(), is(4L));
+    }
+
+    @Test
+    public void testHealthCheckEjectsAndRestoresNodes() throws Exception {
+        LoadBalancingTransport transport = createTransport("round-robin", "node1:9200,node2:9200");
+
+        delegate.failingHosts.add("node1");
+        transport.checkNodes();
+        assertThat(transport.getNodes().get(0).isAvailable(), is(false));
+        assertThat(delegate.requestsTo("node1"), is(1));
+        assertThat(delegate.lastPathTo("node1"), is("/" + LoadBalancingTransport.HEALTH_CHECK_PATH));
+
+        delegate.failingHosts.clear();
+        transport.checkNodes();
+        assertThat(transport.getNodes().get(0).isAvailable(), is(true));
+    }
+
+    @Test
+    public void testAllNodesEjectedStillSelectsANode() throws Exception {
+        LoadBalancingTransport transport = createTransport("least-outstanding", "node1:9200,node2:9200");
+        delegate.failingHosts.add("node1");
+        delegate.failingHosts.add("node2");
+        transport.checkNodes();
+
+        delegate.failingHosts.clear();
+        transport.execute("GET", new URL("http://node1:9200/index"), "application/json", null).close();
+        assertThat(delegate.requestsTo("node1") + delegate.requestsTo("node2"), is(3));
+    }
+
+    @Test
+    public void testSniffingAddsPublishedNodes() throws Exception {
+        Properties properties = createProperties("round-robin", "node1:9200");
+        properties.put(ElasticSearchConfig.ES_SNIFF_ENABLED, "true");
+        LoadBalancingTransport transport =
+                new LoadBalancingTransport(delegate, new ElasticSearchConfig(properties), registry);
+        delegate.responses.put("/" + LoadBalancingTransport.NODES_INFO_PATH,
+                "{\"nodes\":{\"a\":{\"http\":{\"publish_address\":\"10.0.0.1:9200\"}},"
+                        + "\"b\":{\"http\":{\"publish_address\":\"node2.example.com/10.0.0.2:9201\"}}}}");
+
+        transport.checkNodes();
+
+        assertThat(transport.getNodes().size(), is(3));
+        assertThat(transport.getNodes().get(0).getName(), is("node1:9200"));
+        assertThat(transport.getNodes().get(1).getName(), is("10.0.0.1:9200"));
+        assertThat(transport.getNodes().get(2).getName(), is("10.0.0.2:9201"));
+    }
+
+    @Test
+    public void testCircuitOpensPerOperationClassAndFailsFast() throws Exception {
+        LoadBalancingTransport transport = createTransport("round-robin", "node1:9200,node2:9200");
+        delegate.statuses.put("/_bulk", 429);
+
+        // Three rejections on each node open the bulk circuit everywhere.
+        for (int i = 0; i < 6; i++) {
+            try (HttpTransportResponse response =
+                    transport.execute("PUT", new URL("http://node1:9200/_bulk"), "application/x-ndjson", "{}")) {
+                assertThat(response.getStatusCode(), is(429));
+            }
+        }
+        assertThat(transport.getNodes().get(0).getCircuitBreaker(OperationClass.BULK).getState(),
+                is(CircuitBreaker.State.OPEN));
+
+        try {
+            transport.execute("PUT", new URL("http://node1:9200/_bulk"), "application/x-ndjson", "{}");
+            fail("Expected the open circuit to reject the request");
+        } catch (CircuitBreakerOpenException e) {
+            assertThat(delegate.requestsTo("node1") + delegate.requestsTo("node2"), is(6));
+        }
+
+        // Searches are still served.
+        try (HttpTransportResponse response =
+                transport.execute("POST", new URL("http://node1:9200/index/_search"), "application/json", "{}")) {
+            assertThat(response.getStatusCode(), is(200));
+        }
+    }
+
+    @Test
+    public void testOpenCircuitFailsAsyncRequest() throws Exception {
+        LoadBalancingTransport transport = createTransport("least-outstanding", "node1:9200");
+        delegate.statuses.put("/index/default/1", 503);
+        for (int i = 0; i < 3; i++) {
+            transport.executeAsync("PUT", new URL("http://node1:9200/index/default/1"), "application/json", "{}")
+                    .join().close();
+        }
+
+        CompletableFuture<HttpTransportResponse> rejected =
+                transport.executeAsync("PUT", new URL("http://node1:9200/index/default/1"), "application/json", "{}");
+        try {
+            rejected.join();
+            fail("Expected the open circuit to reject the request");
+        } catch (CompletionException e) {
+            assertThat(e.getCause() instanceof CircuitBreakerOpenException, is(true));
+        }
+    }
+
+    private LoadBalancingTransport createTransport(String policy, String nodes) {
+        return new LoadBalancingTransport(delegate, new ElasticSearchConfig(createProperties(policy, nodes)),
+                registry);
+    }
+
+    private static Properties createProperties(String policy, String nodes) {
+        Properties properties = new Properties();
+        properties.put(ElasticSearchConfig.ES_NODES, nodes);
+        properties.put(ElasticSearchConfig.ES_LOAD_BALANCING, policy);
+        // Health checks are triggered by the tests.
+        properties.put(ElasticSearchConfig.ES_HEALTH_CHECK_INTERVAL, "0");
+        properties.put(ElasticSearchConfig.ES_NODE_EJECTION, "60000");
+        properties.put(ElasticSearchConfig.ES_CIRCUIT_BREAKER_FAILURE_THRESHOLD, "3");
+        properties.put(ElasticSearchConfig.ES_CIRCUIT_BREAKER_OPEN, "60000");
+        return properties;
+    }
+
+    /**
+     * Records the requests it is asked to send, failing those addressed to selected hosts.
+     */
+    private static class RecordingTransport implements HttpTransport {
+
+        private final Set<String> failingHosts = ConcurrentHashMap.newKeySet();
+        private final Map<String, String> responses = new HashMap<>();
+        private final Map<String, Integer> statuses = new HashMap<>();
+        private final Map<String, List<String>> paths = new ConcurrentHashMap<>();
+        private final Map<String, List<CompletableFuture<HttpTransportResponse>>> held = new ConcurrentHashMap<>();
+        private boolean holdResponses;
+
+        @Override
+        public HttpTransportResponse execute(String method, URL url, String contentType, String content)
+                throws IOException {
+            paths.computeIfAbsent(url.getHost(), host -> new ArrayList<>()).add(url.getPath());
+            if (failingHosts.contains(url.getHost())) {
+                throw new ConnectException("Connection refused: " + url.getHost());
+            }
+            String body = responses.getOrDefault(url.getPath(), "{}");
+            return new HttpTransportResponse(statuses.getOrDefault(url.getPath(), 200),
+                    new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        @Override
+        public CompletableFuture<HttpTransportResponse> executeAsync(String method, URL url, String contentType,
+                String content) {
+            if (holdResponses) {
+                paths.computeIfAbsent(url.getHost(), host -> new ArrayList<>()).add(url.getPath());
+                CompletableFuture<HttpTransportResponse> future = new CompletableFuture<>();
+                held.computeIfAbsent(url.getHost(), host -> new ArrayList<>()).add(future);
+                return future;
+            }
+            CompletableFuture<HttpTransportResponse> future = new CompletableFuture<>();
+            try {
+                future.complete(execute(method, url, contentType, content));
+            } catch (IOException e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+
+        @Override
+        public void shutdown() {
+            // Nothing to release
+        }
+
+        void completeHeld(String host) {
+            for (CompletableFuture<HttpTransportResponse> future : held.remove(host)) {
+                future.complete(new HttpTransportResponse(200, new ByteArrayInputStream(new byte[0])));
+            }
+        }
+
+        int requestsTo(String host) {
+            return paths.getOrDefault(host, new ArrayList<>()).size();
+        }
+
+        String lastPathTo(String host) {
+            List<String> hostPaths = paths.get(host);
+            return hostPaths.get(hostPaths.size() - 1);
+        }
+    }
+}
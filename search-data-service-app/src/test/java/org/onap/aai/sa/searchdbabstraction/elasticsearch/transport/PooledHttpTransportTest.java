@@ -0,0 +1,119 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.transport;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
+
+public class PooledHttpTransportTest {
+
+    private StubHttpServer server;
+    private PooledHttpTransport transport;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubHttpServer();
+        server.start();
+
+        Properties properties = new Properties();
+        properties.put(ElasticSearchConfig.ES_MAX_CONNECTIONS_PER_HOST, "4");
+        transport = new PooledHttpTransport(new ElasticSearchConfig(properties), null);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        transport.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void testRequestContentIsSentAndResponseBodyReturned() throws Exception {
+        try (HttpTransportResponse response =
+                transport.execute("POST", server.url("/index/_search"), "application/json", "query")) {
+            assertThat(response.getStatusCode(), is(200));
+            assertThat(response.getBodyAsString(), is(equalTo("{\"method\":\"POST\",\"body\":\"query\"}")));
+        }
+    }
+
+    @Test
+    public void testErrorResponseBodyIsReturned() throws Exception {
+        try (HttpTransportResponse response =
+                transport.execute("GET", server.url(StubHttpServer.MISSING_PATH), "application/json", null)) {
+            assertThat(response.getStatusCode(), is(404));
+            assertThat(response.getBodyAsString(), containsString("index_not_found_exception"));
+        }
+    }
+
+    @Test
+    public void testHeadRequestHasEmptyBody() throws Exception {
+        try (HttpTransportResponse response =
+                transport.execute("HEAD", server.url("/index"), "application/json", null)) {
+            assertThat(response.getStatusCode(), is(200));
+            assertThat(response.getBodyAsString(), is(equalTo("")));
+        }
+    }
+
+    @Test
+    public void testConnectionIsReusedAcrossRequests() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            try (HttpTransportResponse response =
+                    transport.execute("GET", server.url("/_cluster/health"), "application/json", null)) {
+                assertThat(response.getStatusCode(), is(200));
+            }
+        }
+        assertThat(server.getConnectionCount(), is(1));
+    }
+
+    @Test
+    public void testAsyncRequestCompletesWithResponse() throws Exception {
+        CompletableFuture<HttpTransportResponse> future =
+                transport.executeAsync("POST", server.url("/index/_search"), "application/json", "query");
+        try (HttpTransportResponse response = future.get()) {
+            assertThat(response.getStatusCode(), is(200));
+            assertThat(response.getBodyAsString(), is(equalTo("{\"method\":\"POST\",\"body\":\"query\"}")));
+        }
+    }
+
+    @Test
+    public void testConcurrentAsyncRequestsShareThePool() throws Exception {
+        List<CompletableFuture<HttpTransportResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(transport.executeAsync("GET", server.url("/_cluster/health"), "application/json", null));
+        }
+        for (CompletableFuture<HttpTransportResponse> future : futures) {
+            try (HttpTransportResponse response = future.get()) {
+                assertThat(response.getStatusCode(), is(200));
+            }
+        }
+        assertThat(server.getConnectionCount() <= 4, is(true));
+    }
+}
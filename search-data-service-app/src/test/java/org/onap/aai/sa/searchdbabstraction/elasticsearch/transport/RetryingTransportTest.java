@@ -0,0 +1,169 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.transport;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import org.junit.Before;
+import org.junit.Test;
+import org.onap.aai.sa.searchdbabstraction.elasticsearch.config.ElasticSearchConfig;
+
+public class RetryingTransportTest {
+
+    private ScriptedTransport delegate;
+    private RetryingTransport transport;
+
+    @Before
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.put(ElasticSearchConfig.ES_RETRY_MAX_RETRIES, "2");
+        properties.put(ElasticSearchConfig.ES_RETRY_INITIAL_BACKOFF, "1");
+        properties.put(ElasticSearchConfig.ES_RETRY_MAX_BACKOFF, "5");
+        delegate = new ScriptedTransport();
+        transport = new RetryingTransport(delegate, new ElasticSearchConfig(properties));
+    }
+
+    @Test
+    public void testSearchIsRetriedUntilServed() throws Exception {
+        delegate.outcomes.add(503);
+        delegate.outcomes.add(new ConnectException("Connection refused"));
+        delegate.outcomes.add(200);
+
+        try (HttpTransportResponse response =
+                transport.execute("POST", new URL("http://es:9200/index/_search"), "application/json", "{}")) {
+            assertThat(response.getStatusCode(), is(200));
+        }
+        assertThat(delegate.attempts, is(3));
+    }
+
+    @Test
+    public void testLastResponseIsReturnedWhenRetriesAreExhausted() throws Exception {
+        delegate.outcomes.add(429);
+        delegate.outcomes.add(429);
+        delegate.outcomes.add(429);
+
+        try (HttpTransportResponse response =
+                transport.execute("GET", new URL("http://es:9200/index/default/1"), "application/json", null)) {
+            assertThat(response.getStatusCode(), is(429));
+        }
+        assertThat(delegate.attempts, is(3));
+    }
+
+    @Test
+    public void testWritesAreNotRetried() throws Exception {
+        delegate.outcomes.add(503);
+
+        try (HttpTransportResponse response =
+                transport.execute("PUT", new URL("http://es:9200/index/default/1"), "application/json", "{}")) {
+            assertThat(response.getStatusCode(), is(503));
+        }
+        assertThat(delegate.attempts, is(1));
+    }
+
+    @Test
+    public void testTimeoutsAndOpenCircuitsAreNotRetried() throws Exception {
+        delegate.outcomes.add(new SocketTimeoutException("Timed out"));
+        try {
+            transport.execute("GET", new URL("http://es:9200/index"), "application/json", null);
+            fail("Expected the timeout to be reported");
+        } catch (SocketTimeoutException e) {
+            assertThat(delegate.attempts, is(1));
+        }
+
+        delegate.outcomes.add(new CircuitBreakerOpenException("Open"));
+        try {
+            transport.execute("GET", new URL("http://es:9200/index"), "application/json", null);
+            fail("Expected the open circuit to be reported");
+        } catch (CircuitBreakerOpenException e) {
+            assertThat(delegate.attempts, is(2));
+        }
+    }
+
+    @Test
+    public void testAsyncSearchIsRetried() throws Exception {
+        delegate.outcomes.add(new ConnectException("Connection refused"));
+        delegate.outcomes.add(503);
+        delegate.outcomes.add(200);
+
+        CompletableFuture<HttpTransportResponse> future =
+                transport.executeAsync("POST", new URL("http://es:9200/index/_search"), "application/json", "{}");
+        try (HttpTransportResponse response = future.get()) {
+            assertThat(response.getStatusCode(), is(200));
+        }
+        assertThat(delegate.attempts, is(3));
+    }
+
+    @Test
+    public void testBackoffIsCapped() {
+        for (int attempt = 0; attempt < 40; attempt++) {
+            long backoff = transport.backoffMs(attempt);
+            assertThat(backoff >= 0 && backoff <= 5, is(true));
+        }
+    }
+
+    /**
+     * Answers each request with the next scripted status code or exception.
+     */
+    private static class ScriptedTransport implements HttpTransport {
+
+        private final Deque<Object> outcomes = new ArrayDeque<>();
+        private int attempts;
+
+        @Override
+        public synchronized HttpTransportResponse execute(String method, URL url, String contentType, String content)
+                throws IOException {
+            attempts++;
+            Object outcome = outcomes.poll();
+            if (outcome instanceof IOException) {
+                throw (IOException) outcome;
+            }
+            return new HttpTransportResponse((Integer) outcome, new ByteArrayInputStream(new byte[0]));
+        }
+
+        @Override
+        public CompletableFuture<HttpTransportResponse> executeAsync(String method, URL url, String contentType,
+                String content) {
+            CompletableFuture<HttpTransportResponse> future = new CompletableFuture<>();
+            try {
+                future.complete(execute(method, url, contentType, content));
+            } catch (IOException e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+
+        @Override
+        public void shutdown() {
+            // Nothing to release
+        }
+    }
+}
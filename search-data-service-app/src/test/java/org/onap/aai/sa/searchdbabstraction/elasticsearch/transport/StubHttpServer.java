@@ -0,0 +1,142 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.elasticsearch.transport;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+
+/**
+ * A minimal HTTP server standing in for Elasticsearch. Every request is answered with a 200 and a body of the form
+ * {@code {"method":"<method>","body":"<request body>"}}, except for paths starting with {@code /missing} which are
+ * answered with a 404 error document and paths starting with {@code /search-results} which are answered with a single
+ * hit search response. An optional response delay simulates the latency of a real cluster without tying up server
+ * threads.
+ */
+public class StubHttpServer {
+
+    public static final String MISSING_PATH = "/missing";
+    public static final String SEARCH_RESULTS_PATH = "/search-results";
+
+    private static final String SEARCH_RESPONSE = "{\"took\":1,\"hits\":{\"total\":1,\"hits\":["
+            + "{\"_index\":\"search-results\",\"_id\":\"1\",\"_version\":1,\"_score\":1.0,"
+            + "\"_source\":{\"name\":\"stub\"}}]}}";
+
+    private final Server server = new Server();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    public StubHttpServer() {
+        this(0);
+    }
+
+    /**
+     * @param responseDelayMs - How long to wait before sending each response.
+     */
+    public StubHttpServer(long responseDelayMs) {
+        ServerConnector connector = new ServerConnector(server);
+        connector.setAcceptQueueSize(10000);
+        server.addConnector(connector);
+
+        server.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request,
+                    HttpServletResponse response) throws IOException {
+                clientPorts.add(request.getRemotePort());
+                String body = IOUtils.toString(request.getInputStream(), StandardCharsets.UTF_8);
+                baseRequest.setHandled(true);
+
+                if (responseDelayMs <= 0) {
+                    respond(target, request.getMethod(), body, response);
+                    return;
+                }
+
+                AsyncContext context = request.startAsync();
+                context.setTimeout(0);
+                scheduler.schedule(() -> {
+                    try {
+                        respond(target, request.getMethod(), body, response);
+                    } catch (IOException e) {
+                        response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                    } finally {
+                        context.complete();
+                    }
+                }, responseDelayMs, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    private static void respond(String target, String method, String body, HttpServletResponse response)
+            throws IOException {
+        response.setContentType("application/json");
+        if (target.startsWith(MISSING_PATH)) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            response.getOutputStream().write(
+                    "{\"error\":{\"type\":\"index_not_found_exception\",\"reason\":\"no such index\"},\"status\":404}"
+                            .getBytes(StandardCharsets.UTF_8));
+        } else if (target.startsWith(SEARCH_RESULTS_PATH)) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.getOutputStream().write(SEARCH_RESPONSE.getBytes(StandardCharsets.UTF_8));
+        } else {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.getOutputStream().write(("{\"method\":\"" + method + "\",\"body\":\"" + body + "\"}")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    public void start() throws Exception {
+        server.start();
+    }
+
+    public void stop() throws Exception {
+        server.stop();
+        scheduler.shutdownNow();
+    }
+
+    public URL url(String path) throws MalformedURLException {
+        return new URL("http://localhost:" + getPort() + path);
+    }
+
+    public int getPort() {
+        return ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+    }
+
+    /**
+     * @return the number of distinct client connections accepted so far.
+     */
+    public int getConnectionCount() {
+        return clientPorts.size();
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.entity;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+public class RawJsonTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void testBytesAreCopiedWithoutBeingDecoded() throws Exception {
+        // A byte which is not valid UTF-8 would be replaced if the content were decoded and encoded again.
+        byte[] response = "xx{\"a\":\"?\"}yy".getBytes(StandardCharsets.US_ASCII);
+        response[8] = (byte) 0xff;
+        RawJson raw = new RawJson(response, 2, response.length - 4);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MAPPER.writeValue(out, Collections.singletonMap("_source", raw));
+
+        byte[] expected = "{\"_source\":{\"a\":\"?\"}}".getBytes(StandardCharsets.US_ASCII);
+        expected[17] = (byte) 0xff;
+        assertThat(Arrays.toString(out.toByteArray()), is(Arrays.toString(expected)));
+    }
+
+    @Test
+    public void testContentIsDecodedForCharacterOutput() throws Exception {
+        byte[] response = "xx{\"a\":\"\u00e9\"}yy".getBytes(StandardCharsets.UTF_8);
+        RawJson raw = new RawJson(response, 2, response.length - 4);
+
+        assertThat(MAPPER.writeValueAsString(Collections.singletonMap("_source", raw)),
+                is("{\"_source\":{\"a\":\"\u00e9\"}}"));
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.searchapi;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class QueryTemplateCacheTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final QueryTemplateCache cache = new QueryTemplateCache(QueryTemplateCache.MAX_TEMPLATES, registry);
+
+    @Test
+    public void testStatementsWithTheSameStructureShareATemplate() throws Exception {
+        String shape = "{\"results-start\": %d, \"results-size\": %d,"
+                + "\"queries\": [{\"must\": {\"match\": {\"field\": \"entityType\", \"value\": \"%s\"}}},"
+                + "{\"must\": {\"match\": {\"field\": \"count\", \"value\": %d}}},"
+                + "{\"may\": {\"parsed-query\": {\"field\": \"searchTags\", \"query-string\": \"%s\"}}},"
+                + "{\"must\": {\"not-match\": {\"field\": \"status\", \"value\": \"%s\"}}},"
+                + "{\"must\": {\"range\": {\"field\": \"a.timestamp\", \"gte\": \"%s\", \"lt\": \"%s\"}}},"
+                + "{\"must\": {\"range\": {\"field\": \"size\", \"gt\": %d}}}],"
+                + "\"filter\": {\"all\": [{\"match\": {\"field\": \"tier\", \"value\": %s}}],"
+                + "\"any\": [{\"not-match\": {\"field\": \"name\", \"value\": \"%s\"}}]},"
+                + "\"sort\": {\"field\": \"name\", \"order\": \"descending\"}}";
+
+        assertTranslation(String.format(shape, 0, 10, "pserver", 1, "aai*", "down", "2018-01-01", "2019-01-01", 5,
+                "1.5", "x"));
+        assertTranslation(String.format(shape, 20, 50, "vserver", 7, "b c", "up", "2017-01-01", "2020-01-01", 9,
+                "2.5", "y"));
+        assertTranslation(String.format(shape, 40, 50, "tenant", 3, "d", "unknown", "now-1d", "now", 0, "3.0", "z"));
+
+        assertThat(cache.size(), is(1));
+        assertThat(registry.get(QueryTemplateCache.METRIC_MISSES).counter().count(), is(1.0));
+        assertThat(registry.get(QueryTemplateCache.METRIC_HITS).counter().count(), is(2.0));
+    }
+
+    @Test
+    public void testStatementsWithDifferentStructuresHaveTheirOwnTemplates() throws Exception {
+        assertTranslation("{\"queries\": [{\"must\": {\"match\": {\"field\": \"a\", \"value\": \"x\"}}}]}");
+        assertTranslation("{\"queries\": [{\"must\": {\"match\": {\"field\": \"b\", \"value\": \"x\"}}}]}");
+        assertTranslation("{\"queries\": [{\"may\": {\"match\": {\"field\": \"a\", \"value\": \"x\"}}}]}");
+        assertTranslation("{\"queries\": [{\"must\": {\"match\": {\"field\": \"a\", \"value\": 1}}}]}");
+        assertTranslation(
+                "{\"results-size\": 5, \"queries\": [{\"must\": {\"match\": {\"field\": \"a\", \"value\": \"x\"}}}]}");
+        assertTranslation("{\"queries\": [{\"must\": {\"match\": {\"field\": \"a\", \"value\": \"y\"}}}]}");
+
+        assertThat(cache.size(), is(5));
+        assertThat(registry.get(QueryTemplateCache.METRIC_HITS).counter().count(), is(1.0));
+    }
+
+    @Test
+    public void testValuesWhichChangeTheStructureArePartOfIt() throws Exception {
+        String nested = "{\"queries\": [{\"must\": {\"match\": {\"field\": \"a.b c.d\", \"value\": \"%s\"}}}]}";
+        assertTranslation(String.format(nested, "one"));
+        assertTranslation(String.format(nested, "one two"));
+        assertTranslation(String.format(nested, "one"));
+
+        assertThat(cache.size(), is(2));
+        assertThat(registry.get(QueryTemplateCache.METRIC_HITS).counter().count(), is(1.0));
+    }
+
+    @Test
+    public void testAggregationsArePartOfTheStructure() throws Exception {
+        String aggregated = "{\"queries\": [{\"must\": {\"match\": {\"field\": \"a\", \"value\": \"%s\"}}}],"
+                + "\"aggregations\": [{\"name\": \"byTerm\", \"aggregation\": {\"group-by\": {\"field\": \"%s\"}}}]}";
+        assertTranslation(String.format(aggregated, "x", "myterm"));
+        assertTranslation(String.format(aggregated, "y", "myterm"));
+        assertTranslation(String.format(aggregated, "y", "otherterm"));
+
+        assertThat(cache.size(), is(2));
+        assertThat(registry.get(QueryTemplateCache.METRIC_HITS).counter().count(), is(1.0));
+    }
+
+    @Test
+    public void testEveryPartOfAnAggregationIsPartOfTheStructure() throws Exception {
+        String aggregated = "{\"queries\": [{\"must\": {\"match\": {\"field\": \"a\", \"value\": \"x\"}}}],"
+                + "\"aggregations\": [{\"name\": \"byDate\", \"aggregation\": {"
+                + "\"date-histogram\": {\"field\": \"a.date\", \"interval\": \"%s\", \"min-threshold\": %d},"
+                + "\"sub-aggregations\": [{\"name\": \"ranges\", \"aggregation\": {\"date-range\": {"
+                + "\"field\": \"b\", \"ranges\": [{\"from\": \"%s\"}], \"size\": %d}}}]}}]}";
+        assertTranslation(String.format(aggregated, "1d", 1, "now-1d", 10));
+        assertTranslation(String.format(aggregated, "1h", 1, "now-1d", 10));
+        assertTranslation(String.format(aggregated, "1d", 2, "now-1d", 10));
+        assertTranslation(String.format(aggregated, "1d", 1, "now-2d", 10));
+        assertTranslation(String.format(aggregated, "1d", 1, "now-1d", 20));
+        assertTranslation(String.format(aggregated, "1d", 1, "now-1d", 10));
+
+        assertThat(cache.size(), is(5));
+        assertThat(registry.get(QueryTemplateCache.METRIC_HITS).counter().count(), is(1.0));
+    }
+
+    @Test
+    public void testValuesAreEscapedWhenFilledIn() throws Exception {
+        String shape = "{\"queries\": [{\"must\": {\"match\": {\"field\": \"a\", \"value\": \"%s\"}}},"
+                + "{\"must\": {\"range\": {\"field\": \"b\", \"gte\": \"%s\"}}}]}";
+        assertTranslation(String.format(shape, "plain", "now"));
+        assertTranslation(String.format(shape, "quote \\\" and backslash \\\\", "tab \\t and \\u0001"));
+
+        assertThat(cache.size(), is(1));
+        assertThat(registry.get(QueryTemplateCache.METRIC_HITS).counter().count(), is(1.0));
+    }
+
+    @Test
+    public void testPagesOfACursorShareATemplate() throws Exception {
+        String shape = "{\"results-size\": 20, \"cursor\": \"%s\","
+                + "\"queries\": [{\"must\": {\"match\": {\"field\": \"entityType\", \"value\": \"pserver\"}}}],"
+                + "\"sort\": [{\"field\": \"date\", \"order\": \"descending\"}, {\"field\": \"name\"}]}";
+        assertTranslation(String.format(shape, SearchCursor.FIRST_PAGE));
+        assertTranslation(String.format(shape, SearchCursor.encode(Arrays.<Object>asList(1L, "a", "doc-1"))));
+        assertTranslation(String.format(shape, SearchCursor.encode(Arrays.<Object>asList(2.5, "b\"", "doc-2"))));
+
+        assertThat(cache.size(), is(2));
+        assertThat(registry.get(QueryTemplateCache.METRIC_HITS).counter().count(), is(1.0));
+    }
+
+    @Test
+    public void testStructureWhichCannotBeCompiledIsTranslatedInFull() throws Exception {
+        // A numeric value is quoted in a query across several fields, unlike in a query of a single field.
+        String multiField = "{\"queries\": [{\"must\": {\"match\": {\"field\": \"a b\", \"value\": %d}}}]}";
+        assertTranslation(String.format(multiField, 1));
+        assertTranslation(String.format(multiField, 2));
+
+        assertThat(registry.get(QueryTemplateCache.METRIC_HITS).counter().count(), is(0.0));
+        assertThat(registry.get(QueryTemplateCache.METRIC_MISSES).counter().count(), is(2.0));
+    }
+
+    @Test
+    public void testCompilingLeavesTheStatementUnchanged() throws Exception {
+        SearchStatement statement = mapper.readValue("{\"results-start\": 3, \"queries\": ["
+                + "{\"must\": {\"range\": {\"field\": \"size\", \"gt\": 5, \"lte\": 10}}},"
+                + "{\"must\": {\"match\": {\"field\": \"a\", \"value\": 1.5}}}]}", SearchStatement.class);
+
+        cache.translate(statement);
+
+        assertThat(statement.getFrom(), is(3));
+        assertThat(statement.getQueries()[0].getQueryStatement().getRange().getGt(), is((Object) 5));
+        assertThat(statement.getQueries()[0].getQueryStatement().getRange().getLte(), is((Object) 10));
+        assertThat(statement.getQueries()[1].getQueryStatement().getMatch().getValue(), is((Object) 1.5));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedTemplateIsDroppedBeyondTheLimit() throws Exception {
+        QueryTemplateCache small = new QueryTemplateCache(1, registry);
+        String shape = "{\"queries\": [{\"must\": {\"match\": {\"field\": \"%s\", \"value\": \"x\"}}}]}";
+        for (String field : new String[] {"a", "b", "b", "a"}) {
+            SearchStatement statement = mapper.readValue(String.format(shape, field), SearchStatement.class);
+            assertThat(small.translate(statement), is(statement.buildElasticSearch()));
+        }
+
+        assertThat(small.size(), is(1));
+        assertThat(registry.get(QueryTemplateCache.METRIC_MISSES).counter().count(), is(3.0));
+        assertThat(registry.get(QueryTemplateCache.METRIC_HITS).counter().count(), is(1.0));
+    }
+
+    private void assertTranslation(String json) throws Exception {
+        SearchStatement statement = mapper.readValue(json, SearchStatement.class);
+        String expected = statement.buildElasticSearch();
+
+        assertThat(cache.translate(statement), is(expected));
+    }
+}
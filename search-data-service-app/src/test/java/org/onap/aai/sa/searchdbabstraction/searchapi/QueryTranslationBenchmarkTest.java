@@ -0,0 +1,108 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.searchapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.lang.management.ManagementFactory;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares the time taken and the memory allocated when translating a search statement with nested fields, multi-field
+ * matches and date aggregations through the single shared syntax writer with joining a separately built string for
+ * each part of the statement, as the translation used to do.
+ */
+@Ignore("Benchmark - run manually")
+public class QueryTranslationBenchmarkTest {
+
+    private static final int ITERATIONS = 200_000;
+    private static final int WARMUP_ITERATIONS = 50_000;
+
+    private static final String STATEMENT = "{\"results-start\": 0, \"results-size\": 50,"
+            + "\"queries\": [{\"must\": {\"match\": {\"field\": \"entity.type\", \"value\": \"service-instance\"}}},"
+            + "{\"must\": {\"match\": {\"field\": \"searchTags,entityType,name\", \"value\": \"vnf 123\","
+            + "\"operator\": \"and\"}}},"
+            + "{\"may\": {\"parsed-query\": {\"field\": \"searchTags\", \"query-string\": \"edge AND tag\"}}},"
+            + "{\"must\": {\"range\": {\"field\": \"timestamp\", \"gte\": \"2017-01-01\", \"lte\": \"now\"}}},"
+            + "{\"must\": {\"not-match\": {\"field\": \"status\", \"value\": \"deleted\"}}}],"
+            + "\"filter\": {\"all\": [{\"match\": {\"field\": \"owner.name\", \"value\": \"aai\"}}]},"
+            + "\"sort\": {\"field\": \"timestamp\", \"order\": \"descending\"},"
+            + "\"aggregations\": [{\"name\": \"byDay\","
+            + "\"aggregation\": {\"date-histogram\": {\"field\": \"timestamp\","
+            + "\"interval\": \"day\", \"format\": \"yyyy-MM-dd\", \"size\": 10}}},"
+            + "{\"name\": \"byRange\", \"aggregation\": {\"date-range\": {\"field\": \"timestamp\","
+            + "\"format\": \"MM-yyyy\", \"ranges\": [{\"from\": \"now-10M/M\", \"to\": \"now\"}]}}},"
+            + "{\"name\": \"byType\", \"aggregation\": {\"group-by\": {\"field\": \"entityType\", \"size\": 5}}}]}";
+
+    @Test
+    public void compareQueryTranslation() throws Exception {
+        SearchStatement statement = new ObjectMapper().readValue(STATEMENT, SearchStatement.class);
+        System.out.printf("query size: %d chars%n", statement.toElasticSearch().length());
+
+        run("string per part", WARMUP_ITERATIONS, () -> translatePerPart(statement));
+        run("shared writer", WARMUP_ITERATIONS, statement::toElasticSearch);
+        run("string per part", ITERATIONS, () -> translatePerPart(statement));
+        run("shared writer", ITERATIONS, statement::toElasticSearch);
+    }
+
+    private void run(String name, int iterations, Translation translation) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long length = 0;
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            length += translation.translate().length();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("%-16s %8.2f us/translation %8.1f bytes allocated/translation (%d)%n", name,
+                elapsed / 1_000.0 / iterations, (double) allocated / iterations, length);
+    }
+
+    /**
+     * The previous shape of the translation: each part renders a string of its own, which is then copied into a
+     * default sized buffer for the statement.
+     */
+    private String translatePerPart(SearchStatement statement) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"version\": true,\"from\": ").append(statement.getFrom()).append(", \"size\": ")
+                .append(statement.getSize()).append(", \"query\": {\"bool\": {\"must\": [");
+        for (Query query : statement.getQueries()) {
+            sb.append(query.getQueryStatement().toElasticSearch()).append(", ");
+        }
+        sb.append("], \"filter\": ").append(statement.getFilter().toElasticSearch()).append("}}");
+        sb.append(", \"sort\": ").append(statement.getSort().toElasticSearch());
+        sb.append(", \"aggs\": {");
+        for (Aggregation aggregation : statement.getAggregations()) {
+            sb.append(aggregation.toElasticSearch()).append(",");
+        }
+        return sb.append("}}").toString();
+    }
+
+    @FunctionalInterface
+    private interface Translation {
+        String translate();
+    }
+}
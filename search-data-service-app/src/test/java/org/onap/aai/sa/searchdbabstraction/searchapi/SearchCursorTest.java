@@ -0,0 +1,77 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.searchapi;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import org.junit.Test;
+
+public class SearchCursorTest {
+
+    @Test
+    public void testFirstPage() {
+        SearchCursor cursor = SearchCursor.decode(SearchCursor.FIRST_PAGE);
+
+        assertThat(cursor.isFirstPage(), is(true));
+        assertThat(cursor.size(), is(0));
+    }
+
+    @Test
+    public void testSortValuesSurviveEncoding() {
+        String token = SearchCursor.encode(Arrays.<Object>asList("café \"x\"", 1507046400000L, 1.5, null, "doc-1"));
+        SearchCursor cursor = SearchCursor.decode(token);
+
+        assertThat(token.matches("[A-Za-z0-9_-]+"), is(true));
+        assertThat(cursor.isFirstPage(), is(false));
+        assertThat(cursor.size(), is(5));
+        assertThat(cursor.toString(), is("[\"café \\\"x\\\"\",1507046400000,1.5,null,\"doc-1\"]"));
+    }
+
+    @Test
+    public void testCursorOfAnUnsortedSearchHoldsOnlyTheTiebreaker() {
+        SearchCursor cursor = SearchCursor.decode(SearchCursor.encode(Arrays.<Object>asList("doc-7")));
+
+        assertThat(cursor.size(), is(1));
+        assertThat(cursor.toString(), is("[\"doc-7\"]"));
+    }
+
+    @Test
+    public void testInvalidTokensAreRejected() {
+        for (String token : new String[] {null, "", "not a cursor", encode("{\"a\":1}"), encode("[]"),
+                encode("[[1],\"id\"]"), encode("[1,")}) {
+            try {
+                SearchCursor.decode(token);
+                fail("Expected the cursor to be rejected: " + token);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
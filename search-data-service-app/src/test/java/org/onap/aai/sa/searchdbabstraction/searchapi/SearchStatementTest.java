@@ -28,9 +28,11 @@ import static org.junit.Assert.fail;
 
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import org.junit.Test;
 import org.onap.aai.sa.rest.TestUtils;
 
@@ -208,4 +210,81 @@ public class SearchStatementTest {
         assertTrue("Unexpected elastic search query generated from search statement",
                 ss.toElasticSearch().equals(queryWithSubrangeExpectedESString));
     }
+
+    @Test
+    public void valuesAreEscapedTest() throws IOException {
+        String queryJson = "{\"queries\": ["
+                + "{\"must\": {\"match\": {\"field\": \"a\\\"b\", \"value\": \"x\\\"}, \\\\y\\n\"}}},"
+                + "{\"may\": {\"parsed-query\": {\"field\": \"tags\", \"query-string\": \"\\\"q\\\" \\t\"}}}],"
+                + "\"sort\": {\"field\": \"na\\\"me\"}}";
+
+        ObjectMapper mapper = new ObjectMapper();
+        SearchStatement ss = mapper.readValue(queryJson, SearchStatement.class);
+        JsonNode es = mapper.readTree(ss.toElasticSearch());
+
+        JsonNode term = es.get("query").get("bool").get("must").get(0).get("term");
+        assertEquals("x\"}, \\y\n", term.get("a\"b").asText());
+        assertEquals("\"q\" \t",
+                es.get("query").get("bool").get("should").get(0).get("query_string").get("query").asText());
+        assertEquals("asc", es.get("sort").get("na\"me").get("order").asText());
+    }
+
+    @Test
+    public void cursorFirstPageTest() throws IOException {
+        String queryJson = "{\"queries\": [{\"must\": {\"match\": {\"field\": \"f\", \"value\": \"v\"}}}],"
+                + "\"sort\": [{\"field\": \"date\", \"order\": \"descending\"}, {\"field\": \"name\"}],"
+                + "\"results-size\": 10, \"cursor\": \"*\"}";
+
+        SearchStatement ss = new ObjectMapper().readValue(queryJson, SearchStatement.class);
+        ss.validateCursor();
+
+        assertEquals("{\"version\": true,\"size\": 10, \"query\": {\"bool\": {\"must\": [{\"term\": {\"f\" : \"v\"}}], "
+                + "\"should\": [],\"must_not\": []}}, \"sort\": [{ \"date\": { \"order\": \"desc\"}}, "
+                + "{ \"name\": { \"order\": \"asc\"}}, { \"_id\": { \"order\": \"asc\"}}]}", ss.toElasticSearch());
+    }
+
+    @Test
+    public void cursorNextPageTest() throws IOException {
+        String cursor = SearchCursor.encode(Arrays.<Object>asList(1507046400000L, "doc-7"));
+        String queryJson = "{\"queries\": [{\"must\": {\"match\": {\"field\": \"f\", \"value\": \"v\"}}}],"
+                + "\"sort\": {\"field\": \"date\"}, \"cursor\": \"" + cursor + "\"}";
+
+        SearchStatement ss = new ObjectMapper().readValue(queryJson, SearchStatement.class);
+        ss.validateCursor();
+
+        assertTrue(ss.toElasticSearch().endsWith(", \"sort\": [{ \"date\": { \"order\": \"asc\"}}, "
+                + "{ \"_id\": { \"order\": \"asc\"}}], \"search_after\": [1507046400000,\"doc-7\"]}"));
+    }
+
+    @Test
+    public void cursorWithoutSortTest() throws IOException {
+        String queryJson = "{\"queries\": [], \"cursor\": \"*\"}";
+
+        SearchStatement ss = new ObjectMapper().readValue(queryJson, SearchStatement.class);
+
+        assertTrue(ss.toElasticSearch().endsWith(", \"sort\": [{ \"_id\": { \"order\": \"asc\"}}]}"));
+
+        // Without a sort the cursor of the next page holds only the tiebreaker.
+        String cursor = SearchCursor.encode(Arrays.<Object>asList("doc-7"));
+        ss = new ObjectMapper().readValue("{\"queries\": [], \"cursor\": \"" + cursor + "\"}", SearchStatement.class);
+        ss.validateCursor();
+
+        assertTrue(ss.toElasticSearch().endsWith(", \"search_after\": [\"doc-7\"]}"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cursorWithResultsStartTest() throws IOException {
+        String queryJson = "{\"queries\": [], \"results-start\": 20, \"cursor\": \"*\"}";
+
+        new ObjectMapper().readValue(queryJson, SearchStatement.class).validateCursor();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cursorForAnotherSortTest() throws IOException {
+        String cursor = SearchCursor.encode(Arrays.<Object>asList(1507046400000L, "doc-7"));
+        String queryJson = "{\"queries\": [], \"sort\": [{\"field\": \"a\"}, {\"field\": \"b\"}], "
+                + "\"cursor\": \"" + cursor + "\"}";
+
+        new ObjectMapper().readValue(queryJson, SearchStatement.class).validateCursor();
+    }
 }
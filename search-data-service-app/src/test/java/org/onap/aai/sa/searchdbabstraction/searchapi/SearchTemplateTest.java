@@ -0,0 +1,154 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.searchapi;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+public class SearchTemplateTest {
+
+    private static final String TEMPLATE = "{\"parameters\": {\"type\": \"string\", \"count\": \"integer\","
+            + " \"from\": \"string\", \"score\": \"number\", \"size\": \"integer\"},"
+            + " \"statement\": {\"results-size\": \"{{size}}\","
+            + " \"queries\": [{\"must\": {\"match\": {\"field\": \"entityType\", \"value\": \"{{type}}\"}}},"
+            + " {\"must\": {\"match\": {\"field\": \"count\", \"value\": \"{{count}}\"}}},"
+            + " {\"must\": {\"match\": {\"field\": \"tier\", \"value\": \"gold\"}}},"
+            + " {\"must\": {\"range\": {\"field\": \"a.timestamp\", \"gte\": \"{{from}}\", \"lt\": \"now\"}}},"
+            + " {\"must\": {\"range\": {\"field\": \"score\", \"gt\": \"{{score}}\"}}}],"
+            + " \"filter\": {\"any\": [{\"not-match\": {\"field\": \"status\", \"value\": \"{{type}}\"}}]}}}";
+
+    private static final String STATEMENT = "{\"results-size\": %d,"
+            + " \"queries\": [{\"must\": {\"match\": {\"field\": \"entityType\", \"value\": \"%s\"}}},"
+            + " {\"must\": {\"match\": {\"field\": \"count\", \"value\": %d}}},"
+            + " {\"must\": {\"match\": {\"field\": \"tier\", \"value\": \"gold\"}}},"
+            + " {\"must\": {\"range\": {\"field\": \"a.timestamp\", \"gte\": \"%s\", \"lt\": \"now\"}}},"
+            + " {\"must\": {\"range\": {\"field\": \"score\", \"gt\": %s}}}],"
+            + " \"filter\": {\"any\": [{\"not-match\": {\"field\": \"status\", \"value\": \"%s\"}}]}}";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void testBoundTemplateMatchesTheEquivalentStatement() throws Exception {
+        SearchTemplate template = SearchTemplate.compile(mapper.readTree(TEMPLATE));
+
+        assertThat(template.bind(params("{\"type\": \"pserver\", \"count\": 3, \"from\": \"2018-01-01\","
+                + " \"score\": 1.5, \"size\": 10}")),
+                is(translate(String.format(STATEMENT, 10, "pserver", 3, "2018-01-01", "1.5", "pserver"))));
+        assertThat(template.bind(params("{\"type\": \"vserver\", \"count\": 1999999000, \"from\": \"now-1d\","
+                + " \"score\": 2, \"size\": 50}")),
+                is(translate(String.format(STATEMENT, 50, "vserver", 1999999000, "now-1d", "2", "vserver"))));
+    }
+
+    @Test
+    public void testNumbersInTheStatementAreNotMistakenForParameters() throws Exception {
+        SearchTemplate template = SearchTemplate.compile(mapper.readTree("{\"parameters\": {\"n\": \"integer\"},"
+                + " \"statement\": {\"queries\": [{\"must\": {\"match\": {\"field\": \"a\", \"value\": 1999999000}}},"
+                + " {\"must\": {\"match\": {\"field\": \"b\", \"value\": \"{{n}}\"}}}]}}"));
+
+        assertThat(template.bind(params("{\"n\": 7}")),
+                is(translate("{\"queries\": [{\"must\": {\"match\": {\"field\": \"a\", \"value\": 1999999000}}},"
+                        + " {\"must\": {\"match\": {\"field\": \"b\", \"value\": 7}}}]}")));
+    }
+
+    @Test
+    public void testStringValuesAreEscaped() throws Exception {
+        SearchTemplate template = SearchTemplate.compile(mapper.readTree("{\"parameters\": {\"q\": \"string\"},"
+                + " \"statement\": {\"queries\": [{\"may\": {\"parsed-query\": {\"field\": \"tags\","
+                + " \"query-string\": \"{{q}}\"}}}]}}"));
+
+        String query = template.bind(params("{\"q\": \"a\\\"b\\\\c\"}"));
+
+        assertThat(query, containsString("\"query\": \"a\\\"b\\\\c\""));
+        assertThat(mapper.readTree(query).isObject(), is(true));
+    }
+
+    @Test
+    public void testTemplateWithoutParameters() throws Exception {
+        String statement = "{\"queries\": [{\"must\": {\"match\": {\"field\": \"a\", \"value\": \"x\"}}}]}";
+        SearchTemplate template = SearchTemplate.compile(mapper.readTree("{\"statement\": " + statement + "}"));
+
+        assertThat(template.bind(null), is(translate(statement)));
+        assertThat(template.bind(params("{}")), is(translate(statement)));
+    }
+
+    @Test
+    public void testInvalidTemplatesAreRejected() throws Exception {
+        assertRejected("{\"parameters\": {}}", "must contain a statement");
+        assertRejected("{\"parameters\": {\"a\": \"date\"}, \"statement\": {}}", "must have a type");
+        assertRejected("{\"statement\": {\"queries\": [{\"must\": {\"match\": {\"field\": \"a\","
+                + " \"value\": \"{{a}}\"}}}]}}", "Undeclared parameter: a");
+        assertRejected("{\"parameters\": {\"a\": \"string\"}, \"statement\": {\"queries\": [{\"must\": {\"match\":"
+                + " {\"field\": \"a\", \"value\": \"x\"}}}]}}", "not used");
+        assertRejected("{\"parameters\": {\"a\": \"string\"}, \"statement\": {\"queries\": [{\"must\": {\"match\":"
+                + " {\"field\": \"a\", \"value\": \"x\"}}}], \"sort\": {\"field\": \"{{a}}\"}}}",
+                "only a fixed value");
+        assertRejected("{\"parameters\": {\"a\": \"string\"}, \"statement\": {\"results-size\": \"{{a}}\","
+                + " \"queries\": []}}", "Invalid search statement");
+        assertRejected("{\"parameters\": {\"a\": \"string\"}, \"statement\": {\"queries\": [{\"must\": {\"range\":"
+                + " {\"field\": \"a\", \"gt\": \"{{a}}\", \"lt\": 5}}}]}}", "Invalid search statement");
+    }
+
+    @Test
+    public void testInvalidParameterValuesAreRejected() throws Exception {
+        SearchTemplate template = SearchTemplate.compile(mapper.readTree(TEMPLATE));
+        String valid = "\"type\": \"pserver\", \"count\": 3, \"from\": \"now\", \"score\": 1";
+
+        assertBindRejected(template, "{" + valid + "}", "Missing parameter: size");
+        assertBindRejected(template, "{" + valid + ", \"size\": 1, \"other\": 1}", "Unknown parameter: other");
+        assertBindRejected(template, "{" + valid + ", \"size\": \"1\"}", "must be an integer");
+        assertBindRejected(template, "{" + valid + ", \"size\": 1.5}", "must be an integer");
+        assertBindRejected(template, "{" + valid + ", \"size\": 10000000000}", "must be an integer");
+        assertBindRejected(template, "[1]", "must be a JSON object");
+    }
+
+    private JsonNode params(String json) throws Exception {
+        return mapper.readTree(json);
+    }
+
+    private String translate(String statement) throws Exception {
+        SearchStatement searchStatement = mapper.readValue(statement, SearchStatement.class);
+        return searchStatement.buildElasticSearch();
+    }
+
+    private void assertRejected(String template, String message) throws Exception {
+        try {
+            SearchTemplate.compile(mapper.readTree(template));
+            fail("Expected the template to be rejected: " + template);
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString(message));
+        }
+    }
+
+    private void assertBindRejected(SearchTemplate template, String values, String message) throws Exception {
+        try {
+            template.bind(params(values));
+            fail("Expected the parameter values to be rejected: " + values);
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString(message));
+        }
+    }
+}
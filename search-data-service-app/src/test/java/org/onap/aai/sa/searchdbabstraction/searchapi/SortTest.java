@@ -20,6 +20,7 @@
  */
 package org.onap.aai.sa.searchdbabstraction.searchapi;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import com.fasterxml.jackson.core.JsonParseException;
@@ -46,4 +47,29 @@ public class SortTest {
                 order.equals(sort.getOrder().toString()));
 
     }
+
+    @Test
+    public void multipleSortFieldsTest() throws IOException {
+        String json = "[{\"field\": \"lastName\", \"order\": \"descending\"}, {\"field\": \"firstName\"}]";
+
+        Sort sort = new ObjectMapper().readValue(json, Sort.class);
+
+        assertEquals(2, sort.getCriteria().size());
+        assertEquals("lastName", sort.getCriteria().get(0).getField());
+        assertEquals("[{ \"lastName\": { \"order\": \"desc\"}}, { \"firstName\": { \"order\": \"asc\"}}]",
+                sort.toElasticSearch());
+    }
+
+    @Test
+    public void singleSortFieldTest() throws IOException {
+        Sort sort = new ObjectMapper().readValue("{\"field\": \"lastName\"}", Sort.class);
+
+        assertEquals(1, sort.getCriteria().size());
+        assertEquals("{ \"lastName\": { \"order\": \"asc\"}}", sort.toElasticSearch());
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void emptySortTest() throws IOException {
+        new ObjectMapper().readValue("[]", Sort.class);
+    }
 }
@@ -0,0 +1,51 @@
+/**
+ * ============LICENSE_START=======================================================
+ * org.onap.aai
+ * ================================================================================
+ * Copyright © 2017-2018 AT&T Intellectual Property. All rights reserved.
+ * Copyright © 2017-2018 Amdocs
+ * ================================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ============LICENSE_END=========================================================
+ */
+package org.onap.aai.sa.searchdbabstraction.searchapi;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class SyntaxWriterTest {
+
+    @Test
+    public void testPlainTextIsNotChanged() {
+        assertThat(SyntaxWriter.escape("searchTags.tag-1 /x"), is("searchTags.tag-1 /x"));
+        assertThat(SyntaxWriter.escape(""), is(""));
+    }
+
+    @Test
+    public void testQuotesBackslashesAndControlCharactersAreEscaped() {
+        assertThat(SyntaxWriter.escape("a\"b\\c"), is("a\\\"b\\\\c"));
+        assertThat(SyntaxWriter.escape("\n\r\t"), is("\\n\\r\\t"));
+        assertThat(SyntaxWriter.escape("x\u0001\u001fy"), is("x\\u0001\\u001fy"));
+        assertThat(SyntaxWriter.escape("é﷐"), is("é﷐"));
+    }
+
+    @Test
+    public void testRawTextIsWrittenAsItIsAndValuesAreQuoted() {
+        String written = new SyntaxWriter().raw("{").quoted("field").raw(": ").quoted("say \"hi\"").raw(", ")
+                .quoted("count").raw(": ").value(3).raw("}").toString();
+
+        assertThat(written, is("{\"field\": \"say \\\"hi\\\"\", \"count\": 3}"));
+    }
+}
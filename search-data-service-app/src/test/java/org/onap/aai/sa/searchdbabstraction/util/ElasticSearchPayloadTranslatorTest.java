@@ -20,22 +20,47 @@
  */
 package org.onap.aai.sa.searchdbabstraction.util;
 
+import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 public class ElasticSearchPayloadTranslatorTest {
 
     private final String SIMPLE_DOC_SCHEMA_JSON = "src/test/resources/json/index-mapping.json";
+    private static final String TEXT_RULE =
+            "{\"attr-translations\":[{\"query\":\"$..[?(@.type=='string')]\",\"update\":{\"type\":\"text\"}}]}";
+    private static final String KEYWORD_RULE =
+            "{\"attr-translations\":[{\"query\":\"$..[?(@.type=='string')]\",\"update\":{\"type\":\"keyword\"}}]}";
+
+    private Path configDirectory;
+    private ElasticSearchPayloadTranslator translator;
 
     @Before
     public void setup() throws Exception {
         System.setProperty("CONFIG_HOME", System.getProperty("user.dir") + File.separator + "src/test/resources/json");
+        configDirectory = Files.createTempDirectory("payload-translation");
+        translator = new ElasticSearchPayloadTranslator(configDirectory.resolve("es-payload-translation.json"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        translator.close();
+        FileUtils.deleteDirectory(configDirectory.toFile());
     }
 
     @Test
@@ -52,4 +77,77 @@ public class ElasticSearchPayloadTranslatorTest {
         assertFalse(documentJson.contains("\"index\":\"analyzed\""));
         assertTrue(translatedPayload.contains("\"errMsg\":\"" + expectedErrMsg + "\""));
     }
+
+    @Test
+    public void testRulesAreAppliedToEveryMatchingObject() throws Exception {
+        writeConfig("{\"attr-translations\":["
+                + "{\"query\":\"$..[?(@.type=='string' && @.index=='analyzed')]\",\"update\":{\"type\":\"text\"}},"
+                + "{\"query\":\"$..[?(@.type=='string' && !@.index)]\",\"update\":{\"type\":\"keyword\"}},"
+                + "{\"query\":\"$..[?(@.type=='text')]\",\"update\":{\"fielddata\":true}},"
+                + "{\"query\":\"$..[?(@.boost==2)]\",\"update\":{\"boost\":3}}]}");
+
+        String translated = translator.translate("{\"a\":{\"type\":\"string\",\"index\":\"analyzed\"},"
+                + "\"b\":[{\"type\":\"string\"},{\"type\":\"date\",\"boost\":2.0}],"
+                + "\"c\":{\"type\":\"string\",\"index\":1}}");
+
+        assertThat(translated, is("{\"a\":{\"type\":\"text\",\"index\":\"analyzed\",\"fielddata\":true},"
+                + "\"b\":[{\"type\":\"keyword\"},{\"type\":\"date\",\"boost\":3}],"
+                + "\"c\":{\"type\":\"string\",\"index\":1}}"));
+    }
+
+    @Test
+    public void testOtherQueriesAreEvaluatedWithJsonPath() throws Exception {
+        writeConfig("{\"attr-translations\":"
+                + "[{\"query\":\"$.fields[?(@.type=='string')]\",\"update\":{\"type\":\"text\"}}]}");
+
+        String translated =
+                translator.translate("{\"fields\":[{\"type\":\"string\"}],\"other\":{\"type\":\"string\"}}");
+
+        assertThat(translated, is("{\"fields\":[{\"type\":\"text\"}],\"other\":{\"type\":\"string\"}}"));
+    }
+
+    @Test
+    public void testMissingConfigurationIsReadOnceItExists() throws Exception {
+        try {
+            translator.translate("{}");
+            fail("Expected the missing configuration to be reported");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("Please check if it exists"));
+        }
+
+        writeConfig(TEXT_RULE);
+        assertThat(translator.translate("{\"type\":\"string\"}"), is("{\"type\":\"text\"}"));
+    }
+
+    @Test
+    public void testChangedConfigurationIsReloaded() throws Exception {
+        writeConfig(TEXT_RULE);
+        assertThat(translator.translate("{\"type\":\"string\"}"), is("{\"type\":\"text\"}"));
+
+        writeConfig(KEYWORD_RULE);
+
+        long deadline = System.currentTimeMillis() + 30000;
+        while (!"{\"type\":\"keyword\"}".equals(translator.translate("{\"type\":\"string\"}"))) {
+            assertTrue("The changed configuration was not reloaded", System.currentTimeMillis() < deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    public void testCorruptedConfigurationKeepsThePreviousRules() throws Exception {
+        writeConfig(TEXT_RULE);
+        assertThat(translator.translate("{\"type\":\"string\"}"), is("{\"type\":\"text\"}"));
+
+        writeConfig("{\"attr-translations\": [");
+        Thread.sleep(500);
+
+        assertThat(translator.translate("{\"type\":\"string\"}"), is("{\"type\":\"text\"}"));
+    }
+
+    private void writeConfig(String config) throws IOException {
+        Path temp = Files.createTempFile(configDirectory, "config", ".tmp");
+        Files.write(temp, config.getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, configDirectory.resolve("es-payload-translation.json"), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
 }